@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.initializer;
+
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.SimulationController;
+import com.chrisali.javaflightsim.server.SimulationServer;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.flightcontrols.SimEvents;
+import com.chrisali.javaflightsim.simulation.network.TelemetrySender;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+
+/**
+ * Controls a headless simulation, which runs without the OTW display, Swing GUI or input devices, so that none of their classes are 
+ * loaded. Flight data can be broadcast over UDP by a {@link TelemetrySender}, and the simulation can be controlled remotely through a 
+ * {@link SimulationServer}. Plotting and the raw data console are not available in this mode
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class HeadlessSimulationController implements SimulationController {
+	
+	//Logging
+	private static final Logger logger = LogManager.getLogger(HeadlessSimulationController.class);
+	
+	// Configuration
+	private SimulationConfiguration configuration;
+	
+	// Simulation and Threads
+	private SimulationRunner runner;
+	private Thread runnerThread;
+	private boolean paused = false;
+	
+	/**
+	 * @param configuration configuration of the simulation
+	 */
+	public HeadlessSimulationController(SimulationConfiguration configuration) {
+		this.configuration = configuration;
+	}
+
+	@Override
+	public synchronized SimulationConfiguration getConfiguration() { return configuration; }
+	
+	/**
+	 * Replaces the configuration used by the next simulation started
+	 * 
+	 * @param configuration
+	 * @throws IllegalStateException if a simulation is running
+	 */
+	public synchronized void setConfiguration(SimulationConfiguration configuration) {
+		if (isRunning())
+			throw new IllegalStateException("Cannot change configuration while the simulation is running");
+		
+		this.configuration = configuration;
+	}
+	
+	/**
+	 * Trims the aircraft, without saving the trim to file, and starts a headless simulation runner thread. Any pause or reset 
+	 * left in the configuration by a previous simulation is cleared 
+	 */
+	@Override
+	public synchronized void startSimulation() {
+		if (isRunning()) {
+			logger.warn("Simulation is already running! Please wait until it has finished");
+			return;
+		}
+		
+		logger.debug("Starting simulation...");
+		
+		configuration.getSimulationOptions().remove(Options.PAUSED);
+		configuration.getSimulationOptions().remove(Options.RESET);
+		
+		logger.debug("Trimming aircraft...");
+		Trimming.trimAircraft(new SimulationContext(configuration));
+		
+		logger.debug("Initializing simulation runner...");
+		runner = new SimulationRunner(this, true);
+		
+		logger.debug("Initializaing and starting simulation runner thread...");
+		runnerThread = new Thread(runner, "Simulation Runner");
+		runnerThread.start();
+		
+		paused = false;
+	}
+
+	/**
+	 * Stops the simulation runner thread and waits for it to finish, so that any network channels are closed
+	 */
+	@Override
+	public void stopSimulation() {
+		Thread stoppedThread;
+		
+		synchronized (this) {
+			if (runner == null)
+				return;
+			
+			logger.debug("Stopping simulation...");
+			
+			runner.setRunning(false);
+			stoppedThread = runnerThread;
+		}
+		
+		// The runner may stop itself through its SimEvents
+		if (Thread.currentThread() == stoppedThread)
+			return;
+		
+		try {
+			stoppedThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Pauses the simulation before its next step, if it is running
+	 */
+	public synchronized void pauseSimulation() {
+		setPaused(true);
+	}
+	
+	/**
+	 * Resumes the simulation before its next step, if it is running
+	 */
+	public synchronized void resumeSimulation() {
+		setPaused(false);
+	}
+	
+	/**
+	 * Pauses the simulation, if not already paused, and resets it back to its initial conditions. The simulation remains paused
+	 */
+	public synchronized void resetSimulation() {
+		if (!setPaused(true))
+			return;
+		
+		SimEvents simEvents = runner.getContext().getSimEvents();
+		runner.submit(() -> {
+			simEvents.resetSimulation(true);
+			simEvents.resetSimulation(false);
+		});
+	}
+	
+	/**
+	 * Rewinds the simulation to the newest snapshot captured at least seconds of flight time ago, if it is running
+	 * 
+	 * @param seconds flight time to rewind (sec)
+	 */
+	public synchronized void rewindSimulation(double seconds) {
+		if (isRunning())
+			runner.rewind(seconds);
+	}
+	
+	/**
+	 * Pauses or resumes the simulation on the runner thread by pressing and releasing pause, which toggles between paused 
+	 * and running, only if it is not already in that state by the time the command runs
+	 * 
+	 * @param paused
+	 * @return if a simulation is running
+	 */
+	private boolean setPaused(boolean paused) {
+		if (!isRunning())
+			return false;
+		
+		Set<Options> options = runner.getContext().getConfiguration().getSimulationOptions();
+		SimEvents simEvents = runner.getContext().getSimEvents();
+		runner.submit(() -> {
+			if (options.contains(Options.PAUSED) != paused) {
+				simEvents.pauseUnpauseSimulation(true);
+				simEvents.pauseUnpauseSimulation(false);
+			}
+		});
+		
+		this.paused = paused;
+		
+		return true;
+	}
+	
+	/**
+	 * @return if a simulation is running
+	 */
+	public synchronized boolean isRunning() { return runner != null && runnerThread.isAlive(); }
+	
+	/**
+	 * @return if the simulation is paused, or will be once commands already submitted to its runner have run
+	 */
+	public synchronized boolean isPaused() { return isRunning() && paused; }
+	
+	@Override
+	public void plotSimulation() {
+		logger.warn("Plotting is not available in headless mode");
+	}
+
+	@Override
+	public void initializeConsole() {
+		logger.warn("Raw data console is not available in headless mode");
+	}
+
+	@Override
+	public boolean isPlotWindowVisible() { return false; }
+	
+	/**
+	 * @return runner of the current or last simulation, or null if none has been started
+	 */
+	public synchronized SimulationRunner getRunner() { return runner; }
+}
@@ -3,12 +3,22 @@
  */
 package com.chrisali.javaflightsim.initializer;
 
+import java.io.File;
+import java.net.InetSocketAddress;
+
 import javax.swing.SwingUtilities;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.server.SimulationServer;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.setup.NetworkConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.trim.TrimEnvelope;
+import com.chrisali.javaflightsim.simulation.trim.TrimSweep;
+import com.chrisali.javaflightsim.simulation.trim.TrimTable;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
@@ -23,10 +33,12 @@ public class Initializer {
 	public static final Logger logger = LogManager.getLogger(Initializer.class);
 	
 	/**
-	 * Selects an appropriate initialization process based on the the RunDisplayMode enum read/parsed in ______
-	 * and then run the application
+	 * Selects an appropriate initialization process based on the the RunDisplayMode enum parsed from the first command line argument
+	 * (for example, NETWORK), defaulting to LWJGL_SWING, and then run the application
+	 * 
+	 * @param args command line arguments
 	 */
-	public static void selectRunConfigurationAndRun() {
+	public static void selectRunConfigurationAndRun(String[] args) {
 		
 		logger.debug("Configuring simulation options...");
 		
@@ -42,9 +54,16 @@ public class Initializer {
 			return;
 		}
 		
-		// Temporarily set mode to LWJGL Swing mode until parse method is decided
 		RunDisplayMode mode = RunDisplayMode.LWJGL_SWING;
 		
+		if (args != null && args.length > 0) {
+			try {
+				mode = RunDisplayMode.valueOf(args[0].trim().toUpperCase());
+			} catch (IllegalArgumentException e) {
+				logger.error("Unknown run mode " + args[0] + ", defaulting to Swing with LWJGL!");
+			}
+		}
+		
 		switch (mode) {
 		case LWJGL_SWING:
 			logger.debug(mode.toString() + " selected");
@@ -62,6 +81,14 @@ public class Initializer {
 			logger.debug(mode.toString() + " selected");
 			runNetworkApp(configuration);
 			break;
+		case HEADLESS:
+			logger.debug(mode.toString() + " selected");
+			runHeadlessApp(configuration, args);
+			break;
+		case TRIM_SWEEP:
+			logger.debug(mode.toString() + " selected");
+			runTrimSweep(configuration);
+			break;
 		default:
 			logger.error("Invalid run mode selected, defaulting to Swing with LWJGL!");
 			runSwingLWJGLApp(configuration);
@@ -126,12 +153,76 @@ public class Initializer {
 	}
 	
 	/**
-	 * To be implemented later; initializes network adapter for UDP packet transmission
+	 * Initializes {@link HeadlessSimulationController} and starts a headless simulation that broadcasts flight data over UDP, 
+	 * which runs until the application is shut down
 	 * 
 	 * @param configuration
 	 */
 	private static void runNetworkApp(SimulationConfiguration configuration) {
-		logger.fatal("This mode is not implemented yet!");
-		return;
+		try {
+			configuration.getSimulationOptions().add(Options.NETWORK_TELEMETRY);
+			
+			HeadlessSimulationController controller = new HeadlessSimulationController(configuration);
+			
+			Runtime.getRuntime().addShutdownHook(new Thread(controller::stopSimulation));
+			
+			controller.startSimulation();
+		} catch (Exception e) {
+			logger.fatal("Error setting up network simulation: ", e);
+			
+			return;
+		}
+	}
+	
+	/**
+	 * Initializes {@link HeadlessSimulationController} and a {@link SimulationServer} through which simulations are configured, 
+	 * started and stopped, and their flight data streamed. The server listens on the port given by the second command line argument 
+	 * (for example, HEADLESS 8090), or else the port in {@link NetworkConfiguration}, until the application is shut down
+	 * 
+	 * @param configuration
+	 * @param args command line arguments
+	 */
+	private static void runHeadlessApp(SimulationConfiguration configuration, String[] args) {
+		try {
+			NetworkConfiguration networkConfiguration = configuration.getNetworkConfiguration();
+			int port = (args.length > 1) ? Integer.parseInt(args[1].trim()) : networkConfiguration.getServerPort();
+			
+			HeadlessSimulationController controller = new HeadlessSimulationController(configuration);
+			SimulationServer server = new SimulationServer(controller, 
+														   new InetSocketAddress(networkConfiguration.getServerAddress(), port));
+			
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				server.close();
+				controller.stopSimulation();
+			}));
+			
+			server.start();
+		} catch (Exception e) {
+			logger.fatal("Error setting up headless simulation server: ", e);
+			
+			return;
+		}
+	}
+	
+	/**
+	 * Sweeps the default {@link TrimEnvelope} of the selected aircraft with a {@link TrimSweep}, and saves the resulting {@link TrimTable} 
+	 * to the TrimTables directory, from which the aircraft's trim is interpolated when simulations start
+	 * 
+	 * @param configuration
+	 */
+	private static void runTrimSweep(SimulationConfiguration configuration) {
+		try {
+			Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+			TrimTable table = new TrimSweep(configuration, TrimEnvelope.forAircraft(aircraft)).run();
+			
+			File file = TrimTable.getTableFile(aircraft.getName());
+			table.write(file);
+			
+			logger.info("Saved trim table to " + file.getAbsolutePath());
+		} catch (Exception e) {
+			logger.fatal("Error sweeping trim envelope: ", e);
+			
+			return;
+		}
 	}
 }
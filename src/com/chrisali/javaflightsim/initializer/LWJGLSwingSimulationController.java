@@ -22,7 +22,6 @@ package com.chrisali.javaflightsim.initializer;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -30,14 +29,21 @@ import org.apache.logging.log4j.Logger;
 import com.chrisali.javaflightsim.interfaces.SimulationController;
 import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.export.CSVExporter;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
-import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecording;
+import com.chrisali.javaflightsim.simulation.recorder.FlightReplay;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.Trimming;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.swing.GuiFrame;
 import com.chrisali.javaflightsim.swing.consoletable.ConsoleTablePanel;
 import com.chrisali.javaflightsim.swing.plotting.PlotWindow;
+import com.chrisali.javaflightsim.swing.replay.ReplayControlWindow;
 
 /**
  * Controls the configuration and running of processes supporting the simulation component of JavaFlightSim. This consists of: 
@@ -46,6 +52,7 @@ import com.chrisali.javaflightsim.swing.plotting.PlotWindow;
  * <p>Initializing the Swing GUI menus</p>
  * <p>Plotting of the simulation states and data ({@link PlotWindow})</p>
  * <p>Raw data display of simulation states ({@link ConsoleTablePanel})</p>
+ * <p>Replay of recorded flights ({@link FlightReplay}) controlled by a {@link ReplayControlWindow}</p>
  * 
  * @author Christopher Ali
  *
@@ -65,11 +72,15 @@ public class LWJGLSwingSimulationController implements SimulationController {
 	// Menus and Integrated Simulation Window
 	private GuiFrame guiFrame;
 	
-	// Plotting
+	// Plotting; outside of analysis mode, only the most recent part of the history is plotted
+	private static final double PLOTTED_HISTORY_SEC = 100.0;
 	private PlotWindow plotWindow;
 	
 	// Raw Data Console
 	private ConsoleTablePanel consoleTablePanel;
+	
+	// Replay Controls
+	private ReplayControlWindow replayControlWindow;
 		
 	/**
 	 * Initializes initial settings, configurations and conditions to be edited through menu options
@@ -115,9 +126,40 @@ public class LWJGLSwingSimulationController implements SimulationController {
 		runnerThread.start();
 	}
 	
+	/**
+	 * Initializes and starts a replay of a recorded flight, which drives the out the window display (and raw data console, if selected) 
+	 * in place of the simulation, and opens a {@link ReplayControlWindow} to control the replay 
+	 * 
+	 * @param segmentFile any segment file of the recording to replay
+	 * @throws IOException if the recording could not be read
+	 */
+	public void startReplay(File segmentFile) throws IOException {
+		if (runner != null && runner.isRunning()) {
+			logger.warn("Simulation is already running! Please wait until it has finished");
+			return;
+		}
+		
+		FlightRecording recording = FlightRecording.open(segmentFile);
+		
+		configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft(recording.getHeader().getAircraftName());
+		
+		logger.debug("Initializing replay of " + segmentFile.getName() + "...");
+		runner = new SimulationRunner(this, recording);
+		
+		logger.debug("Initializaing and starting simulation runner thread...");
+		runnerThread = new Thread(runner);
+		runnerThread.start();
+		
+		if (replayControlWindow != null)
+			replayControlWindow.setVisible(false);
+		
+		replayControlWindow = new ReplayControlWindow(this, runner.getReplay());
+	}
+	
 	/**
 	 * Stops simulation and data transfer threads (if running), closes the raw data {@link ConsoleTablePanel},
-	 * {@link SimulationWindow}, and opens the main menus window again
+	 * {@link SimulationWindow}, replay controls, and opens the main menus window again
 	 */
 	@Override
 	public void stopSimulation() {
@@ -125,23 +167,41 @@ public class LWJGLSwingSimulationController implements SimulationController {
 
 		runner.setRunning(false);	
 		
+		if (replayControlWindow != null)
+			replayControlWindow.setVisible(false);
+		
 		logger.debug("Returning to menus...");
 		guiFrame.setVisible(true);
 	}
 	
 	/**
-	 * @return ArrayList of simulation output data 
+	 * @return simulation output data of the most recent {@link LWJGLSwingSimulationController#PLOTTED_HISTORY_SEC}, or of the whole 
+	 * run in analysis mode
 	 * @see SimOuts
 	 */
-	public List<Map<SimOuts, Double>> getLogsOut() {
-		return (runner != null && runner.isRunning()) ? runner.getSimulation().getLogsOut() : null;
+	public List<SimOutFrame> getLogsOut() {
+		if (runner == null || !runner.isRunning())
+			return null;
+		
+		SimOutHistory history = runner.getSource().getHistory();
+		if (configuration.getSimulationOptions().contains(Options.ANALYSIS_MODE))
+			return history.snapshot();
+		
+		long plottedFrames = (long) Math.ceil(PLOTTED_HISTORY_SEC / configuration.getIntegratorConfig().get(IntegratorConfig.DT));
+		
+		return history.snapshot(history.getNextSequence() - plottedFrames, Long.MAX_VALUE);
 	}
 	
 	/**
 	 * @return if simulation was able to clear data kept in logsOut
 	 */
 	public boolean clearLogsOut() {
-		return (runner != null && runner.isRunning()) ? runner.getSimulation().clearLogsOut() : false;
+		if (runner == null || !runner.isRunning())
+			return false;
+		
+		runner.getSource().getHistory().clear();
+		
+		return true;
 	}
 		
 	//=============================== Plotting =============================================================
@@ -213,7 +273,7 @@ public class LWJGLSwingSimulationController implements SimulationController {
 		logger.debug("Saving console output to: " + file.getAbsolutePath());
 		
 		try {			
-			FileUtilities.saveToCSVFile(file, runner.getSimulation().getLogsOut());
+			new CSVExporter().export(runner.getSource().getHistory(), file);
 		} catch (Exception e) {
 			logger.error("An error occurred while saving console output!", e);
 		}
@@ -15,4 +15,9 @@ public interface OTWWorld extends Steppable {
 	 * Initializes all assets and rendering processes for the OTW engine
 	 */
 	public void init();
+	
+	/**
+	 * Stops all rendering processes for the OTW engine and closes its display
+	 */
+	public void stop();
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.interfaces;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.recorder.FlightReplay;
+
+/**
+ * Source of {@link SimOutFrame} outputs that drives {@link FlightData} and its listeners, as well as the raw data console and plots. 
+ * Outputs come either from the 6DOF equations being integrated by {@link Integrate6DOFEquations}, or from a recorded flight being 
+ * played back by {@link FlightReplay}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public interface SimOutSource {
+	
+	/**
+	 * @return frame holding the latest outputs of the source; overwritten in place as the source is step updated
+	 */
+	public SimOutFrame getSimOut();
+	
+	/**
+	 * @return history of the frames output by the source
+	 */
+	public SimOutHistory getHistory();
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.interfaces;
+
+import java.nio.ByteBuffer;
+
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshot;
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshotter;
+
+/**
+ * Objects whose dynamic state can be written to and read back from a {@link SimulationSnapshot}, so that a simulation can be rewound 
+ * to, or forked from, an earlier point in time by {@link SimulationSnapshotter}. Reading back a state must leave the object exactly 
+ * as it was when the state was written, so that the simulation continues bit for bit as it did from that point. Configuration 
+ * that does not change while the simulation runs is not part of the state 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public interface Snapshottable {
+	
+	/**
+	 * Writes the dynamic state of this object to buffer
+	 * 
+	 * @param buffer
+	 */
+	public void writeState(ByteBuffer buffer);
+	
+	/**
+	 * Reads back the dynamic state of this object from buffer, written by {@link Snapshottable#writeState(ByteBuffer)} of an object 
+	 * of the same configuration
+	 * 
+	 * @param buffer
+	 */
+	public void readState(ByteBuffer buffer);
+	
+	/**
+	 * Writes the values of array to buffer
+	 * 
+	 * @param buffer
+	 * @param array
+	 */
+	public static void writeArray(ByteBuffer buffer, double[] array) {
+		for (int i = 0; i < array.length; i++)
+			buffer.putDouble(array[i]);
+	}
+	
+	/**
+	 * Reads values from buffer into array, in place, so that other objects referencing array see the values read
+	 * 
+	 * @param buffer
+	 * @param array
+	 */
+	public static void readArray(ByteBuffer buffer, double[] array) {
+		for (int i = 0; i < array.length; i++)
+			array[i] = buffer.getDouble();
+	}
+}
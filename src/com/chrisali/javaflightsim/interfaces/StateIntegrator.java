@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.interfaces;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.IntegrationMethod;
+
+/**
+ * Numerical integration method used by {@link Integrate6DOFEquations} to advance its states from one frame of the simulation 
+ * to the next. Implementations may take internal steps of any size, or run ahead of the requested time and interpolate, as long as 
+ * the states at the requested time are returned. Implementations are chosen with {@link IntegrationMethod}. Any internal steps or 
+ * derivative history are part of the integrator's state, written by {@link Snapshottable#writeState(ByteBuffer)}, so that integration 
+ * continues identically from a restored snapshot
+ * 
+ * @author Christopher Ali
+ *
+ */
+public interface StateIntegrator extends Snapshottable {
+	
+	/**
+	 * Advances states y at time t to time tOut, writing the resulting states into yOut. If the derivatives of y are already known 
+	 * they can be passed in as yDot to save an evaluation of the equations; implementations only use them if no discontinuity 
+	 * has occurred since the previous call 
+	 * 
+	 * @param equations differential equations to integrate
+	 * @param t time of states y (sec)
+	 * @param y states at time t
+	 * @param yDot derivatives of y at time t, or null if unknown 
+	 * @param tOut time to advance states to (sec)
+	 * @param yOut array to write states at time tOut to
+	 */
+	public void integrate(FirstOrderDifferentialEquations equations, double t, double[] y, double[] yDot, double tOut, double[] yOut);
+	
+	/**
+	 * Discards any steps taken ahead of the last requested time and any derivative history, so that the next call to 
+	 * {@link StateIntegrator#integrate(FirstOrderDifferentialEquations, double, double[], double[], double, double[])} starts afresh. 
+	 * Should be called whenever the equations change discontinuously (e.g. a change in flight controls)  
+	 */
+	public void reset();
+}
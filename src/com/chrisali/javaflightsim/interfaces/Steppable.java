@@ -20,10 +20,11 @@
 package com.chrisali.javaflightsim.interfaces;
 
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.timing.StepScheduler;
 
 /**
  * To replace threading, this interface allows objects run at various rates slower than {@link Integrate6DOFEquations} 
- * master rate by step updating in a master loop only when the current time meets a certain window 
+ * master rate by being step updated in a master loop by {@link StepScheduler} at the rate each object declares
  * 
  * @author Christopher
  *
@@ -36,11 +37,18 @@ public interface Steppable {
 	public void step();
 	
 	/**
-	 * To emulate running synchronously at a different rate, define a modulus value here so that this object only updates every x 
-	 * times the simulation steps
+	 * To emulate running synchronously at a different rate, define the rate at which this object should be step updated. 
+	 * {@link StepScheduler} rounds this to a whole number of simulation steps
 	 * 
-	 * @param simTimeMS simulation time in milliseconds
-	 * @return if the implementing object can step update at this point in time
+	 * @return rate at which this object should be step updated (Hz)
 	 */
-	public boolean canStepNow(int simTimeMS);
+	public double getStepRateHz();
+	
+	/**
+	 * Offsets the simulation steps at which this object is step updated, so that objects running at the same slow rate need not 
+	 * all step in the same simulation step
+	 * 
+	 * @return number of simulation steps to offset this object's step updates by
+	 */
+	public int getStepPhase();
 }
@@ -20,11 +20,13 @@
 package com.chrisali.javaflightsim.lwjgl;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -62,20 +64,29 @@ import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
-import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSnapshot;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSubscriber;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+import com.chrisali.javaflightsim.simulation.datatransfer.TripleBuffer;
 import com.chrisali.javaflightsim.simulation.setup.CameraMode;
+import com.chrisali.javaflightsim.simulation.setup.DisplayConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.timing.TimingStatistics;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
  * Out the window display for Java Flight Sim. It utilizes LWJGL to create a 3D world in OpenGL. 
- * This runs in a simulation runner thread that receives data from {@link FlightData} via {@link FlightDataListener} 
+ * Rendering runs in its own thread, which creates and owns the OpenGL context, so that a slow frame or vsync never stalls the 
+ * simulation runner thread. Data received from {@link FlightData} as an {@link FlightDataDelivery#INLINE} subscriber on the simulation runner thread is 
+ * published to the render thread through a lock-free {@link TripleBuffer} of {@link FlightDataSnapshot}s, which the render thread 
+ * interpolates between each frame for smooth motion at any display rate
  * 
  * @author Christopher Ali
  *
  */
-public class LWJGLWorld implements FlightDataListener, OTWWorld {
+public class LWJGLWorld implements FlightDataSubscriber, OTWWorld, Runnable {
 	
 	private static final Logger logger = LogManager.getLogger(LWJGLWorld.class);
 	
@@ -104,6 +115,26 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	
 	// Event Listeners
 	private List<WindowClosedListener> windowClosedListeners = new ArrayList<>();
+	
+	// Render thread
+	private Thread renderThread;
+	private CountDownLatch renderThreadStarted = new CountDownLatch(1);
+	private volatile boolean running = false;
+	private volatile boolean closeRequested = false;
+	private boolean windowClosedFired = false;
+	private volatile float terrainHeight = 0.0f;
+	
+	// Flight data passed from simulation runner thread to render thread
+	private TripleBuffer<FlightDataSnapshot> snapshots = new TripleBuffer<>(FlightDataSnapshot::new);
+	private double[] lastPublishedValues = new double[FlightDataType.values().length];
+	private long lastPublishedNanos;
+	private boolean hasPublished = false;
+	private Map<FlightDataType, Double> interpolatedFlightData = new EnumMap<>(FlightDataType.class);
+	
+	// Frame time statistics of each thread
+	private TimingStatistics renderTime = new TimingStatistics();
+	private TimingStatistics frameInterval = new TimingStatistics();
+	private TimingStatistics publishTime = new TimingStatistics();
 			
 	/**
 	 * Sets up OTW display with {@link SimulationConfiguration} provided by {@link SimulationController} 
@@ -114,50 +145,128 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		configuration = controller.getConfiguration();
 	}	
 	
+	/**
+	 * Renders at the display's refresh rate defined in {@link DisplayConfiguration}
+	 */
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public double getStepRateHz() {
+		return configuration.getDisplayConfiguration().getRefreshRateHz();
+	}
+	
+	@Override
+	public int getStepPhase() {
+		return 0;
 	}
 
 	/**
-	 * Main game loop of the LWJGL process, whose stepping is controlled by the {@link SimulationRunner} object's thread
+	 * Stepped by the {@link SimulationRunner} object's thread; lets {@link WindowClosedListener}s know on that thread if the 
+	 * render thread has seen the window closed
 	 */
 	@Override
 	public void step() {
-		try {
-			ParticleMaster.update(camera);
-			
-			masterRenderer.renderWholeScene(entities, terrainCollection.getTerrainTree(), 
-											lights, camera, new Vector4f(0, 1, 0, 0));
-			
-			ParticleMaster.renderParticles(camera);
-			
-			interfaceRenderer.render(configuration, interfaceTextures);
-
-			TextMaster.render(simTexts.getTexts());
-						
-			DisplayManager.updateDisplay();
-		} catch (Exception e) {
-			logger.error("Error encountered while running LWJGL display!", e);
-		}
-		
-		if(Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_Q)) {
+		if (closeRequested && !windowClosedFired) {
+			windowClosedFired = true;
 			fireWindowClosed();
-			cleanUp();
 		}
 	}
 	
 	/**
-	 * Called just before main simulation loop runs, initializes all assets and processes
+	 * Called just before main simulation loop runs; starts the render thread, which initializes all assets and processes, 
+	 * and waits for it to finish initializing
 	 */
 	@Override
 	public void init() {
+		running = true;
+		
+		renderThread = new Thread(this, "LWJGL Render");
+		renderThread.start();
+		
+		try {
+			renderThreadStarted.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	/**
+	 * Main game loop of the LWJGL process, run by the render thread at the display's refresh rate. Each frame interpolates 
+	 * the latest flight data published by the simulation, updates the world with it and renders the scene  
+	 */
+	@Override
+	public void run() {
 		try { 
 			startUp(); 
 			loadAssets(); 
 		} catch (Exception e) {
 			logger.fatal("Error encountered when setting up LWJGL display!", e);
-			cleanUp();
+			running = false;
+			closeRequested = true;
+		} finally {
+			renderThreadStarted.countDown();
+		}
+		
+		boolean hasFlightData = false;
+		long lastFrameStart = System.nanoTime();
+		
+		while (running) {
+			long frameStart = System.nanoTime();
+			frameInterval.record(frameStart - lastFrameStart);
+			lastFrameStart = frameStart;
+			
+			try {
+				hasFlightData |= snapshots.update();
+				
+				if (hasFlightData) {
+					snapshots.getReadBuffer().interpolate(frameStart, interpolatedFlightData);
+					updateWorld(interpolatedFlightData);
+				}
+				
+				ParticleMaster.update(camera);
+				
+				masterRenderer.renderWholeScene(entities, terrainCollection.getTerrainTree(), 
+												lights, camera, new Vector4f(0, 1, 0, 0));
+				
+				ParticleMaster.renderParticles(camera);
+				
+				interfaceRenderer.render(configuration, interfaceTextures);
+	
+				TextMaster.render(simTexts.getTexts());
+				
+				terrainHeight = calculateTerrainHeight();
+				
+				renderTime.record(System.nanoTime() - frameStart);
+							
+				DisplayManager.updateDisplay();
+			} catch (Exception e) {
+				logger.error("Error encountered while running LWJGL display!", e);
+			}
+			
+			if(Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_Q)) {
+				closeRequested = true;
+				running = false;
+			}
+		}
+		
+		logger.info("Render thread frame time: " + renderTime);
+		logger.info("Render thread frame interval: " + frameInterval);
+		logger.info("Flight data publish time on simulation thread: " + publishTime);
+		
+		cleanUp();
+	}
+	
+	/**
+	 * Stops the render thread, which closes the display, and waits for it to finish
+	 */
+	@Override
+	public void stop() {
+		running = false;
+		
+		if (renderThread != null && renderThread != Thread.currentThread()) {
+			try {
+				renderThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
 		}
 	}
 	
@@ -188,7 +297,7 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	private void startUp() {
 		logger.debug("Starting up LWJGL display...");
 		DisplayManager.createDisplay();
-		DisplayManager.setFrameRateLimit(configuration.getSimulationRateHz());
+		DisplayManager.setFrameRateLimit(configuration.getDisplayConfiguration().getRefreshRateHz());
 		DisplayManager.setHeight(configuration.getDisplayConfiguration().getDisplayHeight());
 		DisplayManager.setWidth(configuration.getDisplayConfiguration().getDisplayWidth());
 		DisplayManager.setAaSamples(configuration.getDisplayConfiguration().isUseAntiAliasing() ? 2 : 0);
@@ -286,8 +395,20 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		soundCollection = new SoundCollection(configuration);
 	}
 	
+	/**
+	 * @return Height of terrain at the ownship's position as of the last frame rendered
+	 */
 	@Override
-	public synchronized float getTerrainHeight() {
+	public float getTerrainHeight() {
+		return terrainHeight;
+	}
+	
+	/**
+	 * Called by the render thread, which owns the terrain and ownship
+	 * 
+	 * @return Height of terrain at the ownship's current position
+	 */
+	private float calculateTerrainHeight() {
 		if (terrainCollection == null)
 			return 0.0f;
 		
@@ -301,24 +422,44 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		return (currentTerrain == null) ? 0.0f : currentTerrain.getTerrainHeight(position.x, position.z);
 	}
 
+	/**
+	 * Called on the simulation runner thread; publishes the received flight data, along with the previously published flight data, 
+	 * to the render thread without waiting for it
+	 */
 	@Override
-	public void onFlightDataReceived(FlightData flightData) {
-		Map<FlightDataType, Double> receivedFlightData = flightData.getFlightData();
+	public void onFlightData(FlightDataFrame frame) {
+		long now = System.nanoTime();
 		
-		if (!receivedFlightData.containsValue(null) && receivedFlightData != null) {
-			// Update sound gains/volumes with flight data
-			soundCollection.update(receivedFlightData);
-			
-			// Ownship movement; let camera track ownhip 1-1 for now
-			ownship.move(receivedFlightData);
-			camera.move(configuration);
+		FlightDataSnapshot snapshot = snapshots.getWriteBuffer();
+		snapshot.set(hasPublished ? lastPublishedValues : null, lastPublishedNanos, frame, now);
+		snapshot.copyCurrentTo(lastPublishedValues);
+		snapshots.publish();
+		
+		lastPublishedNanos = now;
+		hasPublished = true;
+		
+		publishTime.record(System.nanoTime() - now);
+	}
+	
+	/**
+	 * Called on the render thread with interpolated flight data to move the ownship and camera, and update sounds, 
+	 * on-screen text and the instrument panel
+	 * 
+	 * @param receivedFlightData
+	 */
+	private void updateWorld(Map<FlightDataType, Double> receivedFlightData) {
+		// Update sound gains/volumes with flight data
+		soundCollection.update(receivedFlightData);
+		
+		// Ownship movement; let camera track ownhip 1-1 for now
+		ownship.move(receivedFlightData);
+		camera.move(configuration);
 
-			// Record flight data into text string to display on OTW screen 
-			simTexts.update(receivedFlightData, configuration, camera, ownship);
-			
-			// Instrument Panel
-			panel.update(receivedFlightData);
-		}
+		// Record flight data into text string to display on OTW screen 
+		simTexts.update(receivedFlightData, configuration, camera, ownship);
+		
+		// Instrument Panel
+		panel.update(receivedFlightData);
 	}
 	
 	// =============================== Events =====================================
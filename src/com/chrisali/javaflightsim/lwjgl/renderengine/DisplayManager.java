@@ -71,7 +71,8 @@ public class DisplayManager {
 	}
 	
 	/**
-	 * Updates the display by rendering one frame based on the frame rate defined in {@link DisplayManager}
+	 * Updates the display by rendering one frame based on the frame rate defined in {@link DisplayManager}. This is called by 
+	 * the render thread, so it only throttles rendering, not the simulation
 	 */
 	public static void updateDisplay() {
 		Display.sync(frameRateLimit);
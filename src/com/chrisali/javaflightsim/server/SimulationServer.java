@@ -0,0 +1,546 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.initializer.HeadlessSimulationController;
+import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus.Subscription;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSubscriber;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+import com.chrisali.javaflightsim.simulation.datatransfer.TripleBuffer;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Lightweight HTTP API, built on the JDK's {@link HttpServer}, that controls a simulation run by a {@link HeadlessSimulationController}.
+ * All responses are JSON, except for the state stream:
+ * 
+ * <p>GET /status - whether the simulation is running or paused, its aircraft and simulation time</p>
+ * <p>POST /start, /stop, /pause, /resume, /reset - controls the simulation; a reset pauses the simulation and returns it to its 
+ * initial conditions</p>
+ * <p>POST /rewind?seconds=10 - rewinds the simulation by at least the given flight time, to the newest snapshot that old</p>
+ * <p>GET /configuration - the {@link SimulationConfiguration} used by the next simulation started</p>
+ * <p>PUT /configuration - replaces that configuration with a {@link SimulationConfiguration} in the request body; not allowed 
+ * while the simulation is running</p>
+ * <p>GET /state - the latest flight data published by the simulation; unavailable until its first flight data is published</p>
+ * <p>GET /stream?rate=10 - a stream of server-sent events, each containing flight data in the same form as /state, at up to the 
+ * given rate (Hz) until the client disconnects or the simulation stops. Updates that a slow client cannot keep up with are coalesced</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationServer implements AutoCloseable {
+	
+	private static final Logger logger = LogManager.getLogger(SimulationServer.class);
+	
+	public static final double DEFAULT_STREAM_RATE_HZ = 10.0;
+	
+	public static final double MAX_STREAM_RATE_HZ = 120.0;
+	
+	public static final double DEFAULT_REWIND_SEC = 10.0;
+	
+	// Each stream occupies a thread of the server for as long as it is open
+	public static final int MAX_STREAMS = 16;
+	
+	// Rate at which the latest flight data returned by /state is updated
+	private static final double STATE_RATE_HZ = 30.0;
+	
+	private static final int OK = 200;
+	private static final int ACCEPTED = 202;
+	private static final int BAD_REQUEST = 400;
+	private static final int NOT_FOUND = 404;
+	private static final int METHOD_NOT_ALLOWED = 405;
+	private static final int CONFLICT = 409;
+	private static final int INTERNAL_ERROR = 500;
+	private static final int UNAVAILABLE = 503;
+	
+	private final HeadlessSimulationController controller;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	private final AtomicInteger openStreams = new AtomicInteger();
+	
+	// Latest flight data of the current runner, for /state
+	private final TripleBuffer<FlightDataFrame> latestState = new TripleBuffer<>(FlightDataFrame::new);
+	private SimulationRunner latestStateRunner;
+	private boolean hasLatestState;
+	private volatile boolean latestStateDelivered;
+	
+	/**
+	 * Creates a server for the simulation of controller, bound to an address and port but not yet started
+	 * 
+	 * @param controller
+	 * @param address local address and port to listen on; a port of 0 selects any free port
+	 * @throws IOException if the server could not be bound
+	 */
+	public SimulationServer(HeadlessSimulationController controller, InetSocketAddress address) throws IOException {
+		this.controller = controller;
+		
+		server = HttpServer.create(address, 0);
+		
+		// Daemon threads, so that open streams do not keep the JVM alive after the server is closed
+		executor = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "Simulation Server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		
+		server.createContext("/status", exchange -> handle(exchange, "GET", this::status));
+		server.createContext("/start", exchange -> handle(exchange, "POST", this::start));
+		server.createContext("/stop", exchange -> handle(exchange, "POST", this::stop));
+		server.createContext("/pause", exchange -> handle(exchange, "POST", this::pause));
+		server.createContext("/resume", exchange -> handle(exchange, "POST", this::resume));
+		server.createContext("/reset", exchange -> handle(exchange, "POST", this::reset));
+		server.createContext("/rewind", exchange -> handle(exchange, "POST", this::rewind));
+		server.createContext("/configuration", exchange -> handle(exchange, null, this::configuration));
+		server.createContext("/state", exchange -> handle(exchange, "GET", this::state));
+		server.createContext("/stream", exchange -> handle(exchange, "GET", this::stream));
+	}
+	
+	/**
+	 * Starts listening for requests
+	 */
+	public void start() {
+		server.start();
+		logger.info("Simulation server listening on " + getAddress());
+	}
+	
+	/**
+	 * @return address and port that the server is bound to
+	 */
+	public InetSocketAddress getAddress() { return server.getAddress(); }
+	
+	/**
+	 * Stops listening for requests, closing any open streams
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+	
+	//=============================== Handlers ===========================================================
+	
+	/**
+	 * Handles the request of an exchange, responding with an error if the path or method are not those handled, or if the 
+	 * handler fails
+	 * 
+	 * @param exchange
+	 * @param method method the handler accepts, or null if it checks the method itself
+	 * @param handler
+	 */
+	private void handle(HttpExchange exchange, String method, Handler handler) {
+		try {
+			if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath()))
+				respondError(exchange, NOT_FOUND, "Not found");
+			else if (method != null && !method.equals(exchange.getRequestMethod()))
+				respondError(exchange, METHOD_NOT_ALLOWED, "Use " + method);
+			else
+				handler.handle(exchange);
+		} catch (Exception e) {
+			logger.error("Error handling " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+			
+			try {
+				respondError(exchange, INTERNAL_ERROR, e.toString());
+			} catch (IOException | IllegalStateException ignored) {}
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	/**
+	 * Handles a request to a single path of the API
+	 */
+	@FunctionalInterface
+	private interface Handler {
+		void handle(HttpExchange exchange) throws Exception;
+	}
+	
+	private void status(HttpExchange exchange) throws IOException {
+		StringBuilder json = new StringBuilder();
+		SimulationRunner runner = controller.getRunner();
+		
+		json.append("{\"running\":").append(controller.isRunning())
+			.append(",\"paused\":").append(controller.isPaused())
+			.append(",\"aircraft\":");
+		appendString(json, controller.getConfiguration().getSelectedAircraft());
+		json.append(",\"simTimeMS\":").append((runner != null) ? runner.getTimeMS().get() : 0)
+			.append('}');
+		
+		respond(exchange, OK, json.toString());
+	}
+	
+	private void start(HttpExchange exchange) throws IOException {
+		if (controller.isRunning()) {
+			respondError(exchange, CONFLICT, "Simulation is already running");
+			return;
+		}
+		
+		controller.startSimulation();
+		
+		// Subscribe before the first flight data is published, so that /state has it as soon as possible
+		SimulationRunner runner = controller.getRunner();
+		if (runner != null)
+			subscribeLatestState(runner);
+		
+		status(exchange);
+	}
+	
+	private void stop(HttpExchange exchange) throws IOException {
+		controller.stopSimulation();
+		status(exchange);
+	}
+	
+	private void pause(HttpExchange exchange) throws IOException {
+		controller.pauseSimulation();
+		command(exchange);
+	}
+	
+	private void resume(HttpExchange exchange) throws IOException {
+		controller.resumeSimulation();
+		command(exchange);
+	}
+	
+	private void reset(HttpExchange exchange) throws IOException {
+		controller.resetSimulation();
+		command(exchange);
+	}
+	
+	private void rewind(HttpExchange exchange) throws IOException {
+		double seconds = DEFAULT_REWIND_SEC;
+		try {
+			String parameter = queryParameter(exchange.getRequestURI(), "seconds");
+			if (parameter != null)
+				seconds = Double.parseDouble(parameter);
+		} catch (NumberFormatException e) {
+			seconds = Double.NaN;
+		}
+		
+		if (!(seconds >= 0)) {
+			respondError(exchange, BAD_REQUEST, "Seconds must be at least 0");
+			return;
+		}
+		
+		controller.rewindSimulation(seconds);
+		command(exchange);
+	}
+	
+	/**
+	 * Responds to a command submitted to the simulation thread, which takes effect on its next step
+	 */
+	private void command(HttpExchange exchange) throws IOException {
+		if (!controller.isRunning()) {
+			respondError(exchange, CONFLICT, "Simulation is not running");
+			return;
+		}
+		
+		StringBuilder json = new StringBuilder("{\"accepted\":true,\"paused\":");
+		json.append(controller.isPaused()).append('}');
+		
+		respond(exchange, ACCEPTED, json.toString());
+	}
+	
+	private void configuration(HttpExchange exchange) throws IOException {
+		switch (exchange.getRequestMethod()) {
+		case "GET":
+			respond(exchange, OK, mapper.writeValueAsString(controller.getConfiguration()));
+			break;
+		case "PUT":
+			SimulationConfiguration configuration;
+			try {
+				configuration = mapper.readValue(readBody(exchange), SimulationConfiguration.class);
+			} catch (IOException e) {
+				respondError(exchange, BAD_REQUEST, "Invalid configuration: " + e.getMessage());
+				return;
+			}
+			
+			if (configuration.getSelectedAircraft() == null || configuration.getIntegratorConfig() == null 
+					|| configuration.getInitialConditions() == null || configuration.getInitialControls() == null
+					|| configuration.getSimulationOptions() == null) {
+				respondError(exchange, BAD_REQUEST, "Configuration must contain an aircraft, options, integrator configuration, "
+												  + "initial conditions and initial controls");
+				return;
+			}
+			
+			try {
+				controller.setConfiguration(configuration);
+			} catch (IllegalStateException e) {
+				respondError(exchange, CONFLICT, e.getMessage());
+				return;
+			}
+			
+			respond(exchange, OK, mapper.writeValueAsString(configuration));
+			break;
+		default:
+			respondError(exchange, METHOD_NOT_ALLOWED, "Use GET or PUT");
+		}
+	}
+	
+	private void state(HttpExchange exchange) throws IOException {
+		SimulationRunner runner = controller.getRunner();
+		if (runner == null || !subscribeLatestState(runner)) {
+			respondError(exchange, CONFLICT, "Simulation is not publishing flight data");
+			return;
+		}
+		
+		if (!latestStateDelivered) {
+			respondError(exchange, UNAVAILABLE, "Simulation has not yet published flight data");
+			return;
+		}
+		
+		StringBuilder json = new StringBuilder();
+		synchronized (latestState) {
+			latestState.update();
+			appendFlightData(json, latestState.getReadBuffer(), runner.getTimeMS().get());
+		}
+		
+		respond(exchange, OK, json.toString());
+	}
+	
+	/**
+	 * Subscribes to the latest flight data of runner, if not already subscribed; subscriptions to earlier runners end with them. 
+	 * Flight data of runner is not returned by /state until the subscription has delivered its first frame
+	 * 
+	 * @param runner
+	 * @return if runner publishes flight data
+	 */
+	private synchronized boolean subscribeLatestState(SimulationRunner runner) {
+		if (latestStateRunner != runner) {
+			latestStateRunner = runner;
+			latestStateDelivered = false;
+			
+			// Runs on the simulation thread, or the trailing delivery thread of the bus, one at a time; the only writers of latestState
+			FlightDataSubscriber subscriber = frame -> {
+				latestState.getWriteBuffer().copyFrom(frame);
+				latestState.publish();
+				latestStateDelivered = true;
+			};
+			hasLatestState = runner.subscribeFlightData(subscriber, STATE_RATE_HZ, FlightDataDelivery.INLINE) != null;
+		}
+		
+		return hasLatestState;
+	}
+	
+	private void stream(HttpExchange exchange) throws IOException, InterruptedException {
+		double rateHz = DEFAULT_STREAM_RATE_HZ;
+		try {
+			String rate = queryParameter(exchange.getRequestURI(), "rate");
+			if (rate != null)
+				rateHz = Double.parseDouble(rate);
+		} catch (NumberFormatException e) {
+			respondError(exchange, BAD_REQUEST, "Invalid rate");
+			return;
+		}
+		
+		if (!(rateHz > 0) || rateHz > MAX_STREAM_RATE_HZ) {
+			respondError(exchange, BAD_REQUEST, "Rate must be greater than 0 and at most " + MAX_STREAM_RATE_HZ + " Hz");
+			return;
+		}
+		
+		SimulationRunner runner = controller.getRunner();
+		if (runner == null || !controller.isRunning()) {
+			respondError(exchange, CONFLICT, "Simulation is not running");
+			return;
+		}
+		
+		if (openStreams.incrementAndGet() > MAX_STREAMS) {
+			openStreams.decrementAndGet();
+			respondError(exchange, UNAVAILABLE, "Too many open streams");
+			return;
+		}
+		
+		try {
+			exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+			exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+			exchange.sendResponseHeaders(OK, 0);
+			
+			StateStream stateStream = new StateStream(exchange.getResponseBody(), runner);
+			Subscription subscription = runner.subscribeFlightData(stateStream, rateHz, FlightDataDelivery.DEDICATED);
+			if (subscription == null)
+				return;
+			
+			logger.debug("Streaming flight data to " + exchange.getRemoteAddress() + " at " + rateHz + " Hz");
+			
+			try {
+				// Until the client disconnects, or this simulation stops
+				while (!stateStream.awaitClosed(1, TimeUnit.SECONDS)) {
+					if (!controller.isRunning() || controller.getRunner() != runner)
+						break;
+				}
+			} finally {
+				subscription.cancel();
+				logger.debug("Stream to " + exchange.getRemoteAddress() + " closed; " + subscription);
+			}
+		} finally {
+			openStreams.decrementAndGet();
+		}
+	}
+	
+	/**
+	 * Writes each state it receives to a stream as a server-sent event, until writing fails because the client has disconnected
+	 */
+	private static class StateStream implements FlightDataSubscriber {
+		
+		private final OutputStream out;
+		private final SimulationRunner runner;
+		private final StringBuilder json = new StringBuilder();
+		private final CountDownLatch closed = new CountDownLatch(1);
+		
+		private StateStream(OutputStream out, SimulationRunner runner) {
+			this.out = out;
+			this.runner = runner;
+		}
+		
+		@Override
+		public void onFlightData(FlightDataFrame frame) {
+			if (closed.getCount() == 0)
+				return;
+			
+			json.setLength(0);
+			json.append("data: ");
+			appendFlightData(json, frame, runner.getTimeMS().get());
+			json.append("\n\n");
+			
+			try {
+				out.write(json.toString().getBytes(StandardCharsets.UTF_8));
+				out.flush();
+			} catch (IOException e) {
+				closed.countDown();
+			}
+		}
+		
+		private boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+			return closed.await(timeout, unit);
+		}
+	}
+	
+	//=============================== JSON and HTTP ======================================================
+	
+	/**
+	 * Appends a state of flight data as a JSON object, with a field named after each {@link FlightDataType}
+	 * 
+	 * @param json
+	 * @param frame
+	 * @param simTimeMS simulation time (ms)
+	 */
+	private static void appendFlightData(StringBuilder json, FlightDataFrame frame, int simTimeMS) {
+		json.append("{\"sequence\":").append(frame.getSequence())
+			.append(",\"simTimeMS\":").append(simTimeMS);
+		
+		for (FlightDataType type : FlightDataType.values()) {
+			json.append(",\"").append(type.name()).append("\":");
+			
+			double value = frame.get(type);
+			if (Double.isFinite(value))
+				json.append(value);
+			else
+				json.append("null");
+		}
+		
+		json.append('}');
+	}
+	
+	private static void appendString(StringBuilder json, String value) {
+		if (value == null) {
+			json.append("null");
+			return;
+		}
+		
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			
+			if (c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if (c < 0x20)
+				json.append(String.format("\\u%04x", (int) c));
+			else
+				json.append(c);
+		}
+		json.append('"');
+	}
+	
+	private static String queryParameter(URI uri, String name) {
+		String query = uri.getQuery();
+		if (query == null)
+			return null;
+		
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			if (equals > 0 && parameter.substring(0, equals).equals(name))
+				return parameter.substring(equals + 1);
+		}
+		
+		return null;
+	}
+	
+	private static byte[] readBody(HttpExchange exchange) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		
+		try (InputStream in = exchange.getRequestBody()) {
+			for (int read; (read = in.read(buffer)) != -1; )
+				body.write(buffer, 0, read);
+		}
+		
+		return body.toByteArray();
+	}
+	
+	private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(code, body.length);
+		
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+	
+	private static void respondError(HttpExchange exchange, int code, String message) throws IOException {
+		StringBuilder json = new StringBuilder("{\"error\":");
+		appendString(json, message);
+		json.append('}');
+		
+		respond(exchange, code, json.toString());
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chrisali.javaflightsim.interfaces.SimulationController;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.flightcontrols.SimEvents;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Owns all of the state belonging to a single simulation: its {@link SimulationConfiguration}, {@link Aircraft}, {@link Environment}, 
+ * {@link SimEvents} and simulation time. A context is passed to {@link Integrate6DOFEquations}, {@link FlightControlsStateManager} 
+ * and {@link Trimming}, none of which hold any static state, so that any number of simulations, each with its own context, can run 
+ * concurrently in one JVM
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationContext {
+	
+	private final SimulationConfiguration configuration;
+	private final Aircraft aircraft;
+	private final Environment environment = new Environment();
+	private final SimEvents simEvents;
+	private final AtomicInteger simTimeMS = new AtomicInteger(0);
+	private final SimulationController simController;
+	
+	/**
+	 * Creates a context for a simulation run by simController, using its configuration and selected aircraft
+	 * 
+	 * @param simController
+	 */
+	public SimulationContext(SimulationController simController) {
+		this(simController.getConfiguration(), 
+			 FileUtilities.readAircraftConfiguration(simController.getConfiguration().getSelectedAircraft()), 
+			 simController);
+	}
+	
+	/**
+	 * Creates a context for a headless simulation of the configuration's selected aircraft
+	 * 
+	 * @param configuration
+	 */
+	public SimulationContext(SimulationConfiguration configuration) {
+		this(configuration, FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft()), null);
+	}
+	
+	/**
+	 * Creates a context for a simulation of an aircraft that has already been read and possibly modified. Neither the configuration
+	 * nor the aircraft should be shared with another context that runs concurrently
+	 * 
+	 * @param configuration
+	 * @param aircraft
+	 * @param simController controller of the simulation; null for a headless simulation
+	 */
+	public SimulationContext(SimulationConfiguration configuration, Aircraft aircraft, SimulationController simController) {
+		this.configuration = configuration;
+		this.aircraft = aircraft;
+		this.simController = simController;
+		
+		simEvents = new SimEvents(configuration.getSimulationOptions(), simController);
+	}
+
+	public SimulationConfiguration getConfiguration() { return configuration; }
+
+	public Aircraft getAircraft() { return aircraft; }
+
+	public Environment getEnvironment() { return environment; }
+
+	public SimEvents getSimEvents() { return simEvents; }
+
+	/**
+	 * @return simulation time in milliseconds, shared between the components of this simulation
+	 */
+	public AtomicInteger getSimTimeMS() { return simTimeMS; }
+
+	/**
+	 * @return controller of this simulation, or null if it is headless
+	 */
+	public SimulationController getSimController() { return simController; }
+}
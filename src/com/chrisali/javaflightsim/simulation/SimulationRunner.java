@@ -19,13 +19,21 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.interfaces.SimOutSource;
 import com.chrisali.javaflightsim.interfaces.SimulationController;
 import com.chrisali.javaflightsim.interfaces.Steppable;
 import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
@@ -33,13 +41,28 @@ import com.chrisali.javaflightsim.lwjgl.events.WindowClosedListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
-import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus.Subscription;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSubscriber;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.network.TelemetrySender;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecorder;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecording;
+import com.chrisali.javaflightsim.simulation.recorder.FlightReplay;
 import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.NetworkConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.PacingMode;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshot;
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshotter;
+import com.chrisali.javaflightsim.simulation.snapshot.SnapshotRing;
+import com.chrisali.javaflightsim.simulation.timing.SimulationClock;
+import com.chrisali.javaflightsim.simulation.timing.SimulationPacer;
+import com.chrisali.javaflightsim.simulation.timing.StepScheduler;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 
 /**
  * Main runner thread for JavaFlightSimulator that combines all {@link Steppable} components into a single thread so that they can run
@@ -51,13 +74,20 @@ import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 public class SimulationRunner implements Runnable, WindowClosedListener {
 	
 	private static final Logger logger = LogManager.getLogger(SimulationRunner.class);
-	private static final int TO_MILLISEC = 1000;
 
 	private SimulationController simController;
+	private SimulationConfiguration configuration;
+	private SimulationContext context;
 	
 	private FlightControlsStateManager flightControlsManager;
 	private Integrate6DOFEquations simulation;
+	private FlightReplay replay;
+	private SimOutSource source;
 	private LWJGLWorld outTheWindow;
+	private FlightRecorder recorder;
+	private TelemetrySender telemetrySender;
+	private SimulationSnapshotter snapshotter;
+	private SnapshotRing snapshots;
 	
 	private FlightData flightData;
 	private EnvironmentData environmentData;
@@ -65,12 +95,17 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	private Map<IntegratorConfig, Double> integratorConfig;
 	private Set<Options> options;	
 		
-	private AtomicInteger timeMS = new AtomicInteger(0);
-	private int frameStepMS;
-	private int endTimeMS;
-	private int threadPauseMS;
+	private AtomicInteger timeMS;
+	private SimulationClock clock;
+	private SimulationPacer pacer;
+	private StepScheduler scheduler;
+	private long endTicks;
 	
 	private boolean running = false;
+	private final boolean headless;
+	
+	// Commands from other threads, run on the runner thread before the next step
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
 	
 	/**
 	 * Constructor that initialize main simulation ({@link Integrate6DOFEquations} and {@link FlightControlsState}) components and 
@@ -79,105 +114,304 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	 * @param simController
 	 */
 	public SimulationRunner(SimulationController simController) {
+		this(simController, false);
+	}
+	
+	/**
+	 * Constructor that initialize main simulation ({@link Integrate6DOFEquations} and {@link FlightControlsState}) components and 
+	 * configrures simulation time. A headless runner initializes neither the OTW display nor any input devices, so that no LWJGL, 
+	 * JInput or Swing classes are loaded; flight data is still published for network telemetry and other subscribers
+	 * 
+	 * @param simController
+	 * @param headless
+	 */
+	public SimulationRunner(SimulationController simController, boolean headless) {
 		this.simController = simController;
+		this.headless = headless;
+		
+		context = new SimulationContext(simController);
 		
-		SimulationConfiguration configuration = simController.getConfiguration();
+		configuration = context.getConfiguration();
 		integratorConfig = configuration.getIntegratorConfig();
 		options = configuration.getSimulationOptions();
+		timeMS = context.getSimTimeMS();
 		
 		configureSimulationTime();
 		
 		logger.debug("Initializing flight controls manager...");
-		flightControlsManager = new FlightControlsStateManager(simController, timeMS);
+		flightControlsManager = new FlightControlsStateManager(context, !headless);
 		
 		logger.debug("Initializing simulation...");
-		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), configuration);
+		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+		source = simulation;
 	}
 	
 	/**
-	 * Sets running parameters (start/end time and frame step time) for the timulation. Time is kept as an AtomicInteger to ensure
-	 * atomic incrementation
+	 * Constructor that initializes a {@link FlightReplay} of a recorded flight, which drives the OTW display and all listeners in place 
+	 * of the simulation. The replay runs in real time until stopped
+	 * 
+	 * @param simController
+	 * @param recording
+	 */
+	public SimulationRunner(SimulationController simController, FlightRecording recording) {
+		this.simController = simController;
+		this.headless = false;
+		
+		context = new SimulationContext(simController);
+		
+		configuration = context.getConfiguration();
+		integratorConfig = configuration.getIntegratorConfig();
+		options = configuration.getSimulationOptions();
+		timeMS = context.getSimTimeMS();
+		
+		logger.debug("Initializing flight replay...");
+		replay = new FlightReplay(recording, 1 / integratorConfig.get(IntegratorConfig.DT));
+		source = replay;
+		
+		configureSimulationTime();
+	}
+	
+	/**
+	 * Sets running parameters (start/end time and frame step time) for the simulation. Simulation time is kept by a {@link SimulationClock}
+	 * as an exact count of time steps, and is mirrored in milliseconds to an AtomicInteger shared with {@link FlightControlsStateManager}. 
+	 * The {@link SimulationPacer} paces the loop according to the {@link PacingMode} in {@link SimulationConfiguration}, except in 
+	 * analysis mode, where the simulation always runs as fast as possible, and in a replay, which always runs in real time 
 	 */
 	public void configureSimulationTime() {
 		// Set up running parameters for simulation
-		timeMS = new AtomicInteger(integratorConfig.get(IntegratorConfig.STARTTIME).intValue() * TO_MILLISEC);
+		double dt = integratorConfig.get(IntegratorConfig.DT);
+		clock = new SimulationClock(integratorConfig.get(IntegratorConfig.STARTTIME), dt);
+		timeMS.set(clock.getTimeMS());
+		
+		PacingMode pacingMode;
+		if (replay != null)
+			pacingMode = PacingMode.REAL_TIME;
+		else if (options.contains(Options.ANALYSIS_MODE))
+			pacingMode = PacingMode.AS_FAST_AS_POSSIBLE;
+		else
+			pacingMode = configuration.getPacingMode();
 		
-		// Pause thread for frameStepMS milliseconds to emulate real time operation in normal mode
-		frameStepMS = (int) (integratorConfig.get(IntegratorConfig.DT) * TO_MILLISEC);
-		threadPauseMS = (!options.contains(Options.ANALYSIS_MODE)) ? frameStepMS : 1;
+		pacer = new SimulationPacer(pacingMode, configuration.getTimeCompression(), dt);
 		
-		// Run forever as a pilot in the loop simulation 
-		if (!options.contains(Options.ANALYSIS_MODE) && options.contains(Options.UNLIMITED_FLIGHT))
-			endTimeMS = Integer.MAX_VALUE;
+		// Run forever as a pilot in the loop simulation, or until a replay is stopped
+		if (replay != null || (!options.contains(Options.ANALYSIS_MODE) && options.contains(Options.UNLIMITED_FLIGHT)))
+			endTicks = Long.MAX_VALUE;
 		else
-			endTimeMS = integratorConfig.get(IntegratorConfig.ENDTIME).intValue() * TO_MILLISEC;		
+			endTicks = clock.ticksUntil(integratorConfig.get(IntegratorConfig.ENDTIME));
 	}
 	
 	/**
-	 * Depending on the presence of ANALYSIS_MODE in options EnumMap, configures the runner to initialize the OTW display and all necessary listeners
+	 * Depending on the presence of ANALYSIS_MODE in options EnumMap, configures the runner to initialize the OTW display and all necessary listeners;
+	 * a replay always initializes the OTW display. A headless runner publishes flight data without initializing the OTW display
 	 */
 	private void configureAnalysisNormalMode() {
-		if (options.contains(Options.ANALYSIS_MODE)) {
+		if (options.contains(Options.ANALYSIS_MODE) && replay == null) {
 			logger.debug("Running simulation in Analysis Mode...");
 		} else {
 			logger.debug("Running simulation in Normal Mode...");
-						
+			
+			getOrCreateFlightData();
+			
+			if (headless)
+				return;
+			
 			logger.debug("Initializing LWJGL world...");
 			outTheWindow = new LWJGLWorld(simController);
 			outTheWindow.addWindowClosedListener(this);
 			outTheWindow.init();
 
-			logger.debug("Initializing flight data transfer...");
-			flightData = new FlightData(simulation);
-			flightData.addFlightDataListener(outTheWindow);
+			flightData.subscribe(outTheWindow, 0, FlightDataDelivery.INLINE);
 
 			logger.debug("Initializing environment data transfer...");
 			environmentData = new EnvironmentData(outTheWindow);
-			environmentData.addEnvironmentDataListener(simulation);		
+			if (simulation != null)
+				environmentData.addEnvironmentDataListener(simulation);		
+		}
+	}
+	
+	/**
+	 * Creates {@link FlightData} if it has not yet been created, either while configuring the runner or by an early subscriber
+	 * 
+	 * @return flight data of this runner
+	 */
+	private synchronized FlightData getOrCreateFlightData() {
+		if (flightData == null) {
+			logger.debug("Initializing flight data transfer...");
+			flightData = new FlightData(source, getFlightDataRateHz());
+		}
+		
+		return flightData;
+	}
+	
+	/**
+	 * @return rate at which flight data is published; fast enough for both the OTW display and network telemetry, if selected (Hz)
+	 */
+	private double getFlightDataRateHz() {
+		double rateHz = configuration.getDisplayConfiguration().getRefreshRateHz();
+		
+		if (options.contains(Options.NETWORK_TELEMETRY))
+			rateHz = Math.max(rateHz, configuration.getNetworkConfiguration().getTelemetryRateHz());
+		
+		return rateHz;
+	}
+	
+	/**
+	 * If NETWORK_TELEMETRY is present in options EnumMap, creates a {@link TelemetrySender} that broadcasts flight data over UDP 
+	 * as configured in {@link NetworkConfiguration}. Datagrams are sent on the sender's own thread, so that the network never 
+	 * delays a step of the simulation 
+	 */
+	private void configureTelemetry() {
+		if (!options.contains(Options.NETWORK_TELEMETRY))
+			return;
+		
+		NetworkConfiguration networkConfig = configuration.getNetworkConfiguration();
+		
+		try {
+			logger.debug("Initializing network telemetry...");
+			telemetrySender = TelemetrySender.fromConfiguration(networkConfig);
+			
+			// Analysis mode publishes no flight data for the OTW display
+			getOrCreateFlightData().subscribe(telemetrySender, networkConfig.getTelemetryRateHz(), FlightDataDelivery.DEDICATED);
+		} catch (IOException e) {
+			logger.error("Could not start network telemetry; continuing without telemetry", e);
+		}
+	}
+	
+	/**
+	 * If FLIGHT_RECORDER is present in options EnumMap, creates a {@link FlightRecorder} that records every step of the simulation to
+	 * the Recordings directory, in a recording named after the aircraft and the time the simulation started
+	 */
+	private void configureFlightRecorder() {
+		if (!options.contains(Options.FLIGHT_RECORDER) || simulation == null)
+			return;
+		
+		String name = configuration.getSelectedAircraft() + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		
+		try {
+			logger.debug("Initializing flight recorder...");
+			recorder = new FlightRecorder(new File(SimDirectories.RECORDINGS.toString()), name, context);
+			recorder.recordFrom(simulation.getHistory(), simulation.getStepRateHz());
+		} catch (IOException e) {
+			logger.error("Could not start flight recorder; continuing without recording", e);
+		}
+	}
+	
+	/**
+	 * Creates a {@link SimulationSnapshotter} of the clock, flight controls and simulation, so that the simulation can be captured 
+	 * and restored, and if a snapshot interval is set in {@link SimulationConfiguration}, a {@link SnapshotRing} that captures 
+	 * snapshots automatically for rewinding the simulation  
+	 */
+	private void configureSnapshots() {
+		if (simulation == null)
+			return;
+		
+		snapshotter = new SimulationSnapshotter(clock, timeMS, flightControlsManager, simulation);
+		
+		if (configuration.getSnapshotIntervalSec() > 0) {
+			logger.debug("Initializing snapshots every " + configuration.getSnapshotIntervalSec() + " sec...");
+			snapshots = new SnapshotRing(snapshotter, options, clock.getDt(), configuration.getSnapshotIntervalSec(), 
+										 configuration.getSnapshotCapacity());
 		}
 	}
 	
 	/**
-	 * Main runner loop where {@link Steppable} components are step updated each iteration of the loop depending on the current value of time
+	 * Adds all {@link Steppable} components to a {@link StepScheduler} running at the simulation's base rate. Within each simulation 
+	 * step, components are stepped in the order that they are added here; snapshots capture the state at the start of a step, so 
+	 * are stepped first
+	 */
+	private synchronized void configureScheduler() {
+		scheduler = new StepScheduler(1 / clock.getDt());
+		
+		if (snapshots != null)
+			scheduler.add(snapshots);
+		
+		if (flightControlsManager != null)
+			scheduler.add(flightControlsManager);
+		
+		if (simulation != null)
+			scheduler.add(simulation);
+		
+		if (replay != null)
+			scheduler.add(replay);
+		
+		if (recorder != null)
+			scheduler.add(recorder);
+		
+		if (flightData != null)
+			scheduler.add(flightData);
+		
+		if (environmentData != null)
+			scheduler.add(environmentData);
+		
+		if (outTheWindow != null)
+			scheduler.add(outTheWindow);
+		
+		scheduler.build();
+	}
+	
+	/**
+	 * Main runner loop where {@link Steppable} components are step updated by the {@link StepScheduler} each iteration of the loop at their own rates
 	 */
 	@Override
 	public void run() {
 		running = true;
 				
 		configureAnalysisNormalMode();
+		configureTelemetry();
+		configureFlightRecorder();
+		configureSnapshots();
+		configureScheduler();
 		
 		if (options.contains(Options.CONSOLE_DISPLAY))
 			simController.initializeConsole();
 
-		while (running && timeMS.get() < endTimeMS) {
+		pacer.start();
+		
+		while (running && clock.getTicks() < endTicks) {
 			try {
-				// Step update each component if allowed to based on the current time 
-				if (flightControlsManager.canStepNow(timeMS.get()))
-					flightControlsManager.step();
-					
-				if (simulation.canStepNow(timeMS.get()))
-					simulation.step();
+				pacer.beginStep();
 				
-				if (flightData != null && flightData.canStepNow(timeMS.get()))
-					flightData.step();
+				for (Runnable command; (command = commands.poll()) != null; )
+					command.run();
 				
-				if (environmentData != null && environmentData.canStepNow(timeMS.get()))
-					environmentData.step();
+				// Step update each component scheduled to run in this step 
+				scheduler.runMinorFrame(clock.getTicks());
 				
-				if (outTheWindow != null && outTheWindow.canStepNow(timeMS.get()))
-					outTheWindow.step();
+				clock.tick();
+				timeMS.set(clock.getTimeMS());
 				
-				Thread.sleep((long)(threadPauseMS));
-
-				timeMS.addAndGet(frameStepMS);
+				// Wait until the deadline of the next step, depending on pacing mode
+				pacer.endStep();
 			} catch (Exception ez) {
 				logger.error("Exception encountered while running Simulation Runner thread. Attempting to continue...", ez);
 				
+				// Advance time anyway so that a persistent exception cannot stall the loop 
+				clock.tick();
+				timeMS.set(clock.getTimeMS());
+				
 				continue;
 			} 
 		}
 		
-		if (options.contains(Options.ANALYSIS_MODE))
+		if (outTheWindow != null)
+			outTheWindow.stop();
+		
+		if (recorder != null)
+			recorder.close();
+		
+		if (flightControlsManager != null)
+			flightControlsManager.close();
+		
+		if (flightData != null)
+			flightData.close();
+		
+		if (telemetrySender != null)
+			telemetrySender.close();
+		
+		pacer.logStatistics();
+		scheduler.logStatistics(pacer.getPeriodNanos());
+		
+		if (options.contains(Options.ANALYSIS_MODE) && replay == null)
 			simController.plotSimulation();
 		
 		running = false;
@@ -192,13 +426,76 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	}
 
 	/**
-	 * Adds {@link FlightDataListener} objects external to {@link SimulationRunner} to flightData's listener list
+	 * Subscribes {@link FlightDataSubscriber} objects external to {@link SimulationRunner} to flight data. Subscribers may subscribe 
+	 * before the runner is started, in which case flight data is published even in analysis mode
 	 * 
-	 * @param listener
+	 * @param subscriber
+	 * @param rateHz maximum rate at which subscriber receives flight data, or 0 to receive every state published (Hz)
+	 * @param delivery thread on which subscriber receives flight data
+	 * @return subscription, or null if the runner has started without publishing flight data
+	 */
+	public synchronized Subscription subscribeFlightData(FlightDataSubscriber subscriber, double rateHz, FlightDataDelivery delivery) {
+		if (flightData == null && scheduler != null)
+			return null;
+		
+		return getOrCreateFlightData().subscribe(subscriber, rateHz, delivery);
+	}
+	
+	/**
+	 * Runs a command on the runner thread before the next step of the simulation, so that other threads can change the state of the 
+	 * simulation (pausing or resetting it, for example) without racing with it
+	 * 
+	 * @param command
+	 */
+	public void submit(Runnable command) {
+		commands.add(command);
+	}
+	
+	/**
+	 * Captures a snapshot of the simulation before its next step. The snapshot can be stored with {@link SimulationSnapshot#toByteArray()}, 
+	 * restored later to rewind this simulation, or restored to other simulations of the same configuration to fork them from this point
+	 * 
+	 * @return future completed with the snapshot, or completed exceptionally if the runner is running a replay
+	 */
+	public CompletableFuture<SimulationSnapshot> takeSnapshot() {
+		CompletableFuture<SimulationSnapshot> future = new CompletableFuture<>();
+		
+		submit(() -> {
+			if (snapshotter != null)
+				future.complete(snapshotter.capture());
+			else
+				future.completeExceptionally(new IllegalStateException("A replay cannot be captured in a snapshot"));
+		});
+		
+		return future;
+	}
+	
+	/**
+	 * Restores the simulation to a snapshot before its next step. Flight data, recordings and the history of outputs continue 
+	 * from the state restored
+	 * 
+	 * @param snapshot snapshot of this simulation or another of the same configuration
+	 */
+	public void restoreSnapshot(SimulationSnapshot snapshot) {
+		submit(() -> {
+			if (snapshotter != null)
+				snapshotter.restore(snapshot);
+		});
+	}
+	
+	/**
+	 * Rewinds the simulation before its next step to the newest snapshot captured automatically at least seconds of flight time ago; 
+	 * see {@link SnapshotRing#rewind(double)}
+	 * 
+	 * @param seconds flight time to rewind (sec)
 	 */
-	public void addFlightDataListener(FlightDataListener listener) {
-		if (flightData != null) 
-			flightData.addFlightDataListener(listener);
+	public void rewind(double seconds) {
+		submit(() -> {
+			if (snapshots != null)
+				snapshots.rewind(seconds);
+			else
+				logger.warn("No snapshots are being captured to rewind to!");
+		});
 	}
 	
 	/**
@@ -211,11 +508,37 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 			environmentData.addEnvironmentDataListener(listener);
 	}
 		
+	/**
+	 * @return simulation run by this runner; null if running a replay
+	 */
 	public Integrate6DOFEquations getSimulation() { return simulation; }
 	
-	public FlightControlsState getFlightControls() { return flightControlsManager.getControlsState(); }
+	/**
+	 * @return replay run by this runner; null if running a simulation
+	 */
+	public FlightReplay getReplay() { return replay; }
+	
+	/**
+	 * @return simulation or replay whose outputs drive flight data and its listeners
+	 */
+	public SimOutSource getSource() { return source; }
+	
+	public SimulationContext getContext() { return context; }
+	
+	public FlightControlsState getFlightControls() { return (flightControlsManager != null) ? flightControlsManager.getControlsState() : null; }
 
 	public AtomicInteger getTimeMS() { return timeMS; }
+
+	public SimulationClock getClock() { return clock; }
+
+	public SimulationPacer getPacer() { return pacer; }
+	
+	public StepScheduler getScheduler() { return scheduler; }
+	
+	/**
+	 * @return snapshots captured automatically for rewinding, or null if none are captured; only to be read on the runner thread 
+	 */
+	public SnapshotRing getSnapshots() { return snapshots; }
 	
 	/**
 	 * @return If out the window display is running
@@ -228,4 +551,9 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	 * @param running
 	 */
 	public synchronized void setRunning(boolean running) { this.running = running; }
+	
+	/**
+	 * @return If the runner initializes neither the OTW display nor any input devices
+	 */
+	public boolean isHeadless() { return headless; }
 }
@@ -19,11 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
-import java.util.Map;
-import java.util.Set;
-
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-
 import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
@@ -35,23 +30,25 @@ import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
  * Calculates total accelerations and moments experienced by the aircraft in the simulation. The init method creates an
  * {@link Aerodynamics} object to calculate aerodynamic forces and moments, which are then added to other various forces 
  * (ground reaction, wind, engine, etc) to yield accelerations and moments used by {@link Integrate6DOFEquations} in its 
- * numerical integration
+ * numerical integration. Mass properties and the aerodynamic center are read from the aircraft's {@link AircraftParameters}.
+ * Each instance owns its own output arrays, so separate simulation runs may calculate forces concurrently
  * @see Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
  */
 public class AccelAndMoments {
 	
-	private static Aerodynamics aero;
+	private final Aerodynamics aero;
 	
-	private static double[] linearAccelerations = new double[3];
-	private static double[] totalMoments 		= new double[3];
+	private final double[] linearAccelerations = new double[3];
+	private final double[] totalMoments 	   = new double[3];
+	private final double[] aeroForceCrossProd  = new double[3];
 	
 	/**
-	 * Initializes {@link AccelAndMoments}. It uses the {@link Aircraft} argument to create an {@link Aerodynamics} object, 
+	 * Creates {@link AccelAndMoments}. It uses the {@link Aircraft} argument to create an {@link Aerodynamics} object, 
 	 * which calculates aerodynamic forces and moments associated with the Aircraft object passed in
 	 *  
 	 * @param aircraft
 	 */
-	public static void init(Aircraft aircraft) {aero = new Aerodynamics(aircraft);}
+	public AccelAndMoments(Aircraft aircraft) {aero = new Aerodynamics(aircraft);}
 	
 	
 	/**
@@ -59,42 +56,44 @@ public class AccelAndMoments {
 	 * 
 	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
 	 * @param alphaDot
-	 * @param engineList
+	 * @param engines
 	 * @param aircraft
 	 * @param groundReaction
 	 * @param heightAGL
 	 * @return linearAccelerations
 	 */
-	public static double[] calculateLinearAccelerations(double[] windParameters,
+	public double[] calculateLinearAccelerations(double[] windParameters,
 									         		    double[] angularRates,
-									         		    Map<EnvironmentParameters, Double> environmentParameters,
-									         		    Map<FlightControl, Double> controls,
+									         		    double[] environmentParameters,
+									         		    double[] controls,
 									         		    double alphaDot,
-									         		    Set<Engine> engineList,
+									         		    Engine[] engines,
 									         		    Aircraft aircraft,
 									         		    IntegrateGroundReaction groundReaction,
 									         		    double heightAGL) {
 		
-		Vector3D aeroForceVector = new Vector3D(aero.calculateBodyForces(windParameters, 
-																	     angularRates, 
-																	     environmentParameters, 
-																	     controls, 
-																	     alphaDot,
-																	     heightAGL));
+		double[] aeroForces = aero.calculateBodyForces(windParameters, 
+													   angularRates, 
+													   environmentParameters, 
+													   controls, 
+													   alphaDot,
+													   heightAGL);
 		
-		Vector3D groundForceVector = new Vector3D(groundReaction.getTotalGroundForces());
+		double[] groundForces = groundReaction.getTotalGroundForces();
 		
-		// Create a vector of engine force, iterate through engineList and add the thrust of each engine in list
-		Vector3D engineForceVector = Vector3D.ZERO;
-		for (Engine engine : engineList)
-			engineForceVector = engineForceVector.add(new Vector3D(engine.getEngineThrust()));
-
-		linearAccelerations = aeroForceVector.add(engineForceVector).add(groundForceVector)
-											 .scalarMultiply(1/aircraft.getMassProperty(MassProperties.TOTAL_MASS))
-											 .toArray(); 
+		double inverseMass = 1/aircraft.getParameters().getTotalMass();
+		
+		// Add the thrust of each engine in engines to aerodynamic and ground forces
+		for (int i = 0; i < 3; i++) {
+			double engineForce = 0;
+			for (int j = 0; j < engines.length; j++)
+				engineForce += engines[j].getEngineThrust()[i];
+			
+			linearAccelerations[i] = (aeroForces[i] + engineForce + groundForces[i]) * inverseMass;
+		}
 		
 		return SaturationUtilities.limitLinearAccelerations(linearAccelerations);
 	}
@@ -104,53 +103,58 @@ public class AccelAndMoments {
 	 * 
 	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
 	 * @param alphaDot
-	 * @param engineList
+	 * @param engines
 	 * @param aircraft
 	 * @param groundReaction
 	 * @param heightAGL
 	 * @return totalMoments
 	 */
-	public static double[] calculateTotalMoments(double[] windParameters,
+	public double[] calculateTotalMoments(double[] windParameters,
 											     double[] angularRates,
-											     Map<EnvironmentParameters, Double> environmentParameters,
-											     Map<FlightControl, Double> controls,
+											     double[] environmentParameters,
+											     double[] controls,
 											     double alphaDot,
-											     Set<Engine> engineList,
+											     Engine[] engines,
 											     Aircraft aircraft,
 											     IntegrateGroundReaction groundReaction,
 											     double heightAGL) {
 
-		Vector3D aeroForceVector = new Vector3D(aero.calculateBodyForces(windParameters, 
-																	     angularRates, 
-																	     environmentParameters, 
-																	     controls, 
-																	     alphaDot,
-																	     heightAGL));
-		
-		// Apache Commons vector methods only accept primitive double[] arrays
-		Vector3D acVector = new Vector3D(aircraft.getAerodynamicCenter());
-		Vector3D cgVector = new Vector3D(aircraft.getCenterOfGravity());
+		double[] aeroForces = aero.calculateBodyForces(windParameters, 
+													   angularRates, 
+													   environmentParameters, 
+													   controls, 
+													   alphaDot,
+													   heightAGL);
 		
-		Vector3D aeroForceCrossProd = Vector3D.crossProduct(aeroForceVector, acVector.subtract(cgVector));
+		// Moment arm of aerodynamic forces is the aerodynamic center's position relative to the center of gravity
+		AircraftParameters parameters = aircraft.getParameters();
+		double armX = parameters.getAerodynamicCenter(0) - parameters.getCenterOfGravity(0);
+		double armY = parameters.getAerodynamicCenter(1) - parameters.getCenterOfGravity(1);
+		double armZ = parameters.getAerodynamicCenter(2) - parameters.getCenterOfGravity(2);
 		
-		Vector3D aeroMomentVector = new Vector3D(aero.calculateAeroMoments(windParameters, 
-																		   angularRates, 
-																		   environmentParameters, 
-																		   controls, 
-																		   alphaDot)); 
+		aeroForceCrossProd[0] = aeroForces[1]*armZ - aeroForces[2]*armY;
+		aeroForceCrossProd[1] = aeroForces[2]*armX - aeroForces[0]*armZ;
+		aeroForceCrossProd[2] = aeroForces[0]*armY - aeroForces[1]*armX;
 		
-		Vector3D groundMomentVector = new Vector3D(groundReaction.getTotalGroundMoments());
+		double[] aeroMoments = aero.calculateAeroMoments(windParameters, 
+														 angularRates, 
+														 environmentParameters, 
+														 controls, 
+														 alphaDot); 
 		
-		// Create a vector of engine moment, iterate through engineList and add the moment of each engine in list
-		Vector3D engineMoment = Vector3D.ZERO;
-		for (Engine engine : engineList)
-			engineMoment = engineMoment.add(new Vector3D(engine.getEngineMoment()));
+		double[] groundMoments = groundReaction.getTotalGroundMoments();
 		
-		totalMoments = aeroMomentVector.add(engineMoment).add(aeroForceCrossProd).add(groundMomentVector)
-									   .toArray();
+		// Add the moment of each engine in engines to aerodynamic and ground moments
+		for (int i = 0; i < 3; i++) {
+			double engineMoment = 0;
+			for (int j = 0; j < engines.length; j++)
+				engineMoment += engines[j].getEngineMoment()[i];
+			
+			totalMoments[i] = aeroMoments[i] + engineMoment + aeroForceCrossProd[i] + groundMoments[i];
+		}
 		
 		return SaturationUtilities.limitTotalMoments(totalMoments); 
 	}
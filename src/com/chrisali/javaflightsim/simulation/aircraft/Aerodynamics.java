@@ -21,7 +21,6 @@ package com.chrisali.javaflightsim.simulation.aircraft;
 
 import java.util.Map;
 
-import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
 import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,31 +32,57 @@ import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 /**
  * This class calculates aerodynamic forces and moments in the stability coordinate frame. The aerodynamic forces are then converted to the 
  * body frame to calculate accelerations and moments in {@link AccelAndMoments}. The stability derivatives are {@link LookupTable} objects,
- * which are either constant or linerally interpolatable 
+ * which are either constant or interpolated from tables of up to four dimensions 
  * 
- * @param EnumMap controls                            
+ * @param double[] controls                            
  * @param windParameters 								
  * @param angularRates
  * @param double alphaDot
- * @param EnumMap environmentParams
+ * @param double[] environmentParams
  *  
  * @see Aircraft
  * @see StabilityDerivatives
- * @see PiecewiseBicubicSplineInterpolatingFunction
+ * @see CompiledLookupTable
  * @see Source: Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
  */
 public class Aerodynamics {
 	
 	private static final Logger logger = LogManager.getLogger(Aerodynamics.class);
 	
+	// Indices of flight controls in the primitive controls array
+	private static final int ELEVATOR = FlightControl.ELEVATOR.ordinal();
+	private static final int AILERON  = FlightControl.AILERON.ordinal();
+	private static final int RUDDER   = FlightControl.RUDDER.ordinal();
+	private static final int FLAPS 	  = FlightControl.FLAPS.ordinal();
+	private static final int GEAR 	  = FlightControl.GEAR.ordinal();
+	
+	// Indices of environment parameters in the primitive environment parameters array
+	private static final int RHO = EnvironmentParameters.RHO.ordinal();
+	private static final int A 	 = EnvironmentParameters.A.ordinal();
+	
 	private Aircraft aircraft;
 	
+	// Parameters of the aircraft as of the latest force or moment calculation
+	private AircraftParameters parameters;
+	
+	// Mach number as of the latest force or moment calculation, used to look up tables with a Mach number dimension
+	private double mach = 0.0;
+	
+	// Owned by this instance and overwritten by each force or moment calculation, so that those calculations do not allocate
+	private final double[][] w2bDCM 	= new double[3][3];
+	private final double[] aeroForces 	= new double[3];
+	private final double[] bodyForces 	= new double[3];
+	private final double[] aeroMoments 	= new double[3];
+	
 	/**
 	 * Aerodynamics constructor. Takes the aerodynamic parameters of an {@link Aircraft} object to generate aerodynamic forces and moments
 	 * 
 	 * @param aircraft
 	 */
-	public Aerodynamics(Aircraft aircraft) {this.aircraft = aircraft;}
+	public Aerodynamics(Aircraft aircraft) {
+		this.aircraft = aircraft;
+		this.parameters = aircraft.getParameters();
+	}
 	
 	/**
 	 *  Calculates the aircraft's total lift coefficient (CL)
@@ -71,17 +96,17 @@ public class Aerodynamics {
 	 */
 	private double calculateCL(double[] angularRates,
 						  	   double[] windParameters,
-						  	   Map<FlightControl, Double> controls,
+						  	   double[] controls,
 						  	   double alphaDot,
 						  	   double heightAGL) {
-		double rotaryTerm = aircraft.getWingGeometry(WingGeometry.C_BAR)/(2*windParameters[0]);
+		double rotaryTerm = parameters.getCBar()/(2*windParameters[0]);
 		
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CL_ALPHA)*windParameters[2]*groundEffect(heightAGL)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_0).getValue()+	
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_Q).getValue()*angularRates[1]*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_ALPHA_DOT).getValue()*alphaDot*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+	
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_D_FLAP).getValue()*controls.get(FlightControl.FLAPS);		
+		return calculateInterpStabDer(windParameters, controls[FLAPS], StabilityDerivatives.CL_ALPHA)*windParameters[2]*groundEffect(heightAGL)+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CL_0)+	
+			   parameters.getStabilityDerivative(StabilityDerivatives.CL_Q)*angularRates[1]*rotaryTerm+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CL_ALPHA_DOT)*alphaDot*rotaryTerm+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CL_D_ELEV)*controls[ELEVATOR]+	
+			   parameters.getStabilityDerivative(StabilityDerivatives.CL_D_FLAP)*controls[FLAPS];		
 	}
 	
 	/**
@@ -92,9 +117,9 @@ public class Aerodynamics {
 	 * @return CY
 	 */
 	private double calculateCY(double[] windParameters,
-						 	   Map<FlightControl, Double> controls) {
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CY_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CY_D_RUD).getValue()*controls.get(FlightControl.RUDDER);	
+						 	   double[] controls) {
+		return parameters.getStabilityDerivative(StabilityDerivatives.CY_BETA)*windParameters[1]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CY_D_RUD)*controls[RUDDER];	
 	}
 	
 	/**
@@ -106,13 +131,13 @@ public class Aerodynamics {
 	 * @return CD
 	 */
 	private double calculateCD(double[] windParameters,
-					 	  	   Map<FlightControl, Double> controls,
+					 	  	   double[] controls,
 					 	  	   double heightAGL) {
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CD_ALPHA)*Math.abs(windParameters[2])/groundEffect(heightAGL)+ // Need absolute value to prevent negative drag at negative alpha
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_0).getValue()+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_FLAP).getValue()*controls.get(FlightControl.FLAPS)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_GEAR).getValue()*controls.get(FlightControl.GEAR);		
+		return calculateInterpStabDer(windParameters, controls[FLAPS], StabilityDerivatives.CD_ALPHA)*Math.abs(windParameters[2])/groundEffect(heightAGL)+ // Need absolute value to prevent negative drag at negative alpha
+			   parameters.getStabilityDerivative(StabilityDerivatives.CD_0)+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CD_D_FLAP)*controls[FLAPS]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CD_D_ELEV)*controls[ELEVATOR]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CD_D_GEAR)*controls[GEAR];		
 	}
 	
 	/**
@@ -125,14 +150,14 @@ public class Aerodynamics {
 	 */
 	private double calculateCRoll(double[] angularRates,
 					  	    	  double[] windParameters,
-					  	    	  Map<FlightControl, Double> controls) {
-		double helixAngle = aircraft.getWingGeometry(WingGeometry.B_WING)/(2*windParameters[0]);
+					  	    	  double[] controls) {
+		double helixAngle = parameters.getBWing()/(2*windParameters[0]);
 		
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_P).getValue()*angularRates[0]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_R).getValue()*angularRates[2]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_D_AIL).getValue()*controls.get(FlightControl.AILERON)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_D_RUD).getValue()*controls.get(FlightControl.RUDDER);
+		return parameters.getStabilityDerivative(StabilityDerivatives.CROLL_BETA)*windParameters[1]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CROLL_P)*angularRates[0]*helixAngle+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CROLL_R)*angularRates[2]*helixAngle+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CROLL_D_AIL)*controls[AILERON]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CROLL_D_RUD)*controls[RUDDER];
 	}
 	
 	/**
@@ -146,16 +171,16 @@ public class Aerodynamics {
 	 */
 	private double calculateCM(double[] angularRates,
 						 	   double[] windParameters,
-						 	   Map<FlightControl, Double> controls,
+						 	   double[] controls,
 						 	   double alphaDot) {
-		double rotaryTerm = aircraft.getWingGeometry(WingGeometry.C_BAR)/(2*windParameters[0]);
+		double rotaryTerm = parameters.getCBar()/(2*windParameters[0]);
 		
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CM_ALPHA)*windParameters[2]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_0).getValue()+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_Q).getValue()*angularRates[1]*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_ALPHA_DOT).getValue()*alphaDot*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_D_FLAP).getValue()*controls.get(FlightControl.FLAPS);
+		return calculateInterpStabDer(windParameters, controls[FLAPS], StabilityDerivatives.CM_ALPHA)*windParameters[2]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CM_0)+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CM_Q)*angularRates[1]*rotaryTerm+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CM_ALPHA_DOT)*alphaDot*rotaryTerm+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CM_D_ELEV)*controls[ELEVATOR]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CM_D_FLAP)*controls[FLAPS];
 	}
 	
 	/**
@@ -168,39 +193,48 @@ public class Aerodynamics {
 	 */
 	private double calculateCN(double[] angularRates,
 						 	   double[] windParameters,
-						 	   Map<FlightControl, Double> controls) {
-		double helixAngle = aircraft.getWingGeometry(WingGeometry.B_WING)/(2*windParameters[0]);
+						 	   double[] controls) {
+		double helixAngle = parameters.getBWing()/(2*windParameters[0]);
 		
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CN_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_P).getValue()*angularRates[0]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_R).getValue()*angularRates[2]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_D_AIL).getValue()*controls.get(FlightControl.AILERON)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_D_RUD).getValue()*controls.get(FlightControl.RUDDER);	
+		return parameters.getStabilityDerivative(StabilityDerivatives.CN_BETA)*windParameters[1]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CN_P)*angularRates[0]*helixAngle+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CN_R)*angularRates[2]*helixAngle+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CN_D_AIL)*controls[AILERON]+
+			   parameters.getStabilityDerivative(StabilityDerivatives.CN_D_RUD)*controls[RUDDER];	
 	}
 	
 	/**
 	 * Gets the type of value contained in the specified key of the {@link StabilityDerivatives} EnumMap and 
-	 * interpolates it using {@link LookupTable#interpolate(double, double)} 
+	 * interpolates it using {@link LookupTable#interpolate(double, double, double, double)} 
 	 *  
 	 * @param windParameters
 	 * @param controls
 	 * @param stabDer
 	 * @return interpStabDer
 	 */
-	public Double calculateInterpStabDer(double[] windParameters,
+	public double calculateInterpStabDer(double[] windParameters,
 			 							 Map<FlightControl, Double> controls,
 			 							 StabilityDerivatives stabDer) {
-		Double interpStabDer;		
-		LookupTable lookup = aircraft.getStabilityDerivative(stabDer);
+		parameters = aircraft.getParameters();
 		
+		return calculateInterpStabDer(windParameters, controls.get(FlightControl.FLAPS), stabDer);
+	}
+	
+	/**
+	 * Interpolates a stability derivative using {@link AircraftParameters#interpolateStabilityDerivative(StabilityDerivatives, double, double, double, double)}
+	 * 
+	 * @param windParameters
+	 * @param flaps
+	 * @param stabDer
+	 * @return interpStabDer
+	 */
+	private double calculateInterpStabDer(double[] windParameters, double flaps, StabilityDerivatives stabDer) {
 		try {
-			interpStabDer = lookup.interpolate(windParameters[2], controls.get(FlightControl.FLAPS));
+			return parameters.interpolateStabilityDerivative(stabDer, windParameters[2], windParameters[1], mach, flaps);
 		} catch (OutOfRangeException e) {
 			logger.error("Number out of range for interpolation! Returning 0 for value.");
 			return 0.0;
 		}
-		
-		return interpStabDer;
 	}
 	
 	/**
@@ -211,7 +245,7 @@ public class Aerodynamics {
 	 * @return adjustment to CL_alpha and CD_alpha
 	 */
 	private double groundEffect(double heightAGL) {
-		double normalizedHeightAGL = heightAGL/aircraft.getWingGeometry(WingGeometry.B_WING);
+		double normalizedHeightAGL = heightAGL/parameters.getBWing();
 		if (normalizedHeightAGL < 1.0)
 			return 1 - (Math.atan(15*(normalizedHeightAGL-1)) / 10);
 		else
@@ -224,30 +258,34 @@ public class Aerodynamics {
 	 * 
 	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
 	 * @param alphaDot
 	 * @param heightAGL
-	 * @return bodyForces
+	 * @return bodyForces, which are overwritten by the next call
 	 */
 	public double[] calculateBodyForces(double[] windParameters,
 									  	double[] angularRates,
-										Map<EnvironmentParameters, Double> environmentParameters,
-									    Map<FlightControl, Double> controls,
+										double[] environmentParameters,
+									    double[] controls,
 										double alphaDot,
 										double heightAGL) {
-		double qBar = environmentParameters.get(EnvironmentParameters.RHO)*Math.pow(windParameters[0], 2)/2;
+		parameters = aircraft.getParameters();
 		
-		double[][] w2bDCM = SixDOFUtilities.wind2Body(windParameters);
+		double qBar = environmentParameters[RHO]*Math.pow(windParameters[0], 2)/2;
+		mach = windParameters[0]/environmentParameters[A];
+		
+		SixDOFUtilities.wind2Body(windParameters, w2bDCM);
 		
 		// Negative L and D to switch body directions and position in array swapped
-		double[] aeroForces = {-qBar*calculateCD(windParameters, controls, heightAGL)*aircraft.getWingGeometry(WingGeometry.S_WING),
-				   			    qBar*calculateCY(windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING),
-							   -qBar*calculateCL(angularRates, windParameters, controls, alphaDot, heightAGL)*aircraft.getWingGeometry(WingGeometry.S_WING)};
+		aeroForces[0] = -qBar*calculateCD(windParameters, controls, heightAGL)*parameters.getSWing();
+		aeroForces[1] =  qBar*calculateCY(windParameters, controls)*parameters.getSWing();
+		aeroForces[2] = -qBar*calculateCL(angularRates, windParameters, controls, alphaDot, heightAGL)*parameters.getSWing();
+		
+		for (int i = 0; i < 3; i++)
+			bodyForces[i] = aeroForces[0]*w2bDCM[i][0]+aeroForces[1]*w2bDCM[i][1]+aeroForces[2]*w2bDCM[i][2];
 		
-		return new double[] {aeroForces[0]*w2bDCM[0][0]+aeroForces[1]*w2bDCM[0][1]+aeroForces[2]*w2bDCM[0][2],
-							 aeroForces[0]*w2bDCM[1][0]+aeroForces[1]*w2bDCM[1][1]+aeroForces[2]*w2bDCM[1][2],
-							 aeroForces[0]*w2bDCM[2][0]+aeroForces[1]*w2bDCM[2][1]+aeroForces[2]*w2bDCM[2][2]};
+		return bodyForces;
 	}
 	
 	/**
@@ -255,20 +293,25 @@ public class Aerodynamics {
 	 * 
 	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
 	 * @param alphaDot
-	 * @return aerodynamicMoments
+	 * @return aerodynamicMoments, which are overwritten by the next call
 	 */
 	public double[] calculateAeroMoments(double[] windParameters,
 									     double[] angularRates,
-									     Map<EnvironmentParameters, Double> environmentParameters,
-									     Map<FlightControl, Double> controls,
+									     double[] environmentParameters,
+									     double[] controls,
 									     double alphaDot) {
-		double qBar = environmentParameters.get(EnvironmentParameters.RHO)*Math.pow(windParameters[0], 2)/2;
+		parameters = aircraft.getParameters();
+		
+		double qBar = environmentParameters[RHO]*Math.pow(windParameters[0], 2)/2;
+		mach = windParameters[0]/environmentParameters[A];
+		
+		aeroMoments[0] = qBar*calculateCRoll(angularRates, windParameters, controls)*parameters.getSWing()*parameters.getBWing();
+		aeroMoments[1] = qBar*calculateCM(angularRates, windParameters, controls, alphaDot)*parameters.getSWing()*parameters.getCBar();
+		aeroMoments[2] = qBar*calculateCN(angularRates, windParameters, controls)*parameters.getSWing()*parameters.getBWing();
 		
-		return new double[] {qBar*calculateCRoll(angularRates, windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.B_WING), 
-							 qBar*calculateCM(angularRates, windParameters, controls, alphaDot)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.C_BAR), 
-						 	 qBar*calculateCN(angularRates, windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.B_WING)};					
+		return aeroMoments;
 	}
 }
@@ -55,6 +55,9 @@ public class Aircraft implements Saveable {
 	private Map<WingGeometry, Double> 		  	   wingGeometry;
 	private Map<MassProperties, Double> 	  	   massProps;
 	private Map<GroundReaction, Double>		  	   groundReaction;
+	
+	@JsonIgnore
+	private volatile AircraftParameters 		   parameters;
 
 	/**
 	 * Custom aircraft constructor. It uses files located in <p><br><code>Aircraft\</code></br></p>
@@ -127,6 +130,46 @@ public class Aircraft implements Saveable {
 														     massProps.get(MassProperties.J_Z),
 														     massProps.get(MassProperties.J_XZ)};}
 	
+	/**
+	 * Returns the immutable {@link AircraftParameters} block compiled from this aircraft's parameters, which the force and moment 
+	 * calculations read on each evaluation. The block is compiled upon the first call after construction or after any of the 
+	 * aircraft's EnumMaps have been replaced; a change of mass properties only recompiles its mass section (see 
+	 * {@link Aircraft#massPropertiesChanged()}). Callers should get the block once per evaluation, so that they always use 
+	 * a consistent set of parameters 
+	 * 
+	 * @return parameters
+	 */
+	@JsonIgnore
+	public AircraftParameters getParameters() {
+		AircraftParameters compiled = parameters;
+		
+		if (compiled == null) {
+			synchronized (this) {
+				if ((compiled = parameters) == null) {
+					logger.debug("Compiling parameters of " + name + "...");
+					parameters = compiled = new AircraftParameters(this);
+				}
+			}
+		}
+		
+		return compiled;
+	}
+	
+	/**
+	 * Hook called when this aircraft's mass properties have changed, which recompiles only the mass section of its {@link AircraftParameters}
+	 */
+	private synchronized void massPropertiesChanged() {
+		if (parameters != null)
+			parameters = parameters.withMassProperties(massProps);
+	}
+	
+	/**
+	 * Discards the compiled {@link AircraftParameters}, so that they are compiled again on the next call of {@link Aircraft#getParameters()}
+	 */
+	private synchronized void parametersChanged() {
+		parameters = null;
+	}
+	
 	/**
 	 * Returns the double value held by the {@link LookupTable} value for the {@link StabilityDerivatives} key in the stabDerivs EnumMap. 
 	 * 
@@ -160,7 +203,10 @@ public class Aircraft implements Saveable {
 	 * @param massProp
 	 */
 	@JsonIgnore
-	public void setMassProperty(MassProperties massProp, Double value) {massProps.put(massProp, value);}
+	public void setMassProperty(MassProperties massProp, Double value) {
+		massProps.put(massProp, value);
+		massPropertiesChanged();
+	}
 	
 	/**
 	 * Updates the MassProperties config file with weight percentages
@@ -179,6 +225,7 @@ public class Aircraft implements Saveable {
 		try {	
 			massProps.put(MassProperties.WEIGHT_FUEL, fuelWeightPercent);
 			massProps.put(MassProperties.WEIGHT_PAYLOAD, payloadWeightPercent);
+			massPropertiesChanged();
 		} catch (Exception e) {
 			logger.error("Error updating mass properties!", e);
 		}
@@ -186,19 +233,31 @@ public class Aircraft implements Saveable {
 	
 	public Map<MassProperties, Double> getMassProps() {return massProps;}
 
-	public void setMassProps(Map<MassProperties, Double> massProps) { this.massProps = massProps; }
+	public void setMassProps(Map<MassProperties, Double> massProps) { 
+		this.massProps = massProps;
+		massPropertiesChanged();
+	}
 			
 	public Map<StabilityDerivatives, LookupTable> getStabDerivs() { return stabDerivs; }
 
-	public void setStabDerivs(Map<StabilityDerivatives, LookupTable> stabDerivs) { this.stabDerivs = stabDerivs;	}
+	public void setStabDerivs(Map<StabilityDerivatives, LookupTable> stabDerivs) { 
+		this.stabDerivs = stabDerivs;
+		parametersChanged();
+	}
 
 	public Map<WingGeometry, Double> getWingGeometry() { return wingGeometry; }
 
-	public void setWingGeometry(Map<WingGeometry, Double> wingGeometry) { this.wingGeometry = wingGeometry;	}
+	public void setWingGeometry(Map<WingGeometry, Double> wingGeometry) { 
+		this.wingGeometry = wingGeometry;
+		parametersChanged();
+	}
 	
 	public Map<GroundReaction, Double> getGroundReaction() {return groundReaction;}
 
-	public void setGroundReaction(Map<GroundReaction, Double> groundReaction) { this.groundReaction = groundReaction; }
+	public void setGroundReaction(Map<GroundReaction, Double> groundReaction) { 
+		this.groundReaction = groundReaction;
+		parametersChanged();
+	}
 	
 	public Set<Engine> getEngines() { return engines; }
 
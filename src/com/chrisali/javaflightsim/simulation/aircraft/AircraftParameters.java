@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import java.util.Map;
+
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+/**
+ * Immutable block of the parameters of an {@link Aircraft} that are needed to calculate its forces and moments, compiled from the 
+ * EnumMaps of {@link Aircraft} into primitive fields and arrays indexed by enum ordinal, so that {@link Aerodynamics}, 
+ * {@link AccelAndMoments} and the ground reaction model can read them on each evaluation of the equations of motion 
+ * without map lookups or unboxing. Constant stability derivatives are stored as primitive values; tabulated ones keep a 
+ * reference to their {@link LookupTable}.
+ * 
+ * <p>Because a block never changes once compiled, a change to an aircraft's parameters is published by replacing its block; 
+ * see {@link Aircraft#getParameters()}. A change of mass properties, such as one from the weight dialog, only recompiles the mass 
+ * section with {@link AircraftParameters#withMassProperties(Map)}, which shares the aerodynamic and ground reaction sections of 
+ * the previous block</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AircraftParameters {
+	
+	public static final int NOSE_GEAR  = 0;
+	public static final int LEFT_GEAR  = 1;
+	public static final int RIGHT_GEAR = 2;
+	
+	private static final StabilityDerivatives[] STABILITY_DERIVATIVES = StabilityDerivatives.values();
+	
+	// Aerodynamics
+	private final double[] 		stabDerivValues;
+	private final LookupTable[] stabDerivTables;
+	
+	private final double cBar;
+	private final double sWing;
+	private final double bWing;
+	private final double[] aerodynamicCenter;
+	
+	// Mass Properties
+	private final double totalMass;
+	private final double[] centerOfGravity;
+	private final double[] inertiaCoeffs;
+	
+	// Ground Reaction {nose, left, right}
+	private final double[][] gearPositions;
+	private final double[] gearSprings;
+	private final double[] gearDampings;
+	private final double brakingForce;
+	
+	/**
+	 * Compiles all sections of the parameter block from the EnumMaps of an {@link Aircraft}. Parameters missing from 
+	 * the aircraft are compiled as zero
+	 * 
+	 * @param aircraft
+	 */
+	public AircraftParameters(Aircraft aircraft) {
+		Map<StabilityDerivatives, LookupTable> stabDerivs = aircraft.getStabDerivs();
+		
+		stabDerivValues = new double[STABILITY_DERIVATIVES.length];
+		stabDerivTables = new LookupTable[STABILITY_DERIVATIVES.length];
+		
+		for (StabilityDerivatives stabDer : STABILITY_DERIVATIVES) {
+			LookupTable lookup = stabDerivs.get(stabDer);
+			
+			if (lookup == null)
+				continue;
+			
+			if (lookup.isInterpolating())
+				stabDerivTables[stabDer.ordinal()] = lookup;
+			else if (lookup.getValue() != null)
+				stabDerivValues[stabDer.ordinal()] = lookup.getValue();
+		}
+		
+		Map<WingGeometry, Double> wingGeometry = aircraft.getWingGeometry();
+		
+		cBar  = valueOf(wingGeometry, WingGeometry.C_BAR);
+		sWing = valueOf(wingGeometry, WingGeometry.S_WING);
+		bWing = valueOf(wingGeometry, WingGeometry.B_WING);
+		aerodynamicCenter = new double[] {valueOf(wingGeometry, WingGeometry.AC_X),
+										  valueOf(wingGeometry, WingGeometry.AC_Y),
+										  valueOf(wingGeometry, WingGeometry.AC_Z)};
+		
+		Map<GroundReaction, Double> groundReaction = aircraft.getGroundReaction();
+		
+		gearPositions = new double[][] {{valueOf(groundReaction, GroundReaction.NOSE_X),
+										 valueOf(groundReaction, GroundReaction.NOSE_Y),
+										 valueOf(groundReaction, GroundReaction.NOSE_Z)},
+										{valueOf(groundReaction, GroundReaction.LEFT_X),
+										 valueOf(groundReaction, GroundReaction.LEFT_Y),
+										 valueOf(groundReaction, GroundReaction.LEFT_Z)},
+										{valueOf(groundReaction, GroundReaction.RIGHT_X),
+										 valueOf(groundReaction, GroundReaction.RIGHT_Y),
+										 valueOf(groundReaction, GroundReaction.RIGHT_Z)}};
+		gearSprings   = new double[] {valueOf(groundReaction, GroundReaction.NOSE_SPRING),
+									  valueOf(groundReaction, GroundReaction.LEFT_SPRING),
+									  valueOf(groundReaction, GroundReaction.RIGHT_SPRING)};
+		gearDampings  = new double[] {valueOf(groundReaction, GroundReaction.NOSE_DAMPING),
+									  valueOf(groundReaction, GroundReaction.LEFT_DAMPING),
+									  valueOf(groundReaction, GroundReaction.RIGHT_DAMPING)};
+		brakingForce  = valueOf(groundReaction, GroundReaction.BRAKING_FORCE);
+		
+		Map<MassProperties, Double> massProps = aircraft.getMassProps();
+		
+		totalMass 		= valueOf(massProps, MassProperties.TOTAL_MASS);
+		centerOfGravity = compileCenterOfGravity(massProps);
+		inertiaCoeffs 	= compileInertiaCoeffs(massProps);
+	}
+	
+	/**
+	 * Creates a copy of an existing block with a recompiled mass properties section; all other sections are shared with 
+	 * the existing block
+	 * 
+	 * @param previous
+	 * @param massProps
+	 */
+	private AircraftParameters(AircraftParameters previous, Map<MassProperties, Double> massProps) {
+		stabDerivValues   = previous.stabDerivValues;
+		stabDerivTables   = previous.stabDerivTables;
+		cBar 			  = previous.cBar;
+		sWing 			  = previous.sWing;
+		bWing 			  = previous.bWing;
+		aerodynamicCenter = previous.aerodynamicCenter;
+		gearPositions 	  = previous.gearPositions;
+		gearSprings 	  = previous.gearSprings;
+		gearDampings 	  = previous.gearDampings;
+		brakingForce 	  = previous.brakingForce;
+		
+		totalMass 		= valueOf(massProps, MassProperties.TOTAL_MASS);
+		centerOfGravity = compileCenterOfGravity(massProps);
+		inertiaCoeffs 	= compileInertiaCoeffs(massProps);
+	}
+	
+	/**
+	 * @param massProps
+	 * @return a new block with the mass properties section recompiled from massProps, sharing all other sections with this block
+	 */
+	public AircraftParameters withMassProperties(Map<MassProperties, Double> massProps) {
+		return new AircraftParameters(this, massProps);
+	}
+	
+	private static double[] compileCenterOfGravity(Map<MassProperties, Double> massProps) {
+		return new double[] {valueOf(massProps, MassProperties.CG_X),
+							 valueOf(massProps, MassProperties.CG_Y),
+							 valueOf(massProps, MassProperties.CG_Z)};
+	}
+	
+	private static double[] compileInertiaCoeffs(Map<MassProperties, Double> massProps) {
+		return SixDOFUtilities.calculateInertiaCoeffs(new double[] {valueOf(massProps, MassProperties.J_X),
+																	valueOf(massProps, MassProperties.J_Y),
+																	valueOf(massProps, MassProperties.J_Z),
+																	valueOf(massProps, MassProperties.J_XZ)});
+	}
+	
+	private static <K> double valueOf(Map<K, Double> map, K key) {
+		Double value = (map != null) ? map.get(key) : null;
+		
+		return (value != null) ? value : 0.0;
+	}
+	
+	/**
+	 * @param stabDer
+	 * @return constant value of the stability derivative, or 0 if it is tabulated
+	 */
+	public double getStabilityDerivative(StabilityDerivatives stabDer) { return stabDerivValues[stabDer.ordinal()]; }
+	
+	/**
+	 * Interpolates a stability derivative with {@link LookupTable#interpolate(double, double, double, double)} if it is 
+	 * tabulated, or returns its constant value otherwise
+	 * 
+	 * @param stabDer
+	 * @param alpha
+	 * @param beta
+	 * @param mach
+	 * @param flap
+	 * @return value of the stability derivative
+	 * @throws OutOfRangeException if any parameter lies outside of the table's breakpoints
+	 */
+	public double interpolateStabilityDerivative(StabilityDerivatives stabDer, double alpha, double beta, double mach, double flap) {
+		LookupTable lookup = stabDerivTables[stabDer.ordinal()];
+		
+		return (lookup == null) ? stabDerivValues[stabDer.ordinal()] : lookup.interpolate(alpha, beta, mach, flap);
+	}
+	
+	/**
+	 * @return mean aerodynamic chord (ft)
+	 */
+	public double getCBar() { return cBar; }
+	
+	/**
+	 * @return wing area (ft^2)
+	 */
+	public double getSWing() { return sWing; }
+	
+	/**
+	 * @return wing span (ft)
+	 */
+	public double getBWing() { return bWing; }
+	
+	/**
+	 * @param axis 0 (x), 1 (y) or 2 (z)
+	 * @return position of the aerodynamic center along axis (ft)
+	 */
+	public double getAerodynamicCenter(int axis) { return aerodynamicCenter[axis]; }
+	
+	/**
+	 * @return total mass of the aircraft (slug)
+	 */
+	public double getTotalMass() { return totalMass; }
+	
+	/**
+	 * @param axis 0 (x), 1 (y) or 2 (z)
+	 * @return position of the center of gravity along axis (ft)
+	 */
+	public double getCenterOfGravity(int axis) { return centerOfGravity[axis]; }
+	
+	/**
+	 * @param index
+	 * @return inertia coefficient at index, as calculated by {@link SixDOFUtilities#calculateInertiaCoeffs(double[])}
+	 */
+	public double getInertiaCoeff(int index) { return inertiaCoeffs[index]; }
+	
+	/**
+	 * @param gear {@link AircraftParameters#NOSE_GEAR}, {@link AircraftParameters#LEFT_GEAR} or {@link AircraftParameters#RIGHT_GEAR}
+	 * @param axis 0 (x), 1 (y) or 2 (z)
+	 * @return position of the landing gear relative to the center of gravity along axis (ft)
+	 */
+	public double getGearPosition(int gear, int axis) { return gearPositions[gear][axis]; }
+	
+	/**
+	 * @param gear {@link AircraftParameters#NOSE_GEAR}, {@link AircraftParameters#LEFT_GEAR} or {@link AircraftParameters#RIGHT_GEAR}
+	 * @return spring constant of the landing gear's strut
+	 */
+	public double getGearSpring(int gear) { return gearSprings[gear]; }
+	
+	/**
+	 * @param gear {@link AircraftParameters#NOSE_GEAR}, {@link AircraftParameters#LEFT_GEAR} or {@link AircraftParameters#RIGHT_GEAR}
+	 * @return damping constant of the landing gear's strut
+	 */
+	public double getGearDamping(int gear) { return gearDampings[gear]; }
+	
+	/**
+	 * @return maximum braking force of each main landing gear (lbf)
+	 */
+	public double getBrakingForce() { return brakingForce; }
+}
@@ -0,0 +1,404 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.exception.OutOfRangeException;
+
+/**
+ * Gridded table of one to four dimensions that is interpolated with piecewise tensor product cubic Hermite polynomials. Slopes at 
+ * each breakpoint are estimated along each dimension (mixed partial derivatives by applying it successively) the same way as 
+ * Apache Commons' AkimaSplineInterpolator: Akima's method at interior breakpoints, which avoids the overshoot of natural splines 
+ * near abrupt changes in the data such as stall, and a three point parabola at the two breakpoints nearest each end.
+ * 
+ * <p>All of the work is done upon construction: the 4<sup>N</sup> polynomial coefficients of every cell are stored in a single flat 
+ * array, so that interpolation is only a cell lookup and nested Horner evaluation of the cell's polynomial, with no allocation and 
+ * a primitive double return. Cell lookup is O(1) for uniformly spaced breakpoints; for non-uniform breakpoints the last cell 
+ * found in each dimension is tried first, as successive lookups in a simulation are almost always in the same or an 
+ * adjacent cell</p>
+ * 
+ * <p>Values outside of the breakpoints are not extrapolated; an {@link OutOfRangeException} is thrown instead</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CompiledLookupTable {
+	
+	private static final int MAX_DIMENSIONS = 4;
+	
+	// Relative tolerance used to decide if breakpoints are uniformly spaced
+	private static final double UNIFORM_TOLERANCE = 1e-9;
+	
+	private final int dimensions;
+	private final int coefficientsPerCell;
+	
+	private final double[][] breakPoints;
+	private final double[][] inverseWidths;
+	private final boolean[] uniform;
+	private final double[] uniformInverseWidth;
+	private final int[] cellStrides;
+	
+	// Last cell found in each dimension; only a hint, so races between threads are harmless  
+	private final int[] hints;
+	
+	private final double[] coefficients;
+	
+	/**
+	 * Creates a table from breakpoints and values at each combination of breakpoints
+	 * 
+	 * @param breakPoints strictly increasing breakpoints of each dimension, with at least two in each dimension 
+	 * @param values values at each breakpoint, ordered with the last dimension varying fastest (row major order)
+	 */
+	public CompiledLookupTable(double[][] breakPoints, double[] values) {
+		dimensions = breakPoints.length;
+		
+		if (dimensions < 1 || dimensions > MAX_DIMENSIONS)
+			throw new IllegalArgumentException("Lookup tables must have between 1 and " + MAX_DIMENSIONS + " dimensions!");
+		
+		coefficientsPerCell = 1 << (2 * dimensions);
+		
+		this.breakPoints = new double[dimensions][];
+		inverseWidths = new double[dimensions][];
+		uniform = new boolean[dimensions];
+		uniformInverseWidth = new double[dimensions];
+		hints = new int[dimensions];
+		
+		int[] nodeStrides = new int[dimensions];
+		cellStrides = new int[dimensions];
+		int nodes = 1, cells = 1;
+		
+		for (int d = dimensions - 1; d >= 0; d--) {
+			double[] bp = breakPoints[d].clone();
+			checkBreakPoints(bp, d);
+			
+			this.breakPoints[d] = bp;
+			inverseWidths[d] = new double[bp.length - 1];
+			for (int i = 0; i < bp.length - 1; i++)
+				inverseWidths[d][i] = 1.0 / (bp[i + 1] - bp[i]);
+			
+			double range = bp[bp.length - 1] - bp[0];
+			uniformInverseWidth[d] = (bp.length - 1) / range;
+			uniform[d] = true;
+			for (int i = 1; i < bp.length - 1; i++)
+				uniform[d] &= Math.abs(bp[i] - (bp[0] + i * range / (bp.length - 1))) <= UNIFORM_TOLERANCE * range;
+			
+			nodeStrides[d] = nodes;
+			cellStrides[d] = cells;
+			nodes *= bp.length;
+			cells *= bp.length - 1;
+		}
+		
+		if (values.length != nodes)
+			throw new IllegalArgumentException("Expected " + nodes + " lookup values, but " + values.length + " were given!");
+		
+		// Partial derivatives at each node, indexed by bit mask of the dimensions differentiated with respect to 
+		double[][] partials = new double[1 << dimensions][];
+		partials[0] = values.clone();
+		
+		for (int d = 0; d < dimensions; d++) {
+			for (int mask = 0; mask < (1 << d); mask++)
+				partials[mask | (1 << d)] = akimaSlopes(partials[mask], d, nodeStrides);
+		}
+		
+		coefficients = new double[cells * coefficientsPerCell];
+		
+		int[] cell = new int[dimensions];
+		for (int c = 0; c < cells; c++) {
+			int remainder = c;
+			for (int d = 0; d < dimensions; d++) {
+				cell[d] = remainder / cellStrides[d];
+				remainder %= cellStrides[d];
+			}
+			
+			compileCell(cell, c * coefficientsPerCell, partials, nodeStrides);
+		}
+	}
+	
+	/**
+	 * Convenience constructor for a two dimensional table
+	 * 
+	 * @param breakPoints0 breakpoints of the first dimension (rows of values)
+	 * @param breakPoints1 breakpoints of the second dimension (columns of values)
+	 * @param values
+	 */
+	public CompiledLookupTable(double[] breakPoints0, double[] breakPoints1, double[][] values) {
+		this(new double[][] {breakPoints0, breakPoints1}, flatten(values, breakPoints0.length, breakPoints1.length));
+	}
+	
+	private static double[] flatten(double[][] values, int rows, int columns) {
+		if (values.length != rows)
+			throw new IllegalArgumentException("Expected " + rows + " rows of lookup values, but " + values.length + " were given!");
+		
+		double[] flat = new double[rows * columns];
+		for (int i = 0; i < rows; i++) {
+			if (values[i].length != columns)
+				throw new IllegalArgumentException("Expected " + columns + " lookup values in row " + i + ", but " + values[i].length + " were given!");
+			
+			System.arraycopy(values[i], 0, flat, i * columns, columns);
+		}
+		
+		return flat;
+	}
+	
+	private static void checkBreakPoints(double[] bp, int dimension) {
+		if (bp.length < 2)
+			throw new IllegalArgumentException("Dimension " + dimension + " of lookup table needs at least 2 breakpoints!");
+		
+		for (int i = 1; i < bp.length; i++) {
+			if (!(bp[i] > bp[i - 1]))
+				throw new IllegalArgumentException("Breakpoints in dimension " + dimension + " of lookup table must be strictly increasing!");
+		}
+	}
+	
+	/**
+	 * Estimates the slope with respect to dimension d at every node of f using Akima's method, or a three point parabola for 
+	 * the two nodes nearest each end of each line (or all nodes if there are fewer than five)
+	 */
+	private double[] akimaSlopes(double[] f, int d, int[] nodeStrides) {
+		double[] bp = breakPoints[d];
+		int n = bp.length;
+		int stride = nodeStrides[d];
+		
+		double[] slopes = new double[f.length];
+		double[] m = new double[n - 1]; // Secant slopes
+		
+		for (int node = 0; node < f.length; node++) {
+			// Only start once at the first node of each line along dimension d 
+			if ((node / stride) % n != 0)
+				continue;
+			
+			for (int i = 0; i < n - 1; i++)
+				m[i] = (f[node + (i + 1) * stride] - f[node + i * stride]) * inverseWidths[d][i];
+			
+			if (n == 2) {
+				slopes[node] = slopes[node + stride] = m[0];
+				continue;
+			}
+			
+			for (int i = 0; i < n; i++) {
+				double slope;
+				
+				if (i >= 2 && i < n - 2) {
+					double w1 = Math.abs(m[i + 1] - m[i]);
+					double w2 = Math.abs(m[i - 1] - m[i - 2]);
+					
+					slope = (w1 + w2 == 0) ? (m[i - 1] + m[i]) / 2 : (w1 * m[i - 1] + w2 * m[i]) / (w1 + w2);
+				} else {
+					int start = (i < 2) ? 0 : n - 3;
+					slope = parabolaSlope(bp, start, i, f[node + start * stride], f[node + (start + 1) * stride], f[node + (start + 2) * stride]);
+				}
+				
+				slopes[node + i * stride] = slope;
+			}
+		}
+		
+		return slopes;
+	}
+	
+	/**
+	 * @return slope at breakpoint i of the parabola through (bp[start], y0), (bp[start+1], y1) and (bp[start+2], y2) 
+	 */
+	private static double parabolaSlope(double[] bp, int start, int i, double y0, double y1, double y2) {
+		double dx1 = bp[start + 1] - bp[start];
+		double dx2 = bp[start + 2] - bp[start];
+		double t = bp[i] - bp[start];
+		
+		double a = (y2 - y0 - dx2 / dx1 * (y1 - y0)) / (dx2 * dx2 - dx1 * dx2);
+		double b = (y1 - y0 - a * dx1 * dx1) / dx1;
+		
+		return 2 * a * t + b;
+	}
+	
+	/**
+	 * Converts the values and scaled partial derivatives at the corners of a cell into the coefficients of its polynomial in 
+	 * normalized cell coordinates 
+	 */
+	private void compileCell(int[] cell, int offset, double[][] partials, int[] nodeStrides) {
+		double[] g = new double[coefficientsPerCell];
+		
+		// Hermite data at the cell's corners; in each dimension, digit 0: value at low node, 1: value at high node, 
+		// 2: scaled slope at low node, 3: scaled slope at high node 
+		for (int index = 0; index < coefficientsPerCell; index++) {
+			int node = 0, mask = 0;
+			double scale = 1.0;
+			
+			for (int d = 0; d < dimensions; d++) {
+				int digit = (index >> (2 * (dimensions - 1 - d))) & 3;
+				
+				node += (cell[d] + (digit & 1)) * nodeStrides[d];
+				
+				if (digit >= 2) {
+					mask |= 1 << d;
+					scale *= breakPoints[d][cell[d] + 1] - breakPoints[d][cell[d]];
+				}
+			}
+			
+			g[index] = partials[mask][node] * scale;
+		}
+		
+		// Convert Hermite data to power basis coefficients along each dimension
+		for (int d = 0; d < dimensions; d++) {
+			int stride = 1 << (2 * (dimensions - 1 - d));
+			
+			for (int index = 0; index < coefficientsPerCell; index++) {
+				if (((index / stride) & 3) != 0)
+					continue;
+				
+				double f0 = g[index], f1 = g[index + stride], d0 = g[index + 2 * stride], d1 = g[index + 3 * stride];
+				
+				g[index]              = f0;
+				g[index + stride]     = d0;
+				g[index + 2 * stride] = -3 * f0 + 3 * f1 - 2 * d0 - d1;
+				g[index + 3 * stride] =  2 * f0 - 2 * f1 + d0 + d1;
+			}
+		}
+		
+		System.arraycopy(g, 0, coefficients, offset, coefficientsPerCell);
+	}
+	
+	/**
+	 * Finds the cell of dimension d containing x
+	 */
+	private int locate(int d, double x) {
+		double[] bp = breakPoints[d];
+		int lastCell = bp.length - 2;
+		
+		if (x < bp[0] || x > bp[lastCell + 1])
+			throw new OutOfRangeException(x, bp[0], bp[lastCell + 1]);
+		
+		int i;
+		if (uniform[d]) {
+			i = (int) ((x - bp[0]) * uniformInverseWidth[d]);
+		} else {
+			i = hints[d];
+			
+			if (x < bp[i] || x >= bp[i + 1]) {
+				if (i < lastCell && x >= bp[i + 1] && x < bp[i + 2]) {
+					i++;
+				} else if (i > 0 && x < bp[i] && x >= bp[i - 1]) {
+					i--;
+				} else {
+					i = Arrays.binarySearch(bp, x);
+					i = (i < 0) ? -i - 2 : i;
+				}
+			}
+			
+			hints[d] = Math.min(Math.max(i, 0), lastCell);
+		}
+		
+		return Math.min(Math.max(i, 0), lastCell);
+	}
+	
+	private double fraction(int d, int i, double x) {
+		return (x - breakPoints[d][i]) * inverseWidths[d][i];
+	}
+	
+	private static double horner(double[] c, int offset, double t) {
+		return ((c[offset + 3] * t + c[offset + 2]) * t + c[offset + 1]) * t + c[offset];
+	}
+	
+	private static double horner2(double[] c, int offset, double t0, double t1) {
+		return horner(c, offset, t1) + t0 * (horner(c, offset + 4, t1) + t0 * (horner(c, offset + 8, t1) + t0 * horner(c, offset + 12, t1)));
+	}
+	
+	private static double horner3(double[] c, int offset, double t0, double t1, double t2) {
+		return horner2(c, offset, t1, t2) + t0 * (horner2(c, offset + 16, t1, t2) + t0 * (horner2(c, offset + 32, t1, t2) 
+			 + t0 * horner2(c, offset + 48, t1, t2)));
+	}
+	
+	private static double horner4(double[] c, int offset, double t0, double t1, double t2, double t3) {
+		return horner3(c, offset, t1, t2, t3) + t0 * (horner3(c, offset + 64, t1, t2, t3) + t0 * (horner3(c, offset + 128, t1, t2, t3) 
+			 + t0 * horner3(c, offset + 192, t1, t2, t3)));
+	}
+	
+	private void checkDimensions(int n) {
+		if (dimensions != n)
+			throw new IllegalArgumentException("Lookup table has " + dimensions + " dimensions, but was interpolated with " + n + "!");
+	}
+	
+	/**
+	 * @param x0
+	 * @return value of a one dimensional table interpolated at x0
+	 */
+	public double value(double x0) {
+		checkDimensions(1);
+		
+		int i0 = locate(0, x0);
+		
+		return horner(coefficients, i0 * coefficientsPerCell, fraction(0, i0, x0));
+	}
+	
+	/**
+	 * @param x0
+	 * @param x1
+	 * @return value of a two dimensional table interpolated at (x0, x1)
+	 */
+	public double value(double x0, double x1) {
+		checkDimensions(2);
+		
+		int i0 = locate(0, x0), i1 = locate(1, x1);
+		int offset = (i0 * cellStrides[0] + i1) * coefficientsPerCell;
+		
+		return horner2(coefficients, offset, fraction(0, i0, x0), fraction(1, i1, x1));
+	}
+	
+	/**
+	 * @param x0
+	 * @param x1
+	 * @param x2
+	 * @return value of a three dimensional table interpolated at (x0, x1, x2)
+	 */
+	public double value(double x0, double x1, double x2) {
+		checkDimensions(3);
+		
+		int i0 = locate(0, x0), i1 = locate(1, x1), i2 = locate(2, x2);
+		int offset = (i0 * cellStrides[0] + i1 * cellStrides[1] + i2) * coefficientsPerCell;
+		
+		return horner3(coefficients, offset, fraction(0, i0, x0), fraction(1, i1, x1), fraction(2, i2, x2));
+	}
+	
+	/**
+	 * @param x0
+	 * @param x1
+	 * @param x2
+	 * @param x3
+	 * @return value of a four dimensional table interpolated at (x0, x1, x2, x3)
+	 */
+	public double value(double x0, double x1, double x2, double x3) {
+		checkDimensions(4);
+		
+		int i0 = locate(0, x0), i1 = locate(1, x1), i2 = locate(2, x2), i3 = locate(3, x3);
+		int offset = (i0 * cellStrides[0] + i1 * cellStrides[1] + i2 * cellStrides[2] + i3) * coefficientsPerCell;
+		
+		return horner4(coefficients, offset, fraction(0, i0, x0), fraction(1, i1, x1), fraction(2, i2, x2), fraction(3, i3, x3));
+	}
+	
+	/**
+	 * @return number of dimensions of this table
+	 */
+	public int getDimensions() { return dimensions; }
+	
+	/**
+	 * @param dimension
+	 * @return copy of the breakpoints of the given dimension
+	 */
+	public double[] getBreakPoints(int dimension) { return breakPoints[dimension].clone(); }
+}
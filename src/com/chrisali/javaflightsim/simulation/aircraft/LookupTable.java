@@ -19,7 +19,7 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
-import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
+import org.apache.commons.math3.exception.OutOfRangeException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -30,9 +30,16 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
- * Wrapper for the Apache Commons' PiecewiseBicubicSplineInterpolatingFunction that allows a double value to be
- * interpolated for two given breakpoints. It is also capable of returning a single value if no interpolation 
- * arrays are specified upon construction
+ * Wrapper for {@link CompiledLookupTable} that allows a double value to be interpolated for a set of given breakpoints. 
+ * Tables can be defined in two ways:
+ * 
+ * <p>Two dimensional tables of angle of attack and flap deflection, using breakPointAngle, breakPointFlap and lookupValues</p>
+ * 
+ * <p>One to four dimensional tables, using inputs to define the {@link LookupTableInput} of each dimension, breakPoints for the 
+ * breakpoints of each dimension and tableValues for the values at each combination of breakpoints, flattened so that the 
+ * last dimension varies fastest</p>
+ * 
+ * It is also capable of returning a single value if no interpolation arrays are specified upon construction
  * 
  * @author Christopher
  *
@@ -43,6 +50,9 @@ public class LookupTable {
 	@JsonIgnore
 	private static final Logger logger = LogManager.getLogger(LookupTable.class);
 	
+	@JsonIgnore
+	private static final LookupTableInput[] ANGLE_FLAP_INPUTS = {LookupTableInput.ALPHA, LookupTableInput.FLAP};
+	
 	private String name;
 	
 	private double[] breakPointFlap;
@@ -50,11 +60,20 @@ public class LookupTable {
 	private double[] breakPointAngle;
 	
 	private double[][] lookupValues;
+	
+	private LookupTableInput[] inputs;
+	
+	private double[][] breakPoints;
+	
+	private double[] tableValues;
 
 	private Double value;
 	
 	@JsonIgnore
-	private PiecewiseBicubicSplineInterpolatingFunction pbsif;
+	private CompiledLookupTable table;
+	
+	@JsonIgnore
+	private LookupTableInput[] tableInputs;
 	
 	public LookupTable() {}
 
@@ -67,7 +86,7 @@ public class LookupTable {
 		this.value = value;
 		this.name = name;
 	}
-		
+	
 	/**
 	 * Creates a LookupTable capable of interpolating in two dimensions; one for an angle of deflection, the other
 	 * for deflection of a control surface
@@ -78,41 +97,147 @@ public class LookupTable {
 	 * @param defaultValue
 	 * @param name
 	 */
+	public LookupTable(double[] breakPointAngle, double[] breakPointFlap, double[][] lookupValues, double defaultValue, String name) {
+		this(breakPointAngle, breakPointFlap, lookupValues, null, null, null, defaultValue, name);
+	}
+		
+	/**
+	 * Creates a LookupTable capable of interpolating in two dimensions of angle of deflection and control surface deflection, 
+	 * or in one to four dimensions of the parameters given in inputs
+	 * 
+	 * @param breakPointAngle
+	 * @param breakPointFlap
+	 * @param lookupValues
+	 * @param inputs
+	 * @param breakPoints
+	 * @param tableValues
+	 * @param defaultValue
+	 * @param name
+	 */
 	@JsonCreator
 	public LookupTable(@JsonProperty(required=false, value="breakPointAngle") double[] breakPointAngle, 
 					   @JsonProperty(required=false, value="breakPointFlap") double[] breakPointFlap, 
-					   @JsonProperty(required=false, value="lookupValues") double[][] lookupValues, 
+					   @JsonProperty(required=false, value="lookupValues") double[][] lookupValues,
+					   @JsonProperty(required=false, value="inputs") LookupTableInput[] inputs, 
+					   @JsonProperty(required=false, value="breakPoints") double[][] breakPoints, 
+					   @JsonProperty(required=false, value="tableValues") double[] tableValues, 
 					   @JsonProperty(required=false, value="value") double defaultValue,
 					   @JsonProperty(required=false, value="name") String name) {
 		this.breakPointAngle = breakPointAngle;
 		this.breakPointFlap = breakPointFlap;
 		this.lookupValues = lookupValues;
+		this.inputs = inputs;
+		this.breakPoints = breakPoints;
+		this.tableValues = tableValues;
 		this.value = defaultValue;
 		this.name = name;
 		
-		if (breakPointAngle != null && breakPointFlap != null && lookupValues != null) {
+		if (inputs != null && breakPoints != null && tableValues != null) {
+			logger.debug("Creating a " + inputs.length + " dimensional interpolating lookup table for " + name + "...");
+			
+			if (inputs.length != breakPoints.length)
+				throw new IllegalArgumentException("Lookup table " + name + " has " + inputs.length + " inputs, but " 
+													+ breakPoints.length + " sets of breakpoints!");
+			
+			table = new CompiledLookupTable(breakPoints, tableValues);
+			tableInputs = inputs;
+		} else if (breakPointAngle != null && breakPointFlap != null && lookupValues != null) {
 			logger.debug("Creating an interpolating lookup table for " + name + "...");
-			pbsif = new PiecewiseBicubicSplineInterpolatingFunction(breakPointAngle, breakPointFlap, lookupValues);
+			table = new CompiledLookupTable(breakPointAngle, breakPointFlap, lookupValues);
+			tableInputs = ANGLE_FLAP_INPUTS;
 		}
 	}
-
+	
 	/**
 	 * @param angle
 	 * @param flap
-	 * @return an interpolated Double value if an interpolating function has been initialized, otherwise returns a constant value
+	 * @return an interpolated value if an interpolating table has been initialized, otherwise returns a constant value; any 
+	 * sideslip or Mach number dimensions of the table are interpolated at zero
+	 * @throws OutOfRangeException if angle or flap lie outside of the table's breakpoints
+	 */
+	public double interpolate(double angle, double flap) {	
+		return interpolate(angle, 0.0, 0.0, flap);
+	}
+
+	/**
+	 * @param alpha
+	 * @param beta
+	 * @param mach
+	 * @param flap
+	 * @return an interpolated value of the {@link LookupTableInput} parameters of this table if an interpolating table has 
+	 * been initialized, otherwise returns a constant value
+	 * @throws OutOfRangeException if any parameter lies outside of the table's breakpoints
 	 */
-	public Double interpolate(double angle, double flap) {	
-		Double interp = value;
+	public double interpolate(double alpha, double beta, double mach, double flap) {
+		if (table == null) {
+			if (value == null) {
+				logger.error("Null value encountered in interpolation of " + name + "! Returning 0...");
+				return 0.0;
+			}
+			
+			return value;
+		}
 		
-		if (pbsif != null)
-			interp = pbsif.value(angle, flap);
+		switch (tableInputs.length) {
+		case 1:
+			return table.value(select(0, alpha, beta, mach, flap));
+		case 2:
+			return table.value(select(0, alpha, beta, mach, flap), select(1, alpha, beta, mach, flap));
+		case 3:
+			return table.value(select(0, alpha, beta, mach, flap), select(1, alpha, beta, mach, flap), 
+							   select(2, alpha, beta, mach, flap));
+		default:
+			return table.value(select(0, alpha, beta, mach, flap), select(1, alpha, beta, mach, flap), 
+							   select(2, alpha, beta, mach, flap), select(3, alpha, beta, mach, flap));
+		}
+	}
+	
+	/**
+	 * Creates a copy of this LookupTable with its constant value and all of its table values multiplied by a factor; 
+	 * breakpoints are shared with this table
+	 * 
+	 * @param factor
+	 * @return scaled copy of this LookupTable
+	 */
+	public LookupTable scale(double factor) {
+		double[][] scaledLookupValues = null;
+		if (lookupValues != null) {
+			scaledLookupValues = new double[lookupValues.length][];
+			for (int i = 0; i < lookupValues.length; i++) {
+				scaledLookupValues[i] = new double[lookupValues[i].length];
+				for (int j = 0; j < lookupValues[i].length; j++)
+					scaledLookupValues[i][j] = lookupValues[i][j] * factor;
+			}
+		}
 		
-		if (interp == null) {
-			logger.error("Null value encountered in interpolation of " + name + "! Returning 0...");			
-			interp = 0.0;
+		double[] scaledTableValues = null;
+		if (tableValues != null) {
+			scaledTableValues = new double[tableValues.length];
+			for (int i = 0; i < tableValues.length; i++)
+				scaledTableValues[i] = tableValues[i] * factor;
 		}
 		
-		return interp;
+		LookupTable scaled = new LookupTable(breakPointAngle, breakPointFlap, scaledLookupValues, inputs, breakPoints, 
+											 scaledTableValues, value != null ? value * factor : 0.0, name);
+		scaled.setValue(value != null ? value * factor : null);
+		
+		return scaled;
+	}
+	
+	/**
+	 * @return the parameter used to look up the given dimension of the table
+	 */
+	private double select(int dimension, double alpha, double beta, double mach, double flap) {
+		switch (tableInputs[dimension]) {
+		case ALPHA:
+			return alpha;
+		case BETA:
+			return beta;
+		case MACH:
+			return mach;
+		default:
+			return flap;
+		}
 	}
 		
 	public String getName() { return name; }
@@ -123,6 +248,12 @@ public class LookupTable {
 	 * @return constant Double value specified upon construction of a non-interpolating LookupTable
 	 */
 	public Double getValue() { return value; }
+	
+	/**
+	 * @return if this table interpolates its value, rather than returning a constant value
+	 */
+	@JsonIgnore
+	public boolean isInterpolating() { return table != null; }
 
 	public void setValue(Double value) { this.value = value; }
 
@@ -136,5 +267,11 @@ public class LookupTable {
 
 	public double[][] getLookupValues() { return lookupValues; }
 
-	public void setLookupValues(double[][] lookUpValues) { this.lookupValues = lookUpValues; }	
+	public void setLookupValues(double[][] lookUpValues) { this.lookupValues = lookUpValues; }
+
+	public LookupTableInput[] getInputs() { return inputs; }
+
+	public double[][] getBreakPoints() { return breakPoints; }
+
+	public double[] getTableValues() { return tableValues; }
 }
@@ -41,6 +41,9 @@ public class EnvironmentData implements Steppable {
 	
 	private static final Logger logger = LogManager.getLogger(EnvironmentData.class);
 	
+	// Rate at which terrain height is polled from the out the window display (Hz)
+	private static final double STEP_RATE_HZ = 20.0;
+	
 	private Map<EnvironmentDataType, Double> environmentData = Collections.synchronizedMap(new EnumMap<EnvironmentDataType, Double>(EnvironmentDataType.class));
 	
 	private OTWWorld outTheWindow;
@@ -72,9 +75,20 @@ public class EnvironmentData implements Steppable {
 		fireDataArrived();
 	}
 		
+	/**
+	 * Terrain height changes slowly compared to the simulation, so it only needs to be polled at {@link EnvironmentData#STEP_RATE_HZ}
+	 */
+	@Override
+	public double getStepRateHz() {
+		return STEP_RATE_HZ;
+	}
+	
+	/**
+	 * Offset by one step so that polling terrain height does not land in the same simulation step as rendering
+	 */
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public int getStepPhase() {
+		return 1;
 	}
 
 	@Override
@@ -19,139 +19,138 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.datatransfer;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.EnumMap;
-import java.util.List;
-import java.util.Map;
-
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.interfaces.SimOutSource;
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus.Subscription;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recorder.FlightReplay;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
- *	Interacts with {@link Integrate6DOFEquations} and any registered listeners to pass flight data from the simulation
- *	listeners. Uses threading to obtain data from the simulation at a reasonable rate
+ *	Interacts with a {@link SimOutSource}, such as {@link Integrate6DOFEquations} or {@link FlightReplay}, and any subscribers 
+ *	to pass flight data from the simulation to subscribers. Obtains data from the source at a reasonable rate, converts it into 
+ *	{@link FlightDataType} units and publishes it on a {@link FlightDataBus}, which delivers it to each subscriber on the thread and at 
+ *	the rate it subscribed with
  */
-public class FlightData implements Steppable {
+public class FlightData implements Steppable, AutoCloseable {
 	
 	private static final Logger logger = LogManager.getLogger(FlightData.class);
 	
-	private Map<FlightDataType, Double> flightData = Collections.synchronizedMap(new EnumMap<FlightDataType, Double>(FlightDataType.class));
+	private final FlightDataBus bus = new FlightDataBus();
+	
+	private SimOutSource source;
 	
-	private Integrate6DOFEquations simulation;
-	private List<FlightDataListener> dataListenerList;
+	private double stepRateHz;
 	
 	/**
-	 * Creates an instance of {@link FlightData} with a reference to {@link Integrate6DOFEquations} so
-	 * that the thread in this class knows when the simulation is running
+	 * Creates an instance of {@link FlightData} with a reference to the {@link SimOutSource} whose outputs are passed to subscribers 
 	 * 
-	 * @param simulation
+	 * @param source simulation or replay that outputs flight data
+	 * @param stepRateHz rate at which flight data is published to subscribers; should match the fastest rate at which they display it (Hz)
 	 */
-	public FlightData(Integrate6DOFEquations simulation) {
-		this.simulation = simulation;
-		this.dataListenerList = new ArrayList<>();
+	public FlightData(SimOutSource source, double stepRateHz) {
+		this.source = source;
+		this.stepRateHz = stepRateHz;
 	}
 	
-	public Map<FlightDataType, Double> getFlightData() {return flightData;}
+	/**
+	 * @return bus on which flight data is published
+	 */
+	public FlightDataBus getBus() { return bus; }
 	
 	/**
-	 * Polls simOut for data, and assigns and converts the values needed to the flightData EnumMap  
+	 * Converts simOut into flight data, and publishes it to subscribers  
 	 * 
 	 * @param simOut
 	 */
-	public void updateData(Map<SimOuts, Double> simOut) {
-		final Double TAS_TO_IAS = 1/(1+((simOut.get(SimOuts.ALT)/1000)*0.02));
-		
-		synchronized (flightData) {
-			flightData.put(FlightDataType.IAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)*TAS_TO_IAS));
-			flightData.put(FlightDataType.TAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)));
-			
-			flightData.put(FlightDataType.VERT_SPEED, simOut.get(SimOuts.ALT_DOT));
-			
-			flightData.put(FlightDataType.ALTITUDE, simOut.get(SimOuts.ALT));
-			
-			flightData.put(FlightDataType.ROLL, Math.toDegrees(simOut.get(SimOuts.PHI)));
-			flightData.put(FlightDataType.PITCH, Math.toDegrees(simOut.get(SimOuts.THETA)));
-			
-			flightData.put(FlightDataType.HEADING, Math.toDegrees(simOut.get(SimOuts.PSI)));
-			
-			flightData.put(FlightDataType.TURN_RATE, Math.toDegrees(simOut.get(SimOuts.PSI_DOT)));
-			flightData.put(FlightDataType.TURN_COORD, simOut.get(SimOuts.AN_Y));
-			
-			flightData.put(FlightDataType.GFORCE, simOut.get(SimOuts.AN_Z));
-			
-			flightData.put(FlightDataType.LATITUDE, Math.toDegrees(simOut.get(SimOuts.LAT)));
-			flightData.put(FlightDataType.LONGITUDE, Math.toDegrees(simOut.get(SimOuts.LON)));
-			
-			flightData.put(FlightDataType.NORTH, simOut.get(SimOuts.NORTH));
-			flightData.put(FlightDataType.EAST, simOut.get(SimOuts.EAST));
-			
-			flightData.put(FlightDataType.RPM_1, simOut.get(SimOuts.RPM_1));
-			flightData.put(FlightDataType.RPM_2, simOut.get(SimOuts.RPM_2));
-			
-			flightData.put(FlightDataType.GEAR, simOut.get(SimOuts.GEAR));
-			flightData.put(FlightDataType.FLAPS, Math.toDegrees(simOut.get(SimOuts.FLAPS)));
-			
-			flightData.put(FlightDataType.AOA, Math.abs(simOut.get(SimOuts.ALPHA)));
-			
-			flightData.put(FlightDataType.PITCH_RATE, Math.toDegrees(simOut.get(SimOuts.Q)));
-		}
+	public void updateData(SimOutFrame simOut) {
+		final double TAS_TO_IAS = 1/(1+((simOut.get(SimOuts.ALT)/1000)*0.02));
+		
+		FlightDataFrame flightData = bus.getPublishFrame();
+		
+		flightData.set(FlightDataType.IAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)*TAS_TO_IAS));
+		flightData.set(FlightDataType.TAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)));
+		
+		flightData.set(FlightDataType.VERT_SPEED, simOut.get(SimOuts.ALT_DOT));
+		
+		flightData.set(FlightDataType.ALTITUDE, simOut.get(SimOuts.ALT));
+		
+		flightData.set(FlightDataType.ROLL, Math.toDegrees(simOut.get(SimOuts.PHI)));
+		flightData.set(FlightDataType.PITCH, Math.toDegrees(simOut.get(SimOuts.THETA)));
+		
+		flightData.set(FlightDataType.HEADING, Math.toDegrees(simOut.get(SimOuts.PSI)));
+		
+		flightData.set(FlightDataType.TURN_RATE, Math.toDegrees(simOut.get(SimOuts.PSI_DOT)));
+		flightData.set(FlightDataType.TURN_COORD, simOut.get(SimOuts.AN_Y));
+		
+		flightData.set(FlightDataType.GFORCE, simOut.get(SimOuts.AN_Z));
+		
+		flightData.set(FlightDataType.LATITUDE, Math.toDegrees(simOut.get(SimOuts.LAT)));
+		flightData.set(FlightDataType.LONGITUDE, Math.toDegrees(simOut.get(SimOuts.LON)));
 		
-		fireDataArrived();
+		flightData.set(FlightDataType.NORTH, simOut.get(SimOuts.NORTH));
+		flightData.set(FlightDataType.EAST, simOut.get(SimOuts.EAST));
+		
+		flightData.set(FlightDataType.RPM_1, simOut.get(SimOuts.RPM_1));
+		flightData.set(FlightDataType.RPM_2, simOut.get(SimOuts.RPM_2));
+		
+		flightData.set(FlightDataType.GEAR, simOut.get(SimOuts.GEAR));
+		flightData.set(FlightDataType.FLAPS, Math.toDegrees(simOut.get(SimOuts.FLAPS)));
+		
+		flightData.set(FlightDataType.AOA, Math.abs(simOut.get(SimOuts.ALPHA)));
+		
+		flightData.set(FlightDataType.PITCH_RATE, Math.toDegrees(simOut.get(SimOuts.Q)));
+		
+		bus.publish();
 	}
 		
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public double getStepRateHz() {
+		return stepRateHz;
+	}
+	
+	@Override
+	public int getStepPhase() {
+		return 0;
 	}
 
 	@Override
 	public void step() {
 		try {
-			if(simulation.getSimOut() != null)
-				updateData(simulation.getSimOut());
+			if(source.getSimOut() != null)
+				updateData(source.getSimOut());
 		} catch (Exception ez) {
-			logger.error("Exception encountered in Flight Data Listener!", ez);
+			logger.error("Exception encountered while publishing flight data!", ez);
 		}
 	}
 	
 	/**
-	 * Adds a listener that implements {@link FlightDataListener} to a list of listeners that can listen
-	 * to {@link NewFlightData} 
+	 * Subscribes a {@link FlightDataSubscriber} to flight data
 	 * 
-	 * @param dataListener
+	 * @param subscriber
+	 * @param rateHz maximum rate at which subscriber receives flight data, or 0 to receive every state published (Hz)
+	 * @param delivery thread on which subscriber receives flight data
+	 * @return subscription, which can be cancelled and reports delivery counts
 	 */
-	public void addFlightDataListener(FlightDataListener dataListener) {
-		logger.debug("Adding flight data listener: " + dataListener.getClass());
-		dataListenerList.add(dataListener);
+	public Subscription subscribe(FlightDataSubscriber subscriber, double rateHz, FlightDataDelivery delivery) {
+		return bus.subscribe(subscriber, rateHz, delivery);
 	}
 	
 	/**
-	 * Lets registered listeners know that data has arrived from the {@link Integrate6DOFEquations} thread
-	 * so that they can use it as needed
+	 * Cancels all subscriptions, stopping their delivery threads
 	 */
-	private void fireDataArrived() {
-		for (FlightDataListener listener : dataListenerList) {
-			if(listener != null) 
-				listener.onFlightDataReceived(this);
-		}
+	@Override
+	public void close() {
+		bus.close();
 	}
 
 	@Override
 	public String toString() {
-		StringBuilder sb = new StringBuilder();
-		
-		for (Map.Entry<FlightDataType, Double> entry : flightData.entrySet()) {
-			 sb.append(entry.getKey().toString()).append(": ").append(entry.getValue())
-			   .append(" ").append(entry.getKey().getUnit()).append("\n");
-		}
-		sb.append("\n");
-		
-		return sb.toString();
+		return bus.getPublishFrame().toString();
 	}
 }
@@ -0,0 +1,344 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Publish/subscribe bus that passes the latest {@link FlightDataFrame} from a single publishing thread to any number of 
+ * {@link FlightDataSubscriber}s. The publisher writes primitive values into {@link FlightDataBus#getPublishFrame()} and calls 
+ * {@link FlightDataBus#publish()}; each subscription holds a preallocated {@link TripleBuffer} of frames, so that publishing neither 
+ * allocates nor waits for subscribers.
+ * 
+ * <p>Each subscriber declares the maximum rate at which it wants flight data and the {@link FlightDataDelivery} thread it wants it on. 
+ * Delivery is coalesced: a subscriber that is slower than the publisher only ever receives the latest state, and states published 
+ * while it was busy are counted as coalesced rather than queued, so a slow subscriber never builds up a backlog or delays the publisher. 
+ * A state held back by the rate of an inline or Swing subscriber is delivered once the subscriber is due again, even if publishing 
+ * stops in the meantime, so that a paused simulation never leaves a subscriber showing a stale state</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightDataBus implements AutoCloseable {
+	
+	private static final Logger logger = LogManager.getLogger(FlightDataBus.class);
+	
+	private final FlightDataFrame publishFrame = new FlightDataFrame();
+	
+	// Replaced, never modified, when subscriptions change, so that the publisher can iterate over it without locking or allocating
+	private volatile Subscription[] subscriptions = new Subscription[0];
+	
+	private long published = 0;
+	
+	// Delivers states held back by the rate of inline and Swing subscribers; started with the first such subscription
+	private Thread trailingThread;
+	private volatile boolean closed = false;
+	
+	/**
+	 * Publisher only
+	 * 
+	 * @return frame that the publisher writes the next state into before calling {@link FlightDataBus#publish()}
+	 */
+	public FlightDataFrame getPublishFrame() { return publishFrame; }
+	
+	/**
+	 * Publisher only; publishes the state written into {@link FlightDataBus#getPublishFrame()} to all subscribers. Inline subscribers
+	 * that are due are called before this returns; other subscribers are signalled and receive the state on their own threads
+	 */
+	public void publish() {
+		long now = System.nanoTime();
+		publishFrame.stamp(++published, now);
+		
+		for (Subscription subscription : subscriptions)
+			subscription.offer(publishFrame, now);
+	}
+	
+	/**
+	 * Subscribes a subscriber to flight data published on this bus
+	 * 
+	 * @param subscriber
+	 * @param rateHz maximum rate at which subscriber receives flight data, or 0 to receive every state published (Hz)
+	 * @param delivery thread on which subscriber receives flight data
+	 * @return subscription, which can be cancelled and reports delivery counts
+	 */
+	public synchronized Subscription subscribe(FlightDataSubscriber subscriber, double rateHz, FlightDataDelivery delivery) {
+		logger.debug("Subscribing " + subscriber.getClass() + " to flight data at " + rateHz + " Hz on " + delivery + "...");
+		
+		Subscription subscription = new Subscription(subscriber, rateHz, delivery);
+		
+		if (delivery != FlightDataDelivery.DEDICATED && subscription.intervalNanos > 0 && trailingThread == null) {
+			trailingThread = new Thread(this::runTrailing, "Flight Data Trailing Delivery");
+			trailingThread.setDaemon(true);
+			trailingThread.start();
+		}
+		
+		Subscription[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+		updated[updated.length - 1] = subscription;
+		subscriptions = updated;
+		
+		return subscription;
+	}
+	
+	private synchronized void remove(Subscription subscription) {
+		Subscription[] updated = new Subscription[subscriptions.length];
+		int count = 0;
+		
+		for (Subscription existing : subscriptions) {
+			if (existing != subscription)
+				updated[count++] = existing;
+		}
+		
+		subscriptions = Arrays.copyOf(updated, count);
+	}
+	
+	/**
+	 * @return number of states published on this bus
+	 */
+	public long getPublished() { return published; }
+	
+	/**
+	 * Trailing delivery thread only; delivers each held back state once its subscriber is due, then waits for the next one to be due
+	 */
+	private void runTrailing() {
+		while (!closed) {
+			long now = System.nanoTime();
+			long nextWakeNanos = Long.MAX_VALUE;
+			
+			for (Subscription subscription : subscriptions) {
+				if (!subscription.trailingPending.get())
+					continue;
+				
+				long dueNanos = subscription.nextDueNanos;
+				if (now >= dueNanos) {
+					subscription.trailingPending.set(false);
+					subscription.deliverWhenDue(now);
+				} else {
+					nextWakeNanos = Math.min(nextWakeNanos, dueNanos - now);
+				}
+			}
+			
+			// A state held back after the scan unparks this thread, so the next park returns at once
+			if (nextWakeNanos == Long.MAX_VALUE)
+				LockSupport.park(this);
+			else
+				LockSupport.parkNanos(this, nextWakeNanos);
+		}
+	}
+	
+	/**
+	 * Cancels all subscriptions, stopping their delivery threads
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		
+		for (Subscription subscription : subscriptions)
+			subscription.cancel();
+		
+		synchronized (this) {
+			if (trailingThread != null)
+				LockSupport.unpark(trailingThread);
+		}
+	}
+	
+	/**
+	 * Subscription of a {@link FlightDataSubscriber} to a {@link FlightDataBus}, which counts the states delivered to the subscriber 
+	 * and the states it never saw because a later state replaced them first
+	 */
+	public class Subscription {
+		
+		private final FlightDataSubscriber subscriber;
+		private final FlightDataDelivery delivery;
+		private final long intervalNanos;
+		
+		private final TripleBuffer<FlightDataFrame> frames = new TripleBuffer<>(FlightDataFrame::new);
+		
+		// Written only by the publisher
+		private volatile long offered = 0;
+		private volatile long coalesced = 0;
+		
+		// Written only by the delivering thread
+		private volatile long delivered = 0;
+		private volatile long failed = 0;
+		
+		private volatile boolean cancelled = false;
+		
+		// Inline and Swing subscriptions only; guarded by this subscription, so that the publisher and the trailing delivery thread 
+		// never deliver at the same time, and read without locking by the trailing delivery thread
+		private volatile long nextDueNanos = Long.MIN_VALUE;
+		private final AtomicBoolean trailingPending = new AtomicBoolean(false);
+		
+		private final Thread thread;
+		private final AtomicBoolean edtPending = new AtomicBoolean(false);
+		private final Runnable edtDelivery = () -> {
+			edtPending.set(false);
+			deliverLatest();
+		};
+		
+		private Subscription(FlightDataSubscriber subscriber, double rateHz, FlightDataDelivery delivery) {
+			this.subscriber = subscriber;
+			this.delivery = delivery;
+			this.intervalNanos = (rateHz > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / rateHz) : 0;
+			
+			if (delivery == FlightDataDelivery.DEDICATED) {
+				thread = new Thread(this::runDedicated, "Flight Data " + subscriber.getClass().getSimpleName());
+				thread.setDaemon(true);
+				thread.start();
+			} else {
+				thread = null;
+			}
+		}
+		
+		/**
+		 * Publisher only; hands a state to the subscription, and delivers or signals it if the subscriber is due
+		 */
+		private void offer(FlightDataFrame frame, long now) {
+			if (cancelled)
+				return;
+			
+			frames.getWriteBuffer().copyFrom(frame);
+			if (frames.publish())
+				coalesced++;
+			offered++;
+			
+			if (delivery == FlightDataDelivery.DEDICATED)
+				LockSupport.unpark(thread);
+			else if (!deliverWhenDue(now) && trailingPending.compareAndSet(false, true))
+				LockSupport.unpark(trailingThread);
+		}
+		
+		/**
+		 * Inline and Swing subscriptions only; delivers the latest state inline, or schedules its delivery on the event dispatch thread, 
+		 * if the subscriber is due
+		 * 
+		 * @param now
+		 * @return if the latest state has been or will be delivered, or false if it was held back by the rate of the subscriber
+		 */
+		private synchronized boolean deliverWhenDue(long now) {
+			// A pending delivery on the event dispatch thread takes whichever state is latest when it runs
+			if (delivery == FlightDataDelivery.SWING_EDT && edtPending.get())
+				return true;
+			
+			if (now < nextDueNanos)
+				return false;
+			
+			nextDueNanos = now + intervalNanos;
+			
+			if (delivery == FlightDataDelivery.INLINE) {
+				deliverLatest();
+			} else {
+				edtPending.set(true);
+				SwingUtilities.invokeLater(edtDelivery);
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Delivering thread only, or the holder of the lock of an inline subscription; takes the latest state, if one has been published 
+		 * since the last delivery, and delivers it
+		 */
+		private void deliverLatest() {
+			if (!cancelled && frames.update())
+				deliver();
+		}
+		
+		/**
+		 * Delivering thread only; delivers the state last taken from the triple buffer
+		 */
+		private void deliver() {
+			try {
+				subscriber.onFlightData(frames.getReadBuffer());
+			} catch (Exception e) {
+				logger.error("Exception encountered in flight data subscriber " + subscriber.getClass() + "!", e);
+				failed++;
+			}
+			
+			delivered++;
+		}
+		
+		private void runDedicated() {
+			while (!cancelled) {
+				long started = System.nanoTime();
+				
+				if (frames.update()) {
+					deliver();
+					
+					// Limit the delivery rate; states published in the meantime are coalesced into the latest. Each publish unparks 
+					// this thread, so keep waiting until the subscriber is actually due
+					long dueNanos = started + intervalNanos;
+					for (long remaining = dueNanos - System.nanoTime(); remaining > 0 && !cancelled; remaining = dueNanos - System.nanoTime())
+						LockSupport.parkNanos(this, remaining);
+				} else {
+					LockSupport.park(this);
+				}
+			}
+		}
+		
+		/**
+		 * Stops delivering flight data to the subscriber, and stops its dedicated thread, if it has one
+		 */
+		public void cancel() {
+			cancelled = true;
+			remove(this);
+			
+			if (thread != null)
+				LockSupport.unpark(thread);
+		}
+		
+		/**
+		 * @return number of states published to this subscription
+		 */
+		public long getOffered() { return offered; }
+		
+		/**
+		 * @return number of states delivered to the subscriber
+		 */
+		public long getDelivered() { return delivered; }
+		
+		/**
+		 * @return number of states replaced by a later state before the subscriber was delivered them
+		 */
+		public long getCoalesced() { return coalesced; }
+		
+		/**
+		 * @return number of deliveries in which the subscriber threw an exception
+		 */
+		public long getFailed() { return failed; }
+		
+		public FlightDataDelivery getDelivery() { return delivery; }
+		
+		public FlightDataSubscriber getSubscriber() { return subscriber; }
+		
+		@Override
+		public String toString() {
+			return subscriber.getClass().getSimpleName() + " (" + delivery + "): " + offered + " offered, " + delivered + " delivered, " 
+					+ coalesced + " coalesced, " + failed + " failed";
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+/**
+ * Thread on which a {@link FlightDataBus} delivers flight data to a {@link FlightDataSubscriber}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public enum FlightDataDelivery {
+	/**
+	 * On the publishing thread, during the publish; only for subscribers that return quickly and never block. A state held back by the 
+	 * rate of the subscriber is delivered on the trailing delivery thread of the bus, never at the same time as a publish
+	 */
+	INLINE 		("Inline"),
+	
+	/**
+	 * On a thread owned by the subscription, which waits for each publish
+	 */
+	DEDICATED 	("Dedicated Thread"),
+	
+	/**
+	 * On the Swing event dispatch thread, for subscribers that update Swing components
+	 */
+	SWING_EDT 	("Swing Event Dispatch Thread");
+	
+	private final String delivery;
+	
+	FlightDataDelivery(String delivery) {
+		this.delivery = delivery;
+	}
+	
+	public String toString() {return delivery;}
+}
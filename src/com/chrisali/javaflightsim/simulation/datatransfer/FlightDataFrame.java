@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+/**
+ * State of the flight data published on a {@link FlightDataBus} at one point in time, held as primitive values indexed by 
+ * {@link FlightDataType} ordinal so that it can be written and read without boxing or allocation
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightDataFrame {
+	
+	private static final FlightDataType[] TYPES = FlightDataType.values();
+	
+	private final double[] values = new double[TYPES.length];
+	
+	private long sequence;
+	private long nanos;
+	
+	/**
+	 * @param type
+	 * @return value of type, in the units of {@link FlightDataType#getUnit()}
+	 */
+	public double get(FlightDataType type) { return values[type.ordinal()]; }
+	
+	/**
+	 * @param type
+	 * @param value value in the units of {@link FlightDataType#getUnit()}
+	 */
+	public void set(FlightDataType type, double value) { values[type.ordinal()] = value; }
+	
+	/**
+	 * @return number of the publish that produced this state on its bus, starting from 1
+	 */
+	public long getSequence() { return sequence; }
+	
+	/**
+	 * @return {@link System#nanoTime()} at which this state was published (ns)
+	 */
+	public long getNanos() { return nanos; }
+	
+	/**
+	 * Sets the publish number and time of this state; also used to restore them when a state is received from another process
+	 * 
+	 * @param sequence
+	 * @param nanos
+	 */
+	public void stamp(long sequence, long nanos) {
+		this.sequence = sequence;
+		this.nanos = nanos;
+	}
+	
+	/**
+	 * Copies all values, and the publish number and time, of another frame into this one
+	 * 
+	 * @param frame
+	 */
+	public void copyFrom(FlightDataFrame frame) {
+		System.arraycopy(frame.values, 0, values, 0, values.length);
+		sequence = frame.sequence;
+		nanos = frame.nanos;
+	}
+	
+	/**
+	 * @param destination array to copy values into, indexed by {@link FlightDataType} ordinal
+	 */
+	public void copyTo(double[] destination) {
+		System.arraycopy(values, 0, destination, 0, values.length);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		for (FlightDataType type : TYPES) {
+			 sb.append(type.toString()).append(": ").append(get(type))
+			   .append(" ").append(type.getUnit()).append("\n");
+		}
+		sb.append("\n");
+		
+		return sb.toString();
+	}
+}
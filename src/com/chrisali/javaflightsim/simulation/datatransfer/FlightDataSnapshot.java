@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.Map;
+
+/**
+ * Holds the two most recent states of {@link FlightData} published to a display thread through a {@link TripleBuffer}, along 
+ * with the {@link System#nanoTime()} at which each was published, so that the display can interpolate between them at whatever 
+ * rate it renders. Values are stored in arrays indexed by {@link FlightDataType} ordinal to avoid boxing on the publishing thread
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightDataSnapshot {
+	
+	private static final FlightDataType[] TYPES = FlightDataType.values();
+	
+	private final double[] previous = new double[TYPES.length];
+	private final double[] current  = new double[TYPES.length];
+	
+	private long previousNanos;
+	private long currentNanos;
+	private boolean hasPrevious;
+	
+	/**
+	 * Sets the state of this snapshot
+	 * 
+	 * @param previousValues values of the previously published state, indexed by {@link FlightDataType} ordinal, or null if there is none
+	 * @param previousNanos time at which the previous state was published (ns)
+	 * @param flightData current flight data
+	 * @param nanos time at which the current state is published (ns)
+	 */
+	public void set(double[] previousValues, long previousNanos, FlightDataFrame flightData, long nanos) {
+		hasPrevious = previousValues != null;
+		
+		if (hasPrevious)
+			System.arraycopy(previousValues, 0, previous, 0, previous.length);
+		
+		flightData.copyTo(current);
+		
+		this.previousNanos = previousNanos;
+		this.currentNanos = nanos;
+	}
+	
+	/**
+	 * @param values array to copy the current state's values into, indexed by {@link FlightDataType} ordinal
+	 */
+	public void copyCurrentTo(double[] values) {
+		System.arraycopy(current, 0, values, 0, current.length);
+	}
+	
+	/**
+	 * Interpolates between the previous and current states, one publishing interval behind the given time, so that motion 
+	 * reaches the current state by the time the next state is expected to be published. Roll and heading are interpolated 
+	 * along the shortest arc
+	 * 
+	 * @param nanos time to interpolate at (ns)
+	 * @param flightData map to put interpolated values into
+	 */
+	public void interpolate(long nanos, Map<FlightDataType, Double> flightData) {
+		double alpha = 1.0;
+		long interval = currentNanos - previousNanos;
+		
+		if (hasPrevious && interval > 0)
+			alpha = Math.max(0.0, Math.min(1.0, (nanos - currentNanos) / (double) interval));
+		
+		for (FlightDataType type : TYPES) {
+			int i = type.ordinal();
+			double start = hasPrevious ? previous[i] : current[i];
+			double delta = current[i] - start;
+			
+			if (type == FlightDataType.ROLL || type == FlightDataType.HEADING)
+				delta -= 360.0 * Math.floor((delta + 180.0) / 360.0);
+			
+			flightData.put(type, start + alpha * delta);
+		}
+	}
+	
+	/**
+	 * @return time at which the current state was published (ns)
+	 */
+	public long getCurrentNanos() { return currentNanos; }
+}
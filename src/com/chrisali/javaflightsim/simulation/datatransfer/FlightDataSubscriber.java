@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+/**
+ * Receives the latest {@link FlightDataFrame} published on a {@link FlightDataBus}, on the thread and at the rate that it was 
+ * subscribed with. The frame is owned by the bus and is only valid for the duration of the call; subscribers that need its values 
+ * later must copy them
+ * 
+ * @author Christopher Ali
+ *
+ */
+@FunctionalInterface
+public interface FlightDataSubscriber {
+	public void onFlightData(FlightDataFrame frame);
+}
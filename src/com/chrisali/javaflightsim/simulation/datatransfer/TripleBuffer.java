@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer that passes the latest state from a single producer thread to a single consumer thread. The producer 
+ * writes into its back buffer and publishes it by swapping it with the middle buffer; the consumer takes the latest published 
+ * buffer by swapping the middle buffer with its front buffer. Neither thread ever waits for the other, and the producer can 
+ * publish any number of times between the consumer's updates; the consumer always sees the most recently published state
+ * 
+ * <p>Only one thread may call {@link #getWriteBuffer()} and {@link #publish()}, and only one (other) thread may call 
+ * {@link #update()} and {@link #getReadBuffer()}</p>
+ * 
+ * @author Christopher Ali
+ *
+ * @param <T> type of state held in each buffer
+ */
+public class TripleBuffer<T> {
+	
+	// Set in the middle index when it holds a buffer the consumer has not yet taken
+	private static final int DIRTY = 4;
+	private static final int INDEX_MASK = 3;
+	
+	private final Object[] buffers = new Object[3];
+	
+	private final AtomicInteger middle = new AtomicInteger(1);
+	private int back = 0;
+	private int front = 2;
+	
+	/**
+	 * @param factory creates each of the three buffers
+	 */
+	public TripleBuffer(Supplier<T> factory) {
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = factory.get();
+	}
+	
+	/**
+	 * Producer only
+	 * 
+	 * @return buffer the producer writes the next state into 
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() { return (T) buffers[back]; }
+	
+	/**
+	 * Producer only; makes the state written into {@link #getWriteBuffer()} available to the consumer
+	 * 
+	 * @return if this replaced a published state that the consumer had not yet taken, which the consumer will now never see
+	 */
+	public boolean publish() {
+		int previous = middle.getAndSet(back | DIRTY);
+		back = previous & INDEX_MASK;
+		
+		return (previous & DIRTY) != 0;
+	}
+	
+	/**
+	 * Consumer only; takes the most recently published state, if there is one the consumer has not yet taken
+	 * 
+	 * @return if {@link #getReadBuffer()} now holds a newly published state
+	 */
+	public boolean update() {
+		if ((middle.get() & DIRTY) == 0)
+			return false;
+		
+		front = middle.getAndSet(front) & INDEX_MASK;
+		
+		return true;
+	}
+	
+	/**
+	 * Consumer only
+	 * 
+	 * @return most recent state taken by {@link #update()}
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() { return (T) buffers[front]; }
+}
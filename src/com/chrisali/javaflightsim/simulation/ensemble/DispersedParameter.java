@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.ensemble;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+
+/**
+ * Provides Enum values to define the initial conditions, weather and {@link Aircraft} properties that can be dispersed in each run of 
+ * an {@link EnsembleRunner}. A value sampled for one of these parameters replaces the value held by the base {@link SimulationConfiguration}
+ * or the aircraft. The String field is used as the column header of the parameter in the ensemble's summary file
+ */
+public enum DispersedParameter {
+	WIND_SPEED		 ("Wind Speed [kts]"),
+	WIND_DIRECTION	 ("Wind Direction [deg]"),
+	TEMPERATURE		 ("Temperature [deg C]"),
+	TOTAL_MASS		 ("Total Mass [slug]"),
+	CG_X			 ("CG x [ft]"),
+	CG_Y			 ("CG y [ft]"),
+	CG_Z			 ("CG z [ft]"),
+	INITIAL_AIRSPEED ("Initial u [ft/sec]"),
+	INITIAL_ALTITUDE ("Initial Alt [ft]");
+	
+	private final String parameter;
+	
+	DispersedParameter(String parameter) {this.parameter = parameter;}
+	
+	public String toString() {return parameter;}
+}
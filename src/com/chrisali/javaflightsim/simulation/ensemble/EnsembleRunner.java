@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.ensemble;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.math3.distribution.RealDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.Well19937c;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.LookupTable;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.timing.SimulationClock;
+import com.chrisali.javaflightsim.simulation.timing.StepScheduler;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Runs an ensemble of independent, headless analysis mode simulations of a base {@link SimulationConfiguration}, in which initial 
+ * conditions, weather, mass properties and stability derivatives are dispersed according to {@link RealDistribution} objects. Runs are 
+ * spread across all cores by a work-stealing {@link ForkJoinPool}; each run reads its own {@link Aircraft} into its own 
+ * {@link SimulationContext}, so no state is shared between runs. 
+ * 
+ * <p>Each run draws its samples from its own random generator, seeded by the ensemble seed and the run's index, so that the results 
+ * of an ensemble are identical for a given seed no matter how many threads run it, or in which order runs complete.</p>
+ * 
+ * <p>A summary of each run, containing its sampled values and the minimum, maximum, mean and final values of each recorded 
+ * {@link SimOuts} channel, is streamed in run order to summary.csv in the output directory. The history of the recorded channels 
+ * in each run is optionally streamed to run-NNNNN.csv as the run progresses</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class EnsembleRunner {
+	
+	private static final Logger logger = LogManager.getLogger(EnsembleRunner.class);
+	
+	public static final String SUMMARY_FILE_NAME = "summary.csv";
+	
+	private final SimulationConfiguration baseConfiguration;
+	private final File outputDirectory;
+	
+	private final Map<DispersedParameter, RealDistribution> dispersions = new EnumMap<>(DispersedParameter.class);
+	private final Map<StabilityDerivatives, RealDistribution> stabDerivDispersions = new EnumMap<>(StabilityDerivatives.class);
+	
+	private List<SimOuts> recordedChannels = Arrays.asList(SimOuts.TIME, SimOuts.TAS, SimOuts.ALT, SimOuts.ALPHA, SimOuts.BETA, 
+														   SimOuts.PHI, SimOuts.THETA, SimOuts.PSI, SimOuts.AN_Z);
+	private AnalysisControls analysisControls;
+	private double recordRateHz = 10.0;
+	private boolean recordHistories = true;
+	private boolean trimRuns = false;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Creates an EnsembleRunner whose runs are dispersions of baseConfiguration, and whose output files are written to outputDirectory.
+	 * The base configuration is never modified
+	 * 
+	 * @param baseConfiguration
+	 * @param outputDirectory
+	 */
+	public EnsembleRunner(SimulationConfiguration baseConfiguration, File outputDirectory) {
+		this.baseConfiguration = baseConfiguration;
+		this.outputDirectory = outputDirectory;
+	}
+	
+	/**
+	 * Disperses a parameter in each run by the given distribution; the sampled value replaces the parameter's value in the base 
+	 * configuration or aircraft
+	 * 
+	 * @param parameter
+	 * @param distribution
+	 * @return this EnsembleRunner
+	 */
+	public EnsembleRunner addDispersion(DispersedParameter parameter, RealDistribution distribution) {
+		dispersions.put(parameter, distribution);
+		return this;
+	}
+	
+	/**
+	 * Disperses a stability derivative in each run by the given distribution; the sampled value scales the derivative's constant 
+	 * value or all of its table values
+	 * 
+	 * @param stabDer
+	 * @param scaleDistribution
+	 * @return this EnsembleRunner
+	 */
+	public EnsembleRunner addDispersion(StabilityDerivatives stabDer, RealDistribution scaleDistribution) {
+		stabDerivDispersions.put(stabDer, scaleDistribution);
+		return this;
+	}
+	
+	/**
+	 * Runs an ensemble of runs simulations, blocking until all have finished
+	 * 
+	 * @param runs number of runs in the ensemble
+	 * @param seed seed from which each run's random generator is seeded
+	 * @return {@link RunSummary} of each run, in run order
+	 * @throws IOException if the summary file could not be written
+	 */
+	public List<RunSummary> run(int runs, long seed) throws IOException {
+		if (!outputDirectory.exists() && !outputDirectory.mkdirs())
+			throw new IOException("Unable to create ensemble output directory " + outputDirectory.getAbsolutePath());
+		
+		logger.info("Running ensemble of " + runs + " runs with seed " + seed + " on " + parallelism + " threads...");
+		
+		List<RunSummary> summaries = new ArrayList<>(runs);
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		
+		try (SummaryWriter summaryWriter = new SummaryWriter(new File(outputDirectory, SUMMARY_FILE_NAME), summaries)) {
+			pool.invoke(new RunRange(0, runs, seed, summaryWriter));
+		} finally {
+			pool.shutdown();
+		}
+		
+		logger.info("Ensemble finished!");
+		
+		return summaries;
+	}
+	
+	/**
+	 * Runs a single run of the ensemble, sampling its dispersions from a random generator seeded by seed and runIndex
+	 * 
+	 * @param runIndex
+	 * @param seed
+	 * @return summary of the run
+	 */
+	RunSummary runSingle(int runIndex, long seed) {
+		RandomGenerator random = new Well19937c(new int[] {(int)(seed >>> 32), (int)seed, runIndex});
+		
+		Map<DispersedParameter, Double> dispersedValues = new EnumMap<>(DispersedParameter.class);
+		for (Map.Entry<DispersedParameter, RealDistribution> entry : dispersions.entrySet())
+			dispersedValues.put(entry.getKey(), sample(entry.getValue(), random));
+		
+		Map<StabilityDerivatives, Double> stabDerivScales = new EnumMap<>(StabilityDerivatives.class);
+		for (Map.Entry<StabilityDerivatives, RealDistribution> entry : stabDerivDispersions.entrySet())
+			stabDerivScales.put(entry.getKey(), sample(entry.getValue(), random));
+		
+		RunSummary summary = new RunSummary(runIndex, dispersedValues, stabDerivScales, recordedChannels);
+		
+		try {
+			SimulationConfiguration configuration = copyConfiguration(baseConfiguration);
+			Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+			SimulationContext context = new SimulationContext(configuration, aircraft, null);
+			
+			applyDispersions(context, dispersedValues, stabDerivScales);
+			
+			if (trimRuns)
+				Trimming.trimAircraft(context);
+			
+			double dt = configuration.getIntegratorConfig().get(IntegratorConfig.DT);
+			SimulationClock clock = new SimulationClock(configuration.getIntegratorConfig().get(IntegratorConfig.STARTTIME), dt);
+			AtomicInteger timeMS = context.getSimTimeMS();
+			timeMS.set(clock.getTimeMS());
+			
+			FlightControlsStateManager flightControlsManager = new FlightControlsStateManager(context, analysisControls);
+			Integrate6DOFEquations simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+			
+			StepScheduler scheduler = new StepScheduler(1 / dt);
+			scheduler.add(flightControlsManager);
+			scheduler.add(simulation);
+			scheduler.build();
+			
+			long endTicks = clock.ticksUntil(configuration.getIntegratorConfig().get(IntegratorConfig.ENDTIME));
+			int ticksPerRecord = StepScheduler.minorFramesPerStep(1 / dt, recordRateHz);
+			SimOutFrame simOut = simulation.getSimOut();
+			
+			try (BufferedWriter history = recordHistories ? createHistoryFile(runIndex) : null) {
+				while (clock.getTicks() < endTicks) {
+					scheduler.runMinorFrame(clock.getTicks());
+					
+					clock.tick();
+					timeMS.set(clock.getTimeMS());
+					
+					summary.accumulate(simOut);
+					
+					if (history != null && clock.getTicks() % ticksPerRecord == 0)
+						writeChannels(history, simOut);
+				}
+			}
+			
+			summary.setCompleted(true);
+		} catch (Exception e) {
+			logger.error("Run " + runIndex + " of ensemble encountered an error!", e);
+		}
+		
+		return summary;
+	}
+	
+	/**
+	 * Samples a distribution by inverting its cumulative distribution at a uniform random probability, so that samples depend only on
+	 * the state of random, and not on the distribution's own generator
+	 */
+	private static double sample(RealDistribution distribution, RandomGenerator random) {
+		double p;
+		do { p = random.nextDouble(); } while (p == 0.0);
+		
+		return distribution.inverseCumulativeProbability(p);
+	}
+	
+	private static double getOrDefault(Map<DispersedParameter, Double> dispersedValues, DispersedParameter parameter, double defaultValue) {
+		Double value = dispersedValues.get(parameter);
+		return value != null ? value : defaultValue;
+	}
+	
+	/**
+	 * Applies sampled values to the configuration, aircraft and environment of a run's context
+	 */
+	private static void applyDispersions(SimulationContext context, Map<DispersedParameter, Double> dispersedValues, 
+										 Map<StabilityDerivatives, Double> stabDerivScales) {
+		SimulationConfiguration configuration = context.getConfiguration();
+		Aircraft aircraft = context.getAircraft();
+		
+		context.getEnvironment().setWindSpeed(getOrDefault(dispersedValues, DispersedParameter.WIND_SPEED, 0.0));
+		context.getEnvironment().setWindDir(getOrDefault(dispersedValues, DispersedParameter.WIND_DIRECTION, 0.0));
+		// Subtract standard temperature to get deviation from standard, then convert C deg to F deg
+		context.getEnvironment().setDeltaIsa((getOrDefault(dispersedValues, DispersedParameter.TEMPERATURE, 15.0) - 15) * 9 / 5);
+		
+		for (Map.Entry<DispersedParameter, Double> entry : dispersedValues.entrySet()) {
+			switch (entry.getKey()) {
+			case TOTAL_MASS:
+				aircraft.setMassProperty(MassProperties.TOTAL_MASS, entry.getValue());
+				break;
+			case CG_X:
+				aircraft.setMassProperty(MassProperties.CG_X, entry.getValue());
+				break;
+			case CG_Y:
+				aircraft.setMassProperty(MassProperties.CG_Y, entry.getValue());
+				break;
+			case CG_Z:
+				aircraft.setMassProperty(MassProperties.CG_Z, entry.getValue());
+				break;
+			case INITIAL_AIRSPEED:
+				configuration.getInitialConditions().put(InitialConditions.INITU, entry.getValue());
+				break;
+			case INITIAL_ALTITUDE:
+				configuration.getInitialConditions().put(InitialConditions.INITD, entry.getValue());
+				break;
+			default:
+				break;
+			}
+		}
+		
+		if (!stabDerivScales.isEmpty()) {
+			Map<StabilityDerivatives, LookupTable> stabDerivs = new EnumMap<>(StabilityDerivatives.class);
+			stabDerivs.putAll(aircraft.getStabDerivs());
+			
+			for (Map.Entry<StabilityDerivatives, Double> entry : stabDerivScales.entrySet()) {
+				LookupTable table = stabDerivs.get(entry.getKey());
+				if (table != null)
+					stabDerivs.put(entry.getKey(), table.scale(entry.getValue()));
+			}
+			
+			aircraft.setStabDerivs(stabDerivs);
+		}
+	}
+	
+	/**
+	 * @return copy of the parts of configuration used by a headless simulation, set to run in analysis mode
+	 */
+	private static SimulationConfiguration copyConfiguration(SimulationConfiguration configuration) {
+		SimulationConfiguration copy = new SimulationConfiguration();
+		
+		copy.setSelectedAircraft(configuration.getSelectedAircraft());
+		copy.setIntegrationMethod(configuration.getIntegrationMethod());
+		copy.setIntegratorConfig(new EnumMap<>(configuration.getIntegratorConfig()));
+		copy.setInitialConditions(new EnumMap<>(configuration.getInitialConditions()));
+		copy.setInitialControls(new EnumMap<>(configuration.getInitialControls()));
+		copy.updateOptions(EnumSet.of(Options.ANALYSIS_MODE));
+		
+		return copy;
+	}
+	
+	private BufferedWriter createHistoryFile(int runIndex) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new FileWriter(new File(outputDirectory, String.format("run-%05d.csv", runIndex))));
+		
+		StringBuilder sb = new StringBuilder();
+		for (SimOuts channel : recordedChannels)
+			sb.append(channel.toString()).append(",");
+		writer.write(sb.append("\n").toString());
+		
+		return writer;
+	}
+	
+	private void writeChannels(BufferedWriter writer, SimOutFrame frame) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (SimOuts channel : recordedChannels)
+			sb.append(frame.get(channel)).append(",");
+		writer.write(sb.append("\n").toString());
+	}
+	
+	/**
+	 * Splits a range of run indices in half until a single run remains, which is then run; idle workers of the pool steal 
+	 * unsplit halves from busy workers
+	 */
+	private class RunRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final int start;
+		private final int end;
+		private final long seed;
+		private final SummaryWriter summaryWriter;
+		
+		private RunRange(int start, int end, long seed, SummaryWriter summaryWriter) {
+			this.start = start;
+			this.end = end;
+			this.seed = seed;
+			this.summaryWriter = summaryWriter;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				summaryWriter.write(runSingle(start, seed));
+			} else if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new RunRange(start, middle, seed, summaryWriter), new RunRange(middle, end, seed, summaryWriter));
+			}
+		}
+	}
+	
+	/**
+	 * Writes run summaries to the summary file in run order, holding any summary that completes before those of earlier runs 
+	 * until they have been written
+	 */
+	private class SummaryWriter implements AutoCloseable {
+		
+		private final BufferedWriter writer;
+		private final List<RunSummary> summaries;
+		private final Map<Integer, RunSummary> pending = new TreeMap<>();
+		private int nextRunIndex = 0;
+		
+		private SummaryWriter(File file, List<RunSummary> summaries) throws IOException {
+			this.writer = new BufferedWriter(new FileWriter(file));
+			this.summaries = summaries;
+			
+			StringBuilder sb = new StringBuilder("Run,Completed,");
+			for (DispersedParameter parameter : dispersions.keySet())
+				sb.append(parameter.toString()).append(",");
+			for (StabilityDerivatives stabDer : stabDerivDispersions.keySet())
+				sb.append(stabDer.toString()).append(" scale,");
+			for (SimOuts channel : recordedChannels) {
+				sb.append("Min ").append(channel.toString()).append(",")
+				  .append("Max ").append(channel.toString()).append(",")
+				  .append("Mean ").append(channel.toString()).append(",")
+				  .append("Final ").append(channel.toString()).append(",");
+			}
+			writer.write(sb.append("\n").toString());
+		}
+		
+		private synchronized void write(RunSummary summary) {
+			pending.put(summary.getRunIndex(), summary);
+			
+			RunSummary next;
+			while ((next = pending.remove(nextRunIndex)) != null) {
+				summaries.add(next);
+				writeRow(next);
+				nextRunIndex++;
+			}
+			
+			logger.debug("Run " + summary.getRunIndex() + " of ensemble finished");
+		}
+		
+		private void writeRow(RunSummary summary) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(summary.getRunIndex()).append(",").append(summary.isCompleted()).append(",");
+			
+			for (Double value : summary.getDispersedValues().values())
+				sb.append(value).append(",");
+			for (Double scale : summary.getStabDerivScales().values())
+				sb.append(scale).append(",");
+			for (SimOuts channel : recordedChannels) {
+				sb.append(summary.getMinimum(channel)).append(",")
+				  .append(summary.getMaximum(channel)).append(",")
+				  .append(summary.getMean(channel)).append(",")
+				  .append(summary.getFinal(channel)).append(",");
+			}
+			
+			try {
+				writer.write(sb.append("\n").toString());
+			} catch (IOException e) {
+				logger.error("Unable to write summary of run " + summary.getRunIndex() + " of ensemble!", e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * @param recordedChannels {@link SimOuts} channels summarized and recorded in each run
+	 */
+	public void setRecordedChannels(List<SimOuts> recordedChannels) { this.recordedChannels = new ArrayList<>(recordedChannels); }
+
+	public List<SimOuts> getRecordedChannels() { return recordedChannels; }
+
+	/**
+	 * @param analysisControls flight control inputs applied in each run; if null, controls remain at their initial values
+	 */
+	public void setAnalysisControls(AnalysisControls analysisControls) { this.analysisControls = analysisControls; }
+
+	/**
+	 * @param recordRateHz rate at which recorded channels are written to each run's history file (Hz)
+	 */
+	public void setRecordRateHz(double recordRateHz) { this.recordRateHz = recordRateHz; }
+
+	/**
+	 * @param recordHistories if the history of recorded channels should be written to a file for each run
+	 */
+	public void setRecordHistories(boolean recordHistories) { this.recordHistories = recordHistories; }
+
+	/**
+	 * @param trimRuns if each run should be trimmed for level flight at its dispersed airspeed, altitude and mass properties
+	 */
+	public void setTrimRuns(boolean trimRuns) { this.trimRuns = trimRuns; }
+
+	/**
+	 * @param parallelism number of threads used to run the ensemble
+	 */
+	public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.ensemble;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Summary of a single run of an {@link EnsembleRunner}; holds the values sampled for each dispersion, along with the minimum, 
+ * maximum, mean and final value of each recorded {@link SimOuts} channel over the run 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RunSummary {
+	
+	private final int runIndex;
+	
+	private final Map<DispersedParameter, Double> dispersedValues;
+	private final Map<StabilityDerivatives, Double> stabDerivScales;
+	
+	private final List<SimOuts> channels;
+	private final double[] minimums;
+	private final double[] maximums;
+	private final double[] sums;
+	private final double[] finals;
+	private long samples;
+	
+	private boolean completed;
+	
+	/**
+	 * Creates an empty RunSummary for the run at runIndex of an ensemble
+	 * 
+	 * @param runIndex
+	 * @param dispersedValues
+	 * @param stabDerivScales
+	 * @param channels {@link SimOuts} channels to summarize
+	 */
+	public RunSummary(int runIndex, Map<DispersedParameter, Double> dispersedValues, Map<StabilityDerivatives, Double> stabDerivScales, 
+					  List<SimOuts> channels) {
+		this.runIndex = runIndex;
+		this.dispersedValues = new EnumMap<>(DispersedParameter.class);
+		this.dispersedValues.putAll(dispersedValues);
+		this.stabDerivScales = new EnumMap<>(StabilityDerivatives.class);
+		this.stabDerivScales.putAll(stabDerivScales);
+		this.channels = channels;
+		
+		minimums = new double[channels.size()];
+		maximums = new double[channels.size()];
+		sums 	 = new double[channels.size()];
+		finals	 = new double[channels.size()];
+		
+		for (int i = 0; i < channels.size(); i++) {
+			minimums[i] = Double.POSITIVE_INFINITY;
+			maximums[i] = Double.NEGATIVE_INFINITY;
+		}
+	}
+	
+	/**
+	 * Adds the values of each summarized channel in frame to this summary's statistics
+	 * 
+	 * @param frame
+	 */
+	void accumulate(SimOutFrame frame) {
+		for (int i = 0; i < channels.size(); i++) {
+			double value = frame.get(channels.get(i));
+			
+			if (value < minimums[i]) minimums[i] = value;
+			if (value > maximums[i]) maximums[i] = value;
+			
+			sums[i] += value;
+			finals[i] = value;
+		}
+		
+		samples++;
+	}
+	
+	void setCompleted(boolean completed) { this.completed = completed; }
+
+	/**
+	 * @return index of this run in the ensemble
+	 */
+	public int getRunIndex() { return runIndex; }
+	
+	/**
+	 * @return if the run reached its end time without an error
+	 */
+	public boolean isCompleted() { return completed; }
+	
+	/**
+	 * @return number of simulation outputs summarized
+	 */
+	public long getSamples() { return samples; }
+
+	public Map<DispersedParameter, Double> getDispersedValues() { return Collections.unmodifiableMap(dispersedValues); }
+
+	public Map<StabilityDerivatives, Double> getStabDerivScales() { return Collections.unmodifiableMap(stabDerivScales); }
+	
+	public List<SimOuts> getChannels() { return channels; }
+	
+	public double getMinimum(SimOuts channel) { return minimums[indexOf(channel)]; }
+	
+	public double getMaximum(SimOuts channel) { return maximums[indexOf(channel)]; }
+	
+	public double getMean(SimOuts channel) { return samples > 0 ? sums[indexOf(channel)] / samples : Double.NaN; }
+	
+	public double getFinal(SimOuts channel) { return finals[indexOf(channel)]; }
+	
+	private int indexOf(SimOuts channel) {
+		int index = channels.indexOf(channel);
+		
+		if (index < 0)
+			throw new IllegalArgumentException(channel.name() + " was not recorded in this ensemble!");
+		
+		return index;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append("Run ").append(runIndex).append(completed ? "" : " (incomplete)").append("\n");
+		
+		for (Map.Entry<DispersedParameter, Double> entry : dispersedValues.entrySet())
+			sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		
+		for (Map.Entry<StabilityDerivatives, Double> entry : stabDerivScales.entrySet())
+			sb.append(entry.getKey()).append(" scale: ").append(entry.getValue()).append("\n");
+		
+		return sb.toString();
+	}
+}
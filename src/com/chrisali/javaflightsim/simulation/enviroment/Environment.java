@@ -19,17 +19,19 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.enviroment;
 
-import java.util.EnumMap;
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class calculates atmospheric parameters as a function of height, and the gravitational acceleration constant.
  * It uses the 1976 NASA Standard Atmosphere model, and assumes that gravity is constant in the Z direction.
+ * Wind and temperature deviation are held per instance, so that each simulation run owns its own environment
  */
-public class Environment {
+public class Environment implements Snapshottable {
 	private static final double RADIUS_EARTH = 3959*5280;
 	
 	private static final double R = 1716.49;
@@ -46,21 +48,27 @@ public class Environment {
 	private static final double ENV_CONST_TROP = 0.0000068755;
 	private static final double ENV_CONST_STRAT = -0.0000480637;
 	
-	private static Map<EnvironmentParameters, Double> environmentParams = new EnumMap<>(EnvironmentParameters.class);
+	// Indexed by EnvironmentParameters ordinal; NaN until calculated
+	private final double[] environmentParams = new double[EnvironmentParameters.values().length];
 	
-	private static double windSpeed = 0.0;
-	private static double windDir   = 0.0;
-	private static double deltaIsa  = 0.0;
+	public Environment() {
+		Arrays.fill(environmentParams, Double.NaN);
+	}
+	
+	private double windSpeed = 0.0;
+	private double windDir   = 0.0;
+	private double deltaIsa  = 0.0;
 
 	/**
 	 * Calculates the temperature (R), presssure (lb/ft^2), density (slug/ft^3), speed of sound (ft/sec) and gravity (ft/sec^2)
 	 * for a given height above Earth, then calculates the wind speed components for a given speed and direction,
-	 *  and then places that data into an EnumMap with {@link EnvironmentParameters} as the keys 
+	 *  and then writes that data into a primitive array indexed by {@link EnvironmentParameters} ordinal, which is owned by this 
+	 *  instance and overwritten by the next call, so that the simulation loop does not allocate or box values
 	 * 
 	 * @param NEDPosition
-	 * @return EnumMap of environment parameters
+	 * @return environment parameters indexed by {@link EnvironmentParameters} ordinal
 	 */
-	public static Map<EnvironmentParameters, Double> getAndUpdateEnvironmentParams(double[] NEDPosition) {
+	public double[] getAndUpdateEnvironmentParams(double[] NEDPosition) {
 		double temp, rho, p, a, g, windN, windE, windD;
 		
 		// Troposphere
@@ -84,14 +92,14 @@ public class Environment {
 		windE = windSpeed*Math.sin(windDir);
 		windD = 0.0;
 		
-		environmentParams.put(EnvironmentParameters.T,       	   temp);
-		environmentParams.put(EnvironmentParameters.P,       		  p);
-		environmentParams.put(EnvironmentParameters.RHO,     		rho);
-		environmentParams.put(EnvironmentParameters.A,       	  	  a);
-		environmentParams.put(EnvironmentParameters.GRAVITY, 	  	  g);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_N, windN);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_E, windE);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_D, windD);
+		environmentParams[EnvironmentParameters.T.ordinal()]       	   = temp;
+		environmentParams[EnvironmentParameters.P.ordinal()]       	   = p;
+		environmentParams[EnvironmentParameters.RHO.ordinal()]     	   = rho;
+		environmentParams[EnvironmentParameters.A.ordinal()]       	   = a;
+		environmentParams[EnvironmentParameters.GRAVITY.ordinal()] 	   = g;
+		environmentParams[EnvironmentParameters.WIND_SPEED_N.ordinal()] = windN;
+		environmentParams[EnvironmentParameters.WIND_SPEED_E.ordinal()] = windE;
+		environmentParams[EnvironmentParameters.WIND_SPEED_D.ordinal()] = windD;
 		
 		return environmentParams;
 	}
@@ -106,8 +114,8 @@ public class Environment {
 	 * 
 	 * @param windSpeed
 	 */
-	public static void setWindSpeed(double windSpeed) {
-		Environment.windSpeed = (windSpeed > 100) ? SixDOFUtilities.toFtPerSec(100) : SixDOFUtilities.toFtPerSec(windSpeed);
+	public void setWindSpeed(double windSpeed) {
+		this.windSpeed = (windSpeed > 100) ? SixDOFUtilities.toFtPerSec(100) : SixDOFUtilities.toFtPerSec(windSpeed);
 	}
 	
 	/**
@@ -115,13 +123,39 @@ public class Environment {
 	 * 
 	 * @param windDir
 	 */
-	public static void setWindDir(double windDir) {Environment.windDir = SaturationUtilities.twoPiBounding(Math.toRadians(windDir)-Math.PI);}
+	public void setWindDir(double windDir) {this.windDir = SaturationUtilities.twoPiBounding(Math.toRadians(windDir)-Math.PI);}
 
 	/**
 	 * Sets the difference in temperature from ISA (59 F, 15 C at Standard Sea Level)
 	 * 
 	 * @param deltaIsa
 	 */
-	public static void setDeltaIsa(double deltaIsa) {Environment.deltaIsa = deltaIsa;}
+	public void setDeltaIsa(double deltaIsa) {this.deltaIsa = deltaIsa;}
+	
+	/**
+	 * @return the difference in temperature from ISA
+	 */
+	public double getDeltaIsa() {return deltaIsa;}
+	
+	/**
+	 * Writes the wind and temperature deviation set, and the environment parameters last calculated
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.putDouble(windSpeed).putDouble(windDir).putDouble(deltaIsa);
+		
+		for (double value : environmentParams)
+			buffer.putDouble(value);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		windSpeed = buffer.getDouble();
+		windDir   = buffer.getDouble();
+		deltaIsa  = buffer.getDouble();
+		
+		for (int i = 0; i < environmentParams.length; i++)
+			environmentParams[i] = buffer.getDouble();
+	}
 	
 }
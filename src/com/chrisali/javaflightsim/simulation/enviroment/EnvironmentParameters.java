@@ -20,7 +20,7 @@
 package com.chrisali.javaflightsim.simulation.enviroment;
 
 /**
- * Used in {@link Environment} as the key to the environmentParameters EnumMap
+ * Used in {@link Environment} as the index, by ordinal, of the environmentParameters array
  */
 public enum EnvironmentParameters {
 	GRAVITY		   ("gravity"),
@@ -0,0 +1,567 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.export;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.integration.HistorySnapshot;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecording;
+
+/**
+ * Exports simulation outputs to CSV files, optionally gzip compressed. Only a selected subset of {@link SimOuts} channels is exported, 
+ * and every {@link CSVExporter#setDecimation(int)}th frame is exported as a row, beginning with the first frame exported. 
+ * 
+ * <p>Frames are read column by column in chunks of {@link CSVExporter#setChunkRows(int)} rows, and each chunk is formatted into text 
+ * with a {@link DoubleFormatter} on a pool of {@link CSVExporter#setParallelism(int)} threads, while the calling thread reads the next 
+ * chunks. Formatted chunks are written in order, so the file is the same regardless of parallelism. Exports may be taken from a 
+ * {@link SimOutHistory}, a {@link FlightRecording} or a list of {@link SimOutFrame}s. A {@link LiveExport} instead follows a history
+ * on its own thread, streaming rows to the file as the simulation produces them</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CSVExporter {
+	
+	private static final Logger logger = LogManager.getLogger(CSVExporter.class);
+	
+	public static final String CSV_EXT = ".csv";
+	public static final String GZIP_EXT = ".gz";
+	
+	// Interval between reads of a followed history by a live export (ms)
+	private static final long LIVE_POLL_MS = 100;
+	
+	private static final int STREAM_BUFFER_BYTES = 1 << 16;
+	
+	// Expected length of a formatted value, used to size chunk buffers before they grow to fit
+	private static final int EXPECTED_VALUE_BYTES = 12;
+	
+	private final List<SimOuts> channels;
+	
+	private int decimation = 1;
+	private int precision = DoubleFormatter.LOSSLESS;
+	private boolean compressed = false;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private int chunkRows = 2048;
+	
+	/**
+	 * Creates an exporter of all {@link SimOuts} channels
+	 */
+	public CSVExporter() {
+		this(Arrays.asList(SimOuts.values()));
+	}
+	
+	/**
+	 * Creates an exporter of a subset of {@link SimOuts} channels, which are written in the order given
+	 * 
+	 * @param channels
+	 */
+	public CSVExporter(List<SimOuts> channels) {
+		if (channels.isEmpty())
+			throw new IllegalArgumentException("At least one channel must be exported");
+		
+		this.channels = new ArrayList<>(channels);
+	}
+	
+	/**
+	 * Exports all frames retained by a history
+	 * 
+	 * @param history
+	 * @param file
+	 * @return number of rows exported
+	 * @throws IOException
+	 */
+	public long export(SimOutHistory history, File file) throws IOException {
+		HistorySource source = new HistorySource(history);
+		
+		return export(source, source.getFirst(), source.getEnd(), file);
+	}
+	
+	/**
+	 * Exports all frames of a recording
+	 * 
+	 * @param recording
+	 * @param file
+	 * @return number of rows exported
+	 * @throws IOException
+	 */
+	public long export(FlightRecording recording, File file) throws IOException {
+		return export(new RecordingSource(recording), 0, recording.getFrameCount(), file);
+	}
+	
+	/**
+	 * Exports a list of frames, such as {@link SimOutHistory#snapshot()}
+	 * 
+	 * @param frames
+	 * @param file
+	 * @return number of rows exported
+	 * @throws IOException
+	 */
+	public long export(List<SimOutFrame> frames, File file) throws IOException {
+		ColumnSource source = (frames instanceof HistorySnapshot) ? new SnapshotSource((HistorySnapshot) frames) : new ListSource(frames);
+		
+		return export(source, 0, frames.size(), file);
+	}
+	
+	/**
+	 * Starts a live export of a history, which writes frames to file as they are appended, beginning with the history's oldest frame, 
+	 * until it is closed
+	 * 
+	 * @param history
+	 * @param file
+	 * @return live export, which must be closed to finish writing file
+	 * @throws IOException if file could not be opened
+	 */
+	public LiveExport follow(SimOutHistory history, File file) throws IOException {
+		return new LiveExport(new HistorySource(history), file);
+	}
+	
+	private long export(ColumnSource source, long from, long to, File file) throws IOException {
+		logger.debug("Exporting " + channels.size() + " channels to: " + file.getAbsolutePath());
+		
+		try (Pipeline pipeline = new Pipeline(file, from)) {
+			pipeline.write(source, to);
+			pipeline.finish();
+			
+			logger.debug(file.getName() + " exported successfully with " + pipeline.rows + " rows!");
+			
+			return pipeline.rows;
+		}
+	}
+	
+	/**
+	 * Reads chunks of frames from a source on the calling thread, formats them on a pool of threads and writes them to a file in order  
+	 */
+	private class Pipeline implements Closeable {
+		
+		private final OutputStream out;
+		private final ExecutorService formatters;
+		private final DoubleFormatter formatter = new DoubleFormatter(precision);
+		
+		private final Deque<Future<Chunk>> pending = new ArrayDeque<>();
+		private final Queue<byte[]> bufferPool = new ConcurrentLinkedQueue<>();
+		private final Queue<double[][]> columnsPool = new ConcurrentLinkedQueue<>();
+		
+		// Frames of one channel read before decimation
+		private double[] values = new double[0];
+		
+		// Next frame to export as a row
+		private long next;
+		private long rows;
+		
+		private Pipeline(File file, long from) throws IOException {
+			OutputStream fileOut = new FileOutputStream(file);
+			out = compressed ? new GZIPOutputStream(fileOut, STREAM_BUFFER_BYTES) : new BufferedOutputStream(fileOut, STREAM_BUFFER_BYTES);
+			
+			formatters = Executors.newFixedThreadPool(parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "CSV Export Formatter");
+				thread.setDaemon(true);
+				return thread;
+			});
+			
+			next = from;
+			
+			writeHeader();
+		}
+		
+		private void writeHeader() throws IOException {
+			StringBuilder sb = new StringBuilder();
+			for (SimOuts channel : channels)
+				sb.append(sb.length() > 0 ? "," : "").append(channel.toString());
+			
+			out.write(sb.append("\n").toString().getBytes(StandardCharsets.UTF_8));
+		}
+		
+		/**
+		 * Reads, formats and writes all rows between the next row and to. Frames that are no longer retained by source are skipped
+		 * 
+		 * @param source
+		 * @param to frame after the last frame to export
+		 * @throws IOException
+		 */
+		private void write(ColumnSource source, long to) throws IOException {
+			while (next < to) {
+				long span = Math.min(to - next, (long) chunkRows * decimation);
+				int chunkLength = (int) ((span + decimation - 1) / decimation);
+				
+				double[][] columns = columnsPool.poll();
+				if (columns == null || columns[0].length < chunkLength)
+					columns = new double[channels.size()][chunkLength];
+				
+				if (decimation > 1 && values.length < span)
+					values = new double[(int) span];
+				
+				for (int channel = 0; channel < columns.length; channel++) {
+					if (decimation == 1) {
+						source.read(channels.get(channel), next, columns[channel], chunkLength);
+					} else {
+						source.read(channels.get(channel), next, values, (int) span);
+						for (int row = 0; row < chunkLength; row++)
+							columns[channel][row] = values[row * decimation];
+					}
+				}
+				
+				// Frames may have been evicted from a history while the chunk was being read
+				long first = source.getFirst();
+				if (first > next) {
+					long skipped = (first - next + decimation - 1) / decimation * decimation;
+					logger.warn("Export fell behind its source; " + skipped + " frames were not exported");
+					next += skipped;
+					columnsPool.add(columns);
+					continue;
+				}
+				
+				double[][] chunkColumns = columns;
+				pending.add(formatters.submit(() -> format(chunkColumns, chunkLength)));
+				next += (long) chunkLength * decimation;
+				rows += chunkLength;
+				
+				while (pending.size() > 2 * parallelism)
+					writeChunk();
+			}
+		}
+		
+		/**
+		 * Formats a chunk of columns into rows of text, and returns the columns to be read into again; called on a formatter thread
+		 */
+		private Chunk format(double[][] columns, int chunkLength) {
+			int rowBytes = columns.length * (DoubleFormatter.MAX_LENGTH + 1);
+			
+			byte[] buffer = bufferPool.poll();
+			if (buffer == null)
+				buffer = new byte[Math.max(rowBytes, chunkLength * columns.length * EXPECTED_VALUE_BYTES)];
+			
+			int length = 0;
+			for (int row = 0; row < chunkLength; row++) {
+				if (buffer.length - length < rowBytes)
+					buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + rowBytes));
+				
+				for (int channel = 0; channel < columns.length; channel++) {
+					if (channel > 0)
+						buffer[length++] = ',';
+					
+					length = formatter.format(columns[channel][row], buffer, length);
+				}
+				
+				buffer[length++] = '\n';
+			}
+			
+			columnsPool.add(columns);
+			
+			return new Chunk(buffer, length);
+		}
+		
+		private void writeChunk() throws IOException {
+			try {
+				Chunk chunk = pending.poll().get();
+				out.write(chunk.bytes, 0, chunk.length);
+				bufferPool.add(chunk.bytes);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while exporting CSV file");
+			} catch (ExecutionException e) {
+				throw new IOException("Could not format chunk of CSV file", e.getCause());
+			}
+		}
+		
+		/**
+		 * Writes all formatted chunks, and flushes the file 
+		 */
+		private void finish() throws IOException {
+			while (!pending.isEmpty())
+				writeChunk();
+			
+			out.flush();
+		}
+		
+		@Override
+		public void close() throws IOException {
+			formatters.shutdownNow();
+			out.close();
+		}
+	}
+	
+	/**
+	 * Formatted rows of a chunk, held in the first length bytes of bytes
+	 */
+	private static class Chunk {
+		private final byte[] bytes;
+		private final int length;
+		
+		private Chunk(byte[] bytes, int length) {
+			this.bytes = bytes;
+			this.length = length;
+		}
+	}
+	
+	/**
+	 * Export of a {@link SimOutHistory} that runs on its own thread, writing frames to a file as they are appended to the history 
+	 */
+	public class LiveExport implements Closeable {
+		
+		private final Thread thread;
+		private final Pipeline pipeline;
+		
+		private volatile boolean closed = false;
+		private volatile IOException error;
+		
+		private LiveExport(ColumnSource source, File file) throws IOException {
+			pipeline = new Pipeline(file, source.getFirst());
+			
+			thread = new Thread(() -> {
+				try {
+					while (!closed) {
+						pipeline.write(source, source.getEnd());
+						
+						synchronized (this) {
+							if (!closed)
+								wait(LIVE_POLL_MS);
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (IOException e) {
+					logger.error("Live export to " + file.getName() + " failed!", e);
+					error = e;
+				}
+				
+				try {
+					if (error == null) {
+						pipeline.write(source, source.getEnd());
+						pipeline.finish();
+					}
+				} catch (IOException e) {
+					logger.error("Live export to " + file.getName() + " failed!", e);
+					error = e;
+				}
+			}, "CSV Live Export");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		
+		/**
+		 * @return number of rows exported so far
+		 */
+		public long getRows() { return pipeline.rows; }
+		
+		/**
+		 * Exports all frames appended to the history so far, and closes the file
+		 * 
+		 * @throws IOException if the export failed
+		 */
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				synchronized (this) {
+					closed = true;
+					notifyAll();
+				}
+				
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				
+				pipeline.close();
+			}
+			
+			if (error != null)
+				throw error;
+		}
+	}
+	
+	/**
+	 * Source of frames that can be read one channel at a time
+	 */
+	private interface ColumnSource {
+		
+		/**
+		 * @return oldest frame that can be read
+		 */
+		public long getFirst();
+		
+		/**
+		 * @return frame after the newest frame that can be read
+		 */
+		public long getEnd();
+		
+		/**
+		 * Copies length consecutive values of a channel, beginning at frame from, into the start of destination
+		 */
+		public void read(SimOuts channel, long from, double[] destination, int length);
+	}
+	
+	private static class HistorySource implements ColumnSource {
+		private final SimOutHistory history;
+		
+		private HistorySource(SimOutHistory history) { this.history = history; }
+
+		@Override
+		public long getFirst() { return history.getFirstSequence(); }
+
+		@Override
+		public long getEnd() { return history.getNextSequence(); }
+
+		@Override
+		public void read(SimOuts channel, long from, double[] destination, int length) {
+			history.readChannel(channel, from, destination, 0, length);
+		}
+	}
+	
+	private static class RecordingSource implements ColumnSource {
+		private final FlightRecording recording;
+		
+		private RecordingSource(FlightRecording recording) { this.recording = recording; }
+
+		@Override
+		public long getFirst() { return 0; }
+
+		@Override
+		public long getEnd() { return recording.getFrameCount(); }
+
+		@Override
+		public void read(SimOuts channel, long from, double[] destination, int length) {
+			recording.readChannel(channel, from, destination, 0, length);
+		}
+	}
+	
+	private static class SnapshotSource implements ColumnSource {
+		private final HistorySnapshot snapshot;
+		
+		private SnapshotSource(HistorySnapshot snapshot) { this.snapshot = snapshot; }
+
+		@Override
+		public long getFirst() { return 0; }
+
+		@Override
+		public long getEnd() { return snapshot.size(); }
+
+		@Override
+		public void read(SimOuts channel, long from, double[] destination, int length) {
+			for (int i = 0; i < length; i++)
+				destination[i] = snapshot.get((int) from + i, channel);
+		}
+	}
+	
+	private static class ListSource implements ColumnSource {
+		private final List<SimOutFrame> frames;
+		
+		private ListSource(List<SimOutFrame> frames) { this.frames = frames; }
+
+		@Override
+		public long getFirst() { return 0; }
+
+		@Override
+		public long getEnd() { return frames.size(); }
+
+		@Override
+		public void read(SimOuts channel, long from, double[] destination, int length) {
+			for (int i = 0; i < length; i++)
+				destination[i] = frames.get((int) from + i).get(channel);
+		}
+	}
+	
+	/**
+	 * @return channels exported, in the order that they are written
+	 */
+	public List<SimOuts> getChannels() { return channels; }
+	
+	/**
+	 * @param decimation export every decimation-th frame as a row
+	 */
+	public void setDecimation(int decimation) {
+		if (decimation < 1)
+			throw new IllegalArgumentException("Decimation must be at least 1, not " + decimation);
+		
+		this.decimation = decimation;
+	}
+	
+	public int getDecimation() { return decimation; }
+	
+	/**
+	 * @param precision number of decimal places that values are rounded to, between 0 and {@value DoubleFormatter#MAX_PRECISION}, or
+	 * {@link DoubleFormatter#LOSSLESS} (the default) to write values that are read back exactly. Rounding exports faster and smaller 
+	 * files, but loses small values, and positions in radians, such as latitude and longitude 
+	 */
+	public void setPrecision(int precision) {
+		if ((precision < 0 || precision > DoubleFormatter.MAX_PRECISION) && precision != DoubleFormatter.LOSSLESS)
+			throw new IllegalArgumentException("Precision must be between 0 and " + DoubleFormatter.MAX_PRECISION + " or LOSSLESS, not " + precision);
+		
+		this.precision = precision;
+	}
+	
+	public int getPrecision() { return precision; }
+	
+	/**
+	 * @param compressed if files should be gzip compressed; by convention, their names should end in {@value #GZIP_EXT}
+	 */
+	public void setCompressed(boolean compressed) { this.compressed = compressed; }
+	
+	public boolean isCompressed() { return compressed; }
+	
+	/**
+	 * @param parallelism number of threads that format chunks of rows
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("Parallelism must be at least 1, not " + parallelism);
+		
+		this.parallelism = parallelism;
+	}
+	
+	public int getParallelism() { return parallelism; }
+	
+	/**
+	 * @param chunkRows number of rows formatted together by one thread
+	 */
+	public void setChunkRows(int chunkRows) {
+		if (chunkRows < 1)
+			throw new IllegalArgumentException("Chunk rows must be at least 1, not " + chunkRows);
+		
+		this.chunkRows = chunkRows;
+	}
+	
+	public int getChunkRows() { return chunkRows; }
+}
@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.export;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats doubles as ASCII decimal text directly into a byte array, rounded to a fixed number of decimal places with trailing zeros 
+ * removed. Unlike {@link Double#toString(double)}, formatting does not allocate. Magnitudes too large to be scaled into a long (above 
+ * about 1e18 / 10^precision) are written losslessly, as below. Instances hold no mutable state, and may be shared between threads
+ * 
+ * <p>With a precision of {@link DoubleFormatter#LOSSLESS}, text is instead the shortest decimal that is parsed back to the same double,
+ * found without allocating by the Ryu algorithm (Adams, 2018). Values are written as plain decimals between 1e-3 and 1e7, and in 
+ * scientific notation (e.g. 5.139E-6) outside of that, as with {@link Double#toString(double)}</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DoubleFormatter {
+	
+	public static final int MAX_PRECISION = 12;
+	
+	/**
+	 * Precision that writes text parsed back to the same double, rather than rounding to fixed decimal places
+	 */
+	public static final int LOSSLESS = -1;
+	
+	/**
+	 * Longest text that {@link DoubleFormatter#format(double, byte[], int)} can produce
+	 */
+	public static final int MAX_LENGTH = 32;
+	
+	private static final long[] POWERS_OF_TEN = new long[MAX_PRECISION + 1];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+	}
+	
+	// Ryu conversion of doubles to shortest decimals, using 5^i and 2^k/5^i scaled to 125 bits, split into low and high longs
+	private static final int MANTISSA_BITS = 52;
+	private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+	private static final int EXPONENT_MASK = (1 << 11) - 1;
+	private static final int EXPONENT_BIAS = 1023;
+	
+	private static final int POW5_BITCOUNT = 125;
+	private static final int POW5_INV_BITCOUNT = 125;
+	private static final long[][] POW5_SPLIT = new long[326][2];
+	private static final long[][] POW5_INV_SPLIT = new long[342][2];
+	static {
+		for (int i = 0; i < POW5_INV_SPLIT.length; i++) {
+			BigInteger pow = BigInteger.valueOf(5).pow(i);
+			int bits = pow.bitLength();
+			
+			if (i < POW5_SPLIT.length)
+				split(bits > POW5_BITCOUNT ? pow.shiftRight(bits - POW5_BITCOUNT) : pow.shiftLeft(POW5_BITCOUNT - bits), POW5_SPLIT[i]);
+			
+			split(BigInteger.ONE.shiftLeft(bits - 1 + POW5_INV_BITCOUNT).divide(pow).add(BigInteger.ONE), POW5_INV_SPLIT[i]);
+		}
+	}
+	
+	private static final byte[] NAN = "NaN".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] INFINITY = "Infinity".getBytes(StandardCharsets.US_ASCII);
+	
+	private final int precision;
+	private final int decimals;
+	private final long scale;
+	private final double maxScalable;
+	
+	/**
+	 * @param precision number of decimal places to round to, between 0 and {@value #MAX_PRECISION}, or {@link #LOSSLESS}
+	 */
+	public DoubleFormatter(int precision) {
+		if ((precision < 0 || precision > MAX_PRECISION) && precision != LOSSLESS)
+			throw new IllegalArgumentException("Precision must be between 0 and " + MAX_PRECISION + " or LOSSLESS, not " + precision);
+		
+		this.precision = precision;
+		this.decimals = Math.max(precision, 0);
+		this.scale = POWERS_OF_TEN[decimals];
+		this.maxScalable = Long.MAX_VALUE / 2 / (double) scale;
+	}
+	
+	/**
+	 * Writes value as text into destination, which must have at least {@value #MAX_LENGTH} bytes available from offset
+	 * 
+	 * @param value
+	 * @param destination
+	 * @param offset
+	 * @return offset in destination after the last byte written
+	 */
+	public int format(double value, byte[] destination, int offset) {
+		if (Double.isNaN(value))
+			return put(NAN, destination, offset);
+		
+		if (precision == LOSSLESS)
+			return formatLossless(value, destination, offset);
+		
+		if (value < 0) {
+			long scaled = -value < maxScalable ? Math.round(-value * scale) : -1;
+			
+			// Values that round to zero are written without a sign
+			if (scaled == 0)
+				return putDigits(0, destination, offset);
+			
+			destination[offset++] = '-';
+			value = -value;
+		}
+		
+		if (!(value < maxScalable))
+			return formatLossless(value, destination, offset);
+		
+		return putScaled(Math.round(value * scale), destination, offset);
+	}
+	
+	/**
+	 * Writes the shortest decimal text that is parsed back to value, which must not be NaN. This follows the reference implementation 
+	 * of Ryu, with its decimal mantissa and exponent written as text directly, rather than returned
+	 */
+	private static int formatLossless(double value, byte[] destination, int offset) {
+		long bits = Double.doubleToRawLongBits(value);
+		long ieeeMantissa = bits & MANTISSA_MASK;
+		int ieeeExponent = (int) (bits >>> MANTISSA_BITS) & EXPONENT_MASK;
+		
+		if (bits < 0)
+			destination[offset++] = '-';
+		
+		if (ieeeExponent == EXPONENT_MASK)
+			return put(INFINITY, destination, offset);
+		
+		if (ieeeExponent == 0 && ieeeMantissa == 0)
+			return putDigits(0, destination, offset);
+		
+		// Value is m2 * 2^e2, with two more bits of exponent for the bounds of values that are rounded to it
+		int e2;
+		long m2;
+		if (ieeeExponent == 0) {
+			e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+			m2 = ieeeMantissa;
+		} else {
+			e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+			m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+		}
+		boolean acceptBounds = (m2 & 1) == 0;
+		
+		// Interval of values rounded to this double, which is closer to the next lower double at powers of two
+		long mv = 4 * m2;
+		int mmShift = (ieeeMantissa != 0 || ieeeExponent <= 1) ? 1 : 0;
+		
+		// Convert the interval to a power of ten
+		long vr, vp, vm;
+		int e10;
+		boolean vmIsTrailingZeros = false;
+		boolean vrIsTrailingZeros = false;
+		if (e2 >= 0) {
+			int q = log10Pow2(e2) - (e2 > 3 ? 1 : 0);
+			int i = -e2 + q + POW5_INV_BITCOUNT + pow5Bits(q) - 1;
+			e10 = q;
+			vr = mulShift(mv, POW5_INV_SPLIT[q], i);
+			vp = mulShift(mv + 2, POW5_INV_SPLIT[q], i);
+			vm = mulShift(mv - 1 - mmShift, POW5_INV_SPLIT[q], i);
+			
+			if (q <= 21) {
+				// Only one of mp, mv, and mm can be a multiple of 5, if any
+				if (mv % 5 == 0)
+					vrIsTrailingZeros = pow5Factor(mv) >= q;
+				else if (acceptBounds)
+					vmIsTrailingZeros = pow5Factor(mv - 1 - mmShift) >= q;
+				else if (pow5Factor(mv + 2) >= q)
+					vp--;
+			}
+		} else {
+			int q = log10Pow5(-e2) - (-e2 > 1 ? 1 : 0);
+			int i = -e2 - q;
+			int j = q - (pow5Bits(i) - POW5_BITCOUNT);
+			e10 = q + e2;
+			vr = mulShift(mv, POW5_SPLIT[i], j);
+			vp = mulShift(mv + 2, POW5_SPLIT[i], j);
+			vm = mulShift(mv - 1 - mmShift, POW5_SPLIT[i], j);
+			
+			if (q <= 1) {
+				// mv always has at least two trailing zero bits, mm has one only when mmShift is 1, and mp always has one
+				vrIsTrailingZeros = true;
+				if (acceptBounds)
+					vmIsTrailingZeros = mmShift == 1;
+				else
+					vp--;
+			} else if (q < 63) {
+				vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+			}
+		}
+		
+		// Remove digits while the interval still holds a shorter decimal
+		int removed = 0;
+		int lastRemovedDigit = 0;
+		long output;
+		if (vmIsTrailingZeros || vrIsTrailingZeros) {
+			while (vp / 10 > vm / 10) {
+				vmIsTrailingZeros &= vm % 10 == 0;
+				vrIsTrailingZeros &= lastRemovedDigit == 0;
+				lastRemovedDigit = (int) (vr % 10);
+				vr /= 10;
+				vp /= 10;
+				vm /= 10;
+				removed++;
+			}
+			
+			if (vmIsTrailingZeros) {
+				while (vm % 10 == 0) {
+					vrIsTrailingZeros &= lastRemovedDigit == 0;
+					lastRemovedDigit = (int) (vr % 10);
+					vr /= 10;
+					vp /= 10;
+					vm /= 10;
+					removed++;
+				}
+			}
+			
+			// Round half to even if the exact value is ...50..0
+			if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0)
+				lastRemovedDigit = 4;
+			
+			output = vr + (((vr == vm && (!acceptBounds || !vmIsTrailingZeros)) || lastRemovedDigit >= 5) ? 1 : 0);
+		} else {
+			boolean roundUp = false;
+			while (vp / 10 > vm / 10) {
+				roundUp = vr % 10 >= 5;
+				vr /= 10;
+				vp /= 10;
+				vm /= 10;
+				removed++;
+			}
+			
+			output = vr + ((vr == vm || roundUp) ? 1 : 0);
+		}
+		
+		return putDecimal(output, e10 + removed, destination, offset);
+	}
+	
+	/**
+	 * Writes a positive decimal of output * 10^exponent as plain text between 1e-3 and 1e7, and in scientific notation otherwise
+	 */
+	private static int putDecimal(long output, int exponent, byte[] destination, int offset) {
+		while (output % 10 == 0) {
+			output /= 10;
+			exponent++;
+		}
+		
+		int length = 1;
+		for (long remaining = output / 10; remaining > 0; remaining /= 10)
+			length++;
+		
+		int scientific = exponent + length - 1;
+		if (scientific < -3 || scientific >= 7) {
+			offset = putPoint(output, length, 1, destination, offset);
+			destination[offset++] = 'E';
+			if (scientific < 0)
+				destination[offset++] = '-';
+			
+			return putDigits(Math.abs(scientific), destination, offset);
+		}
+		
+		if (exponent >= 0) {
+			offset = putDigits(output, destination, offset);
+			for (int i = 0; i < exponent; i++)
+				destination[offset++] = '0';
+			
+			return offset;
+		}
+		
+		if (scientific < 0) {
+			destination[offset++] = '0';
+			destination[offset++] = '.';
+			for (int i = -1; i > scientific; i--)
+				destination[offset++] = '0';
+			
+			return putDigits(output, destination, offset);
+		}
+		
+		return putPoint(output, length, scientific + 1, destination, offset);
+	}
+	
+	/**
+	 * Writes the length digits of a positive long, with a decimal point after the first integerDigits of them if any remain
+	 */
+	private static int putPoint(long value, int length, int integerDigits, byte[] destination, int offset) {
+		int end = offset + length + (length > integerDigits ? 1 : 0);
+		
+		for (int i = end - 1; i >= offset; i--) {
+			if (i == offset + integerDigits) {
+				destination[i] = '.';
+			} else {
+				destination[i] = (byte) ('0' + value % 10);
+				value /= 10;
+			}
+		}
+		
+		return end;
+	}
+	
+	/**
+	 * @return (m * mul) >> j, where mul is a 128 bit value split into low and high longs, m has at most 57 bits and j is between 65
+	 * and 127
+	 */
+	private static long mulShift(long m, long[] mul, int j) {
+		long high0 = multiplyHighUnsigned(m, mul[0]);
+		long low1 = m * mul[1];
+		long high1 = multiplyHighUnsigned(m, mul[1]);
+		
+		long sum = high0 + low1;
+		if (Long.compareUnsigned(sum, high0) < 0)
+			high1++;
+		
+		int shift = j - 64;
+		return (high1 << (64 - shift)) | (sum >>> shift);
+	}
+	
+	/**
+	 * @return high 64 bits of the unsigned 128 bit product of a and b
+	 */
+	private static long multiplyHighUnsigned(long a, long b) {
+		long aLow = a & 0xFFFFFFFFL;
+		long aHigh = a >>> 32;
+		long bLow = b & 0xFFFFFFFFL;
+		long bHigh = b >>> 32;
+		
+		long lowLow = aLow * bLow;
+		long highLow = aHigh * bLow;
+		long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + aLow * bHigh;
+		
+		return aHigh * bHigh + (highLow >>> 32) + (cross >>> 32);
+	}
+	
+	private static int pow5Factor(long value) {
+		int count = 0;
+		for (; value % 5 == 0; value /= 5)
+			count++;
+		
+		return count;
+	}
+	
+	/**
+	 * @return number of bits of 5^e, for e between 0 and 3528
+	 */
+	private static int pow5Bits(int e) {
+		return (int) (((e * 1217359L) >>> 19) + 1);
+	}
+	
+	/**
+	 * @return floor(log10(2^e)), for e between 0 and 1650
+	 */
+	private static int log10Pow2(int e) {
+		return (int) ((e * 78913L) >>> 18);
+	}
+	
+	/**
+	 * @return floor(log10(5^e)), for e between 0 and 2620
+	 */
+	private static int log10Pow5(int e) {
+		return (int) ((e * 732923L) >>> 20);
+	}
+	
+	private static void split(BigInteger value, long[] destination) {
+		destination[0] = value.longValue();
+		destination[1] = value.shiftRight(64).longValue();
+	}
+	
+	/**
+	 * Writes a non-negative value, scaled by 10^decimals, as decimal text without trailing zeros
+	 */
+	private int putScaled(long scaled, byte[] destination, int offset) {
+		long integer = scaled / scale;
+		long fraction = scaled % scale;
+		
+		offset = putDigits(integer, destination, offset);
+		
+		if (fraction == 0)
+			return offset;
+		
+		// Write the fraction with leading zeros, and without trailing zeros
+		int digits = decimals;
+		while (fraction % 10 == 0) {
+			fraction /= 10;
+			digits--;
+		}
+		
+		destination[offset++] = '.';
+		for (int i = digits - 1; i >= 0; i--) {
+			destination[offset + i] = (byte) ('0' + fraction % 10);
+			fraction /= 10;
+		}
+		
+		return offset + digits;
+	}
+	
+	/**
+	 * Writes the decimal digits of a non-negative long into destination
+	 */
+	private static int putDigits(long value, byte[] destination, int offset) {
+		int digits = 1;
+		for (long remaining = value / 10; remaining > 0; remaining /= 10)
+			digits++;
+		
+		for (int i = digits - 1; i >= 0; i--) {
+			destination[offset + i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		
+		return offset + digits;
+	}
+	
+	private static int put(byte[] text, byte[] destination, int offset) {
+		System.arraycopy(text, 0, destination, offset, text.length);
+		return offset + text.length;
+	}
+	
+	public int getPrecision() { return precision; }
+}
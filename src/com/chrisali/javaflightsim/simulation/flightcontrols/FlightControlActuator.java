@@ -3,6 +3,9 @@ package com.chrisali.javaflightsim.simulation.flightcontrols;
 import static com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl.*;
 import static com.chrisali.javaflightsim.simulation.setup.KeyCommand.*;
 
+import java.nio.ByteBuffer;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 
@@ -12,7 +15,7 @@ import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
  * @author Christopher
  *
  */
-public class FlightControlActuator implements ControlParameterActuator {
+public class FlightControlActuator implements ControlParameterActuator, Snapshottable {
 	
 	FlightControlsState controlsState;
 	
@@ -32,10 +35,24 @@ public class FlightControlActuator implements ControlParameterActuator {
 	// If true, don't directly calculate controls; use a transient value 
 	private boolean useTransientLag = true;
 	
+	// Handles pause, reset and plot commands; ignored if null
+	private SimEvents simEvents;
+	
 	public FlightControlActuator(SimulationConfiguration configuration, FlightControlsState controlsState) {
-		dt = configuration.getIntegratorConfig().get(IntegratorConfig.DT);
+		this(configuration, controlsState, configuration.getIntegratorConfig().get(IntegratorConfig.DT), null);
+	}
+	
+	/**
+	 * @param configuration
+	 * @param controlsState
+	 * @param dt time between each update of the actuator (sec), used to scale control deflection rates
+	 * @param simEvents events of the simulation commanded by pause, reset and plot parameters; may be null 
+	 */
+	public FlightControlActuator(SimulationConfiguration configuration, FlightControlsState controlsState, double dt, SimEvents simEvents) {
+		this.dt = dt;
 		
 		this.controlsState = controlsState;
+		this.simEvents = simEvents;
 		
 		gearLeverDown = controlsState.get(GEAR) == 1.0;
 		
@@ -96,11 +113,11 @@ public class FlightControlActuator implements ControlParameterActuator {
 			} else if (parameter.equals(RUDDER_TRIM_RIGHT)) {
 				if (isPressed(value)) rudderTrimRight();
 			} else if (parameter.equals(PAUSE_UNPAUSE_SIM)) {
-				SimEvents.pauseUnpauseSimulation(isPressed(value));
+				if (simEvents != null) simEvents.pauseUnpauseSimulation(isPressed(value));
 			} else if (parameter.equals(RESET_SIM)) {
-				SimEvents.resetSimulation(isPressed(value));
+				if (simEvents != null) simEvents.resetSimulation(isPressed(value));
 			} else if (parameter.equals(GENERATE_PLOTS)) {
-				if (isPressed(value)) SimEvents.plotSimulation();
+				if (simEvents != null && isPressed(value)) simEvents.plotSimulation();
 			} 
 		}
 		else {
@@ -407,4 +424,23 @@ public class FlightControlActuator implements ControlParameterActuator {
 			controlsState.set(THROTTLE_4, controlsState.get(THROTTLE_4) - getRate(THROTTLE_4));
 		}
 	}
+	
+	/**
+	 * Writes the trim and flap positions, and the position of the gear lever
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.putDouble(trimElevator).putDouble(trimAileron).putDouble(trimRudder).putDouble(flaps);
+		buffer.put((byte) (gearPressed ? 1 : 0)).put((byte) (gearLeverDown ? 1 : 0));
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		trimElevator = buffer.getDouble();
+		trimAileron  = buffer.getDouble();
+		trimRudder   = buffer.getDouble();
+		flaps        = buffer.getDouble();
+		gearPressed   = buffer.get() != 0;
+		gearLeverDown = buffer.get() != 0;
+	}
 }
@@ -19,12 +19,14 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.flightcontrols;
 
+import java.nio.ByteBuffer;
 import java.util.EnumMap;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 
 /**
@@ -34,7 +36,7 @@ import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
  * @author Christopher Ali
  *
  */
-public class FlightControlsState {
+public class FlightControlsState implements Snapshottable {
 
 	private static final Logger logger = LogManager.getLogger(FlightControlsState.class);
 	
@@ -71,6 +73,23 @@ public class FlightControlsState {
 
 	public Map<FlightControl, Double> getFlightControls() { return flightControls; }
 	
+	/**
+	 * Copies the values of a map of flight controls into a primitive array indexed by {@link FlightControl} ordinal, 
+	 * which is how the force and moment calculations read them; controls missing from the map are copied as 0
+	 * 
+	 * @param controls
+	 * @param values array of at least FlightControl.values().length to overwrite
+	 * @return values
+	 */
+	public static double[] copyToArray(Map<FlightControl, Double> controls, double[] values) {
+		for (FlightControl control : FlightControl.values()) {
+			Double value = controls.get(control);
+			values[control.ordinal()] = (value != null) ? value : 0.0;
+		}
+		
+		return values;
+	}
+	
 	public double get(FlightControl parameter) { return flightControls.get(parameter); }
 	
 	public void set(FlightControl parameter, Double value) { flightControls.put(parameter, value); }
@@ -81,6 +100,36 @@ public class FlightControlsState {
 
 	public double getTrimValue(FlightControl parameter) { return trimflightControls.get(parameter); }
 	
+	/**
+	 * Writes the current and transient values of each flight control, in {@link FlightControl} order; controls missing from 
+	 * either map are written as NaN
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		for (FlightControl control : FlightControl.values()) {
+			Double value = flightControls.get(control);
+			Double transientValue = transientFlightControls.get(control);
+			
+			buffer.putDouble((value != null) ? value : Double.NaN);
+			buffer.putDouble((transientValue != null) ? transientValue : Double.NaN);
+		}
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		for (FlightControl control : FlightControl.values()) {
+			readValue(flightControls, control, buffer.getDouble());
+			readValue(transientFlightControls, control, buffer.getDouble());
+		}
+	}
+	
+	private static void readValue(Map<FlightControl, Double> controls, FlightControl control, double value) {
+		if (Double.isNaN(value))
+			controls.remove(control);
+		else
+			controls.put(control, value);
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
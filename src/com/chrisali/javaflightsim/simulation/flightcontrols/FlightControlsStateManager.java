@@ -19,16 +19,20 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.flightcontrols;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.chrisali.javaflightsim.interfaces.SimulationController;
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisInputTimeline;
 import com.chrisali.javaflightsim.simulation.inputdevices.AbstractDevice;
 import com.chrisali.javaflightsim.simulation.inputdevices.Joystick;
 import com.chrisali.javaflightsim.simulation.inputdevices.JoystickVisitor;
@@ -36,21 +40,27 @@ import com.chrisali.javaflightsim.simulation.inputdevices.Keyboard;
 import com.chrisali.javaflightsim.simulation.inputdevices.KeyboardVisitor;
 import com.chrisali.javaflightsim.simulation.inputdevices.Mouse;
 import com.chrisali.javaflightsim.simulation.inputdevices.MouseVisitor;
+import com.chrisali.javaflightsim.simulation.network.RemoteControlInput;
 import com.chrisali.javaflightsim.simulation.setup.ControlsConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.timing.StepScheduler;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
- * Handles flight controls actuated by human interface devices. Also contains 
- * {@link AnalysisControlInput} functionality when simulation in Analysis Mode
+ * Handles flight controls actuated by human interface devices, or received over the network from an external cockpit rig 
+ * by a {@link RemoteControlInput}. Also contains {@link AnalysisControlInput} functionality when simulation in Analysis Mode
  * 
  * @author Christopher Ali
  *
  */
-public class FlightControlsStateManager implements Steppable {
+public class FlightControlsStateManager implements Steppable, Snapshottable {
 
 	private static final Logger logger = LogManager.getLogger(FlightControlsStateManager.class);
+	
+	// Rate at which input devices are polled and analysis inputs are generated (Hz)
+	private static final double STEP_RATE_HZ = 120.0;
 
 	private FlightControlsState controlsState;
 	
@@ -60,37 +70,59 @@ public class FlightControlsStateManager implements Steppable {
 	
 	private AbstractDevice hidController;
 	private Keyboard hidKeyboard;
-	private AnalysisControls analysisControls;
+	private RemoteControlInput remoteControls;
+	private AnalysisInputTimeline analysisTimeline;
 
 	private ControlParameterActuator actuator;
 	
+	// Time between each step of this object (sec)
+	private double stepPeriod;
+	
 	private JoystickVisitor joystickVisitor;
     private KeyboardVisitor keyboardVisitor;
     private MouseVisitor mouseVisitor;
 	
-	public FlightControlsStateManager(SimulationController simController, AtomicInteger simTimeMS) {
-		logger.debug("Initializing flight controls...");
-		
-		SimEvents.init(simController);
-
-		SimulationConfiguration simConfig = simController.getConfiguration();
-		options = simConfig.getSimulationOptions();
-		controlsState = new FlightControlsState(simConfig);
-		actuator = new FlightControlActuator(simConfig, controlsState);
-
-		this.simTimeMS = simTimeMS;
-		
-		ControlsConfiguration controlsConfig = FileUtilities.readControlsConfiguration();
-		analysisControls = FileUtilities.readAnalysisControls();
-		
-		if (analysisControls != null) {
-			logger.debug(analysisControls.getAnalysisInputs().size() + " analysis flight control inputs found:");
-			logger.debug(analysisControls.toString());
-		}
+	/**
+	 * Creates a FlightControlsStateManager for the simulation of context. Analysis inputs and input device assignments are read 
+	 * from file, and input devices are used if not running in analysis mode
+	 * 
+	 * @param context
+	 */
+	public FlightControlsStateManager(SimulationContext context) {
+		this(context, true);
+	}
+	
+	/**
+	 * Creates a FlightControlsStateManager for the simulation of context. Analysis inputs are read from file. If not running in 
+	 * analysis mode, network controls are used if selected, and human interface devices are used if useInputDevices is true; 
+	 * a headless simulation has none to use
+	 * 
+	 * @param context
+	 * @param useInputDevices
+	 */
+	public FlightControlsStateManager(SimulationContext context, boolean useInputDevices) {
+		this(context, FileUtilities.readAnalysisControls());
 		
 		// Use controllers for pilot in loop simulation if ANALYSIS_MODE not enabled 
 		if (!options.contains(Options.ANALYSIS_MODE)) {
-			if (options.contains(Options.USE_JOYSTICK)) {
+			if (options.contains(Options.NETWORK_CONTROLS)) {
+				logger.debug("Network controls selected");
+				try {
+					remoteControls = RemoteControlInput.fromConfiguration(context.getConfiguration().getNetworkConfiguration(), stepPeriod);
+				} catch (IOException e) {
+					logger.error("Could not receive network controls; continuing without them", e);
+				}
+			}
+			
+			if (!useInputDevices)
+				return;
+			
+			ControlsConfiguration controlsConfig = FileUtilities.readControlsConfiguration();
+			
+			if (remoteControls != null) {
+				logger.debug("Keyboard used alongside network controls");
+			}
+			else if (options.contains(Options.USE_JOYSTICK)) {
 				logger.debug("Joystick controller selected");
 				hidController = new Joystick();
 				joystickVisitor = new JoystickVisitor(controlsConfig.getJoystickAssignments(), actuator);
@@ -106,6 +138,36 @@ public class FlightControlsStateManager implements Steppable {
 		}
 	}
 	
+	/**
+	 * Creates a FlightControlsStateManager without any human interface devices, whose flight controls are actuated only by 
+	 * the {@link AnalysisControlInput} objects of analysisControls. Nothing is read from file, so that many of these can be 
+	 * created for headless simulations running concurrently
+	 * 
+	 * @param context
+	 * @param analysisControls
+	 */
+	public FlightControlsStateManager(SimulationContext context, AnalysisControls analysisControls) {
+		logger.debug("Initializing flight controls...");
+		
+		SimulationConfiguration simConfig = context.getConfiguration();
+		options = simConfig.getSimulationOptions();
+		controlsState = new FlightControlsState(simConfig);
+		
+		// Actuator rates are scaled by the time between steps of this object, rather than by the simulation time step
+		double simulationRateHz = 1 / simConfig.getIntegratorConfig().get(IntegratorConfig.DT);
+		stepPeriod = StepScheduler.minorFramesPerStep(simulationRateHz, STEP_RATE_HZ) / simulationRateHz;
+		actuator = new FlightControlActuator(simConfig, controlsState, stepPeriod, context.getSimEvents());
+
+		simTimeMS = context.getSimTimeMS();
+		
+		if (analysisControls != null) {
+			logger.debug(analysisControls.getAnalysisInputs().size() + " analysis flight control inputs found:");
+			logger.debug(analysisControls.toString());
+			
+			analysisTimeline = analysisControls.compileTimeline();
+		}
+	}
+	
 	@Override
 	public void step() {
 		try {
@@ -117,8 +179,12 @@ public class FlightControlsStateManager implements Steppable {
 		
 				if (hidKeyboard != null)
 					hidKeyboard.collectControlDeviceValues(keyboardVisitor);
-			} else {
-				analysisControls.updateFlightControls(simTimeMS, actuator);
+				
+				// Controls sent by a remote rig take precedence over any set by the keyboard
+				if (remoteControls != null)
+					remoteControls.update(System.nanoTime(), controlsState);
+			} else if (analysisTimeline != null) {
+				analysisTimeline.update(simTimeMS.get(), actuator);
 			}
 			
 			limitControls(controlsState);
@@ -128,8 +194,13 @@ public class FlightControlsStateManager implements Steppable {
 	}
 	
 	@Override
-	public boolean canStepNow(int timeMS) {
-		return timeMS % 1 == 0;
+	public double getStepRateHz() {
+		return STEP_RATE_HZ;
+	}
+	
+	@Override
+	public int getStepPhase() {
+		return 0;
 	}
 		
 	public void setSimTimeMS(AtomicInteger simTimeMS) { this.simTimeMS = simTimeMS;	}
@@ -137,6 +208,39 @@ public class FlightControlsStateManager implements Steppable {
 	public AtomicInteger getSimTimeMS() { return simTimeMS;	}
 	
 	public FlightControlsState getControlsState() { return controlsState; }
+	
+	/**
+	 * @return input receiving flight controls over the network, or null if {@link Options#NETWORK_CONTROLS} is not selected
+	 */
+	public RemoteControlInput getRemoteControls() { return remoteControls; }
+	
+	/**
+	 * Writes the state of the flight controls and their actuator. Input devices and network controls are not part of the state; they 
+	 * continue to actuate the controls from wherever they are restored to
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		controlsState.writeState(buffer);
+		
+		if (actuator instanceof Snapshottable)
+			((Snapshottable) actuator).writeState(buffer);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		controlsState.readState(buffer);
+		
+		if (actuator instanceof Snapshottable)
+			((Snapshottable) actuator).readState(buffer);
+	}
+	
+	/**
+	 * Releases the network port of the remote control input, if there is one
+	 */
+	public void close() {
+		if (remoteControls != null)
+			remoteControls.close();
+	}
 
 	/**
 	 *  Limit control inputs to sensible deflection values based on the minimum and maximum values defined for 
@@ -23,13 +23,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 
 /**
- * Abstract class for an injectable control input that can be used to test an aircraft's flight dynamics in Analysis Mode. 
+ * Abstract class for an injectable control input that can be used to test an aircraft's flight dynamics in Analysis Mode. Each subclass 
+ * defines the shape of its input as a deflection from trim at each time, which is zero outside of the input's start and end times. 
  * Each time a new subclass is added to the project, be sure to add its type to the JsonSubTypes annotation for this class 
  * 
  * @author Christopher
@@ -39,6 +41,10 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 @JsonSubTypes({
 	@Type(value = Doublet.class, name = "Doublet"),
 	@Type(value = Singlet.class, name = "Singlet"),
+	@Type(value = ThreeTwoOneOne.class, name = "ThreeTwoOneOne"),
+	@Type(value = FrequencySweep.class, name = "FrequencySweep"),
+	@Type(value = Ramp.class, name = "Ramp"),
+	@Type(value = Multisine.class, name = "Multisine"),
 })
 public abstract class AnalysisControlInput implements Comparable<AnalysisControlInput> {
 
@@ -69,7 +75,33 @@ public abstract class AnalysisControlInput implements Comparable<AnalysisControl
 		this.amplitude = amplitude;
 	}
 
-	public abstract void generate(AtomicInteger timeMS, ControlParameterActuator actuator);
+	/**
+	 * @param timeMS time in milliseconds
+	 * @return deflection of the control from its trim value at timeMS, which is zero before the start time and from the end time onwards (rad)
+	 */
+	public abstract double getDeflection(int timeMS);
+	
+	/**
+	 * @return time in milliseconds at which this input has ended and the control has returned to its trim value
+	 */
+	@JsonIgnore
+	public int getEndTimeMS() { return startTimeMS + durationMS; }
+	
+	/**
+	 * Moves the control to its deflection at the current time, returning it to trim value outside of this input's start and end times 
+	 * 
+	 * @param timeMS
+	 * @param actuator
+	 */
+	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
+		actuator.handleParameterChange(controlType, (float)(getDeflection(timeMS.get())/controlType.getMaximum()));
+	}
+	
+	/**
+	 * @param timeMS
+	 * @return if timeMS is between the start time, inclusive, and end time, exclusive, of this input
+	 */
+	protected boolean isActive(int timeMS) { return timeMS >= startTimeMS && timeMS < getEndTimeMS(); }
 
 	public FlightControl getControlType() { return controlType;	}
 
@@ -20,13 +20,11 @@
 package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.interfaces.Saveable;
-import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -48,22 +46,13 @@ public class AnalysisControls implements Saveable {
 	public AnalysisControls() { }
 	
 	/**
-	 * Given a list of {@link AnalysisControlInput} objects, update the flight controls appropriate with a control input 
-	 * at the appropriate time
+	 * Compiles the list of {@link AnalysisControlInput} objects into a new {@link AnalysisInputTimeline}, which updates the flight controls 
+	 * of one simulation with each control input at the appropriate time. The inputs are shared with, and should not be modified while 
+	 * running, the simulations that use timelines of them
 	 * 
-	 * @param timeMS time in milliseconds
-	 * @param actuator
+	 * @return timeline of inputs
 	 */
-	public void updateFlightControls(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		for (AnalysisControlInput input : analysisInputs) {
-			// Only consider an input if simulation time is within a time window (from 63/64 of input start time to 65/64 of end time)
-			boolean withinTimeWindow = timeMS.get() > (63 * input.getStartTimeMS() / 64) &&
-									   timeMS.get() < (65 * (2 * input.getDurationMS() + timeMS.get()) / 64);
-			
-			if (withinTimeWindow)
-				input.generate(timeMS, actuator);
-		}
-	}
+	public AnalysisInputTimeline compileTimeline() { return new AnalysisInputTimeline(analysisInputs); }
 	
 	@Override
 	public void save() {
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Timeline of {@link AnalysisControlInput} objects compiled once when a simulation is loaded, which actuates the flight controls of that simulation 
+ * each time it is updated. Inputs are ordered by start time, so each update only starts the inputs whose start times have passed since the last 
+ * update and evaluates those that are active, rather than scanning every input; an update costs O(active inputs) no matter how many inputs there 
+ * are in total. The deflections of inputs on the same control that overlap are summed. 
+ * 
+ * <p>Once an input on a control has started, that control is actuated on every update, returning to its trim value when no input on it is active, 
+ * so that the actuator's transient lag settles. If time moves backwards, as when a simulation is reset or restored from a snapshot, the timeline 
+ * starts again from the first input. A timeline holds the state of one simulation, and is not thread safe</p>
+ * 
+ * @author Christopher
+ *
+ */
+public class AnalysisInputTimeline {
+	
+	private static final FlightControl[] FLIGHT_CONTROLS = FlightControl.values();
+	
+	// Inputs ordered by start time, with their start and end times
+	private final AnalysisControlInput[] inputs;
+	private final int[] startTimesMS;
+	private final int[] endTimesMS;
+	
+	// Index of the next input to start, and indices of inputs that have started but not yet ended 
+	private int next;
+	private final int[] active;
+	private int activeCount;
+	
+	// Controls that inputs have started on, and the sum of their active inputs' deflections, indexed by FlightControl ordinal 
+	private final boolean[] commanded 	= new boolean[FLIGHT_CONTROLS.length];
+	private final double[] deflections = new double[FLIGHT_CONTROLS.length];
+	
+	private int lastTimeMS = Integer.MIN_VALUE;
+	
+	/**
+	 * Compiles a timeline of analysisInputs; inputs with the same start time keep their order in the list
+	 * 
+	 * @param analysisInputs
+	 */
+	public AnalysisInputTimeline(List<AnalysisControlInput> analysisInputs) {
+		inputs = analysisInputs.toArray(new AnalysisControlInput[analysisInputs.size()]);
+		Arrays.sort(inputs);
+		
+		startTimesMS = new int[inputs.length];
+		endTimesMS = new int[inputs.length];
+		active = new int[inputs.length];
+		
+		for (int i = 0; i < inputs.length; i++) {
+			startTimesMS[i] = inputs[i].getStartTimeMS();
+			endTimesMS[i] = inputs[i].getEndTimeMS();
+		}
+	}
+	
+	/**
+	 * Starts inputs whose start times have passed, ends those whose end times have passed, and actuates each control that inputs have started on 
+	 * with the sum of its active inputs' deflections at timeMS
+	 * 
+	 * @param timeMS time in milliseconds
+	 * @param actuator
+	 */
+	public void update(int timeMS, ControlParameterActuator actuator) {
+		if (timeMS < lastTimeMS)
+			rewind();
+		lastTimeMS = timeMS;
+		
+		while (next < inputs.length && startTimesMS[next] <= timeMS) {
+			commanded[inputs[next].getControlType().ordinal()] = true;
+			active[activeCount++] = next++;
+		}
+		
+		Arrays.fill(deflections, 0.0);
+		
+		for (int i = 0; i < activeCount;) {
+			int index = active[i];
+			
+			// Replace an ended input with the last active input
+			if (endTimesMS[index] <= timeMS) {
+				active[i] = active[--activeCount];
+			} else {
+				deflections[inputs[index].getControlType().ordinal()] += inputs[index].getDeflection(timeMS);
+				i++;
+			}
+		}
+		
+		for (int i = 0; i < FLIGHT_CONTROLS.length; i++) {
+			if (commanded[i])
+				actuator.handleParameterChange(FLIGHT_CONTROLS[i], (float)(deflections[i]/FLIGHT_CONTROLS[i].getMaximum()));
+		}
+	}
+	
+	/**
+	 * Returns the timeline to before its first input, so that the next update starts every input whose start time has passed
+	 */
+	private void rewind() {
+		next = 0;
+		activeCount = 0;
+		Arrays.fill(commanded, false);
+	}
+	
+	/**
+	 * @return number of inputs that had started but not ended as of the last update
+	 */
+	public int getActiveCount() { return activeCount; }
+	
+	/**
+	 * @return time in milliseconds at which the last input ends
+	 */
+	public int getEndTimeMS() {
+		int endTimeMS = 0;
+		for (int time : endTimesMS)
+			endTimeMS = Math.max(endTimeMS, time);
+		
+		return endTimeMS;
+	}
+}
@@ -19,9 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
-import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -46,25 +43,18 @@ public class Doublet extends AnalysisControlInput {
 	 * and then returns to trim value. 
 	 * 
 	 * @param timeMS
-	 * @param actuator
 	 */
 	@Override
-	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		Integer time = timeMS.get();
-		Integer firstHalfEndTimeMS = startTimeMS + durationMS;
-		Integer doubletEndTimeMS   = startTimeMS + (2 * durationMS);
-		
-		boolean startedFirstHalf = time.compareTo(startTimeMS) == 1 || time.compareTo(startTimeMS) == 0;
-		boolean endedFirstHalf   = time.compareTo(firstHalfEndTimeMS) == 1 || time.compareTo(firstHalfEndTimeMS) == 0;
+	public double getDeflection(int timeMS) {
+		if (!isActive(timeMS))
+			return 0.0;
 		
-		boolean startedSecondHalf = time.compareTo(firstHalfEndTimeMS) == 1 || time.compareTo(firstHalfEndTimeMS) == 0;
-		boolean endedSecondHalf   = time.compareTo(doubletEndTimeMS)   == 1 || time.compareTo(doubletEndTimeMS)   == 0;
-		
-		if (startedFirstHalf && !endedFirstHalf)
-			actuator.handleParameterChange(controlType, (float)(amplitude/controlType.getMaximum()));
-		else if (startedSecondHalf && !endedSecondHalf)
-			actuator.handleParameterChange(controlType, (float)(-amplitude/controlType.getMaximum()));
-		else 
-			actuator.handleParameterChange(controlType, 0.0f);
-	}	
+		return (timeMS < startTimeMS + durationMS) ? amplitude : -amplitude;
+	}
+	
+	/**
+	 * @return time in milliseconds at which the second half of the doublet has ended
+	 */
+	@Override
+	public int getEndTimeMS() { return startTimeMS + (2 * durationMS); }
 }
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a frequency sweep (chirp) control input, a sine wave whose frequency 
+ * increases linearly from a start to an end frequency, used to identify the frequency response of an aircraft. The start time defines when 
+ * the sweep should start, the duration indicates how long the sweep lasts, and the amplitude is the peak deflection (rad) of the sine wave
+ * 
+ * @author Christopher
+ *
+ */
+public class FrequencySweep extends AnalysisControlInput {
+	
+	/**
+	 * Frequency of the sine wave at the start of the sweep in Hz
+	 */
+	private double startFrequencyHz;
+	
+	/**
+	 * Frequency of the sine wave at the end of the sweep in Hz
+	 */
+	private double endFrequencyHz;
+
+	@JsonCreator
+	public FrequencySweep(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+						  @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude,
+						  @JsonProperty("startFrequencyHz") double startFrequencyHz, @JsonProperty("endFrequencyHz") double endFrequencyHz) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		this.startFrequencyHz = startFrequencyHz;
+		this.endFrequencyHz = endFrequencyHz;
+	}
+
+	/**
+	 * Generates a sine wave starting from trim value, whose phase is the integral of the linearly increasing frequency, and then returns 
+	 * to trim value
+	 * 
+	 * @param timeMS
+	 */
+	@Override
+	public double getDeflection(int timeMS) {
+		if (!isActive(timeMS))
+			return 0.0;
+		
+		double t = (timeMS - startTimeMS) / 1000.0;
+		double duration = durationMS / 1000.0;
+		double phase = 2 * Math.PI * (startFrequencyHz * t + (endFrequencyHz - startFrequencyHz) * t * t / (2 * duration));
+		
+		return amplitude * Math.sin(phase);
+	}
+
+	public double getStartFrequencyHz() { return startFrequencyHz; }
+
+	public void setStartFrequencyHz(double startFrequencyHz) { this.startFrequencyHz = startFrequencyHz; }
+
+	public double getEndFrequencyHz() { return endFrequencyHz; }
+
+	public void setEndFrequencyHz(double endFrequencyHz) { this.endFrequencyHz = endFrequencyHz; }
+}
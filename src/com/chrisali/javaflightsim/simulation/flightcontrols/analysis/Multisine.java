@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a multisine control input, a sum of equal amplitude sine waves at several 
+ * frequencies, which excites all of them at once for system identification. The sine waves are given Schroeder phases, which keep the peak of 
+ * their sum low relative to its energy, and the sum is scaled so that its peak deflection over the duration of the input is the amplitude (rad). 
+ * The start time defines when the input should start, and the duration indicates how long it lasts
+ * 
+ * @see Source: <i>Schroeder, M.R., Synthesis of Low-Peak-Factor Signals and Binary Sequences With Low Autocorrelation, IEEE Transactions on Information Theory (1970)</i>
+ * @author Christopher
+ *
+ */
+public class Multisine extends AnalysisControlInput {
+	
+	/**
+	 * Frequencies of the sine waves summed in Hz
+	 */
+	private double[] frequenciesHz;
+	
+	// Scale that brings the peak of the sum to the amplitude; recalculated whenever the frequencies or duration change
+	private double scale;
+
+	@JsonCreator
+	public Multisine(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+					 @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude,
+					 @JsonProperty("frequenciesHz") double[] frequenciesHz) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		this.frequenciesHz = frequenciesHz.clone();
+		
+		scale = calculateScale();
+	}
+
+	/**
+	 * Generates the scaled sum of sine waves, and then returns to trim value
+	 * 
+	 * @param timeMS
+	 */
+	@Override
+	public double getDeflection(int timeMS) {
+		if (!isActive(timeMS))
+			return 0.0;
+		
+		return amplitude * scale * sum((timeMS - startTimeMS) / 1000.0);
+	}
+	
+	/**
+	 * @param t time since the start of the input (sec)
+	 * @return sum of the unscaled sine waves, with phases -pi*k*(k-1)/K for the kth of K frequencies
+	 */
+	private double sum(double t) {
+		double sum = 0.0;
+		int count = frequenciesHz.length;
+		
+		for (int k = 0; k < count; k++)
+			sum += Math.sin(2 * Math.PI * frequenciesHz[k] * t - Math.PI * k * (k + 1) / count);
+		
+		return sum;
+	}
+	
+	/**
+	 * @return reciprocal of the largest magnitude of the sum at each millisecond of the input
+	 */
+	private double calculateScale() {
+		double peak = 0.0;
+		for (int timeMS = 0; timeMS < durationMS; timeMS++)
+			peak = Math.max(peak, Math.abs(sum(timeMS / 1000.0)));
+		
+		return (peak > 0.0) ? 1.0 / peak : 0.0;
+	}
+	
+	@Override
+	public void setDurationMS(int durationMS) {
+		super.setDurationMS(durationMS);
+		scale = calculateScale();
+	}
+
+	public double[] getFrequenciesHz() { return frequenciesHz.clone(); }
+
+	public void setFrequenciesHz(double[] frequenciesHz) {
+		this.frequenciesHz = frequenciesHz.clone();
+		scale = calculateScale();
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a ramp control input. The start time defines when the ramp should start, 
+ * the duration indicates how long the control takes to move linearly from trim value to the amplitude of the deflection (rad), and the hold time 
+ * how long the deflection is then held before returning to trim value
+ * 
+ * @author Christopher
+ *
+ */
+public class Ramp extends AnalysisControlInput {
+	
+	/**
+	 * How long the control is held at the amplitude after the ramp in milliseconds
+	 */
+	private int holdMS;
+
+	@JsonCreator
+	public Ramp(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+				@JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude, 
+				@JsonProperty("holdMS") int holdMS) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+		this.holdMS = holdMS;
+	}
+
+	/**
+	 * Generates a linear ramp from trim value to the amplitude, holds it, and then returns to trim value 
+	 * 
+	 * @param timeMS
+	 */
+	@Override
+	public double getDeflection(int timeMS) {
+		if (!isActive(timeMS))
+			return 0.0;
+		
+		return (timeMS < startTimeMS + durationMS) ? amplitude * (timeMS - startTimeMS) / durationMS : amplitude;
+	}
+	
+	/**
+	 * @return time in milliseconds at which the hold has ended
+	 */
+	@Override
+	public int getEndTimeMS() { return startTimeMS + durationMS + holdMS; }
+
+	public int getHoldMS() { return holdMS; }
+
+	public void setHoldMS(int holdMS) { this.holdMS = holdMS; }
+}
@@ -19,9 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
-import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -45,19 +42,9 @@ public class Singlet extends AnalysisControlInput {
 	 * Generates a control singlet and then returns to trim value
 	 * 
 	 * @param timeMS
-	 * @param actuator
 	 */
 	@Override
-	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		Integer time = timeMS.get();
-		Integer endTimeMS = startTimeMS + durationMS;
-		
-		boolean started = time.compareTo(startTimeMS) == 1 || time.compareTo(startTimeMS) == 0;
-		boolean ended   = time.compareTo(endTimeMS) == 1 || time.compareTo(endTimeMS) == 0;
-				
-		if (started && !ended)
-			actuator.handleParameterChange(controlType, (float)(amplitude/controlType.getMaximum()));
-		else 
-			actuator.handleParameterChange(controlType, 0.0f);
-	}	
+	public double getDeflection(int timeMS) {
+		return isActive(timeMS) ? amplitude : 0.0;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Class that contains time and flight control information to generate a 3-2-1-1 control input, a series of alternating pulses 3, 2, 1 and 1 
+ * durations long, whose broad frequency content suits system identification. The start time defines when the input should start, the 
+ * duration is the length of the shortest pulse, and the amplitude is the deflection (rad) of each pulse
+ * 
+ * @author Christopher
+ *
+ */
+public class ThreeTwoOneOne extends AnalysisControlInput {
+	
+	// Pulse lengths, in durations, and the total length of the input
+	private static final int[] PULSES = {3, 2, 1, 1};
+	private static final int LENGTH = 7;
+
+	@JsonCreator
+	public ThreeTwoOneOne(@JsonProperty("controlType") FlightControl controlType, @JsonProperty("startTimeMS") int startTimeMS, 
+						  @JsonProperty("durationMS") int durationMS, @JsonProperty("amplitude") double amplitude) {
+		super(controlType, startTimeMS, durationMS, amplitude);
+	}
+
+	/**
+	 * Generates pulses in the positive, negative, positive and then negative directions (or opposite, if a negative value is specified 
+	 * for amplitude), and then returns to trim value
+	 * 
+	 * @param timeMS
+	 */
+	@Override
+	public double getDeflection(int timeMS) {
+		if (!isActive(timeMS))
+			return 0.0;
+		
+		int pulseEndTimeMS = startTimeMS;
+		for (int i = 0; i < PULSES.length; i++) {
+			pulseEndTimeMS += PULSES[i] * durationMS;
+			
+			if (timeMS < pulseEndTimeMS)
+				return (i % 2 == 0) ? amplitude : -amplitude;
+		}
+		
+		return 0.0;
+	}
+	
+	/**
+	 * @return time in milliseconds at which the last pulse has ended
+	 */
+	@Override
+	public int getEndTimeMS() { return startTimeMS + (LENGTH * durationMS); }
+}
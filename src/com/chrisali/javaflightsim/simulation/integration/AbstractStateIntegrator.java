@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
+import com.chrisali.javaflightsim.interfaces.StateIntegrator;
+
+/**
+ * Common functionality for {@link StateIntegrator} implementations. Keeps track of the last states returned so that 
+ * implementations can detect discontinuities in the states passed in (e.g. a reset to initial conditions) in addition 
+ * to those signaled by {@link StateIntegrator#reset()}. A step is only continuous if its start time is bitwise equal to the end time 
+ * of the last step, so callers should carry over the end time of each step rather than recompute it
+ * 
+ * @author Christopher Ali
+ *
+ */
+public abstract class AbstractStateIntegrator implements StateIntegrator {
+	
+	private boolean  resetRequested = true;
+	private double   lastTOut;
+	private double[] lastYOut;
+	
+	/**
+	 * Checks if the states passed in continue on from those last returned, with no reset requested since; clears the reset request
+	 * 
+	 * @param t
+	 * @param y
+	 * @return if integration can continue from internal steps or history
+	 */
+	protected boolean isContinuous(double t, double[] y) {
+		boolean continuous = !resetRequested && lastYOut != null && t == lastTOut && Arrays.equals(y, lastYOut);
+		resetRequested = false;
+		
+		return continuous;
+	}
+	
+	/**
+	 * Records states returned for comparison in {@link AbstractStateIntegrator#isContinuous(double, double[])} 
+	 * 
+	 * @param tOut
+	 * @param yOut
+	 */
+	protected void recordOutput(double tOut, double[] yOut) {
+		if (lastYOut == null || lastYOut.length != yOut.length)
+			lastYOut = new double[yOut.length];
+		
+		System.arraycopy(yOut, 0, lastYOut, 0, yOut.length);
+		lastTOut = tOut;
+	}
+	
+	@Override
+	public void reset() { resetRequested = true; }
+	
+	/**
+	 * Writes the last states returned and any pending reset request; subclasses should write their own state after calling this method
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.put((byte) (resetRequested ? 1 : 0));
+		buffer.putDouble(lastTOut);
+		buffer.putInt((lastYOut != null) ? lastYOut.length : -1);
+		
+		if (lastYOut != null)
+			Snapshottable.writeArray(buffer, lastYOut);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		resetRequested = buffer.get() != 0;
+		lastTOut = buffer.getDouble();
+		
+		int length = buffer.getInt();
+		if (length < 0) {
+			lastYOut = null;
+		} else {
+			if (lastYOut == null || lastYOut.length != length)
+				lastYOut = new double[length];
+			
+			Snapshottable.readArray(buffer, lastYOut);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
+
+/**
+ * Fixed step fourth-order Adams-Bashforth-Moulton predictor-corrector method, taking a single step between each requested time. 
+ * The states are predicted with the Adams-Bashforth formula using the derivatives of the last four steps, the derivatives are evaluated
+ * at the predicted states, and the states are then corrected with the Adams-Moulton formula. If derivatives at the start of each step 
+ * are provided (the final evaluation of PECE), only one evaluation of the equations is needed per step. 
+ * 
+ * <p>Until enough history is built up, after a {@link AdamsBashforthMoultonIntegrator#reset()}, a discontinuity in states passed in
+ * or a change in step size, {@link RungeKutta4Integrator} is used to start the method</p>
+ * 
+ * @see Source: <i>Numerical Methods for Ordinary Differential Equations by Butcher, J.C.</i>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class AdamsBashforthMoultonIntegrator extends AbstractStateIntegrator {
+	
+	private static final int STEPS = 4;
+	
+	// Allows for round off in the accumulation of simulation time when checking for a change in step size
+	private static final double STEP_TOLERANCE = 1e-6;
+	
+	private final RungeKutta4Integrator starter = new RungeKutta4Integrator();
+	
+	// Derivative history; fHistory[0] is at the start of the step, fHistory[1] one step before, etc.
+	private double[][] fHistory;
+	private int 	   historySize = 0;
+	private double 	   h 		   = Double.NaN;
+	
+	private double[] fPredicted, yPredicted;
+
+	@Override
+	public void integrate(FirstOrderDifferentialEquations equations, double t, double[] y, double[] yDot, double tOut, double[] yOut) {
+		if (fHistory == null || fHistory[0].length != y.length) {
+			fHistory   = new double[STEPS][y.length];
+			fPredicted = new double[y.length];
+			yPredicted = new double[y.length];
+		}
+		
+		boolean continuous = isContinuous(t, y);
+		
+		// History is only valid for a constant step size with no discontinuities
+		if (!continuous || Math.abs((tOut - t) - h) > STEP_TOLERANCE*h) {
+			historySize = 0;
+			h = tOut - t;
+		}
+		
+		// Shift history back one step to make room for the derivatives at the start of this step
+		double[] oldest = fHistory[STEPS-1];
+		for (int i = STEPS-1; i > 0; i--)
+			fHistory[i] = fHistory[i-1];
+		fHistory[0] = oldest;
+		
+		if (yDot != null && continuous)
+			System.arraycopy(yDot, 0, fHistory[0], 0, y.length);
+		else
+			equations.computeDerivatives(t, y, fHistory[0]);
+		
+		historySize = Math.min(historySize + 1, STEPS);
+		
+		if (historySize < STEPS) {
+			starter.step(equations, t, y, fHistory[0], tOut, yOut);
+		} else {
+			double[] f0 = fHistory[0], f1 = fHistory[1], f2 = fHistory[2], f3 = fHistory[3]; 
+			
+			// Predict
+			for (int i = 0; i < y.length; i++)
+				yPredicted[i] = y[i] + h/24*(55*f0[i] - 59*f1[i] + 37*f2[i] - 9*f3[i]);
+			
+			// Evaluate
+			equations.computeDerivatives(tOut, yPredicted, fPredicted);
+			
+			// Correct
+			for (int i = 0; i < y.length; i++)
+				yOut[i] = y[i] + h/24*(9*fPredicted[i] + 19*f0[i] - 5*f1[i] + f2[i]);
+		}
+		
+		recordOutput(tOut, yOut);
+	}
+	
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		
+		buffer.putInt(historySize).putDouble(h);
+		buffer.putInt((fHistory != null) ? fHistory[0].length : -1);
+		
+		if (fHistory != null) {
+			for (double[] f : fHistory)
+				Snapshottable.writeArray(buffer, f);
+		}
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		
+		historySize = buffer.getInt();
+		h = buffer.getDouble();
+		
+		int dimension = buffer.getInt();
+		if (dimension < 0) {
+			fHistory = null;
+		} else {
+			if (fHistory == null || fHistory[0].length != dimension) {
+				fHistory   = new double[STEPS][dimension];
+				fPredicted = new double[dimension];
+				yPredicted = new double[dimension];
+			}
+			
+			for (double[] f : fHistory)
+				Snapshottable.readArray(buffer, f);
+		}
+	}
+}
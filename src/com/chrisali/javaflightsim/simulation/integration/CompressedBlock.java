@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.util.Arrays;
+
+/**
+ * Immutable block of consecutive frames of a {@link CompressedHistory}, with each {@link SimOuts} channel losslessly compressed into 
+ * its own run of bits, so that a channel can be decoded without decoding the others.
+ * 
+ * <p>Channels are compressed in the manner of the Gorilla time series database: the first value is stored whole, and each value after 
+ * it is stored as its difference from a predicted value. Values equal to their prediction take one bit; otherwise, the difference 
+ * between the bits of the value and of the prediction, which is small when both share a sign and exponent, is zigzag encoded and 
+ * only its significant bits are stored, reusing the bit length of the previous difference where it fits. Each channel is encoded with 
+ * three predictors, and the shortest encoding is kept:</p>
+ * <ul>
+ * <li>the previous value, which suits channels that are constant or change in steps</li>
+ * <li>a linear extrapolation of the previous two values, the floating point equivalent of delta-of-delta timestamp encoding</li>
+ * <li>a quadratic extrapolation of the previous three values, which suits time and most states of a flight, as they change 
+ * smoothly at the simulation's rate</li>
+ * </ul>
+ * 
+ * @author Christopher Ali
+ *
+ */
+final class CompressedBlock {
+	
+	private static final int PREDICTOR_BITS = 2;
+	private static final int PREDICTORS = 3;
+	
+	private static final int LENGTH_BITS = 6;
+	
+	// Difference bit lengths shorter than the previous length by more than this are stored with their own length
+	private static final int MAX_UNUSED_BITS = 3;
+	
+	private final long number;
+	private final int frames;
+	private final long[] words;
+	
+	// Bit position in words where each channel begins
+	private final long[] channelStarts;
+	
+	private CompressedBlock(long number, int frames, long[] words, long[] channelStarts) {
+		this.number = number;
+		this.frames = frames;
+		this.words = words;
+		this.channelStarts = channelStarts;
+	}
+	
+	/**
+	 * Compresses columns of frames into blocks, reusing its buffers between blocks; must only be used by one thread at a time
+	 */
+	static class Encoder {
+		private final BitWriter block = new BitWriter(1024);
+		private final BitWriter[] encodings = new BitWriter[PREDICTORS];
+		
+		Encoder() {
+			for (int predictor = 0; predictor < PREDICTORS; predictor++)
+				encodings[predictor] = new BitWriter(256);
+		}
+		
+		/**
+		 * Compresses frames of each channel in columns into a block
+		 * 
+		 * @param number block number, which is the sequence number of the block's first frame divided by the number of frames per block  
+		 * @param columns array of values for each {@link SimOuts} channel, indexed by ordinal
+		 * @param frames number of values of each channel to compress
+		 * @return compressed block
+		 */
+		CompressedBlock encode(long number, double[][] columns, int frames) {
+			long[] channelStarts = new long[columns.length];
+			block.reset();
+			
+			for (int channel = 0; channel < columns.length; channel++) {
+				BitWriter shortest = null;
+				
+				for (int predictor = 0; predictor < PREDICTORS; predictor++) {
+					encodings[predictor].reset();
+					encodeChannel(columns[channel], frames, predictor, encodings[predictor]);
+					
+					if (shortest == null || encodings[predictor].size() < shortest.size())
+						shortest = encodings[predictor];
+				}
+				
+				channelStarts[channel] = block.size();
+				block.append(shortest);
+			}
+			
+			return new CompressedBlock(number, frames, block.toArray(), channelStarts);
+		}
+	}
+	
+	private static void encodeChannel(double[] column, int frames, int predictor, BitWriter out) {
+		out.write(predictor, PREDICTOR_BITS);
+		out.write(Double.doubleToRawLongBits(column[0]), 64);
+		
+		int length = -1;
+		
+		for (int i = 1; i < frames; i++) {
+			long difference = Double.doubleToRawLongBits(column[i]) 
+							- predict(predictor, i, column[i - 1], (i > 1) ? column[i - 2] : 0, (i > 2) ? column[i - 3] : 0);
+			
+			if (difference == 0) {
+				out.write(0, 1);
+				continue;
+			}
+			
+			long zigzag = (difference << 1) ^ (difference >> 63);
+			int valueLength = 64 - Long.numberOfLeadingZeros(zigzag);
+			
+			if (valueLength <= length && length - valueLength <= MAX_UNUSED_BITS) {
+				out.write(0b10, 2);
+			} else {
+				length = valueLength;
+				
+				out.write(0b11, 2);
+				out.write(length - 1, LENGTH_BITS);
+			}
+			
+			out.write(zigzag, length);
+		}
+	}
+	
+	/**
+	 * @return bits of the predicted ith value of a channel, from the three values before it
+	 */
+	private static long predict(int predictor, int i, double previous, double second, double third) {
+		double prediction;
+		
+		if (predictor == 2 && i > 2)
+			prediction = 3 * (previous - second) + third;
+		else if (predictor >= 1 && i > 1)
+			prediction = 2 * previous - second;
+		else
+			prediction = previous;
+		
+		return Double.doubleToRawLongBits(prediction);
+	}
+	
+	/**
+	 * Decodes count values of a channel, beginning at index from within the block, into destination at offset
+	 * 
+	 * @param channel ordinal of {@link SimOuts} channel
+	 * @param from
+	 * @param count
+	 * @param destination
+	 * @param offset
+	 */
+	void decode(int channel, int from, int count, double[] destination, int offset) {
+		BitReader in = new BitReader(words, channelStarts[channel]);
+		
+		int predictor = (int) in.read(PREDICTOR_BITS);
+		double previous = Double.longBitsToDouble(in.read(64));
+		double second = 0;
+		double third = 0;
+		
+		if (from == 0 && count > 0)
+			destination[offset] = previous;
+		
+		int length = 0;
+		
+		for (int i = 1, end = from + count; i < end; i++) {
+			long difference = 0;
+			
+			if (in.read(1) == 1) {
+				if (in.read(1) == 1)
+					length = (int) in.read(LENGTH_BITS) + 1;
+				
+				long zigzag = in.read(length);
+				difference = (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+			
+			double value = Double.longBitsToDouble(predict(predictor, i, previous, second, third) + difference);
+			
+			if (i >= from)
+				destination[offset + i - from] = value;
+			
+			third = second;
+			second = previous;
+			previous = value;
+		}
+	}
+	
+	/**
+	 * @return block number, which is the sequence number of the block's first frame divided by the number of frames per block
+	 */
+	long getNumber() { return number; }
+	
+	/**
+	 * @return number of frames in the block
+	 */
+	int getFrames() { return frames; }
+	
+	/**
+	 * @return approximate number of bytes of memory used by the block
+	 */
+	long getBytes() { return 8L * (words.length + channelStarts.length) + 64; }
+	
+	/**
+	 * Writes bits most significant first into a growable array of longs
+	 */
+	private static class BitWriter {
+		private long[] words;
+		private long size;
+		
+		private BitWriter(int initialWords) {
+			words = new long[Math.max(2, initialWords)];
+		}
+		
+		/**
+		 * Writes the lowest count bits of value, where count is between 1 and 64
+		 */
+		private void write(long value, int count) {
+			int word = (int) (size >>> 6);
+			int free = 64 - (int) (size & 63);
+			
+			if (word + 1 >= words.length)
+				words = Arrays.copyOf(words, words.length * 2);
+			
+			if (count < 64)
+				value &= (1L << count) - 1;
+			
+			if (count <= free) {
+				words[word] |= value << (free - count);
+			} else {
+				words[word] |= value >>> (count - free);
+				words[word + 1] |= value << (64 - (count - free));
+			}
+			
+			size += count;
+		}
+		
+		private void append(BitWriter other) {
+			int fullWords = (int) (other.size >>> 6);
+			for (int i = 0; i < fullWords; i++)
+				write(other.words[i], 64);
+			
+			int remaining = (int) (other.size & 63);
+			if (remaining > 0)
+				write(other.words[fullWords] >>> (64 - remaining), remaining);
+		}
+		
+		private void reset() {
+			Arrays.fill(words, 0, (int) (size >>> 6) + 1, 0);
+			size = 0;
+		}
+		
+		private long size() { return size; }
+		
+		private long[] toArray() { return Arrays.copyOf(words, (int) ((size + 63) >>> 6)); }
+	}
+	
+	/**
+	 * Reads bits most significant first from an array of longs
+	 */
+	private static class BitReader {
+		private final long[] words;
+		private long position;
+		
+		private BitReader(long[] words, long position) {
+			this.words = words;
+			this.position = position;
+		}
+		
+		/**
+		 * Reads count bits, where count is between 1 and 64, into the lowest bits of the value returned
+		 */
+		private long read(int count) {
+			int word = (int) (position >>> 6);
+			int used = (int) (position & 63);
+			int free = 64 - used;
+			
+			long value = (words[word] << used) >>> (64 - count);
+			if (count > free)
+				value |= words[word + 1] >>> (64 - (count - free));
+			
+			position += count;
+			
+			return value;
+		}
+	}
+}
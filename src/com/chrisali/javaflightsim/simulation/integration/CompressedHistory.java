@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link SimOutHistory} that keeps frames in losslessly {@link CompressedBlock}s of a fixed number of frames, so that hours of 
+ * full rate outputs can be retained in a fraction of the memory of a {@link RingBufferHistory}. Frames are appended to an 
+ * uncompressed head block, which is compressed once full; blocks are held in a ring indexed by block number, and the oldest block 
+ * is evicted once the history holds its capacity.
+ * 
+ * <p>Full blocks are handed off to be compressed by a shared background sealer thread, so that the appending thread only copies 
+ * frames; the head moves on to one of {@value #UNSEALED_BLOCKS} uncompressed buffers, each of which is reused once its block is sealed. 
+ * If the sealer falls behind and no buffer is free, the appending thread compresses the block itself. Until sealed, full blocks are 
+ * read uncompressed like the head</p>
+ * 
+ * <p>Compressed blocks are immutable, so each read decodes only the channels and blocks that it needs, without locking. Reads of 
+ * the head block use the same optimistic {@link StampedLock} reads as {@link RingBufferHistory}. Frames read one at a time, as by 
+ * the console table, are served from the most recently decoded block</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CompressedHistory implements SimOutHistory {
+	
+	public static final int DEFAULT_BLOCK_FRAMES = 1024;
+	
+	/**
+	 * Number of uncompressed buffers of each history, which hold the head and full blocks waiting to be sealed
+	 */
+	public static final int UNSEALED_BLOCKS = 3;
+	
+	// Optimistic reads attempted before a reader blocks the writer with a read lock
+	private static final int OPTIMISTIC_ATTEMPTS = 3;
+	
+	// Compresses full blocks of all histories off of their appending threads
+	private static final ExecutorService SEALER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Compressed History Sealer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// Only used on the sealer thread
+	private static final CompressedBlock.Encoder SEALER_ENCODER = new CompressedBlock.Encoder();
+	
+	private final int capacity;
+	private final int blockFrames;
+	
+	private double[][] head;
+	private final CompressedBlock.Encoder encoder = new CompressedBlock.Encoder();
+	private final AtomicReferenceArray<CompressedBlock> blocks;
+	private final StampedLock lock = new StampedLock();
+	
+	// Buffers free to become the head, and full blocks waiting to be sealed, indexed by block number; guarded by lock 
+	private final BlockingQueue<double[][]> freeBuffers = new ArrayBlockingQueue<>(UNSEALED_BLOCKS);
+	private final long[] unsealedNumbers = new long[UNSEALED_BLOCKS - 1];
+	private final double[][][] unsealedColumns = new double[UNSEALED_BLOCKS - 1][][];
+	
+	private volatile long nextSequence = 0;
+	private volatile long clearedSequence = 0;
+	
+	private volatile DecodedBlock decoded;
+	
+	/**
+	 * @param capacity maximum number of frames retained
+	 */
+	public CompressedHistory(int capacity) {
+		this(capacity, DEFAULT_BLOCK_FRAMES);
+	}
+	
+	/**
+	 * @param capacity maximum number of frames retained
+	 * @param blockFrames number of frames compressed together in each block
+	 */
+	public CompressedHistory(int capacity, int blockFrames) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("History capacity must be at least one frame, not " + capacity);
+		if (blockFrames < 2)
+			throw new IllegalArgumentException("Blocks must hold at least two frames, not " + blockFrames);
+		
+		this.capacity = capacity;
+		this.blockFrames = blockFrames;
+		
+		head = new double[SimOuts.CHANNEL_COUNT][blockFrames];
+		for (int i = 1; i < UNSEALED_BLOCKS; i++)
+			freeBuffers.add(new double[SimOuts.CHANNEL_COUNT][blockFrames]);
+		
+		Arrays.fill(unsealedNumbers, -1);
+		
+		blocks = new AtomicReferenceArray<>((capacity + blockFrames - 1) / blockFrames);
+	}
+	
+	/**
+	 * Creates a history that retains a given duration of frames output at a fixed time step
+	 * 
+	 * @param retainedSec duration of frames retained (sec)
+	 * @param dt time between frames (sec)
+	 * @return history with capacity for retainedSec of frames
+	 */
+	public static CompressedHistory forDuration(double retainedSec, double dt) {
+		return new CompressedHistory((int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(retainedSec / dt - 1e-9)) + 1);
+	}
+
+	@Override
+	public void append(SimOutFrame frame) {
+		long sequence = nextSequence;
+		int index = (int) (sequence % blockFrames);
+		
+		long blockNumber = sequence / blockFrames;
+		double[][] full = null;
+		
+		long stamp = lock.writeLock();
+		
+		try {
+			for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+				head[channel][index] = frame.get(channel);
+			
+			if (index < blockFrames - 1) {
+				nextSequence = sequence + 1;
+				return;
+			}
+			
+			// The head is full; hand it off to be sealed, and move the head on to a free buffer
+			double[][] free = freeBuffers.poll();
+			if (free != null) {
+				full = head;
+				unsealedColumns[unsealedSlot(blockNumber)] = full;
+				unsealedNumbers[unsealedSlot(blockNumber)] = blockNumber;
+				
+				head = free;
+				nextSequence = sequence + 1;
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		
+		if (full != null) {
+			double[][] columns = full;
+			SEALER.execute(() -> seal(blockNumber, SEALER_ENCODER.encode(blockNumber, columns, blockFrames), columns));
+			return;
+		}
+		
+		// The sealer has fallen behind; readers cannot see the head's last frame yet, and only read the head, so it is compressed 
+		// outside of the lock
+		CompressedBlock block = encoder.encode(blockNumber, head, blockFrames);
+		
+		stamp = lock.writeLock();
+		
+		try {
+			publish(block);
+			nextSequence = sequence + 1;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Publishes a block compressed by the sealer in place of its uncompressed columns, which are then free to be reused by the head
+	 */
+	private void seal(long blockNumber, CompressedBlock block, double[][] columns) {
+		long stamp = lock.writeLock();
+		
+		try {
+			publish(block);
+			
+			unsealedNumbers[unsealedSlot(blockNumber)] = -1;
+			unsealedColumns[unsealedSlot(blockNumber)] = null;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		
+		freeBuffers.add(columns);
+	}
+	
+	/**
+	 * Sets block into its slot of the ring, unless a newer block has already been compressed into it by the appending thread; must 
+	 * be called while holding the write lock
+	 */
+	private void publish(CompressedBlock block) {
+		int slot = slot(block.getNumber());
+		CompressedBlock existing = blocks.get(slot);
+		
+		if (existing == null || existing.getNumber() < block.getNumber())
+			blocks.set(slot, block);
+	}
+
+	@Override
+	public void clear() { clearedSequence = nextSequence; }
+
+	@Override
+	public int getCapacity() { return capacity; }
+
+	@Override
+	public long getFirstSequence() { return firstSequence(nextSequence); }
+
+	@Override
+	public long getNextSequence() { return nextSequence; }
+
+	@Override
+	public int size() {
+		long next = nextSequence;
+		return (int) (next - firstSequence(next));
+	}
+	
+	/**
+	 * @return oldest retained sequence number when next is the next sequence number to be appended
+	 */
+	private long firstSequence(long next) {
+		return Math.max(clearedSequence, next - capacity);
+	}
+	
+	private int slot(long blockNumber) {
+		return (int) (blockNumber % blocks.length());
+	}
+	
+	private int unsealedSlot(long blockNumber) {
+		return (int) (blockNumber % unsealedNumbers.length);
+	}
+	
+	/**
+	 * @return uncompressed columns of the head or of a full block waiting to be sealed, or null if block has been sealed; must be 
+	 * called while holding a read lock or before validating an optimistic read
+	 */
+	private double[][] uncompressedColumns(long blockNumber) {
+		if (blockNumber == nextSequence / blockFrames)
+			return head;
+		
+		int slot = unsealedSlot(blockNumber);
+		
+		return (unsealedNumbers[slot] == blockNumber) ? unsealedColumns[slot] : null;
+	}
+	
+	/**
+	 * @return approximate number of bytes of memory used to hold the frames of this history, including the uncompressed buffers of 
+	 * the head and of blocks waiting to be sealed
+	 */
+	public long getStoredBytes() {
+		long bytes = 8L * SimOuts.CHANNEL_COUNT * blockFrames * UNSEALED_BLOCKS;
+		
+		for (int slot = 0; slot < blocks.length(); slot++) {
+			CompressedBlock block = blocks.get(slot);
+			if (block != null)
+				bytes += block.getBytes();
+		}
+		
+		return bytes;
+	}
+	
+	/**
+	 * @return number of frames compressed together in each block
+	 */
+	public int getBlockFrames() { return blockFrames; }
+
+	@Override
+	public boolean readFrame(long sequence, SimOutFrame frame) {
+		long next = nextSequence;
+		if (sequence < firstSequence(next) || sequence >= next)
+			return false;
+		
+		long blockNumber = sequence / blockFrames;
+		int index = (int) (sequence % blockFrames);
+		
+		if (readUncompressed(blockNumber, index, frame))
+			return true;
+		
+		CompressedBlock block = sealedBlock(blockNumber);
+		if (block == null)
+			return false;
+		
+		double[][] columns = decodedColumns(block);
+		for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+			frame.set(channel, columns[channel][index]);
+		
+		return true;
+	}
+
+	@Override
+	public int readChannel(SimOuts channel, long fromSequence, double[] destination, int offset, int length) {
+		// Begin again at the oldest retained frame if frames are evicted while being read
+		for (;;) {
+			long next = nextSequence;
+			long start = Math.max(fromSequence, firstSequence(next));
+			int count = (int) Math.max(0, Math.min(length, next - start));
+			
+			boolean copied = true;
+			for (int read = 0; copied && read < count; ) {
+				long sequence = start + read;
+				int index = (int) (sequence % blockFrames);
+				int frames = Math.min(count - read, blockFrames - index);
+				
+				copied = copyFromBlock(sequence / blockFrames, index, frames, channel.ordinal(), destination, offset + read);
+				read += frames;
+			}
+			
+			if (copied)
+				return count;
+		}
+	}
+	
+	@Override
+	public HistorySnapshot snapshot() {
+		return snapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Override
+	public HistorySnapshot snapshot(long fromSequence, long toSequence) {
+		long next = Math.min(toSequence, nextSequence);
+		long first = Math.min(next, Math.max(fromSequence, firstSequence(nextSequence)));
+		int size = (int) (next - first);
+		
+		double[][] snapshotColumns = new double[SimOuts.CHANNEL_COUNT][size];
+		
+		// Frames are copied oldest first; if blocks are evicted before they are copied, the snapshot begins after them
+		long copiedFrom = first;
+		
+		for (long chunkStart = first; chunkStart < next; ) {
+			int index = (int) (chunkStart % blockFrames);
+			int frames = (int) Math.min(blockFrames - index, next - chunkStart);
+			
+			boolean copied = true;
+			for (int channel = 0; copied && channel < SimOuts.CHANNEL_COUNT; channel++)
+				copied = copyFromBlock(chunkStart / blockFrames, index, frames, channel, snapshotColumns[channel], (int) (chunkStart - first));
+			
+			if (copied) {
+				chunkStart += frames;
+			} else {
+				copiedFrom = Math.min(next, Math.max(chunkStart + frames, firstSequence(nextSequence)));
+				chunkStart = copiedFrom;
+			}
+		}
+		
+		return HistorySnapshot.trimmed(first, copiedFrom, size, snapshotColumns);
+	}
+	
+	/**
+	 * Copies frames of a channel from a block into destination at offset. Frames of uncompressed blocks do not change until they are 
+	 * compressed, so frames of different channels copied by separate calls are consistent
+	 * 
+	 * @return false if the block has been evicted
+	 */
+	private boolean copyFromBlock(long blockNumber, int index, int frames, int channel, double[] destination, int offset) {
+		long stamp = lock.tryOptimisticRead();
+		
+		for (int attempt = 0; ; attempt++) {
+			boolean locked = attempt >= OPTIMISTIC_ATTEMPTS;
+			if (locked)
+				stamp = lock.readLock();
+			
+			try {
+				double[][] columns = uncompressedColumns(blockNumber);
+				if (columns != null)
+					System.arraycopy(columns[channel], index, destination, offset, frames);
+				
+				if (locked || lock.validate(stamp)) {
+					if (columns == null)
+						break;
+					
+					return true;
+				}
+			} finally {
+				if (locked)
+					lock.unlockRead(stamp);
+			}
+			
+			stamp = lock.tryOptimisticRead();
+		}
+		
+		CompressedBlock block = sealedBlock(blockNumber);
+		if (block == null)
+			return false;
+		
+		DecodedBlock cached = decoded;
+		if (cached != null && cached.block == block)
+			System.arraycopy(cached.columns[channel], index, destination, offset, frames);
+		else
+			block.decode(channel, index, frames, destination, offset);
+		
+		return true;
+	}
+	
+	/**
+	 * Copies all channels of a frame into frame if its block is the head or waiting to be sealed
+	 * 
+	 * @return false if the block has been compressed
+	 */
+	private boolean readUncompressed(long blockNumber, int index, SimOutFrame frame) {
+		long stamp = lock.tryOptimisticRead();
+		
+		for (int attempt = 0; ; attempt++) {
+			boolean locked = attempt >= OPTIMISTIC_ATTEMPTS;
+			if (locked)
+				stamp = lock.readLock();
+			
+			try {
+				double[][] columns = uncompressedColumns(blockNumber);
+				if (columns != null) {
+					for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+						frame.set(channel, columns[channel][index]);
+				}
+				
+				if (locked || lock.validate(stamp))
+					return columns != null;
+			} finally {
+				if (locked)
+					lock.unlockRead(stamp);
+			}
+			
+			stamp = lock.tryOptimisticRead();
+		}
+	}
+	
+	/**
+	 * @return compressed block with blockNumber, or null if it has been evicted
+	 */
+	private CompressedBlock sealedBlock(long blockNumber) {
+		CompressedBlock block = blocks.get(slot(blockNumber));
+		
+		return (block != null && block.getNumber() == blockNumber) ? block : null;
+	}
+	
+	/**
+	 * @return all channels of block, decoded once and cached for later reads of the same block
+	 */
+	private double[][] decodedColumns(CompressedBlock block) {
+		DecodedBlock cached = decoded;
+		if (cached != null && cached.block == block)
+			return cached.columns;
+		
+		double[][] columns = new double[SimOuts.CHANNEL_COUNT][block.getFrames()];
+		for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+			block.decode(channel, 0, block.getFrames(), columns[channel], 0);
+		
+		decoded = new DecodedBlock(block, columns);
+		
+		return columns;
+	}
+	
+	/**
+	 * All channels of a compressed block, decoded
+	 */
+	private static class DecodedBlock {
+		private final CompressedBlock block;
+		private final double[][] columns;
+		
+		private DecodedBlock(CompressedBlock block, double[][] columns) {
+			this.block = block;
+			this.columns = columns;
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.nio.ByteBuffer;
+
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.exception.util.LocalizedFormats;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
+
+/**
+ * Adaptive step Dormand-Prince 5(4) embedded Runge-Kutta method with error control and dense output. Steps are sized to meet the 
+ * tolerance rather than the frame rate of the simulation, so they may run ahead of the requested time; states at each requested time 
+ * are then interpolated from the fourth-order continuous extension of the current step. Any steps taken ahead are discarded on
+ * {@link DormandPrinceIntegrator#reset()} or if the states passed in don't continue on from those last returned. Steps whose error 
+ * estimate is not finite are rejected; if the step size falls below the minimum, integration fails rather than accepting the step
+ * 
+ * @see Source: <i>Solving Ordinary Differential Equations I: Nonstiff Problems by Hairer, E., Norsett, S.P. and Wanner, G.</i>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DormandPrinceIntegrator extends AbstractStateIntegrator {
+	
+	// Butcher tableau
+	private static final double C2 = 1.0/5.0, C3 = 3.0/10.0, C4 = 4.0/5.0, C5 = 8.0/9.0;
+	
+	private static final double A21 = 1.0/5.0;
+	private static final double A31 = 3.0/40.0, 	  A32 = 9.0/40.0;
+	private static final double A41 = 44.0/45.0, 	  A42 = -56.0/15.0, 	 A43 = 32.0/9.0;
+	private static final double A51 = 19372.0/6561.0, A52 = -25360.0/2187.0, A53 = 64448.0/6561.0, A54 = -212.0/729.0;
+	private static final double A61 = 9017.0/3168.0,  A62 = -355.0/33.0, 	 A63 = 46732.0/5247.0, A64 = 49.0/176.0, A65 = -5103.0/18656.0;
+	private static final double A71 = 35.0/384.0, 	  A73 = 500.0/1113.0, 	 A74 = 125.0/192.0,    A75 = -2187.0/6784.0, A76 = 11.0/84.0;
+	
+	// Difference between fifth and fourth order solutions
+	private static final double E1 = 71.0/57600.0, E3 = -71.0/16695.0, E4 = 71.0/1920.0, E5 = -17253.0/339200.0, E6 = 22.0/525.0, E7 = -1.0/40.0;
+	
+	// Dense output
+	private static final double D1 = -12715105075.0/11282082432.0, D3 = 87487479700.0/32700410799.0, D4 = -10690763975.0/1880347072.0,
+								D5 = 701980252875.0/199316789632.0, D6 = -1453857185.0/822651844.0, D7 = 69997945.0/29380423.0;
+	
+	// Step size control
+	private static final double SAFETY 		= 0.9;
+	private static final double MIN_FACTOR = 0.2;
+	private static final double MAX_FACTOR = 5.0;
+	
+	// Smallest step (sec), or if larger, the number of ulps of the start time below which a step would barely advance time
+	private static final double MIN_STEP 	  = 1e-10;
+	private static final double MIN_STEP_ULPS = 16;
+	
+	private final double absoluteTolerance;
+	private final double relativeTolerance;
+	private final double maxStep;
+	
+	// Current step, from tStart to tEnd
+	private boolean  hasStep = false;
+	private double   tStart, tEnd, h;
+	private double[] yStart, yEnd, k1, k2, k3, k4, k5, k6, k7, yTemp;
+	private double[] rcont1, rcont2, rcont3, rcont4, rcont5;
+	
+	/**
+	 * Creates a {@link DormandPrinceIntegrator} with tolerances of 1e-6 and a maximum step of 1 second 
+	 */
+	public DormandPrinceIntegrator() { this(1e-6, 1e-6, 1.0); }
+	
+	/**
+	 * @param absoluteTolerance
+	 * @param relativeTolerance
+	 * @param maxStep largest step the integrator can take (sec)
+	 */
+	public DormandPrinceIntegrator(double absoluteTolerance, double relativeTolerance, double maxStep) {
+		this.absoluteTolerance = absoluteTolerance;
+		this.relativeTolerance = relativeTolerance;
+		this.maxStep 		   = maxStep;
+	}
+
+	/**
+	 * @throws NumberIsTooSmallException if the step size needed to meet the tolerance falls below the minimum step; the integrator 
+	 * then starts afresh on the next call
+	 */
+	@Override
+	public void integrate(FirstOrderDifferentialEquations equations, double t, double[] y, double[] yDot, double tOut, double[] yOut) {
+		if (yStart == null || yStart.length != y.length)
+			allocate(y.length);
+		
+		boolean continuous = isContinuous(t, y);
+		
+		// Start afresh from the states passed in
+		if (!continuous || !hasStep) {
+			hasStep = false;
+			tStart  = t;
+			System.arraycopy(y, 0, yStart, 0, y.length);
+			
+			if (yDot != null && continuous)
+				System.arraycopy(yDot, 0, k1, 0, y.length);
+			else
+				equations.computeDerivatives(t, y, k1);
+		}
+		
+		// The first step, or a step size that is not finite, starts from the requested interval
+		if (!(h > 0) || Double.isInfinite(h))
+			h = tOut - t;
+		
+		// Take steps until the current step covers the requested time
+		while (!hasStep || tEnd < tOut) {
+			// First same as last; the end of the current step is the start of the next
+			if (hasStep) {
+				tStart = tEnd;
+				System.arraycopy(yEnd, 0, yStart, 0, y.length);
+				System.arraycopy(k7, 0, k1, 0, y.length);
+			}
+			
+			step(equations);
+		}
+		
+		interpolate((tOut - tStart)/(tEnd - tStart), yOut);
+		
+		recordOutput(tOut, yOut);
+	}
+	
+	/**
+	 * Takes a single step from tStart, retrying with smaller steps until the error estimate is within tolerance. 
+	 * The next step size is then estimated from the error of the accepted step
+	 * 
+	 * @param equations
+	 * @throws NumberIsTooSmallException if the step size falls below the minimum step
+	 */
+	private void step(FirstOrderDifferentialEquations equations) {
+		double minStep = Math.max(MIN_STEP, MIN_STEP_ULPS*Math.ulp(tStart));
+		
+		while (true) {
+			h = Math.min(h, maxStep);
+			
+			if (!(h >= minStep)) {
+				double failedStep = h;
+				
+				// Start afresh with a new step size on the next call
+				hasStep = false;
+				h = 0;
+				
+				throw new NumberIsTooSmallException(LocalizedFormats.MINIMAL_STEPSIZE_REACHED_DURING_INTEGRATION, failedStep, minStep, true);
+			}
+			
+			for (int i = 0; i < yStart.length; i++)
+				yTemp[i] = yStart[i] + h*A21*k1[i];
+			equations.computeDerivatives(tStart + C2*h, yTemp, k2);
+			
+			for (int i = 0; i < yStart.length; i++)
+				yTemp[i] = yStart[i] + h*(A31*k1[i] + A32*k2[i]);
+			equations.computeDerivatives(tStart + C3*h, yTemp, k3);
+			
+			for (int i = 0; i < yStart.length; i++)
+				yTemp[i] = yStart[i] + h*(A41*k1[i] + A42*k2[i] + A43*k3[i]);
+			equations.computeDerivatives(tStart + C4*h, yTemp, k4);
+			
+			for (int i = 0; i < yStart.length; i++)
+				yTemp[i] = yStart[i] + h*(A51*k1[i] + A52*k2[i] + A53*k3[i] + A54*k4[i]);
+			equations.computeDerivatives(tStart + C5*h, yTemp, k5);
+			
+			for (int i = 0; i < yStart.length; i++)
+				yTemp[i] = yStart[i] + h*(A61*k1[i] + A62*k2[i] + A63*k3[i] + A64*k4[i] + A65*k5[i]);
+			equations.computeDerivatives(tStart + h, yTemp, k6);
+			
+			for (int i = 0; i < yStart.length; i++)
+				yEnd[i] = yStart[i] + h*(A71*k1[i] + A73*k3[i] + A74*k4[i] + A75*k5[i] + A76*k6[i]);
+			equations.computeDerivatives(tStart + h, yEnd, k7);
+			
+			// Root mean square of the scaled error estimate
+			double error = 0;
+			for (int i = 0; i < yStart.length; i++) {
+				double scale = absoluteTolerance + relativeTolerance*Math.max(Math.abs(yStart[i]), Math.abs(yEnd[i]));
+				double componentError = h*(E1*k1[i] + E3*k3[i] + E4*k4[i] + E5*k5[i] + E6*k6[i] + E7*k7[i])/scale;
+				error += componentError*componentError;
+			}
+			error = Math.sqrt(error/yStart.length);
+			
+			// An error estimate that is not finite is rejected with the largest reduction in step size
+			double factor = (error == 0) ? MAX_FACTOR : Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, SAFETY*Math.pow(error, -0.2)));
+			if (Double.isNaN(factor))
+				factor = MIN_FACTOR;
+			
+			if (error <= 1.0) {
+				calculateDenseOutput();
+				
+				tEnd = tStart + h;
+				hasStep = true;
+				h *= factor;
+				
+				return;
+			}
+			
+			h *= factor;
+		}
+	}
+	
+	/**
+	 * Calculates the coefficients of the continuous extension of the step just accepted
+	 */
+	private void calculateDenseOutput() {
+		for (int i = 0; i < yStart.length; i++) {
+			double yDiff = yEnd[i] - yStart[i];
+			double bSpline = h*k1[i] - yDiff;
+			
+			rcont1[i] = yStart[i];
+			rcont2[i] = yDiff;
+			rcont3[i] = bSpline;
+			rcont4[i] = yDiff - h*k7[i] - bSpline;
+			rcont5[i] = h*(D1*k1[i] + D3*k3[i] + D4*k4[i] + D5*k5[i] + D6*k6[i] + D7*k7[i]);
+		}
+	}
+	
+	/**
+	 * Interpolates states within the current step
+	 * 
+	 * @param theta fraction of the current step (0-1)
+	 * @param yOut array to write interpolated states to
+	 */
+	private void interpolate(double theta, double[] yOut) {
+		double theta1 = 1 - theta;
+		
+		for (int i = 0; i < yOut.length; i++)
+			yOut[i] = rcont1[i] + theta*(rcont2[i] + theta1*(rcont3[i] + theta*(rcont4[i] + theta1*rcont5[i])));
+	}
+	
+	/**
+	 * Writes the step in progress, whose dense output covers the requested times until the next step is taken, along with the 
+	 * derivatives at its end which start the next step
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		
+		buffer.put((byte) (hasStep ? 1 : 0));
+		buffer.putDouble(tStart).putDouble(tEnd).putDouble(h);
+		buffer.putInt((yStart != null) ? yStart.length : -1);
+		
+		if (yStart != null) {
+			for (double[] array : new double[][] {yStart, yEnd, k1, k7, rcont1, rcont2, rcont3, rcont4, rcont5})
+				Snapshottable.writeArray(buffer, array);
+		}
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		
+		boolean stepped = buffer.get() != 0;
+		tStart = buffer.getDouble();
+		tEnd = buffer.getDouble();
+		h = buffer.getDouble();
+		
+		int dimension = buffer.getInt();
+		if (dimension < 0) {
+			yStart = null;
+		} else {
+			if (yStart == null || yStart.length != dimension)
+				allocate(dimension);
+			
+			for (double[] array : new double[][] {yStart, yEnd, k1, k7, rcont1, rcont2, rcont3, rcont4, rcont5})
+				Snapshottable.readArray(buffer, array);
+		}
+		
+		// Set after allocation, which clears the flag
+		hasStep = stepped;
+	}
+	
+	private void allocate(int dimension) {
+		yStart = new double[dimension];
+		yEnd   = new double[dimension];
+		yTemp  = new double[dimension];
+		k1 	   = new double[dimension];
+		k2 	   = new double[dimension];
+		k3 	   = new double[dimension];
+		k4 	   = new double[dimension];
+		k5 	   = new double[dimension];
+		k6 	   = new double[dimension];
+		k7 	   = new double[dimension];
+		rcont1 = new double[dimension];
+		rcont2 = new double[dimension];
+		rcont3 = new double[dimension];
+		rcont4 = new double[dimension];
+		rcont5 = new double[dimension];
+		
+		hasStep = false;
+	}
+}
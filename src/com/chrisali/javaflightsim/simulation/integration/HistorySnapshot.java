@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable copy of the frames held by a {@link SimOutHistory} at a single point in time, stored as one primitive array per 
+ * {@link SimOuts} channel. As a List, each call to {@link HistorySnapshot#get(int)} creates a new {@link SimOutFrame}; readers of 
+ * many values should prefer the primitive {@link HistorySnapshot#get(int, SimOuts)} and {@link HistorySnapshot#getColumn(SimOuts)} 
+ * accessors
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class HistorySnapshot extends AbstractList<SimOutFrame> implements RandomAccess {
+	
+	private final long firstSequence;
+	private final int size;
+	private final double[][] columns;
+	
+	/**
+	 * @param firstSequence sequence number of the first frame in the snapshot
+	 * @param size number of frames in the snapshot
+	 * @param columns array of values for each {@link SimOuts} channel, indexed by ordinal, each holding at least size values
+	 */
+	HistorySnapshot(long firstSequence, int size, double[][] columns) {
+		this.firstSequence = firstSequence;
+		this.size = size;
+		this.columns = columns;
+	}
+	
+	/**
+	 * Creates a snapshot from columns copied from a history beginning at sequence number first, of which the frames before copiedFrom
+	 * were evicted from the history before they could be copied, and are dropped from the snapshot
+	 * 
+	 * @param first sequence number of the frame copied into the start of columns
+	 * @param copiedFrom sequence number of the oldest frame that was copied
+	 * @param size number of frames in columns
+	 * @param columns array of values for each {@link SimOuts} channel, indexed by ordinal
+	 * @return snapshot of the frames copied
+	 */
+	static HistorySnapshot trimmed(long first, long copiedFrom, int size, double[][] columns) {
+		if (copiedFrom > first) {
+			int dropped = (int) (copiedFrom - first);
+			size -= dropped;
+			
+			for (int channel = 0; channel < columns.length; channel++) {
+				double[] column = new double[size];
+				System.arraycopy(columns[channel], dropped, column, 0, size);
+				columns[channel] = column;
+			}
+		}
+		
+		return new HistorySnapshot(copiedFrom, size, columns);
+	}
+	
+	@Override
+	public SimOutFrame get(int index) {
+		checkIndex(index);
+		
+		SimOutFrame frame = new SimOutFrame();
+		for (int slot = 0; slot < SimOuts.CHANNEL_COUNT; slot++)
+			frame.set(slot, columns[slot][index]);
+		
+		return frame;
+	}
+	
+	/**
+	 * @param index
+	 * @param channel
+	 * @return value of channel in the frame at index
+	 */
+	public double get(int index, SimOuts channel) {
+		checkIndex(index);
+		
+		return columns[channel.ordinal()][index];
+	}
+	
+	/**
+	 * @param channel
+	 * @return copy of the values of channel in every frame of this snapshot
+	 */
+	public double[] getColumn(SimOuts channel) {
+		double[] column = new double[size];
+		System.arraycopy(columns[channel.ordinal()], 0, column, 0, size);
+		
+		return column;
+	}
+	
+	/**
+	 * @param index
+	 * @return sequence number in the history of the frame at index
+	 */
+	public long getSequence(int index) {
+		checkIndex(index);
+		
+		return firstSequence + index;
+	}
+	
+	/**
+	 * @return sequence number in the history of the first frame of this snapshot
+	 */
+	public long getFirstSequence() { return firstSequence; }
+
+	@Override
+	public int size() { return size; }
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+}
@@ -19,9 +19,7 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.integration;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.EnumMap;
+import java.nio.ByteBuffer;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -29,13 +27,17 @@ import java.util.Set;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
-import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.interfaces.StateIntegrator;
+import com.chrisali.javaflightsim.interfaces.SimOutSource;
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftParameters;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataType;
@@ -44,32 +46,32 @@ import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.setup.IntegrationMethod;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
-import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class integrates all 12 6DOF (plus 2 latitude/longitude) equations numerically to obtain the aircraft's states.
- * The {@link ClassicalRungeKuttaIntegrator} is used to integrate over a period of time defined in {@link Integrate6DOFEquations#integratorConfig}.
- * The class outputs at each step using {@link Integrate6DOFEquations#logData(double)} to 
- * generate a {@link Integrate6DOFEquations#logsOut} ArrayList of {@link Integrate6DOFEquations#simOut} EnumMaps containing simulation outputs.
- * These can be obtained using the proper getters for {@link Integrate6DOFEquations#logsOut} and {@link Integrate6DOFEquations#simOut}. Options are passed into the class to
+ * The {@link StateIntegrator} selected by {@link IntegrationMethod} is used to integrate over a period of time defined in {@link Integrate6DOFEquations#integratorConfig}.
+ * The class outputs at each step using {@link Integrate6DOFEquations#logData()} to 
+ * append copies of {@link Integrate6DOFEquations#simOut} containing simulation outputs to a fixed-capacity {@link SimOutHistory}.
+ * These can be obtained using the proper getters for {@link Integrate6DOFEquations#history} and {@link Integrate6DOFEquations#simOut}. Options are passed into the class to
  * allow the user to choose between various run-time options 
  * 
  * @param  AircraftBuilder builtAircraft
  * @param  EnumSet runOptions
  *      
- * @return EnumMap simOut
- * @return ArrayList logsOut
+ * @return SimOutFrame simOut
+ * @return SimOutHistory history
  *      
  * @see FirstOrderDifferentialEquations 
- * @see ClassicalRungeKuttaIntegrator
+ * @see StateIntegrator
  * @see AircraftBuilder
  * @see Options
  */
-public class Integrate6DOFEquations implements Steppable, EnvironmentDataListener {
+public class Integrate6DOFEquations implements Steppable, SimOutSource, EnvironmentDataListener, Snapshottable {
 	//Logging
 	private static final Logger logger = LogManager.getLogger(Integrate6DOFEquations.class);
 	
@@ -80,9 +82,11 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	private double[] angularRates     		= new double[3];
 	
 	// Environment and Wind Parameters
-	private Map<EnvironmentParameters, Double> environmentParameters;
+	private Environment environment;
+	private double[] environmentParameters;
 	private double   gravity			    = Environment.getGravity();
 	private double[] windParameters   		= new double[3];	
+	private double[] windSpdNED				= new double[3];
 	private double   alphaDot 				= 0.0f;
 	private double   mach     				= 0.0f;
 	
@@ -91,6 +95,7 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	private double   terrainHeight			= 0.0f;
 	
 	// Forces and Moments
+	private AccelAndMoments accelAndMoments;
 	private double[] linearAccelerations    = new double[3];
 	private double[] totalMoments     		= new double[3];
 	
@@ -99,23 +104,42 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	private Map<FlightControl, Double> controlsMap;
 	
 	// Integrator Fields
-	private ClassicalRungeKuttaIntegrator integrator;
+	private StateIntegrator integrator;
+	private long forceEvaluations;
 	private double[] sixDOFDerivatives		= new double[14];
 	private double[] y					    = new double[14];
+	private double[] yNext				    = new double[14];
 	private double[] initialConditions      = new double[14];
 	private double[] resetInitialConditions = new double[14]; 
+	private final SixDOFEquations equations = new SixDOFEquations();
+	
+	// Scratch buffers reused by each stage of integration when evaluating derivatives
+	private double[][] dirCosMat			= new double[3][3];
+	private double[]   inertiaCoeffs		= new double[9];
+	private double[]   ned2LLA				= new double[2];
+	
+	// Inputs to the equations as of the last step, used to detect discontinuities; flight controls are read as primitives 
+	// indexed by FlightControl ordinal by the force and moment calculations
+	private static final FlightControl[] FLIGHT_CONTROLS = FlightControl.values();
+	private double[] controls				= new double[FLIGHT_CONTROLS.length];
+	private double[] lastGroundForces		= new double[3];
+	private double[] lastGroundMoments		= new double[3];
+	private double   lastTerrainHeight;
 	
 	// Time Properties (sec for calculations in this object, millisec elsewhere)
 	private double[] integratorConfig 		= new double[3];
 	private double t;
+	private long steps;
 		
 	// Aircraft Properties
 	private Aircraft aircraft;
 	private Set<Engine> engineList;
+	private Engine[] engines;
 	
-	// Output Logging
-	private List<Map<SimOuts, Double>> logsOut = Collections.synchronizedList(new ArrayList<Map<SimOuts, Double>>());
-	private Map<SimOuts, Double> simOut;
+	// Output Logging; in UNLIMITED_FLIGHT the most recent hours of frames are retained in compressed form
+	private static final double UNLIMITED_FLIGHT_HISTORY_SEC = 4 * 3600.0;
+	private SimOutHistory history;
+	private final SimOutFrame simOut  = new SimOutFrame();
 	
 	// Options
 	private EnumSet<Options> options;
@@ -128,11 +152,26 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	 * @param configuration
 	 */
 	public Integrate6DOFEquations(FlightControlsState flightControls, SimulationConfiguration configuration) {
+		this(flightControls, new SimulationContext(configuration));
+	}
+	
+	/**
+	 * Creates the {@link Integrate6DOFEquations} object with a reference to {@link FlightControlsState}, simulating the {@link Aircraft} 
+	 * and {@link Environment} owned by a {@link SimulationContext}
+	 * 
+	 * @param flightControls
+	 * @param context
+	 */
+	public Integrate6DOFEquations(FlightControlsState flightControls, SimulationContext context) {
+		SimulationConfiguration configuration = context.getConfiguration();
+		
 		this.flightControls = flightControls;
 		
 	    controlsMap 	   = flightControls.getFlightControls();
-		aircraft 		   = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		aircraft 	   	   = context.getAircraft();
+		environment		   = context.getEnvironment();
 		engineList   	   = aircraft.getEngines();
+		engines			   = engineList.toArray(new Engine[engineList.size()]);
 		options		       = configuration.getSimulationOptions();
 		
 		// Use Apache Commons Lang to convert EnumMap values into primitive double[]
@@ -148,10 +187,29 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 		
 		// Initial time
 		t = integratorConfig[0];
+		
+		// Retain the whole run, or the most recent hours of an unlimited flight
+		history = options.contains(Options.UNLIMITED_FLIGHT) ? CompressedHistory.forDuration(UNLIMITED_FLIGHT_HISTORY_SEC, integratorConfig[1]) 
+						: RingBufferHistory.forDuration(integratorConfig[2] - integratorConfig[0], integratorConfig[1]);
 				
-		// Use fourth-order Runge-Kutta numerical integration with time step of dt
-		logger.debug("Setting up Runge Kutta Integrator for 6DOF calculations...");
-		integrator = new ClassicalRungeKuttaIntegrator(integratorConfig[1]);
+		// Use numerical integration method selected in configuration with time step of dt
+		IntegrationMethod integrationMethod = configuration.getIntegrationMethod();
+		logger.debug("Setting up " + integrationMethod + " Integrator for 6DOF calculations...");
+		
+		switch (integrationMethod) {
+		case DORMAND_PRINCE_54:
+			integrator = new DormandPrinceIntegrator();
+			break;
+		case ADAMS_BASHFORTH_MOULTON:
+			integrator = new AdamsBashforthMoultonIntegrator();
+			break;
+		case RUNGE_KUTTA_4:
+		default:
+			integrator = new RungeKutta4Integrator();
+			break;
+		}
+		
+		FlightControlsState.copyToArray(controlsMap, controls);
 		
 		// Set up ground reaction integration
 		logger.debug("Initializing ground reaction model...");
@@ -164,41 +222,51 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 													 sixDOFDerivatives,
 													 integratorConfig, 
 													 aircraft, 
-													 controlsMap);
+													 controls);
 		
 		// Initialize accelerations and moments, and calculate initial data members' values
-		AccelAndMoments.init(aircraft);
+		accelAndMoments = new AccelAndMoments(aircraft);
 		
+		y = initialConditions.clone();
 		updateDataMembers();
 	}
 	
 	/**
-	 * Creates the 14 (12 6DOF + 2 lat/lon) state derivatives that {@link Integrate6DOFEquations#integrator} uses to numerically integrate. It loops through {@link Integrate6DOFEquations#sixDOFDerivatives} to
-	 * assign values to yDot[], which is used in the single step {@link Integrate6DOFEquations#integrator} in {@link Integrate6DOFEquations#run()}
+	 * Creates the 14 (12 6DOF + 2 lat/lon) state derivatives that {@link Integrate6DOFEquations#integrator} uses to numerically integrate. Environment, 
+	 * engines, aerodynamics and kinematics are re-evaluated at the state of each stage requested by the integrator, so that its intermediate stages 
+	 * contribute to the accuracy of the step. Ground reaction forces are held constant across the stages of a step
 	 * @see FirstOrderDifferentialEquations 
 	 * @see Integrate6DOFEquations
-	 * @see ClassicalRungeKuttaIntegrator
+	 * @see StateIntegrator
 	 */
 	private class SixDOFEquations implements FirstOrderDifferentialEquations {		
 		private SixDOFEquations() {}
 
 		public void computeDerivatives(double t, double[] y, double[] yDot) {
-			for (int i = 0; i < yDot.length; i++) 
-				yDot[i] = sixDOFDerivatives[i];
+			updateDataMembers(y, yDot, false);
 		}
 
 		public int getDimension() {return 14;}
 	}
 	
+	/**
+	 * Integrates once per time step dt, so runs at the base rate of the simulation
+	 */
+	@Override
+	public double getStepRateHz() {
+		return 1 / integratorConfig[1];
+	}
+	
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public int getStepPhase() {
+		return 0;
 	}
 
 	/**
 	 * Runs {@link Integrate6DOFEquations} integration process by calling 
-	 * {@link ClassicalRungeKuttaIntegrator#singleStep(FirstOrderDifferentialEquations, double, double[], double)}
-	 * method on each invocation as long as {@link Options#PAUSED} isn't enabled 
+	 * {@link StateIntegrator#integrate(FirstOrderDifferentialEquations, double, double[], double[], double, double[])}
+	 * method on each invocation as long as {@link Options#PAUSED} isn't enabled. The derivatives calculated at the end of the last 
+	 * step are passed to the integrator for reuse, unless the inputs to the equations have changed since 
 	 */
 	@Override
 	public void step() {
@@ -213,12 +281,26 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 							
 			// If paused, skip the integration and update process
 			if (!options.contains(Options.PAUSED)) {
+				// Changes in flight controls or ground reaction since the last step are discontinuities in the equations  
+				if (haveInputsChanged())
+					integrator.reset();
+				
+				// Step time as a whole number of time steps from the start time, so that round off does not accumulate, and so 
+				// that the end time of this step is bitwise equal to the start time of the next (see AbstractStateIntegrator#isContinuous)
+				double tOut = integratorConfig[0] + (steps+1)*integratorConfig[1];
+				
 				// Run a single step of integration each step of the loop
-				y = integrator.singleStep(new SixDOFEquations(),  // derivatives
-										  t, 		  			  // start time
-										  initialConditions, 	  // initial conditions
-										  t+integratorConfig[1]); // end time (t+dt)
-														
+				integrator.integrate(equations,  			  // derivatives
+									 t, 		  			  // start time
+									 initialConditions, 	  // initial conditions
+									 sixDOFDerivatives,	  	  // derivatives at start time
+									 tOut,   				  // end time (t+dt)
+									 yNext);				  // states at end time
+				
+				double[] temp = y;
+				y = yNext;
+				yNext = temp;
+				
 				// Update data members' values
 				updateDataMembers();
 				
@@ -228,8 +310,8 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 				// Update output log
 				logData();
 
-				// Increment time
-				t += integratorConfig[1];
+				steps++;
+				t = tOut;
 			}
 		} catch (Exception e) {
 			logger.error("Integration encountered an error!", e);
@@ -237,17 +319,50 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	}
 	
 	/**
-	 * Recalculates the 14 (12 6DOF + 2 lat/lon) state derivatives based on the newly calculated accelerations and moments accomplished in {@link Integrate6DOFEquations#updateDataMembers(double[], double)}.
+	 * Compares flight controls, ground reaction forces and moments, and terrain height to their values as of the last step, 
+	 * and then records their current values
+	 * 
+	 * @return if any of the inputs to the equations have changed since the last step 
+	 */
+	private boolean haveInputsChanged() {
+		boolean changed = terrainHeight != lastTerrainHeight;
+		lastTerrainHeight = terrainHeight;
+		
+		for (int i = 0; i < FLIGHT_CONTROLS.length; i++) {
+			Double control = controlsMap.get(FLIGHT_CONTROLS[i]);
+			double value = (control != null) ? control : 0.0;
+			
+			changed |= value != controls[i];
+			controls[i] = value;
+		}
+		
+		double[] groundForces  = groundReaction.getTotalGroundForces();
+		double[] groundMoments = groundReaction.getTotalGroundMoments();
+		
+		for (int i = 0; i < 3; i++) {
+			changed |= groundForces[i] != lastGroundForces[i] || groundMoments[i] != lastGroundMoments[i];
+			lastGroundForces[i]  = groundForces[i];
+			lastGroundMoments[i] = groundMoments[i];
+		}
+		
+		return changed;
+	}
+	
+	/**
+	 * Recalculates the 14 (12 6DOF + 2 lat/lon) state derivatives based on the newly calculated accelerations and moments accomplished in {@link Integrate6DOFEquations#updateDataMembers(double[], double[], boolean)}.
 	 * The equations are calculated with the help of methods in {@link SixDOFUtilities} to convert coordinate frames and calculate inertia parameters
 	 * @see Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
+	 * 
+	 * @param y states to evaluate derivatives at
+	 * @param sixDOFDerivatives array to write derivatives to
 	 */
-	private void updateDerivatives(double[] y) {
-		double[][] dirCosMat     = SixDOFUtilities.body2Ned(new double[]{y[6], y[7], y[8]});      // create DCM for NED equations ([column][row])
-		double[]   inertiaCoeffs = SixDOFUtilities.calculateInertiaCoeffs(aircraft.getInertiaValues());
-		double[]   ned2LLA       = SixDOFUtilities.ned2LLA(y);
-		double[]   windSpdNED    = new double[]{environmentParameters.get(EnvironmentParameters.WIND_SPEED_N),
-												environmentParameters.get(EnvironmentParameters.WIND_SPEED_E),
-												environmentParameters.get(EnvironmentParameters.WIND_SPEED_D)};
+	private void updateDerivatives(double[] y, double[] sixDOFDerivatives) {
+		SixDOFUtilities.body2Ned(eulerAngles, dirCosMat); // create DCM for NED equations ([column][row])
+		SixDOFUtilities.ned2LLA(y, ned2LLA);
+		
+		windSpdNED[0] = environmentParameters[EnvironmentParameters.WIND_SPEED_N.ordinal()];
+		windSpdNED[1] = environmentParameters[EnvironmentParameters.WIND_SPEED_E.ordinal()];
+		windSpdNED[2] = environmentParameters[EnvironmentParameters.WIND_SPEED_D.ordinal()];
 		
 		sixDOFDerivatives[0]  = (y[11]*y[1])-(y[10]*y[2])-(gravity*Math.sin(y[7]))               +linearAccelerations[0];    // u (ft/sec)
 		sixDOFDerivatives[1]  = (y[9]* y[2])-(y[11]*y[0])+(gravity*Math.sin(y[6])*Math.cos(y[7]))+linearAccelerations[1];    // v (ft/sec)
@@ -270,10 +385,29 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	}
 	
 	/**
-	 *  Runs various helper methods to update data members in {@link Integrate6DOFEquations}. It updates the 6DOF states, environment parameters, controls, engine state, and finally 
-	 *  calculates accelerations and moments to be used in {@link Integrate6DOFEquations#updateDerivatives(double[])} 
+	 *  Updates data members in {@link Integrate6DOFEquations} after a step of integration has completed, recalculating derivatives at the 
+	 *  integrated states {@link Integrate6DOFEquations#y}. Inertia coefficients are read from the aircraft's {@link AircraftParameters} and a step 
+	 *  of ground reaction integrated here (if near the ground), and are held constant for each stage of the next step of integration
 	 */
 	private void updateDataMembers() {
+		AircraftParameters parameters = aircraft.getParameters();
+		for (int i = 0; i < inertiaCoeffs.length; i++)
+			inertiaCoeffs[i] = parameters.getInertiaCoeff(i);
+		
+		updateDataMembers(y, sixDOFDerivatives, true);
+	}
+	
+	/**
+	 *  Runs various helper methods to update data members in {@link Integrate6DOFEquations}. It updates the 6DOF states, environment parameters, controls, engine state, and finally 
+	 *  calculates accelerations and moments to be used in {@link Integrate6DOFEquations#updateDerivatives(double[], double[])} 
+	 *  
+	 *  @param y states to evaluate derivatives at
+	 *  @param yDot array to write derivatives to
+	 *  @param integrateGroundReaction if a step of ground reaction should be integrated
+	 */
+	private void updateDataMembers(double[] y, double[] yDot, boolean integrateGroundReaction) {
+		forceEvaluations++;
+		
 		// Assign indices in yTemp array to 6DOF state arrays
 		for (int i=0; i<linearVelocities.length; i++) {
 			linearVelocities[i] = y[i];
@@ -289,198 +423,252 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 		angularRates     = SaturationUtilities.limitAngularRates(angularRates);
 		
 		// Update wind parameters
-		windParameters = SixDOFUtilities.calculateWindParameters(linearVelocities);
+		SixDOFUtilities.calculateWindParameters(linearVelocities, windParameters);
 		
 		// Update environment		
-		environmentParameters = Environment.getAndUpdateEnvironmentParams(NEDPosition);
+		environmentParameters = environment.getAndUpdateEnvironmentParams(NEDPosition);
 		
 		// Update all engines in engine list
-		for(Engine engine : engineList)
-			 engine.updateEngineState(controlsMap, environmentParameters, windParameters);
-		
-		// Update alphaDot
-		alphaDot = SixDOFUtilities.calculateAlphaDot(linearVelocities, sixDOFDerivatives);
+		for (int i = 0; i < engines.length; i++)
+			 engines[i].updateEngineState(controls, environmentParameters, windParameters);
 		
 		// Update mach
 		mach = SixDOFUtilities.calculateMach(windParameters, environmentParameters);
 		
 		// Integrate another step of ground reaction only if within 100 ft of ground
 		double heightAGL = NEDPosition[2] - terrainHeight;
-		if (heightAGL < 100)
+		if (integrateGroundReaction && heightAGL < 100)
 			groundReaction.integrateStep(terrainHeight);
 		
 		//System.out.println(groundReaction);
 		
+		// alphaDot is calculated from u and w dot, which themselves depend linearly on alphaDot through the aerodynamics. Derivatives are 
+		// calculated with the previous alphaDot, and again with the alphaDot implied by that result; if that alphaDot is not consistent with the 
+		// new derivatives, the consistent value is solved for from the two evaluations, and the derivatives are calculated once more
+		double previousAlphaDot = alphaDot;
+		calculateDerivatives(y, yDot, heightAGL);
+		
+		alphaDot = SixDOFUtilities.calculateAlphaDot(linearVelocities, yDot);
+		calculateDerivatives(y, yDot, heightAGL);
+		
+		double checkAlphaDot = SixDOFUtilities.calculateAlphaDot(linearVelocities, yDot);
+		if (checkAlphaDot != alphaDot && alphaDot != previousAlphaDot) {
+			double slope = (checkAlphaDot - alphaDot)/(alphaDot - previousAlphaDot);
+			
+			alphaDot = (alphaDot - slope*previousAlphaDot)/(1 - slope);
+			calculateDerivatives(y, yDot, heightAGL);
+		}
+	}
+	
+	/**
+	 * Calculates accelerations and moments with the current value of alphaDot, and then uses them to calculate derivatives 
+	 * in {@link Integrate6DOFEquations#updateDerivatives(double[], double[])} 
+	 * 
+	 * @param y states to evaluate derivatives at
+	 * @param yDot array to write derivatives to
+	 * @param heightAGL
+	 */
+	private void calculateDerivatives(double[] y, double[] yDot, double heightAGL) {
 		// Update accelerations
-		linearAccelerations = AccelAndMoments.calculateLinearAccelerations(windParameters,
+		linearAccelerations = accelAndMoments.calculateLinearAccelerations(windParameters,
 																		   angularRates,
 																		   environmentParameters,
-																		   controlsMap,
+																		   controls,
 																		   alphaDot,
-																		   engineList,
+																		   engines,
 																		   aircraft,
 																		   groundReaction,
 																		   heightAGL);
 		// Update moments
-		totalMoments = AccelAndMoments.calculateTotalMoments(windParameters,
+		totalMoments = accelAndMoments.calculateTotalMoments(windParameters,
 														 	 angularRates,
 															 environmentParameters,
-															 controlsMap,
+															 controls,
 															 alphaDot,
-															 engineList,
+															 engines,
 															 aircraft,
 															 groundReaction,
 															 heightAGL);
 				
-		// Recalculates derivatives for next step
-		updateDerivatives(y);
+		// Recalculates derivatives at these states
+		updateDerivatives(y, yDot);
 	}
 	
 	/**
-	 *  Adds simulation data to the ArrayList {@link Integrate6DOFEquations#getLogsOut()} after each successful step of integration 
+	 *  Adds simulation data to {@link Integrate6DOFEquations#getHistory()} after each successful step of integration 
 	 *  for plotting and outputs to the console, if set in {@link Integrate6DOFEquations#options}. 
-	 *  The data calculated in each step of integration is available in the EnumMap {@link Integrate6DOFEquations#getSimOut()}. All
-	 *  collections are synchronized to mitigate data access problems from threading
+	 *  The data calculated in each step of integration is written in place into the preallocated {@link SimOutFrame} {@link Integrate6DOFEquations#getSimOut()}, 
+	 *  and its values are copied into the history, which in {@link Options#UNLIMITED_FLIGHT} is a {@link CompressedHistory} that compresses 
+	 *  frames in blocks as they fill. Readers of the history do not block this thread
 	 */
-	private void logData() {
-		// Need to initialize within logData(), else plots won't display correctly
-		simOut = Collections.synchronizedMap(new EnumMap<SimOuts, Double>(SimOuts.class));
-		
+	void logData() {
 		synchronized (simOut) {
-			// Assign EnumMap with data members from integration
-			simOut.put(SimOuts.TIME, 		t);
+			// Assign frame with data members from integration
+			simOut.set(SimOuts.TIME, 		t);
 			
 			//6DOF States
-			simOut.put(SimOuts.U, 		 	linearVelocities[0]);
-			simOut.put(SimOuts.V, 		 	linearVelocities[1]);
-			simOut.put(SimOuts.W, 		 	linearVelocities[2]);
-			simOut.put(SimOuts.NORTH, 	 	NEDPosition[0]);
-			simOut.put(SimOuts.EAST, 		NEDPosition[1]);
-			simOut.put(SimOuts.ALT, 		NEDPosition[2]);
-			simOut.put(SimOuts.PHI, 		eulerAngles[0]);
-			simOut.put(SimOuts.THETA, 	 	eulerAngles[1]);
-			simOut.put(SimOuts.PSI, 		eulerAngles[2]);
-			simOut.put(SimOuts.P, 		 	angularRates[0]);
-			simOut.put(SimOuts.Q, 		 	angularRates[1]);
-			simOut.put(SimOuts.R, 		 	angularRates[2]);
+			simOut.set(SimOuts.U, 		 	linearVelocities[0]);
+			simOut.set(SimOuts.V, 		 	linearVelocities[1]);
+			simOut.set(SimOuts.W, 		 	linearVelocities[2]);
+			simOut.set(SimOuts.NORTH, 	 	NEDPosition[0]);
+			simOut.set(SimOuts.EAST, 		NEDPosition[1]);
+			simOut.set(SimOuts.ALT, 		NEDPosition[2]);
+			simOut.set(SimOuts.PHI, 		eulerAngles[0]);
+			simOut.set(SimOuts.THETA, 	 	eulerAngles[1]);
+			simOut.set(SimOuts.PSI, 		eulerAngles[2]);
+			simOut.set(SimOuts.P, 		 	angularRates[0]);
+			simOut.set(SimOuts.Q, 		 	angularRates[1]);
+			simOut.set(SimOuts.R, 		 	angularRates[2]);
 			
 			// Earth Position/Velocity
-			simOut.put(SimOuts.LAT, 		y[12]);
-			simOut.put(SimOuts.LAT_DOT, 	sixDOFDerivatives[12]);
-			simOut.put(SimOuts.LON, 		y[13]);
-			simOut.put(SimOuts.LON_DOT,		sixDOFDerivatives[13]);
+			simOut.set(SimOuts.LAT, 		y[12]);
+			simOut.set(SimOuts.LAT_DOT, 	sixDOFDerivatives[12]);
+			simOut.set(SimOuts.LON, 		y[13]);
+			simOut.set(SimOuts.LON_DOT,		sixDOFDerivatives[13]);
 			
 			// Wind Parameters
-			simOut.put(SimOuts.TAS, 		windParameters[0]);
-			simOut.put(SimOuts.BETA, 		windParameters[1]);
-			simOut.put(SimOuts.ALPHA, 	 	windParameters[2]*-1);
+			simOut.set(SimOuts.TAS, 		windParameters[0]);
+			simOut.set(SimOuts.BETA, 		windParameters[1]);
+			simOut.set(SimOuts.ALPHA, 	 	windParameters[2]*-1);
 			
-			simOut.put(SimOuts.ALPHA_DOT,   alphaDot);
-			simOut.put(SimOuts.MACH, 		mach);
+			simOut.set(SimOuts.ALPHA_DOT,   alphaDot);
+			simOut.set(SimOuts.MACH, 		mach);
 			
 			// Accelerations
-			simOut.put(SimOuts.A_X, 		linearAccelerations[0]);
-			simOut.put(SimOuts.A_Y, 		linearAccelerations[1]);
-			simOut.put(SimOuts.A_Z, 		linearAccelerations[2]);
+			simOut.set(SimOuts.A_X, 		linearAccelerations[0]);
+			simOut.set(SimOuts.A_Y, 		linearAccelerations[1]);
+			simOut.set(SimOuts.A_Z, 		linearAccelerations[2]);
 			
-			simOut.put(SimOuts.AN_X, 	   (sixDOFDerivatives[0]/gravity));
-			simOut.put(SimOuts.AN_Y, 	   (sixDOFDerivatives[1]/gravity));
-			simOut.put(SimOuts.AN_Z, 	  ((sixDOFDerivatives[2]/gravity)+1.0));
+			simOut.set(SimOuts.AN_X, 	   (sixDOFDerivatives[0]/gravity));
+			simOut.set(SimOuts.AN_Y, 	   (sixDOFDerivatives[1]/gravity));
+			simOut.set(SimOuts.AN_Z, 	  ((sixDOFDerivatives[2]/gravity)+1.0));
 			
 			// Moments
-			simOut.put(SimOuts.L, 		 	totalMoments[0]);
-			simOut.put(SimOuts.M, 		 	totalMoments[1]);
-			simOut.put(SimOuts.N, 		 	totalMoments[2]);
+			simOut.set(SimOuts.L, 		 	totalMoments[0]);
+			simOut.set(SimOuts.M, 		 	totalMoments[1]);
+			simOut.set(SimOuts.N, 		 	totalMoments[2]);
 			
 			// 6DOF Derivatives
-			simOut.put(SimOuts.U_DOT, 	    sixDOFDerivatives[0]);
-			simOut.put(SimOuts.V_DOT, 	    sixDOFDerivatives[1]);
-			simOut.put(SimOuts.W_DOT, 	    sixDOFDerivatives[2]);
-			simOut.put(SimOuts.NORTH_DOT,   sixDOFDerivatives[3]);
-			simOut.put(SimOuts.EAST_DOT, 	sixDOFDerivatives[4]);
-			simOut.put(SimOuts.ALT_DOT,    (sixDOFDerivatives[5]*60));
-			simOut.put(SimOuts.PHI_DOT, 	sixDOFDerivatives[6]);
-			simOut.put(SimOuts.THETA_DOT,   sixDOFDerivatives[7]);
-			simOut.put(SimOuts.PSI_DOT, 	sixDOFDerivatives[8]);
-			simOut.put(SimOuts.P_DOT, 	 	sixDOFDerivatives[9]);
-			simOut.put(SimOuts.Q_DOT, 	 	sixDOFDerivatives[10]);
-			simOut.put(SimOuts.R_DOT, 	 	sixDOFDerivatives[11]);
-	
-			// Engine(s)
-			simOut.put(SimOuts.THRUST_1, 	0.0);
-			simOut.put(SimOuts.RPM_1, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_1, 0.0);
-			simOut.put(SimOuts.THRUST_2, 	0.0);
-			simOut.put(SimOuts.RPM_2, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_2, 0.0);
-			simOut.put(SimOuts.THRUST_3, 	0.0);
-			simOut.put(SimOuts.RPM_3, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_3, 0.0);
-			simOut.put(SimOuts.THRUST_4, 	0.0);
-			simOut.put(SimOuts.RPM_4, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_4, 0.0);
-	
-			for (Engine engine : engineList) {
+			simOut.set(SimOuts.U_DOT, 	    sixDOFDerivatives[0]);
+			simOut.set(SimOuts.V_DOT, 	    sixDOFDerivatives[1]);
+			simOut.set(SimOuts.W_DOT, 	    sixDOFDerivatives[2]);
+			simOut.set(SimOuts.NORTH_DOT,   sixDOFDerivatives[3]);
+			simOut.set(SimOuts.EAST_DOT, 	sixDOFDerivatives[4]);
+			simOut.set(SimOuts.ALT_DOT,    (sixDOFDerivatives[5]*60));
+			simOut.set(SimOuts.PHI_DOT, 	sixDOFDerivatives[6]);
+			simOut.set(SimOuts.THETA_DOT,   sixDOFDerivatives[7]);
+			simOut.set(SimOuts.PSI_DOT, 	sixDOFDerivatives[8]);
+			simOut.set(SimOuts.P_DOT, 	 	sixDOFDerivatives[9]);
+			simOut.set(SimOuts.Q_DOT, 	 	sixDOFDerivatives[10]);
+			simOut.set(SimOuts.R_DOT, 	 	sixDOFDerivatives[11]);
+	
+			// Engine(s); channels of engines not present in the aircraft are zeroed
+			simOut.set(SimOuts.THRUST_1, 	0.0);
+			simOut.set(SimOuts.RPM_1, 	 	0.0);
+			simOut.set(SimOuts.FUEL_FLOW_1, 0.0);
+			simOut.set(SimOuts.THRUST_2, 	0.0);
+			simOut.set(SimOuts.RPM_2, 	 	0.0);
+			simOut.set(SimOuts.FUEL_FLOW_2, 0.0);
+			simOut.set(SimOuts.THRUST_3, 	0.0);
+			simOut.set(SimOuts.RPM_3, 	 	0.0);
+			simOut.set(SimOuts.FUEL_FLOW_3, 0.0);
+			simOut.set(SimOuts.THRUST_4, 	0.0);
+			simOut.set(SimOuts.RPM_4, 	 	0.0);
+			simOut.set(SimOuts.FUEL_FLOW_4, 0.0);
+	
+			// Indexed loop over an array avoids allocating an iterator each step
+			for (int i = 0; i < engines.length; i++) {
+				Engine engine = engines[i];
 				int engineNumber = engine.getEngineNumber();
 				
-				simOut.put(Enum.valueOf(SimOuts.class, "THRUST_" + engineNumber), 	 engine.getEngineThrust()[0]);
-				simOut.put(Enum.valueOf(SimOuts.class, "RPM_" + engineNumber), 	 	 engine.getRPM());
-				simOut.put(Enum.valueOf(SimOuts.class, "FUEL_FLOW_" + engineNumber), engine.getFuelFlow());
+				simOut.set(SimOuts.thrust(engineNumber),   engine.getEngineThrust()[0]);
+				simOut.set(SimOuts.rpm(engineNumber), 	   engine.getRPM());
+				simOut.set(SimOuts.fuelFlow(engineNumber), engine.getFuelFlow());
 			}
 			
 			// Controls
-			simOut.put(SimOuts.ELEVATOR,    controlsMap.get(FlightControl.ELEVATOR));
-			simOut.put(SimOuts.AILERON, 	controlsMap.get(FlightControl.AILERON));
-			simOut.put(SimOuts.RUDDER, 	 	controlsMap.get(FlightControl.RUDDER));
-			simOut.put(SimOuts.THROTTLE_1, 	controlsMap.get(FlightControl.THROTTLE_1));
-			simOut.put(SimOuts.THROTTLE_2, 	controlsMap.get(FlightControl.THROTTLE_2));
-			simOut.put(SimOuts.THROTTLE_3, 	controlsMap.get(FlightControl.THROTTLE_3));
-			simOut.put(SimOuts.THROTTLE_4, 	controlsMap.get(FlightControl.THROTTLE_4));
-			simOut.put(SimOuts.PROPELLER_1, controlsMap.get(FlightControl.PROPELLER_1));
-			simOut.put(SimOuts.PROPELLER_2, controlsMap.get(FlightControl.PROPELLER_2));
-			simOut.put(SimOuts.PROPELLER_3, controlsMap.get(FlightControl.PROPELLER_3));
-			simOut.put(SimOuts.PROPELLER_4, controlsMap.get(FlightControl.PROPELLER_4));
-			simOut.put(SimOuts.MIXTURE_1, 	controlsMap.get(FlightControl.MIXTURE_1));
-			simOut.put(SimOuts.MIXTURE_2, 	controlsMap.get(FlightControl.MIXTURE_2));
-			simOut.put(SimOuts.MIXTURE_3, 	controlsMap.get(FlightControl.MIXTURE_3));
-			simOut.put(SimOuts.MIXTURE_4, 	controlsMap.get(FlightControl.MIXTURE_4));
-			simOut.put(SimOuts.FLAPS, 	 	controlsMap.get(FlightControl.FLAPS));
-			simOut.put(SimOuts.GEAR, 	 	controlsMap.get(FlightControl.GEAR));
+			simOut.set(SimOuts.ELEVATOR,    controls[FlightControl.ELEVATOR.ordinal()]);
+			simOut.set(SimOuts.AILERON, 	controls[FlightControl.AILERON.ordinal()]);
+			simOut.set(SimOuts.RUDDER, 	 	controls[FlightControl.RUDDER.ordinal()]);
+			simOut.set(SimOuts.THROTTLE_1, 	controls[FlightControl.THROTTLE_1.ordinal()]);
+			simOut.set(SimOuts.THROTTLE_2, 	controls[FlightControl.THROTTLE_2.ordinal()]);
+			simOut.set(SimOuts.THROTTLE_3, 	controls[FlightControl.THROTTLE_3.ordinal()]);
+			simOut.set(SimOuts.THROTTLE_4, 	controls[FlightControl.THROTTLE_4.ordinal()]);
+			simOut.set(SimOuts.PROPELLER_1, controls[FlightControl.PROPELLER_1.ordinal()]);
+			simOut.set(SimOuts.PROPELLER_2, controls[FlightControl.PROPELLER_2.ordinal()]);
+			simOut.set(SimOuts.PROPELLER_3, controls[FlightControl.PROPELLER_3.ordinal()]);
+			simOut.set(SimOuts.PROPELLER_4, controls[FlightControl.PROPELLER_4.ordinal()]);
+			simOut.set(SimOuts.MIXTURE_1, 	controls[FlightControl.MIXTURE_1.ordinal()]);
+			simOut.set(SimOuts.MIXTURE_2, 	controls[FlightControl.MIXTURE_2.ordinal()]);
+			simOut.set(SimOuts.MIXTURE_3, 	controls[FlightControl.MIXTURE_3.ordinal()]);
+			simOut.set(SimOuts.MIXTURE_4, 	controls[FlightControl.MIXTURE_4.ordinal()]);
+			simOut.set(SimOuts.FLAPS, 	 	controls[FlightControl.FLAPS.ordinal()]);
+			simOut.set(SimOuts.GEAR, 	 	controls[FlightControl.GEAR.ordinal()]);
 		}
 		
-		synchronized (logsOut) {
-			// Removes the first entry in logsOut to keep a maximum of 100 sec of flight data in UNLIMITED_FLIGHT
-			if (options.contains(Options.UNLIMITED_FLIGHT) & t >= 100 & logsOut.size() > 0)
-				logsOut.remove(0);
-				
-			// Add output step to logging arrayList
-			logsOut.add(simOut);	
-		}
+		// Add output step to history, evicting the oldest step once full; simOut is only written by this thread 
+		history.append(simOut);
 	}
 	
 	//================================= Simulation Logging =====================================================
 	
 	/**
-	 * Returns an ArrayList of {@link Integrate6DOFEquations#getSimOut()} objects; acts as a logging method, which can be used to plot simulation data
-	 * or output it to a file
+	 * Returns a consistent snapshot of the copies of {@link Integrate6DOFEquations#getSimOut()} held in the simulation's history; acts as a 
+	 * logging method, which can be used to plot simulation data or output it to a file. The snapshot does not change as new data is logged
 	 * 
-	 * @return logsOut
+	 * @return snapshot of history
+	 */
+	public List<SimOutFrame> getLogsOut() { return history.snapshot(); }
+	
+	/**
+	 * @return history of simulation outputs, which can be read by sequence number while the simulation runs
 	 */
-	public synchronized List<Map<SimOuts, Double>> getLogsOut() { return Collections.unmodifiableList(logsOut); }
+	@Override
+	public SimOutHistory getHistory() { return history; }
 	
 	/**
-	 * Clears logsOut list of past data in preparation for recording a new maneuver 
+	 * Clears history of past data in preparation for recording a new maneuver 
 	 * 
-	 * @return If logsOut list was successfully deleted
+	 * @return If history was successfully cleared
 	 */
-	public synchronized boolean clearLogsOut() { return logsOut.removeAll(logsOut); }
+	public boolean clearLogsOut() { 
+		history.clear();
+		return true;
+	}
 	
 	/**
-	 * Returns an EnumMap of data for a single step of integration accomplished in {@link Integrate6DOFEquations#accelAndMoments#logData(double)}	
+	 * Returns the frame of data for the latest step of integration accomplished in {@link Integrate6DOFEquations#logData()}. The frame is 
+	 * overwritten in place each step, so consumers outside of the simulation thread should copy it with {@link SimOutFrame#SimOutFrame(SimOutFrame)}	
 	 * 
 	 * @return simOut
 	 */
-	public synchronized Map<SimOuts, Double> getSimOut() { return Collections.unmodifiableMap(simOut); }
+	@Override
+	public SimOutFrame getSimOut() { return simOut; }
+	
+	//===================================== Integration =========================================================
+	
+	/**
+	 * @return number of times forces and moments have been evaluated to calculate derivatives, including the evaluation
+	 * at the end of each step used for outputs  
+	 */
+	public long getForceEvaluations() { return forceEvaluations; }
+	
+	/**
+	 * Calculates the 14 (12 6DOF + 2 lat/lon) state derivatives at states y with controls in the same way as each stage of integration, 
+	 * without stepping the simulation, integrating ground reaction or logging outputs. alphaDot is solved for from zero on each call, so 
+	 * that the derivatives do not depend on previous calls. The data members calculated from the states are overwritten, so this should 
+	 * not be called while the simulation is running
+	 * 
+	 * @param y states to evaluate derivatives at
+	 * @param controls flight controls indexed by {@link FlightControl} ordinal
+	 * @param yDot array to write derivatives to
+	 */
+	public void calculateDerivatives(double[] y, double[] controls, double[] yDot) {
+		System.arraycopy(controls, 0, this.controls, 0, this.controls.length);
+		alphaDot = 0.0;
+		
+		updateDataMembers(y, yDot, false);
+	}
 	
 	//========================================= Time ============================================================
 	
@@ -489,6 +677,95 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	 */
 	public double getTime() { return t; }
 	
+	//===================================== Snapshots ===========================================================
+	
+	/**
+	 * Writes the complete dynamic state of the simulation: the 6DOF states and their derivatives, the data members calculated from 
+	 * them, the inputs to the equations as of the last step, the environment, each engine and the ground reaction model, the internal 
+	 * state of the integrator, and the latest frame of outputs. The history of outputs is not part of the state
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.putDouble(t).putLong(steps).putLong(forceEvaluations);
+		buffer.putDouble(alphaDot).putDouble(mach).putDouble(terrainHeight).putDouble(lastTerrainHeight);
+		
+		// Until the first step, or after a reset, integration starts from the initial conditions rather than the current states
+		buffer.put((byte) (initialConditions == resetInitialConditions ? 1 : 0));
+		
+		for (double[] array : new double[][] {y, sixDOFDerivatives, linearVelocities, NEDPosition, eulerAngles, angularRates, windParameters,
+											  linearAccelerations, totalMoments, inertiaCoeffs, controls, lastGroundForces, lastGroundMoments})
+			Snapshottable.writeArray(buffer, array);
+		
+		environment.writeState(buffer);
+		
+		buffer.putInt(engines.length);
+		for (int i = 0; i < engines.length; i++) {
+			buffer.putInt(engines[i].getEngineNumber());
+			engines[i].writeState(buffer);
+		}
+		
+		groundReaction.writeState(buffer);
+		integrator.writeState(buffer);
+		
+		synchronized (simOut) {
+			for (int i = 0; i < SimOuts.CHANNEL_COUNT; i++)
+				buffer.putDouble(simOut.get(i));
+		}
+	}
+	
+	/**
+	 * Reads back the complete dynamic state of the simulation, written by a simulation of the same aircraft and integration method. 
+	 * The next step continues exactly as the simulation that wrote the state did
+	 */
+	@Override
+	public void readState(ByteBuffer buffer) {
+		t = buffer.getDouble();
+		steps = buffer.getLong();
+		forceEvaluations = buffer.getLong();
+		alphaDot = buffer.getDouble();
+		mach = buffer.getDouble();
+		terrainHeight = buffer.getDouble();
+		lastTerrainHeight = buffer.getDouble();
+		
+		boolean fromInitialConditions = buffer.get() != 0;
+		
+		// Read in place, as the ground reaction model and force calculations hold references to these arrays
+		for (double[] array : new double[][] {y, sixDOFDerivatives, linearVelocities, NEDPosition, eulerAngles, angularRates, windParameters,
+											  linearAccelerations, totalMoments, inertiaCoeffs, controls, lastGroundForces, lastGroundMoments})
+			Snapshottable.readArray(buffer, array);
+		
+		initialConditions = fromInitialConditions ? resetInitialConditions : y;
+		
+		environment.readState(buffer);
+		
+		int engineCount = buffer.getInt();
+		if (engineCount != engines.length)
+			throw new IllegalStateException("State has " + engineCount + " engines, but the aircraft has " + engines.length + "!");
+		
+		// Engines are held in a set, so they are matched by number rather than order
+		for (int i = 0; i < engineCount; i++) {
+			int engineNumber = buffer.getInt();
+			findEngine(engineNumber).readState(buffer);
+		}
+		
+		groundReaction.readState(buffer);
+		integrator.readState(buffer);
+		
+		synchronized (simOut) {
+			for (int i = 0; i < SimOuts.CHANNEL_COUNT; i++)
+				simOut.set(i, buffer.getDouble());
+		}
+	}
+	
+	private Engine findEngine(int engineNumber) {
+		for (Engine engine : engines) {
+			if (engine.getEngineNumber() == engineNumber)
+				return engine;
+		}
+		
+		throw new IllegalStateException("State has engine " + engineNumber + ", which the aircraft does not have!");
+	}
+	
 	//==================================== Environment ==========================================================
 	
 	/**
@@ -499,10 +776,10 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	 * @param temperature
 	 */
 	public void setWeather(double windSpeed, double windDir, double temperature) {
-		Environment.setWindDir(windDir);
-		Environment.setWindSpeed(windSpeed);
+		environment.setWindDir(windDir);
+		environment.setWindSpeed(windSpeed);
 		// Subtract standard temperature from argument to get deviation from standard, then convert C deg to F deg 
-		Environment.setDeltaIsa((temperature-15)*9/5);
+		environment.setDeltaIsa((temperature-15)*9/5);
 	}
 	
 	@Override
@@ -19,18 +19,16 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.integration;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
-import java.util.Map;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
-import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
-import com.chrisali.javaflightsim.simulation.aircraft.GroundReaction;
-import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
@@ -38,7 +36,7 @@ import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
  * This class contains calculations needed to model the force and moment reactions between the aircraft
  * and its landing gear. It uses a spring-mass-damper system which is modeled as three second order 
  * differential equations integrated simultaneously, converted to first order equations by use of 
- * state-space methods so that {@link ClassicalRungeKuttaIntegrator} can be used. The integration runs
+ * state-space methods so that {@link RungeKutta4Integrator} can be used. The integration runs
  * as single steps inside of {@link Integrate6DOFEquations} own integration, and the calculated forces 
  * and moments are fed back into the 6DOF integrator to calculate the total accelerations and moments for
  * the aircraft. 
@@ -48,7 +46,7 @@ import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
  * @author Christopher Ali
  *
  */
-public class IntegrateGroundReaction {
+public class IntegrateGroundReaction implements Snapshottable {
 	//Logging
 	private static final Logger logger = LogManager.getLogger(IntegrateGroundReaction.class);
 	
@@ -56,10 +54,16 @@ public class IntegrateGroundReaction {
 	private static final double TIRE_STATIC_FRICTION  = 0.5;
 	private static final double TIRE_ROLLING_FRICTION = 0.06;
 	
+	// Indices of flight controls in the primitive controls array
+	private static final int RUDDER  = FlightControl.RUDDER.ordinal();
+	private static final int BRAKE_L = FlightControl.BRAKE_L.ordinal();
+	private static final int BRAKE_R = FlightControl.BRAKE_R.ordinal();
+	
 	// Aircraft Properties
 	private double mass;
-	private Map<FlightControl, Double> controls;
-	private Map<GroundReaction, Double> groundReaction;
+	private double[] controls;
+	private Aircraft aircraft;
+	private AircraftParameters parameters;
 	private boolean weightOnWheels = false;
 	
 	// Positions
@@ -77,7 +81,8 @@ public class IntegrateGroundReaction {
 	private double[] totalGroundMoments		   = new double[3]; //{Fx, Fy, Fz} [lbf]
 	
 	// Integrator Fields
-	private ClassicalRungeKuttaIntegrator integrator;
+	private final RungeKutta4Integrator integrator = new RungeKutta4Integrator();
+	private final GroundReactionEquations equations = new GroundReactionEquations();
 	private double   t;
 	private double[] integratorConfig		   = new double[3];
 	private double[] groundReactionDerivatives = new double[6];
@@ -105,7 +110,7 @@ public class IntegrateGroundReaction {
 	 * @param sixDOFDerivatives
 	 * @param integratorConfig
 	 * @param aircraft
-	 * @param controls
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
 	 */
 	public IntegrateGroundReaction(double[] linearVelocities,
 								   double[] NEDPosition,
@@ -115,7 +120,7 @@ public class IntegrateGroundReaction {
 								   double[] sixDOFDerivatives,
 								   double[] integratorConfig,
 								   Aircraft aircraft,
-								   Map<FlightControl, Double> controls) {
+								   double[] controls) {
 		
 		this.NEDPosition = NEDPosition;
 		this.linearVelocities = linearVelocities;
@@ -126,8 +131,9 @@ public class IntegrateGroundReaction {
 		this.sixDOFDerivatives = sixDOFDerivatives;
 		
 		this.controls = controls;
-		this.groundReaction = aircraft.getGroundReaction();
-		this.mass = aircraft.getMassProps().get(MassProperties.TOTAL_MASS);
+		this.aircraft = aircraft;
+		this.parameters = aircraft.getParameters();
+		this.mass = parameters.getTotalMass();
 		
 		this.integratorConfig = integratorConfig;
 		
@@ -137,9 +143,8 @@ public class IntegrateGroundReaction {
 			y0[2*i+1] = 0.0;
 		}
 		
-		logger.debug("Setting up Runge Kutta Integrator for 6DOF calculations...");
+		logger.debug("Setting up Runge Kutta Integrator for ground reaction calculations...");
 		
-		integrator = new ClassicalRungeKuttaIntegrator(integratorConfig[2]);
 		t = integratorConfig[0];
 		
 		updateDerivatives(y);
@@ -201,20 +206,20 @@ public class IntegrateGroundReaction {
 		
 		// Nose
 		groundReactionDerivatives[0] = y[1];
-		groundReactionDerivatives[1] =  (- groundReaction.get(GroundReaction.NOSE_DAMPING)/mass * y[1]) 
-									 	- (groundReaction.get(GroundReaction.NOSE_SPRING)/mass * y[0])
+		groundReactionDerivatives[1] =  (- parameters.getGearDamping(AircraftParameters.NOSE_GEAR)/mass * y[1]) 
+									 	- (parameters.getGearSpring(AircraftParameters.NOSE_GEAR)/mass * y[0])
 									 	+ noseGroundForces[2]/mass;
 		
 		// Left Main
 		groundReactionDerivatives[2] = y[3];
-		groundReactionDerivatives[3] =  (- groundReaction.get(GroundReaction.LEFT_DAMPING)/mass * y[3]) 
-									 	- (groundReaction.get(GroundReaction.LEFT_SPRING)/mass * y[2])
+		groundReactionDerivatives[3] =  (- parameters.getGearDamping(AircraftParameters.LEFT_GEAR)/mass * y[3]) 
+									 	- (parameters.getGearSpring(AircraftParameters.LEFT_GEAR)/mass * y[2])
 									 	+ leftGroundForces[2]/mass;
 		
 		// Right Main
 		groundReactionDerivatives[4] = y[5];
-		groundReactionDerivatives[5] =  (- groundReaction.get(GroundReaction.RIGHT_DAMPING)/mass * y[5]) 
-									 	- (groundReaction.get(GroundReaction.RIGHT_SPRING)/mass * y[4])
+		groundReactionDerivatives[5] =  (- parameters.getGearDamping(AircraftParameters.RIGHT_GEAR)/mass * y[5]) 
+									 	- (parameters.getGearSpring(AircraftParameters.RIGHT_GEAR)/mass * y[4])
 									 	+ rightGroundForces[2]/mass;
 	}
 	
@@ -224,42 +229,24 @@ public class IntegrateGroundReaction {
 	 */
 	private void calculateTirePositionsAndVelocities() {
 		double[][] dirCosMat = SixDOFUtilities.body2Ned(eulerAngles);
-		double[] gearRelativeCG; // Position of {nose, left, right} gear relative to CG position
 		
 		// i=0 (nose), i=1 (left main), i=2 (right main)
 		for (int i = 0; i < 3; i++) {
-			// Assign body gear positions depending on stage of loop
-			switch(i) {
-			case 0:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.NOSE_X),
-											  groundReaction.get(GroundReaction.NOSE_Y),
-											  groundReaction.get(GroundReaction.NOSE_Z)};
-				break;
-			case 1:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.LEFT_X),
-											  groundReaction.get(GroundReaction.LEFT_Y),
-											  groundReaction.get(GroundReaction.LEFT_Z)};
-				break;
-			case 2:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.RIGHT_X),
-											  groundReaction.get(GroundReaction.RIGHT_Y),
-											  groundReaction.get(GroundReaction.RIGHT_Z)};
-				break;
-			default:
-				gearRelativeCG = new double[]{0, 0, 0};
-				break;
-			}
+			// Position of gear relative to CG position
+			double gearX = parameters.getGearPosition(i, 0);
+			double gearY = parameters.getGearPosition(i, 1);
+			double gearZ = parameters.getGearPosition(i, 2);
 			
 			// 3rd row of body2Ned matrix (D) plus (altitude minus terrain height) is the height of the landing gear above ground
-			tirePosition[i]  = (gearRelativeCG[0]*dirCosMat[2][0]+gearRelativeCG[1]*dirCosMat[2][1]+gearRelativeCG[2]*dirCosMat[2][2]) + (NEDPosition[2]-terrainHeight);   // eq 3.134
+			tirePosition[i]  = (gearX*dirCosMat[2][0]+gearY*dirCosMat[2][1]+gearZ*dirCosMat[2][2]) + (NEDPosition[2]-terrainHeight);   // eq 3.134
 			
-			tireVelocity[i]  = (gearRelativeCG[0] * (angularRates[1]*Math.cos(eulerAngles[1]))) + 
-							   (gearRelativeCG[1] * (angularRates[1]*Math.sin(eulerAngles[0])*Math.sin(eulerAngles[1]) - angularRates[0]*Math.cos(eulerAngles[0])*Math.cos(eulerAngles[1]))) +
-							   (gearRelativeCG[2] * (angularRates[1]*Math.sin(eulerAngles[1])*Math.cos(eulerAngles[0]) + angularRates[0]*Math.sin(eulerAngles[1])*Math.sin(eulerAngles[0]))) +
+			tireVelocity[i]  = (gearX * (angularRates[1]*Math.cos(eulerAngles[1]))) + 
+							   (gearY * (angularRates[1]*Math.sin(eulerAngles[0])*Math.sin(eulerAngles[1]) - angularRates[0]*Math.cos(eulerAngles[0])*Math.cos(eulerAngles[1]))) +
+							   (gearZ * (angularRates[1]*Math.sin(eulerAngles[1])*Math.cos(eulerAngles[0]) + angularRates[0]*Math.sin(eulerAngles[1])*Math.sin(eulerAngles[0]))) +
 							   sixDOFDerivatives[5]; // eq 3.135
 			
 			// Saturate tire positions/velocities from compressing/moving too far/fast
-			tirePosition[i] = (tirePosition[i] < -gearRelativeCG[2]) ? -gearRelativeCG[2] : tirePosition[i];
+			tirePosition[i] = (tirePosition[i] < -gearZ) ? -gearZ : tirePosition[i];
 			
 			tireVelocity[i] = (tireVelocity[i] >  30) ? tireVelocity[i] =  30 : 
 							  (tireVelocity[i] < -30) ? tireVelocity[i] = -30 : 
@@ -301,18 +288,18 @@ public class IntegrateGroundReaction {
 		// Braking
 		// Taper force off as forward velocity nears 0 
 		if (linearVelocities[0] < 2) {
-			leftGroundForces[0]  -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_L) * linearVelocities[0]/2;
-			rightGroundForces[0] -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_R) * linearVelocities[0]/2;
+			leftGroundForces[0]  -= parameters.getBrakingForce() * controls[BRAKE_L] * linearVelocities[0]/2;
+			rightGroundForces[0] -= parameters.getBrakingForce() * controls[BRAKE_R] * linearVelocities[0]/2;
 		} else {
-			leftGroundForces[0]  -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_L);
-			rightGroundForces[0] -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_R);
+			leftGroundForces[0]  -= parameters.getBrakingForce() * controls[BRAKE_L];
+			rightGroundForces[0] -= parameters.getBrakingForce() * controls[BRAKE_R];
 		}
 		
 		// Y Forces
 		// Nosewheel steering friction force based on a fraction of the rudder deflection to the maximum deflection
 		if (linearVelocities[0] > 20) {
 			noseGroundForces[1]  =   Math.abs(noseGroundForces[2]) * TIRE_ROLLING_FRICTION 
-								  * (controls.get(FlightControl.RUDDER)/FlightControl.RUDDER.getMaximum())/10;
+								  * (controls[RUDDER]/FlightControl.RUDDER.getMaximum())/10;
 									// Create side force to yaw aircraft in direction of velocity vector
 			leftGroundForces[1]  = - Math.abs(leftGroundForces[2])  * TIRE_STATIC_FRICTION * windParameters[1]; 
 			rightGroundForces[1] =   Math.abs(rightGroundForces[2]) * TIRE_STATIC_FRICTION * windParameters[1];
@@ -329,41 +316,32 @@ public class IntegrateGroundReaction {
 	 */
 	private void calculateTotalGroundMoments() {
 		double[] tempTotalGroundMoments = new double[]{0, 0, 0};
-		Vector3D forceVector;
-		Vector3D gearRelativeCGVector;
+		double[] forces;
 		
 		// i=0 (nose), i=1 (left main), i=2 (right main)
 		for (int i = 0; i < 3; i++) {
-			// Assign body gear force and arm vectors depending on stage of loop
-			// Scale down moments by scaling the arm lengths (negative sign produces realistic braking moments)
+			// Assign body gear forces depending on stage of loop
 			switch(i) {
 			case 0:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.NOSE_X),
-																 groundReaction.get(GroundReaction.NOSE_Y),
-																-groundReaction.get(GroundReaction.NOSE_Z)*0.125});
-				forceVector = new Vector3D(noseGroundForces);
+				forces = noseGroundForces;
 				break;
 			case 1:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.LEFT_X),
-																 groundReaction.get(GroundReaction.LEFT_Y)*0.25,
-																-groundReaction.get(GroundReaction.LEFT_Z)*0.125});
-				forceVector = new Vector3D(leftGroundForces);
-				break;
-			case 2:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.RIGHT_X),
-																 groundReaction.get(GroundReaction.RIGHT_Y)*0.25,
-																-groundReaction.get(GroundReaction.RIGHT_Z)*0.125});
-				forceVector = new Vector3D(rightGroundForces);
+				forces = leftGroundForces;
 				break;
 			default:
-				gearRelativeCGVector = new Vector3D(new double[]{0, 0, 0});
-				forceVector = new Vector3D(new double[]{0, 0, 0});
+				forces = rightGroundForces;
 				break;
 			}
+			
+			// Scale down moments by scaling the arm lengths (negative sign produces realistic braking moments)
+			double armX =  parameters.getGearPosition(i, 0);
+			double armY =  parameters.getGearPosition(i, 1) * ((i == AircraftParameters.NOSE_GEAR) ? 1.0 : 0.25);
+			double armZ = -parameters.getGearPosition(i, 2) * 0.125;
 		
 			// Take the cross product of force and arm vectors and add them to total moments 
-			for (int j = 0; j < tempTotalGroundMoments.length; j ++)
-				tempTotalGroundMoments[j] += Vector3D.crossProduct(forceVector, gearRelativeCGVector).toArray()[j];
+			tempTotalGroundMoments[0] += forces[1]*armZ - forces[2]*armY;
+			tempTotalGroundMoments[1] += forces[2]*armX - forces[0]*armZ;
+			tempTotalGroundMoments[2] += forces[0]*armY - forces[1]*armX;
 		}
 		
 		// Saturate ground moments if forward speed is less than 10 ft/sec
@@ -392,16 +370,21 @@ public class IntegrateGroundReaction {
 	public void integrateStep(double terrainHeight) {
 		this.terrainHeight = terrainHeight;
 		
+		parameters = aircraft.getParameters();
+		mass = parameters.getTotalMass();
+		
 		calculateTirePositionsAndVelocities();
 		
 		updateDerivatives(new double[] {tirePosition[0],tireVelocity[0],
 										tirePosition[1],tireVelocity[1],
 										tirePosition[2],tireVelocity[2]});
 		// Run a single step of integration
-		y = integrator.singleStep(new GroundReactionEquations(), // derivatives
-								  t, 		  					 // start time
-								  y0, 		  					 // initial conditions
-								  t+integratorConfig[1]);   	 // end time (t+dt)
+		integrator.integrate(equations, 			 // derivatives
+							 t, 		  			 // start time
+							 y0, 		  			 // initial conditions
+							 null,					 // derivatives at start time
+							 t+integratorConfig[1],  // end time (t+dt)
+							 y);					 // states at end time
 		
 		calculateTotalGroundForces();
 		calculateTotalGroundMoments();
@@ -424,6 +407,34 @@ public class IntegrateGroundReaction {
 	 */
 	public double[] getTotalGroundMoments() {return totalGroundMoments;}
 	
+	/**
+	 * Writes the gear states, tire positions and velocities, and the ground forces and moments they last produced
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.putDouble(t).putDouble(terrainHeight);
+		buffer.put((byte) (weightOnWheels ? 1 : 0));
+		
+		for (double[] array : new double[][] {y, groundReactionDerivatives, tirePosition, tireVelocity, noseGroundForces, 
+											  leftGroundForces, rightGroundForces, totalGroundForces, totalGroundMoments})
+			Snapshottable.writeArray(buffer, array);
+		
+		integrator.writeState(buffer);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		t = buffer.getDouble();
+		terrainHeight = buffer.getDouble();
+		weightOnWheels = buffer.get() != 0;
+		
+		for (double[] array : new double[][] {y, groundReactionDerivatives, tirePosition, tireVelocity, noseGroundForces, 
+											  leftGroundForces, rightGroundForces, totalGroundForces, totalGroundMoments})
+			Snapshottable.readArray(buffer, array);
+		
+		integrator.readState(buffer);
+	}
+	
 	@Override
 	public String toString() {
 		DecimalFormat df = new DecimalFormat("####.##");
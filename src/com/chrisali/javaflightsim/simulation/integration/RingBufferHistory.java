@@ -0,0 +1,250 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Fixed-capacity {@link SimOutHistory} that stores frames in columns, one primitive double array per {@link SimOuts} channel, 
+ * indexed by sequence number modulo capacity. Appending a frame writes over the oldest one once the history is full, so that 
+ * appends and evictions take constant time, and memory use is fixed by the capacity.
+ * 
+ * <p>The single writer brackets each append with an uncontended {@link StampedLock} write lock. Readers use optimistic reads 
+ * that never block the writer; a read that overlaps an append is retried, and only after several failed attempts does a reader 
+ * fall back to a read lock. Snapshots are copied in chunks so that each optimistic read is short</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RingBufferHistory implements SimOutHistory {
+	
+	// Number of frames copied by each optimistic read of a snapshot
+	private static final int CHUNK_FRAMES = 256;
+	
+	// Optimistic reads attempted before a reader blocks the writer with a read lock
+	private static final int OPTIMISTIC_ATTEMPTS = 3;
+	
+	private final int capacity;
+	private final double[][] columns;
+	private final StampedLock lock = new StampedLock();
+	
+	private volatile long nextSequence = 0;
+	private volatile long clearedSequence = 0;
+	
+	/**
+	 * @param capacity maximum number of frames retained
+	 */
+	public RingBufferHistory(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("History capacity must be at least one frame, not " + capacity);
+		
+		this.capacity = capacity;
+		
+		columns = new double[SimOuts.CHANNEL_COUNT][capacity];
+	}
+	
+	/**
+	 * Creates a history that retains a given duration of frames output at a fixed time step
+	 * 
+	 * @param retainedSec duration of frames retained (sec)
+	 * @param dt time between frames (sec)
+	 * @return history with capacity for retainedSec of frames
+	 */
+	public static RingBufferHistory forDuration(double retainedSec, double dt) {
+		return new RingBufferHistory((int) Math.min(Integer.MAX_VALUE - 1, Math.ceil(retainedSec / dt - 1e-9)) + 1);
+	}
+
+	@Override
+	public void append(SimOutFrame frame) {
+		long stamp = lock.writeLock();
+		
+		try {
+			long sequence = nextSequence;
+			int slot = (int) (sequence % capacity);
+			
+			for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+				columns[channel][slot] = frame.get(channel);
+			
+			nextSequence = sequence + 1;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public void clear() { clearedSequence = nextSequence; }
+
+	@Override
+	public int getCapacity() { return capacity; }
+
+	@Override
+	public long getFirstSequence() { return firstSequence(nextSequence); }
+
+	@Override
+	public long getNextSequence() { return nextSequence; }
+
+	@Override
+	public int size() {
+		long next = nextSequence;
+		return (int) (next - firstSequence(next));
+	}
+	
+	/**
+	 * @return oldest retained sequence number when next is the next sequence number to be appended
+	 */
+	private long firstSequence(long next) {
+		return Math.max(clearedSequence, next - capacity);
+	}
+
+	@Override
+	public boolean readFrame(long sequence, SimOutFrame frame) {
+		long stamp = lock.tryOptimisticRead();
+		
+		for (int attempt = 0; ; attempt++) {
+			boolean locked = attempt >= OPTIMISTIC_ATTEMPTS;
+			if (locked)
+				stamp = lock.readLock();
+			
+			try {
+				long next = nextSequence;
+				if (sequence < firstSequence(next) || sequence >= next)
+					return false;
+				
+				int slot = (int) (sequence % capacity);
+				for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+					frame.set(channel, columns[channel][slot]);
+				
+				if (locked || lock.validate(stamp))
+					return true;
+			} finally {
+				if (locked)
+					lock.unlockRead(stamp);
+			}
+			
+			stamp = lock.tryOptimisticRead();
+		}
+	}
+
+	@Override
+	public int readChannel(SimOuts channel, long fromSequence, double[] destination, int offset, int length) {
+		long stamp = lock.tryOptimisticRead();
+		
+		for (int attempt = 0; ; attempt++) {
+			boolean locked = attempt >= OPTIMISTIC_ATTEMPTS;
+			if (locked)
+				stamp = lock.readLock();
+			
+			try {
+				long next = nextSequence;
+				long start = Math.max(fromSequence, firstSequence(next));
+				int count = (int) Math.max(0, Math.min(length, next - start));
+				
+				copyColumn(channel.ordinal(), start, count, destination, offset);
+				
+				if (locked || lock.validate(stamp))
+					return count;
+			} finally {
+				if (locked)
+					lock.unlockRead(stamp);
+			}
+			
+			stamp = lock.tryOptimisticRead();
+		}
+	}
+
+	@Override
+	public HistorySnapshot snapshot() {
+		return snapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Override
+	public HistorySnapshot snapshot(long fromSequence, long toSequence) {
+		long next = Math.min(toSequence, nextSequence);
+		long first = Math.min(next, Math.max(fromSequence, firstSequence(nextSequence)));
+		int size = (int) (next - first);
+		
+		double[][] snapshotColumns = new double[SimOuts.CHANNEL_COUNT][size];
+		
+		// Frames are copied oldest first; if the writer overwrites frames before they are copied, the snapshot begins after them
+		long copiedFrom = first;
+		
+		for (long chunkStart = first; chunkStart < next; ) {
+			int count = (int) Math.min(CHUNK_FRAMES, next - chunkStart);
+			long overwrittenBefore = copyChunk(chunkStart, count, snapshotColumns, (int) (chunkStart - first));
+			
+			if (overwrittenBefore > chunkStart) {
+				copiedFrom = Math.min(next, overwrittenBefore);
+				chunkStart = copiedFrom;
+			} else {
+				chunkStart += count;
+			}
+		}
+		
+		return HistorySnapshot.trimmed(first, copiedFrom, size, snapshotColumns);
+	}
+	
+	/**
+	 * Copies count frames of all channels, beginning at sequence number chunkStart, into destination columns at offset
+	 * 
+	 * @return chunkStart if the frames were copied, otherwise the oldest sequence number not yet overwritten by the writer
+	 */
+	private long copyChunk(long chunkStart, int count, double[][] destination, int offset) {
+		long stamp = lock.tryOptimisticRead();
+		
+		for (int attempt = 0; ; attempt++) {
+			boolean locked = attempt >= OPTIMISTIC_ATTEMPTS;
+			if (locked)
+				stamp = lock.readLock();
+			
+			try {
+				long oldestStored = nextSequence - capacity;
+				if (chunkStart < oldestStored)
+					return oldestStored;
+				
+				for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+					copyColumn(channel, chunkStart, count, destination[channel], offset);
+				
+				if (locked || lock.validate(stamp))
+					return chunkStart;
+			} finally {
+				if (locked)
+					lock.unlockRead(stamp);
+			}
+			
+			stamp = lock.tryOptimisticRead();
+		}
+	}
+	
+	/**
+	 * Copies count values of a channel, beginning at sequence number start, into destination at offset; wraps around the end of
+	 * the channel's column if necessary
+	 */
+	private void copyColumn(int channel, long start, int count, double[] destination, int offset) {
+		count = Math.min(count, capacity);
+		
+		int slot = (int) (start % capacity);
+		int firstPart = Math.min(count, capacity - slot);
+		
+		System.arraycopy(columns[channel], slot, destination, offset, firstPart);
+		
+		if (count > firstPart)
+			System.arraycopy(columns[channel], 0, destination, offset + firstPart, count - firstPart);
+	}
+}
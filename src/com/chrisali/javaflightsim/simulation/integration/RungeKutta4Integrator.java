@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+/**
+ * Fixed step classical fourth-order Runge-Kutta method, taking a single step between each requested time. If derivatives
+ * at the start of the step are provided they are used as the first stage, requiring only three further evaluations of the 
+ * equations per step
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RungeKutta4Integrator extends AbstractStateIntegrator {
+	
+	private double[] k1, k2, k3, k4, yTemp;
+
+	@Override
+	public void integrate(FirstOrderDifferentialEquations equations, double t, double[] y, double[] yDot, double tOut, double[] yOut) {
+		if (k1 == null || k1.length != y.length)
+			allocate(y.length);
+		
+		boolean continuous = isContinuous(t, y);
+		
+		if (yDot != null && continuous)
+			System.arraycopy(yDot, 0, k1, 0, y.length);
+		else
+			equations.computeDerivatives(t, y, k1);
+		
+		step(equations, t, y, k1, tOut, yOut);
+		
+		recordOutput(tOut, yOut);
+	}
+	
+	/**
+	 * Takes a single step from t to tOut using derivatives at t known to be valid as the first stage
+	 * 
+	 * @param equations
+	 * @param t
+	 * @param y
+	 * @param yDot derivatives at time t
+	 * @param tOut
+	 * @param yOut
+	 */
+	void step(FirstOrderDifferentialEquations equations, double t, double[] y, double[] yDot, double tOut, double[] yOut) {
+		if (k1 == null || k1.length != y.length)
+			allocate(y.length);
+		
+		double h = tOut - t;
+		
+		for (int i = 0; i < y.length; i++)
+			yTemp[i] = y[i] + 0.5*h*yDot[i];
+		equations.computeDerivatives(t + 0.5*h, yTemp, k2);
+		
+		for (int i = 0; i < y.length; i++)
+			yTemp[i] = y[i] + 0.5*h*k2[i];
+		equations.computeDerivatives(t + 0.5*h, yTemp, k3);
+		
+		for (int i = 0; i < y.length; i++)
+			yTemp[i] = y[i] + h*k3[i];
+		equations.computeDerivatives(tOut, yTemp, k4);
+		
+		for (int i = 0; i < y.length; i++)
+			yOut[i] = y[i] + h/6*(yDot[i] + 2*k2[i] + 2*k3[i] + k4[i]);
+	}
+	
+	private void allocate(int dimension) {
+		k1 	  = new double[dimension];
+		k2 	  = new double[dimension];
+		k3 	  = new double[dimension];
+		k4 	  = new double[dimension];
+		yTemp = new double[dimension];
+	}
+}
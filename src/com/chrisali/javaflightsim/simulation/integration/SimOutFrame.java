@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Preallocated frame of simulation outputs for a single step of integration. Each {@link SimOuts} channel is stored in a fixed 
+ * slot of a primitive double array, so that {@link Integrate6DOFEquations} can write its outputs in place each step without boxing 
+ * or allocating a new collection. Readers use the typed {@link SimOutFrame#get(SimOuts)} accessor
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimOutFrame {
+	
+	private final double[] values = new double[SimOuts.CHANNEL_COUNT];
+	
+	public SimOutFrame() {}
+	
+	/**
+	 * Creates a frame whose values are a copy of another frame's
+	 * 
+	 * @param frame
+	 */
+	public SimOutFrame(SimOutFrame frame) { copyFrom(frame); }
+	
+	/**
+	 * @param channel
+	 * @return value held by the channel in this frame
+	 */
+	public double get(SimOuts channel) { return values[channel.ordinal()]; }
+	
+	/**
+	 * @param slot ordinal of a {@link SimOuts} channel
+	 * @return value held in the slot of this frame
+	 */
+	public double get(int slot) { return values[slot]; }
+	
+	/**
+	 * Writes a value into the channel's slot of this frame
+	 * 
+	 * @param channel
+	 * @param value
+	 */
+	public void set(SimOuts channel, double value) { values[channel.ordinal()] = value; }
+	
+	/**
+	 * Writes a value into a slot of this frame
+	 * 
+	 * @param slot ordinal of a {@link SimOuts} channel
+	 * @param value
+	 */
+	public void set(int slot, double value) { values[slot] = value; }
+	
+	/**
+	 * Overwrites all values in this frame with those of another frame 
+	 * 
+	 * @param frame
+	 */
+	public void copyFrom(SimOutFrame frame) { System.arraycopy(frame.values, 0, values, 0, values.length); }
+	
+	/**
+	 * Copies the values of this frame into a primitive array at the given offset
+	 * 
+	 * @param destination
+	 * @param offset
+	 */
+	public void copyTo(double[] destination, int offset) { System.arraycopy(values, 0, destination, offset, values.length); }
+	
+	/**
+	 * Overwrites all values in this frame with those held in a primitive array at the given offset
+	 * 
+	 * @param source
+	 * @param offset
+	 */
+	public void copyFrom(double[] source, int offset) { System.arraycopy(source, offset, values, 0, values.length); }
+	
+	/**
+	 * Creates a boxed EnumMap copy of this frame; intended only for code outside of the simulation loop 
+	 * 
+	 * @return EnumMap of this frame's values
+	 */
+	public Map<SimOuts, Double> toMap() {
+		Map<SimOuts, Double> map = new EnumMap<>(SimOuts.class);
+		
+		for (SimOuts channel : SimOuts.values())
+			map.put(channel, values[channel.ordinal()]);
+		
+		return map;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		for (SimOuts channel : SimOuts.values())
+			sb.append(channel.toString()).append(": ").append(values[channel.ordinal()]).append("\n");
+		
+		return sb.toString();
+	}
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+/**
+ * History of the {@link SimOutFrame} outputs of a simulation. Frames are appended by a single writer, {@link Integrate6DOFEquations}, 
+ * and are numbered by a sequence number that increases by one with each append. Any number of readers may read retained frames by 
+ * their sequence number, or take a consistent {@link HistorySnapshot} of all retained frames, concurrently with the writer 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public interface SimOutHistory {
+	
+	/**
+	 * Appends a copy of frame to the history as the frame with sequence number {@link SimOutHistory#getNextSequence()}, evicting the 
+	 * oldest frame if the history is full. Must only be called by a single writer thread
+	 * 
+	 * @param frame
+	 */
+	public void append(SimOutFrame frame);
+	
+	/**
+	 * Discards all frames currently in the history; sequence numbers of later frames continue from those already appended
+	 */
+	public void clear();
+	
+	/**
+	 * @return maximum number of frames retained by the history
+	 */
+	public int getCapacity();
+	
+	/**
+	 * @return sequence number of the oldest frame retained by the history
+	 */
+	public long getFirstSequence();
+	
+	/**
+	 * @return sequence number that the next appended frame will have; one past the newest frame in the history
+	 */
+	public long getNextSequence();
+	
+	/**
+	 * @return number of frames retained by the history
+	 */
+	public int size();
+	
+	/**
+	 * Copies the frame with the given sequence number into frame
+	 * 
+	 * @param sequence
+	 * @param frame
+	 * @return if the frame was retained by the history, and could be copied
+	 */
+	public boolean readFrame(long sequence, SimOutFrame frame);
+	
+	/**
+	 * Copies up to length consecutive values of a channel, starting at the frame with sequence number fromSequence, into destination. 
+	 * Copying begins at the oldest retained frame if fromSequence is older than it, and stops at the newest frame
+	 * 
+	 * @param channel
+	 * @param fromSequence
+	 * @param destination
+	 * @param offset
+	 * @param length
+	 * @return number of values copied
+	 */
+	public int readChannel(SimOuts channel, long fromSequence, double[] destination, int offset, int length);
+	
+	/**
+	 * @return consistent copy of all frames retained by the history at the time of the call
+	 */
+	public HistorySnapshot snapshot();
+	
+	/**
+	 * @param fromSequence
+	 * @param toSequence
+	 * @return consistent copy of the retained frames with sequence numbers from fromSequence up to, but not including, toSequence, 
+	 * at the time of the call
+	 */
+	public HistorySnapshot snapshot(long fromSequence, long toSequence);
+}
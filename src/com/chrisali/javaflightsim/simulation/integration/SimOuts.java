@@ -20,8 +20,9 @@
 package com.chrisali.javaflightsim.simulation.integration;
 
 /**
- * This Enum is used with {@link Integrate6DOFEquations} to define the EnumMap returned in {@link Integrate6DOFEquations#getSimOut()}. 
- * The string field is used in the console output to show the name of each value for clarity 
+ * This Enum is used with {@link Integrate6DOFEquations} to define the channels of the {@link SimOutFrame} returned in {@link Integrate6DOFEquations#getSimOut()}. 
+ * Each channel occupies a fixed integer slot (its ordinal) in the frame's primitive array. The string field is used in the console output to 
+ * show the name of each value for clarity 
  */
 public enum SimOuts {
 	TIME 		("Time [sec]"),
@@ -97,9 +98,37 @@ public enum SimOuts {
 	GEAR		("Gear"),
 	FLAPS		("Flaps [rad]");
 	
+	/**
+	 * Number of channels, and therefore the length of the primitive array held by a {@link SimOutFrame}
+	 */
+	public static final int CHANNEL_COUNT = values().length;
+	
+	// Per-engine channels indexed by (engine number - 1), so that they can be looked up without string concatenation 
+	private static final SimOuts[] THRUST_CHANNELS    = {THRUST_1, THRUST_2, THRUST_3, THRUST_4};
+	private static final SimOuts[] RPM_CHANNELS       = {RPM_1, RPM_2, RPM_3, RPM_4};
+	private static final SimOuts[] FUEL_FLOW_CHANNELS = {FUEL_FLOW_1, FUEL_FLOW_2, FUEL_FLOW_3, FUEL_FLOW_4};
+	
 	private final String simOut;
 	
 	private SimOuts(String simOut) {this.simOut = simOut;}
 	
+	/**
+	 * @param engineNumber (1-4)
+	 * @return thrust channel for the specified engine
+	 */
+	public static SimOuts thrust(int engineNumber) {return THRUST_CHANNELS[engineNumber-1];}
+	
+	/**
+	 * @param engineNumber (1-4)
+	 * @return RPM channel for the specified engine
+	 */
+	public static SimOuts rpm(int engineNumber) {return RPM_CHANNELS[engineNumber-1];}
+	
+	/**
+	 * @param engineNumber (1-4)
+	 * @return fuel flow channel for the specified engine
+	 */
+	public static SimOuts fuelFlow(int engineNumber) {return FUEL_FLOW_CHANNELS[engineNumber-1];}
+	
 	public String toString() {return simOut;}
 }
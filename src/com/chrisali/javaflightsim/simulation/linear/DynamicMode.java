@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A dynamic mode of a {@link LinearModel}, defined by an eigenvalue of its state matrix; an oscillatory mode is defined by the eigenvalue of 
+ * its complex conjugate pair with positive imaginary part. Along with the eigenvalue, holds the fraction of the mode's eigenvector in the 
+ * longitudinal states, with velocities taken relative to airspeed, which is used to classify the mode as a {@link ModeType}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DynamicMode {
+	
+	private final ModeType type;
+	private final double real;
+	private final double imaginary;
+	private final double longitudinalFraction;
+	
+	DynamicMode(ModeType type, double real, double imaginary, double longitudinalFraction) {
+		this.type = type;
+		this.real = real;
+		this.imaginary = imaginary;
+		this.longitudinalFraction = longitudinalFraction;
+	}
+	
+	/**
+	 * @return classical mode that this mode was identified as 
+	 */
+	public ModeType getType() { return type; }
+
+	/**
+	 * @return real part of the eigenvalue (rad/sec)
+	 */
+	public double getReal() { return real; }
+
+	/**
+	 * @return imaginary part of the eigenvalue, which is the damped frequency of an oscillatory mode, or zero for a real mode (rad/sec)
+	 */
+	public double getImaginary() { return imaginary; }
+	
+	/**
+	 * @return fraction of the eigenvector in u, w, q and theta, from 0 for a purely lateral-directional mode to 1 for a purely longitudinal mode
+	 */
+	public double getLongitudinalFraction() { return longitudinalFraction; }
+	
+	/**
+	 * @return if the mode oscillates
+	 */
+	@JsonIgnore
+	public boolean isOscillatory() { return imaginary != 0.0; }
+	
+	/**
+	 * @return if the mode decays, rather than diverging or remaining neutral
+	 */
+	@JsonIgnore
+	public boolean isStable() { return real < 0.0; }
+
+	/**
+	 * @return magnitude of the eigenvalue (rad/sec)
+	 */
+	public double getNaturalFrequency() { return Math.hypot(real, imaginary); }
+
+	/**
+	 * @return damping ratio of the mode; negative if it diverges, and +/- 1 for a real mode
+	 */
+	public double getDampingRatio() { return -real / getNaturalFrequency(); }
+
+	/**
+	 * @return period of an oscillatory mode, or infinity for a real mode (sec)
+	 */
+	public double getPeriod() { return 2 * Math.PI / imaginary; }
+
+	/**
+	 * @return time for the amplitude of the mode to halve if it is stable, or double if it diverges (sec)
+	 */
+	public double getTimeToHalfOrDouble() { return Math.log(2) / Math.abs(real); }
+
+	@Override
+	public String toString() {
+		return String.format("%s: %.4f %s %.4fi rad/sec, wn %.4f rad/sec, zeta %.4f, %s %.2f sec", type, real, imaginary < 0 ? "-" : "+", 
+							 Math.abs(imaginary), getNaturalFrequency(), getDampingRatio(), isStable() ? "t1/2" : "t2", getTimeToHalfOrDouble());
+	}
+}
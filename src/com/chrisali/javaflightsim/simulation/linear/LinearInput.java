@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Provides Enum values to define the inputs of a {@link LinearModel}. Each input moves one or more {@link FlightControl}s together;
+ * the throttle input moves the throttles of all operating engines. The String field is used for display of the input
+ */
+public enum LinearInput {
+	ELEVATOR	("Elevator [rad]", 	FlightControl.ELEVATOR),
+	AILERON		("Aileron [rad]", 	FlightControl.AILERON),
+	RUDDER		("Rudder [rad]", 	FlightControl.RUDDER),
+	THROTTLE	("Throttle", 		FlightControl.THROTTLE_1, FlightControl.THROTTLE_2, FlightControl.THROTTLE_3, FlightControl.THROTTLE_4);
+	
+	private final String input;
+	private final FlightControl[] controls;
+	
+	LinearInput(String input, FlightControl... controls) {
+		this.input = input;
+		this.controls = controls;
+	}
+	
+	/**
+	 * @return flight controls moved by the input; for the throttle, indexed by engine number - 1
+	 */
+	FlightControl[] getControls() {return controls;}
+	
+	/**
+	 * @return smallest value the input can take
+	 */
+	public double getMinimum() {return controls[0].getMinimum();}
+	
+	/**
+	 * @return largest value the input can take
+	 */
+	public double getMaximum() {return controls[0].getMaximum();}
+	
+	public String toString() {return input;}
+}
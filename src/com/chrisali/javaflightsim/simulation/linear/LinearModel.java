@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+
+import com.chrisali.javaflightsim.simulation.trim.TrimResult;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * State-space model x' = Ax + Bu of an aircraft linearized about a trim by a {@link Linearizer}, where x holds perturbations of the 
+ * {@link LinearState}s from trim, and u perturbations of the {@link LinearInput}s. On creation, the eigenvalues of the state matrix A 
+ * are calculated, and each real eigenvalue or complex conjugate pair is classified as one of the aircraft's classical {@link ModeType}s 
+ * by whether its eigenvector lies mostly in the longitudinal or lateral-directional states, and by how fast it is relative to the other 
+ * modes of the same motion. A model can be exported to a JSON file with {@link LinearModel#write(File)}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LinearModel {
+	
+	private static final LinearState[] STATES = LinearState.values();
+	private static final LinearInput[] INPUTS = LinearInput.values();
+	
+	private final TrimResult trim;
+	private final double[][] stateMatrix;
+	private final double[][] inputMatrix;
+	private final List<DynamicMode> modes;
+	
+	/**
+	 * Creates a model from its state and input matrices, whose rows and columns are ordered as {@link LinearState#values()} and 
+	 * {@link LinearInput#values()}, and calculates its modes
+	 * 
+	 * @param trim trim linearized about
+	 * @param stateMatrix A
+	 * @param inputMatrix B
+	 */
+	LinearModel(TrimResult trim, double[][] stateMatrix, double[][] inputMatrix) {
+		this.trim = trim;
+		this.stateMatrix = stateMatrix;
+		this.inputMatrix = inputMatrix;
+		
+		modes = Collections.unmodifiableList(calculateModes());
+	}
+	
+	/**
+	 * Calculates the eigenvalues and eigenvectors of the state matrix, and classifies them as modes. The fastest and slowest longitudinal 
+	 * oscillations are the short period and phugoid, the fastest lateral-directional oscillation is the dutch roll, and the fastest and 
+	 * slowest lateral-directional real modes are the roll subsidence and spiral 
+	 * 
+	 * @return modes, ordered from fastest to slowest
+	 */
+	private List<DynamicMode> calculateModes() {
+		EigenDecomposition decomposition = new EigenDecomposition(new Array2DRowRealMatrix(stateMatrix, false));
+		double[] realEigenvalues = decomposition.getRealEigenvalues();
+		double[] imagEigenvalues = decomposition.getImagEigenvalues();
+		RealMatrix eigenvectors = decomposition.getV();
+		
+		// Velocities are divided by airspeed, so that they are comparable to angles
+		double airspeed = trim.getCondition().getAirspeed();
+		
+		List<double[]> lonOscillatory = new ArrayList<>(), lonReal = new ArrayList<>();
+		List<double[]> latOscillatory = new ArrayList<>(), latReal = new ArrayList<>();
+		
+		for (int i = 0; i < STATES.length; i++) {
+			boolean oscillatory = imagEigenvalues[i] != 0.0;
+			
+			// The real and imaginary parts of a complex pair's eigenvectors are held in adjacent columns
+			double longitudinal = 0, total = 0;
+			for (int j = 0; j < STATES.length; j++) {
+				double scale = (STATES[j].getIndex() < 3) ? airspeed : 1.0;
+				double re = eigenvectors.getEntry(j, i) / scale;
+				double im = oscillatory ? eigenvectors.getEntry(j, i + 1) / scale : 0.0;
+				
+				double magnitude = re * re + im * im;
+				total += magnitude;
+				if (STATES[j].isLongitudinal())
+					longitudinal += magnitude;
+			}
+			
+			double[] mode = {realEigenvalues[i], Math.abs(imagEigenvalues[i]), longitudinal / total};
+			
+			if (mode[2] >= 0.5)
+				(oscillatory ? lonOscillatory : lonReal).add(mode);
+			else
+				(oscillatory ? latOscillatory : latReal).add(mode);
+			
+			if (oscillatory)
+				i++;
+		}
+		
+		List<DynamicMode> modes = new ArrayList<>();
+		classify(lonOscillatory, ModeType.SHORT_PERIOD, ModeType.PHUGOID, modes);
+		classify(lonReal, ModeType.UNCLASSIFIED, ModeType.UNCLASSIFIED, modes);
+		classify(latOscillatory, ModeType.DUTCH_ROLL, ModeType.UNCLASSIFIED, modes);
+		classify(latReal, ModeType.ROLL_SUBSIDENCE, ModeType.SPIRAL, modes);
+		
+		modes.sort(Comparator.comparingDouble(DynamicMode::getNaturalFrequency).reversed());
+		
+		return modes;
+	}
+	
+	/**
+	 * Classifies the fastest of a group of modes as fastest, and the slowest as slowest; if there is only one mode in the group, 
+	 * it is classified as fastest. Any others are unclassified
+	 */
+	private static void classify(List<double[]> group, ModeType fastest, ModeType slowest, List<DynamicMode> modes) {
+		group.sort(Comparator.comparingDouble((double[] mode) -> Math.hypot(mode[0], mode[1])).reversed());
+		
+		for (int i = 0; i < group.size(); i++) {
+			ModeType type = (i == 0) ? fastest : (i == group.size() - 1) ? slowest : ModeType.UNCLASSIFIED;
+			double[] mode = group.get(i);
+			
+			modes.add(new DynamicMode(type, mode[0], mode[1], mode[2]));
+		}
+	}
+	
+	/**
+	 * Writes the model, including the trim it was linearized about and its modes, to a JSON file
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.enable(SerializationFeature.INDENT_OUTPUT);
+		
+		mapper.writeValue(file, this);
+	}
+	
+	/**
+	 * @return trim that the model was linearized about
+	 */
+	public TrimResult getTrim() { return trim; }
+	
+	/**
+	 * @return states of the model, in the order of the rows and columns of the state matrix
+	 */
+	public LinearState[] getStates() { return STATES.clone(); }
+	
+	/**
+	 * @return inputs of the model, in the order of the columns of the input matrix
+	 */
+	public LinearInput[] getInputs() { return INPUTS.clone(); }
+
+	/**
+	 * @return state matrix A, which should not be modified
+	 */
+	public double[][] getStateMatrix() { return stateMatrix; }
+
+	/**
+	 * @return input matrix B, which should not be modified
+	 */
+	public double[][] getInputMatrix() { return inputMatrix; }
+	
+	/**
+	 * @param derivative
+	 * @param state
+	 * @return partial derivative of the rate of change of one state with respect to a state
+	 */
+	public double getStateDerivative(LinearState derivative, LinearState state) { return stateMatrix[derivative.ordinal()][state.ordinal()]; }
+	
+	/**
+	 * @param derivative
+	 * @param input
+	 * @return partial derivative of the rate of change of one state with respect to an input
+	 */
+	public double getInputDerivative(LinearState derivative, LinearInput input) { return inputMatrix[derivative.ordinal()][input.ordinal()]; }
+
+	/**
+	 * @return modes of the model, ordered from fastest to slowest
+	 */
+	public List<DynamicMode> getModes() { return modes; }
+	
+	/**
+	 * @param type
+	 * @return first mode classified as type, or null if none was
+	 */
+	@JsonIgnore
+	public DynamicMode getMode(ModeType type) {
+		for (DynamicMode mode : modes) {
+			if (mode.getType() == type)
+				return mode;
+		}
+		
+		return null;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Linear model about ").append(trim.getCondition()).append(String.format("%n"));
+		
+		for (DynamicMode mode : modes)
+			sb.append(mode).append(String.format("%n"));
+		
+		return sb.toString();
+	}
+}
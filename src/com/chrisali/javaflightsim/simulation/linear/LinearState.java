@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+/**
+ * Provides Enum values to define the states of a {@link LinearModel}, which are the body axis velocities, body angular rates, bank 
+ * angle and pitch attitude of the 6DOF equations of motion. Position and heading do not affect the dynamics, and are left out so 
+ * that every eigenvalue of the model belongs to one of the aircraft's modes. The int field is the index of the state in the 
+ * state array of {@link com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations}, and the String field is used 
+ * for display of the state 
+ */
+public enum LinearState {
+	U		(0,  "u [ft/sec]", 	 true),
+	V		(1,  "v [ft/sec]", 	 false),
+	W		(2,  "w [ft/sec]", 	 true),
+	P		(9,  "p [rad/sec]",  false),
+	Q		(10, "q [rad/sec]",  true),
+	R		(11, "r [rad/sec]",  false),
+	PHI		(6,  "phi [rad]", 	 false),
+	THETA	(7,  "theta [rad]",  true);
+	
+	private final int index;
+	private final String state;
+	private final boolean longitudinal;
+	
+	LinearState(int index, String state, boolean longitudinal) {
+		this.index = index;
+		this.state = state;
+		this.longitudinal = longitudinal;
+	}
+	
+	/**
+	 * @return index of the state in the 6DOF state array
+	 */
+	public int getIndex() {return index;}
+	
+	/**
+	 * @return if the state belongs to the longitudinal, rather than lateral-directional, motion of the aircraft
+	 */
+	public boolean isLongitudinal() {return longitudinal;}
+	
+	public String toString() {return state;}
+}
@@ -0,0 +1,336 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.trim.TrimCondition;
+import com.chrisali.javaflightsim.simulation.trim.TrimResult;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Linearizes an aircraft about trims calculated by a {@link com.chrisali.javaflightsim.simulation.trim.TrimSolver}, producing a {@link LinearModel} 
+ * for each trim. The state and input matrices are Jacobians of the derivatives calculated by {@link Integrate6DOFEquations#calculateDerivatives(double[], double[], double[])}, 
+ * the same path through {@link com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments} taken by each stage of integration, 
+ * and are calculated by central finite differences. 
+ * 
+ * <p>Each column of a Jacobian, perturbing one state or input of one trim, is a separate task of a work-stealing {@link ForkJoinPool}, 
+ * so the perturbations of a single trim, and of every trim of an envelope, are evaluated concurrently. Each worker thread evaluates 
+ * its tasks on its own {@link Integrate6DOFEquations}, with its own {@link Aircraft} read from file and given the mass properties of 
+ * the context's aircraft, so no state is shared between threads. Derivatives do not depend on previous evaluations, so the models 
+ * produced are identical no matter how many threads calculate them</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class Linearizer {
+	
+	private static final Logger logger = LogManager.getLogger(Linearizer.class);
+	
+	private static final LinearState[] STATES = LinearState.values();
+	private static final LinearInput[] INPUTS = LinearInput.values();
+	private static final int COLUMNS = STATES.length + INPUTS.length;
+	
+	/**
+	 * Perturbation of each state and input, relative to its trim value if larger than 1 
+	 */
+	public static final double PERTURBATION = 1e-5;
+	
+	// Models are created well above the ground, so that ground reaction forces and moments remain zero, as they are in a trim
+	private static final double AIRBORNE_ALTITUDE = 10000.0;
+	
+	private final SimulationConfiguration baseConfiguration;
+	private final EnumMap<MassProperties, Double> massProperties = new EnumMap<>(MassProperties.class);
+	private final double deltaIsa;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Creates a Linearizer of the aircraft of a {@link SimulationContext} in its atmosphere. Controls that are not inputs of the model, such 
+	 * as flaps, gear, propeller and mixture, are held at their values in the initial controls of the context's configuration, as they are 
+	 * when trimming with a {@link com.chrisali.javaflightsim.simulation.trim.TrimSolver}. Neither the configuration nor the aircraft are modified
+	 * 
+	 * @param context
+	 */
+	public Linearizer(SimulationContext context) {
+		baseConfiguration = context.getConfiguration();
+		massProperties.putAll(context.getAircraft().getMassProps());
+		deltaIsa = context.getEnvironment().getDeltaIsa();
+	}
+	
+	/**
+	 * Linearizes the aircraft about a trim, blocking until its model has been calculated
+	 * 
+	 * @param trim
+	 * @return linear model about trim
+	 */
+	public LinearModel linearize(TrimResult trim) {
+		return linearize(Collections.singletonList(trim)).get(0);
+	}
+	
+	/**
+	 * Linearizes the aircraft about each of a list of trims, blocking until all models have been calculated
+	 * 
+	 * @param trims
+	 * @return linear models, in the same order as trims
+	 */
+	public List<LinearModel> linearize(List<TrimResult> trims) {
+		for (TrimResult trim : trims) {
+			if (!trim.isConverged())
+				logger.warn("Linearizing " + baseConfiguration.getSelectedAircraft() + " about a trim that did not converge for " + trim.getCondition());
+		}
+		
+		double[][][] stateMatrices = new double[trims.size()][STATES.length][STATES.length];
+		double[][][] inputMatrices = new double[trims.size()][STATES.length][INPUTS.length];
+		
+		// Created on first use by each worker thread of the pool
+		ThreadLocal<PerturbationModel> models = ThreadLocal.withInitial(() -> new PerturbationModel());
+		
+		long start = System.nanoTime();
+		
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new ColumnRange(0, trims.size() * COLUMNS, trims, stateMatrices, inputMatrices, models));
+		} finally {
+			pool.shutdown();
+		}
+		
+		List<LinearModel> linearModels = new ArrayList<>(trims.size());
+		for (int i = 0; i < trims.size(); i++)
+			linearModels.add(new LinearModel(trims.get(i), stateMatrices[i], inputMatrices[i]));
+		
+		logger.debug(String.format("Linearized %s about %d trims on %d threads in %.3f sec", baseConfiguration.getSelectedAircraft(), 
+								   trims.size(), parallelism, (System.nanoTime() - start) / 1e9));
+		
+		return linearModels;
+	}
+	
+	/**
+	 * Creates an {@link Integrate6DOFEquations} that is never stepped, to evaluate derivatives with; its configuration and aircraft are copies 
+	 * of the base configuration and the context's aircraft
+	 */
+	private Integrate6DOFEquations createEquations() {
+		SimulationConfiguration configuration = new SimulationConfiguration();
+		configuration.setSelectedAircraft(baseConfiguration.getSelectedAircraft());
+		configuration.setInitialControls(new EnumMap<>(baseConfiguration.getInitialControls()));
+		configuration.setInitialConditions(new EnumMap<>(baseConfiguration.getInitialConditions()));
+		configuration.getInitialConditions().put(InitialConditions.INITD, AIRBORNE_ALTITUDE);
+		configuration.updateOptions(EnumSet.of(Options.ANALYSIS_MODE));
+		
+		// Only one step of history is needed
+		EnumMap<IntegratorConfig, Double> integratorConfig = new EnumMap<>(baseConfiguration.getIntegratorConfig());
+		integratorConfig.put(IntegratorConfig.ENDTIME, integratorConfig.get(IntegratorConfig.STARTTIME) + integratorConfig.get(IntegratorConfig.DT));
+		configuration.setIntegratorConfig(integratorConfig);
+		
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		for (Map.Entry<MassProperties, Double> entry : massProperties.entrySet())
+			aircraft.setMassProperty(entry.getKey(), entry.getValue());
+		
+		SimulationContext context = new SimulationContext(configuration, aircraft, null);
+		context.getEnvironment().setDeltaIsa(deltaIsa);
+		
+		return new Integrate6DOFEquations(new FlightControlsState(configuration), context);
+	}
+	
+	/**
+	 * Evaluates derivatives at perturbations of trims on a worker thread's own {@link Integrate6DOFEquations}
+	 */
+	private class PerturbationModel {
+		private final Integrate6DOFEquations equations = createEquations();
+		private final double[] baseControls = FlightControlsState.copyToArray(baseConfiguration.getInitialControls(), 
+																			  new double[FlightControl.values().length]);
+		private final double[] y 		= new double[14];
+		private final double[] yDot 	= new double[14];
+		private final double[] controls = new double[baseControls.length];
+		private final double[] derivativesPlus  = new double[STATES.length];
+		private final double[] derivativesMinus = new double[STATES.length];
+		
+		/**
+		 * Calculates a column of the state matrix, or of the input matrix if column is not less than the number of states, of the model about trim 
+		 * 
+		 * @param trim
+		 * @param column
+		 * @param stateMatrix
+		 * @param inputMatrix
+		 */
+		private void calculateColumn(TrimResult trim, int column, double[][] stateMatrix, double[][] inputMatrix) {
+			setTrim(trim);
+			
+			double value, plus, minus;
+			
+			if (column < STATES.length) {
+				int index = STATES[column].getIndex();
+				value = y[index];
+				plus = value + step(value);
+				minus = value - step(value);
+				
+				y[index] = plus;
+				evaluate(derivativesPlus);
+				y[index] = minus;
+			} else {
+				LinearInput input = INPUTS[column - STATES.length];
+				value = getTrimValue(trim, input);
+				
+				// Step only to one side of an input at its limit
+				plus = Math.min(value + step(value), input.getMaximum());
+				minus = Math.max(value - step(value), input.getMinimum());
+				
+				setInput(trim, input, plus);
+				evaluate(derivativesPlus);
+				setInput(trim, input, minus);
+			}
+			
+			evaluate(derivativesMinus);
+			
+			for (int row = 0; row < STATES.length; row++) {
+				double derivative = (derivativesPlus[row] - derivativesMinus[row]) / (plus - minus);
+				
+				if (column < STATES.length)
+					stateMatrix[row][column] = derivative;
+				else
+					inputMatrix[row][column - STATES.length] = derivative;
+			}
+		}
+		
+		/**
+		 * Sets the states and controls to the values of a trim, in the same way as {@link TrimResult#applyTo(SimulationConfiguration)}
+		 */
+		private void setTrim(TrimResult trim) {
+			TrimCondition condition = trim.getCondition();
+			double airspeed = condition.getAirspeed();
+			double alpha = trim.getAlpha(), beta = trim.getBeta();
+			
+			Arrays.fill(y, 0.0);
+			y[0]  = airspeed * Math.cos(alpha) * Math.cos(beta);
+			y[1]  = airspeed * Math.sin(beta);
+			y[2]  = airspeed * Math.sin(alpha) * Math.cos(beta);
+			y[5]  = condition.getAltitude();
+			y[6]  = trim.getPhi();
+			y[7]  = trim.getTheta();
+			y[9]  = trim.getAngularRate(0);
+			y[10] = trim.getAngularRate(1);
+			y[11] = trim.getAngularRate(2);
+			
+			System.arraycopy(baseControls, 0, controls, 0, controls.length);
+			for (LinearInput input : INPUTS)
+				setInput(trim, input, getTrimValue(trim, input));
+		}
+		
+		/**
+		 * Sets the controls moved by an input to value; the throttle of an inoperative engine remains closed
+		 */
+		private void setInput(TrimResult trim, LinearInput input, double value) {
+			FlightControl[] inputControls = input.getControls();
+			
+			for (int i = 0; i < inputControls.length; i++) {
+				boolean inoperative = (input == LinearInput.THROTTLE) && (i + 1 == trim.getCondition().getInoperativeEngine());
+				controls[inputControls[i].ordinal()] = inoperative ? 0.0 : value;
+			}
+		}
+		
+		private void evaluate(double[] derivatives) {
+			equations.calculateDerivatives(y, controls, yDot);
+			
+			for (int row = 0; row < STATES.length; row++)
+				derivatives[row] = yDot[STATES[row].getIndex()];
+		}
+	}
+	
+	private static double getTrimValue(TrimResult trim, LinearInput input) {
+		switch (input) {
+		case ELEVATOR:
+			return trim.getElevator();
+		case AILERON:
+			return trim.getAileron();
+		case RUDDER:
+			return trim.getRudder();
+		case THROTTLE:
+		default:
+			return trim.getThrottle();
+		}
+	}
+	
+	private static double step(double value) {
+		return PERTURBATION * Math.max(1.0, Math.abs(value));
+	}
+	
+	/**
+	 * Splits a range of column indices, each of which is a trim and one of its states or inputs, in half until a single column remains, 
+	 * which is then calculated on the worker thread's own model; idle workers of the pool steal unsplit halves from busy workers
+	 */
+	private class ColumnRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final int start;
+		private final int end;
+		private final List<TrimResult> trims;
+		private final double[][][] stateMatrices;
+		private final double[][][] inputMatrices;
+		private final ThreadLocal<PerturbationModel> models;
+		
+		private ColumnRange(int start, int end, List<TrimResult> trims, double[][][] stateMatrices, double[][][] inputMatrices, 
+							ThreadLocal<PerturbationModel> models) {
+			this.start = start;
+			this.end = end;
+			this.trims = trims;
+			this.stateMatrices = stateMatrices;
+			this.inputMatrices = inputMatrices;
+			this.models = models;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				int trim = start / COLUMNS;
+				models.get().calculateColumn(trims.get(trim), start % COLUMNS, stateMatrices[trim], inputMatrices[trim]);
+			} else if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new ColumnRange(start, middle, trims, stateMatrices, inputMatrices, models), 
+						  new ColumnRange(middle, end, trims, stateMatrices, inputMatrices, models));
+			}
+		}
+	}
+	
+	/**
+	 * @param parallelism number of threads used to calculate models
+	 */
+	public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+}
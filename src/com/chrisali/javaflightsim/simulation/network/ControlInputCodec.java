@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Encodes {@link ControlInputPacket} positions into, and decodes them from, the binary datagrams sent by an external cockpit rig 
+ * to a {@link RemoteControlInput}. All fields are in network (big endian) byte order. Each datagram consists of a header:
+ * 
+ * <p>magic (int) - {@link ControlInputCodec#MAGIC}, identifying the datagram as control input</p>
+ * <p>version (short) - {@link ControlInputCodec#VERSION} of this layout</p>
+ * <p>control count (short) - number of {@link FlightControl} positions that follow the header</p>
+ * <p>schema id (int) - {@link ControlInputCodec#SCHEMA_ID}, a checksum of the names of the controls</p>
+ * <p>mask (int) - bit n is set if the rig sets the {@link FlightControl} of ordinal n; other positions are ignored</p>
+ * <p>sequence (long) - number of the datagram in the rig's stream, starting from 1</p>
+ * <p>timestamp (long) - time at which the positions were sampled, in the rig's own monotonic clock (ns)</p>
+ * 
+ * <p>followed by the position of each {@link FlightControl} as a float, in ordinal order and in the units of {@link FlightControl}</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public final class ControlInputCodec {
+	
+	public static final int MAGIC = 0x4A364443; // "J6DC"
+	
+	public static final short VERSION = 1;
+	
+	public static final int HEADER_BYTES = 32;
+	
+	private static final FlightControl[] CONTROLS = FlightControl.values();
+	
+	public static final int SCHEMA_ID = schemaId();
+	
+	public static final int PACKET_BYTES = HEADER_BYTES + CONTROLS.length * Float.BYTES;
+	
+	private ControlInputCodec() {}
+	
+	private static int schemaId() {
+		CRC32 crc = new CRC32();
+		
+		for (FlightControl control : CONTROLS)
+			crc.update(control.name().getBytes(StandardCharsets.US_ASCII));
+		
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * Encodes packet into buffer as a datagram, leaving buffer flipped and ready to send
+	 * 
+	 * @param packet positions to encode, with the mask, sequence and timestamp to send
+	 * @param buffer buffer of at least {@link ControlInputCodec#PACKET_BYTES}
+	 */
+	public static void encode(ControlInputPacket packet, ByteBuffer buffer) {
+		buffer.clear();
+		
+		buffer.putInt(MAGIC)
+			  .putShort(VERSION)
+			  .putShort((short) CONTROLS.length)
+			  .putInt(SCHEMA_ID)
+			  .putInt(packet.getMask())
+			  .putLong(packet.getSequence())
+			  .putLong(packet.getSenderNanos());
+		
+		for (int i = 0; i < CONTROLS.length; i++)
+			buffer.putFloat((float) packet.getValue(i));
+		
+		buffer.flip();
+	}
+	
+	/**
+	 * Decodes a datagram in buffer into packet
+	 * 
+	 * @param buffer flipped buffer containing a received datagram
+	 * @param packet packet to decode into; unchanged if the datagram is rejected
+	 * @return true if the datagram was control input of this version and schema, and was decoded into packet
+	 */
+	public static boolean decode(ByteBuffer buffer, ControlInputPacket packet) {
+		if (buffer.remaining() != PACKET_BYTES)
+			return false;
+		
+		if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getShort() != CONTROLS.length || buffer.getInt() != SCHEMA_ID)
+			return false;
+		
+		packet.stamp(buffer.getInt(), buffer.getLong(), buffer.getLong());
+		
+		for (int i = 0; i < CONTROLS.length; i++)
+			packet.setValue(i, buffer.getFloat());
+		
+		return true;
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Positions of flight controls sent by an external cockpit rig at one point in time, held as primitive values indexed by 
+ * {@link FlightControl} ordinal. Only the controls in the packet's mask are set by the rig; the rest should be left alone
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ControlInputPacket {
+	
+	private static final int CONTROL_COUNT = FlightControl.values().length;
+	
+	private final double[] values = new double[CONTROL_COUNT];
+	
+	private int mask;
+	private long sequence;
+	private long senderNanos;
+	
+	/**
+	 * @param control
+	 * @return position of control, in the units of {@link FlightControl}
+	 */
+	public double get(FlightControl control) { return values[control.ordinal()]; }
+	
+	/**
+	 * Sets the position of control and adds it to the mask of controls set by this packet
+	 * 
+	 * @param control
+	 * @param value position in the units of {@link FlightControl}
+	 */
+	public void set(FlightControl control, double value) {
+		values[control.ordinal()] = value;
+		mask |= 1 << control.ordinal();
+	}
+	
+	/**
+	 * @param control
+	 * @return if the position of control is set by this packet
+	 */
+	public boolean contains(FlightControl control) { return (mask & (1 << control.ordinal())) != 0; }
+	
+	/**
+	 * @return bit mask of the controls set by this packet, with bit n set for the {@link FlightControl} of ordinal n
+	 */
+	public int getMask() { return mask; }
+	
+	/**
+	 * @return number of the packet in its sender's stream, starting from 1
+	 */
+	public long getSequence() { return sequence; }
+	
+	/**
+	 * @return time at which the positions were sampled, in the sender's own monotonic clock (ns)
+	 */
+	public long getSenderNanos() { return senderNanos; }
+	
+	/**
+	 * Sets the mask, sequence and sample time of this packet
+	 * 
+	 * @param mask
+	 * @param sequence
+	 * @param senderNanos
+	 */
+	public void stamp(int mask, long sequence, long senderNanos) {
+		this.mask = mask;
+		this.sequence = sequence;
+		this.senderNanos = senderNanos;
+	}
+	
+	/**
+	 * @param index {@link FlightControl} ordinal
+	 * @return position of the control at index
+	 */
+	double getValue(int index) { return values[index]; }
+	
+	/**
+	 * @param index {@link FlightControl} ordinal
+	 * @param value position of the control at index
+	 */
+	void setValue(int index, double value) { values[index] = value; }
+	
+	/**
+	 * Copies all positions, and the mask, sequence and sample time, of another packet into this one
+	 * 
+	 * @param packet
+	 */
+	public void copyFrom(ControlInputPacket packet) {
+		System.arraycopy(packet.values, 0, values, 0, CONTROL_COUNT);
+		mask = packet.mask;
+		sequence = packet.sequence;
+		senderNanos = packet.senderNanos;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		
+		sb.append("Sequence: ").append(sequence).append(", Time: ").append(senderNanos).append(" ns\n");
+		for (FlightControl control : FlightControl.values()) {
+			if (contains(control))
+				sb.append(control.toString()).append(": ").append(get(control)).append("\n");
+		}
+		
+		return sb.toString();
+	}
+}
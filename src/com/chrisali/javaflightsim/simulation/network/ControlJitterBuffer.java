@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Orders {@link ControlInputPacket}s received from an external cockpit rig by the time they were sampled, and plays them out at a 
+ * fixed delay behind the rig so that network jitter does not reach the simulation as jerky control inputs.
+ * 
+ * <p>The rig's clock is mapped onto the local clock using the smallest difference between arrival and sample time seen over the 
+ * last {@link ControlJitterBuffer#OFFSET_WINDOW} packets, which is the rig's clock offset plus the fastest transit time. At each 
+ * local time, the buffer plays out the positions the rig had that offset plus the playout delay earlier, interpolating between 
+ * the packets either side. Setting the playout delay to one physics frame means that a packet with the fastest transit time is 
+ * applied no more than one frame after it arrives; packets delayed by more than that arrive too late to be interpolated</p>
+ * 
+ * <p>When the newest packet has already been played out because later packets are late or lost, positions are extrapolated 
+ * from the last two packets for up to the extrapolation limit, and then held. All packets are preallocated, so that neither 
+ * {@link ControlJitterBuffer#offer(ControlInputPacket, long)} nor {@link ControlJitterBuffer#sample(long, double[])} allocate</p>
+ * 
+ * <p>A packet whose sequence number is more than {@link ControlJitterBuffer#RESTART_SEQUENCE_GAP} behind the highest received, or 
+ * whose arrival and sample time differ from the offset by more than {@link ControlJitterBuffer#RESTART_CLOCK_JUMP_NANOS}, is taken 
+ * to come from a restarted rig. The buffer then discards its packets and offset estimate, and starts again from that packet, as 
+ * otherwise the time already played out and the old offset would make every packet from the restarted rig late</p>
+ * 
+ * <p>Not thread safe; packets should be offered and sampled on the same thread</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ControlJitterBuffer {
+	
+	public static final int DEFAULT_CAPACITY = 16;
+	
+	public static final int OFFSET_WINDOW = 64;
+	
+	/**
+	 * Regression in sequence number beyond which a packet is taken to come from a restarted rig, rather than to have been reordered
+	 */
+	public static final long RESTART_SEQUENCE_GAP = OFFSET_WINDOW;
+	
+	/**
+	 * Change in the difference between arrival and sample time beyond which the rig's clock is taken to have jumped on restart (ns)
+	 */
+	public static final long RESTART_CLOCK_JUMP_NANOS = 1_000_000_000L;
+	
+	private static final int CONTROL_COUNT = FlightControl.values().length;
+	
+	private final long playoutDelayNanos;
+	private final long extrapolationLimitNanos;
+	
+	// Packets not yet played out, sorted by sample time; slots from size onwards are spare
+	private final ControlInputPacket[] packets;
+	private int size = 0;
+	
+	// Last two packets removed from the buffer, used to extrapolate once every packet has been played out
+	private final ControlInputPacket previous = new ControlInputPacket();
+	private final ControlInputPacket beforePrevious = new ControlInputPacket();
+	private boolean hasPrevious = false;
+	private boolean hasBeforePrevious = false;
+	
+	private final long[] offsets = new long[OFFSET_WINDOW];
+	private int offsetCount = 0;
+	private int offsetIndex = 0;
+	private long offsetNanos;
+	
+	private long playedSenderNanos = Long.MIN_VALUE;
+	private long highestSequence = 0;
+	
+	private long received;
+	private long lost;
+	private long reordered;
+	private long late;
+	private long overflowed;
+	private long interpolated;
+	private long extrapolated;
+	private long held;
+	private long restarts;
+	
+	/**
+	 * Creates a buffer of {@link ControlJitterBuffer#DEFAULT_CAPACITY} packets
+	 * 
+	 * @param playoutDelayNanos delay behind the fastest transit time at which packets are played out (ns)
+	 * @param extrapolationLimitNanos longest time positions are extrapolated past the newest packet before being held (ns)
+	 */
+	public ControlJitterBuffer(long playoutDelayNanos, long extrapolationLimitNanos) {
+		this(playoutDelayNanos, extrapolationLimitNanos, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * @param playoutDelayNanos delay behind the fastest transit time at which packets are played out (ns)
+	 * @param extrapolationLimitNanos longest time positions are extrapolated past the newest packet before being held (ns)
+	 * @param capacity number of packets that can wait to be played out; the oldest is dropped when a packet arrives at a full buffer
+	 */
+	public ControlJitterBuffer(long playoutDelayNanos, long extrapolationLimitNanos, int capacity) {
+		if (playoutDelayNanos < 0 || extrapolationLimitNanos < 0 || capacity < 2)
+			throw new IllegalArgumentException("Delays must not be negative, and capacity must be at least 2");
+		
+		this.playoutDelayNanos = playoutDelayNanos;
+		this.extrapolationLimitNanos = extrapolationLimitNanos;
+		
+		packets = new ControlInputPacket[capacity];
+		for (int i = 0; i < capacity; i++)
+			packets[i] = new ControlInputPacket();
+	}
+	
+	/**
+	 * Copies a received packet into the buffer, in order of sample time. Packets sampled before the time last played out are too 
+	 * late to be used, and are discarded
+	 * 
+	 * @param packet
+	 * @param arrivalNanos local {@link System#nanoTime()} at which packet arrived (ns)
+	 */
+	public void offer(ControlInputPacket packet, long arrivalNanos) {
+		received++;
+		
+		if (isRestarted(packet, arrivalNanos)) {
+			restart();
+			restarts++;
+		}
+		
+		long sequence = packet.getSequence();
+		if (sequence > highestSequence) {
+			if (highestSequence > 0)
+				lost += sequence - highestSequence - 1;
+			
+			highestSequence = sequence;
+		} else {
+			// Counted as lost when the packet after it arrived first
+			reordered++;
+			if (lost > 0)
+				lost--;
+		}
+		
+		updateOffset(arrivalNanos - packet.getSenderNanos());
+		
+		if (packet.getSenderNanos() <= playedSenderNanos) {
+			late++;
+			return;
+		}
+		
+		// Recycle the oldest packet if full
+		if (size == packets.length) {
+			ControlInputPacket oldest = removeOldest();
+			packets[size] = oldest;
+			overflowed++;
+		}
+		
+		ControlInputPacket slot = packets[size];
+		slot.copyFrom(packet);
+		
+		int i = size;
+		while (i > 0 && packets[i - 1].getSenderNanos() > slot.getSenderNanos()) {
+			packets[i] = packets[i - 1];
+			i--;
+		}
+		packets[i] = slot;
+		size++;
+	}
+	
+	/**
+	 * @param packet
+	 * @param arrivalNanos
+	 * @return true if packet's sequence number has gone back, or its sample time jumped, too far to be from the same run of the rig
+	 */
+	private boolean isRestarted(ControlInputPacket packet, long arrivalNanos) {
+		if (highestSequence - packet.getSequence() > RESTART_SEQUENCE_GAP)
+			return true;
+		
+		return offsetCount > 0 && Math.abs(arrivalNanos - packet.getSenderNanos() - offsetNanos) > RESTART_CLOCK_JUMP_NANOS;
+	}
+	
+	/**
+	 * Discards all packets, the offset estimate and the time played out, as if no packet had been received
+	 */
+	private void restart() {
+		size = 0;
+		hasPrevious = false;
+		hasBeforePrevious = false;
+		
+		offsetCount = 0;
+		offsetIndex = 0;
+		
+		playedSenderNanos = Long.MIN_VALUE;
+		highestSequence = 0;
+	}
+	
+	/**
+	 * Adds an arrival time difference to the window, and updates the offset from the rig's clock to the minimum in the window
+	 * 
+	 * @param offset
+	 */
+	private void updateOffset(long offset) {
+		offsets[offsetIndex] = offset;
+		offsetIndex = (offsetIndex + 1) % OFFSET_WINDOW;
+		offsetCount = Math.min(offsetCount + 1, OFFSET_WINDOW);
+		
+		long minimum = Long.MAX_VALUE;
+		for (int i = 0; i < offsetCount; i++)
+			minimum = Math.min(minimum, offsets[i]);
+		
+		offsetNanos = minimum;
+	}
+	
+	/**
+	 * Removes the oldest packet, keeping a copy of it and the packet before it to extrapolate from
+	 * 
+	 * @return slot of the removed packet, now at index size
+	 */
+	private ControlInputPacket removeOldest() {
+		ControlInputPacket oldest = packets[0];
+		
+		if (hasPrevious) {
+			beforePrevious.copyFrom(previous);
+			hasBeforePrevious = true;
+		}
+		previous.copyFrom(oldest);
+		hasPrevious = true;
+		
+		System.arraycopy(packets, 1, packets, 0, size - 1);
+		packets[--size] = oldest;
+		
+		return oldest;
+	}
+	
+	/**
+	 * Plays out the positions of the rig's controls at a local time. Positions are interpolated between the packets either side of 
+	 * the playout time, extrapolated or held past the newest packet, or held at the oldest packet if none has been sampled early enough
+	 * 
+	 * @param nowNanos local {@link System#nanoTime()} at which positions are applied (ns)
+	 * @param values array of at least FlightControl.values().length to write positions into, indexed by {@link FlightControl} ordinal
+	 * @return mask of the controls written to values, with bit n set for the {@link FlightControl} of ordinal n; 0 if no packet 
+	 * has been received
+	 */
+	public int sample(long nowNanos, double[] values) {
+		if (size == 0 && !hasPrevious)
+			return 0;
+		
+		// Never play out earlier than before, even if the offset estimate has since grown
+		long playoutNanos = Math.max(nowNanos - offsetNanos - playoutDelayNanos, playedSenderNanos);
+		playedSenderNanos = playoutNanos;
+		
+		while (size > 1 && packets[1].getSenderNanos() <= playoutNanos)
+			removeOldest();
+		
+		if (size > 1 && packets[0].getSenderNanos() <= playoutNanos) {
+			// Packets either side of the playout time
+			ControlInputPacket before = packets[0];
+			ControlInputPacket after = packets[1];
+			
+			interpolate(before, after, playoutNanos, values);
+			interpolated++;
+			
+			return after.getMask();
+		} 
+		
+		if (size > 0 && packets[0].getSenderNanos() > playoutNanos) {
+			if (hasPrevious) {
+				// Packets resumed after a gap
+				interpolate(previous, packets[0], playoutNanos, values);
+				interpolated++;
+			} else {
+				// Nothing sampled early enough yet
+				copy(packets[0], values);
+				held++;
+			}
+			
+			return packets[0].getMask();
+		}
+		
+		// Newest packet already played out, as later packets are late or lost; extrapolate up to the limit, then hold
+		if (size > 0)
+			removeOldest();
+		
+		long sinceNewest = playoutNanos - previous.getSenderNanos();
+		
+		if (hasBeforePrevious && previous.getSenderNanos() > beforePrevious.getSenderNanos()) {
+			extrapolate(beforePrevious, previous, Math.min(sinceNewest, extrapolationLimitNanos), values);
+			
+			if (sinceNewest <= extrapolationLimitNanos)
+				extrapolated++;
+			else
+				held++;
+		} else {
+			copy(previous, values);
+			held++;
+		}
+		
+		return previous.getMask();
+	}
+	
+	/**
+	 * @return number of packets waiting to be played out
+	 */
+	public int getSize() { return size; }
+	
+	/**
+	 * @return estimated difference between the local clock and the rig's clock, including the fastest transit time (ns)
+	 */
+	public long getOffsetNanos() { return offsetNanos; }
+	
+	/**
+	 * @return delay behind the fastest transit time at which packets are played out (ns)
+	 */
+	public long getPlayoutDelayNanos() { return playoutDelayNanos; }
+	
+	/**
+	 * @return number of packets offered
+	 */
+	public long getReceived() { return received; }
+	
+	/**
+	 * @return number of packets missing from the sequence received so far
+	 */
+	public long getLost() { return lost; }
+	
+	/**
+	 * @return number of packets received after a packet later in the sequence
+	 */
+	public long getReordered() { return reordered; }
+	
+	/**
+	 * @return number of packets discarded because their time had already been played out
+	 */
+	public long getLate() { return late; }
+	
+	/**
+	 * @return number of packets discarded before being played out because the buffer was full
+	 */
+	public long getOverflowed() { return overflowed; }
+	
+	/**
+	 * @return number of samples interpolated between two packets
+	 */
+	public long getInterpolated() { return interpolated; }
+	
+	/**
+	 * @return number of samples extrapolated past the newest packet
+	 */
+	public long getExtrapolated() { return extrapolated; }
+	
+	/**
+	 * @return number of samples held at the oldest or newest packet
+	 */
+	public long getHeld() { return held; }
+	
+	/**
+	 * @return number of times the rig was detected to have restarted, discarding the packets and offset from before
+	 */
+	public long getRestarts() { return restarts; }
+	
+	@Override
+	public String toString() {
+		return "Control packets received: " + received + ", lost: " + lost + ", reordered: " + reordered + ", late: " + late 
+				+ ", overflowed: " + overflowed + "; samples interpolated: " + interpolated + ", extrapolated: " + extrapolated 
+				+ ", held: " + held + "; restarts: " + restarts + ", offset: " + offsetNanos + " ns";
+	}
+	
+	private static void interpolate(ControlInputPacket before, ControlInputPacket after, long playoutNanos, double[] values) {
+		double fraction = (playoutNanos - before.getSenderNanos()) / (double) (after.getSenderNanos() - before.getSenderNanos());
+		
+		for (int i = 0; i < CONTROL_COUNT; i++)
+			values[i] = before.getValue(i) + (after.getValue(i) - before.getValue(i)) * fraction;
+	}
+	
+	private static void extrapolate(ControlInputPacket older, ControlInputPacket newest, long horizonNanos, double[] values) {
+		double fraction = horizonNanos / (double) (newest.getSenderNanos() - older.getSenderNanos());
+		
+		for (int i = 0; i < CONTROL_COUNT; i++)
+			values[i] = newest.getValue(i) + (newest.getValue(i) - older.getValue(i)) * fraction;
+	}
+	
+	private static void copy(ControlInputPacket packet, double[] values) {
+		for (int i = 0; i < CONTROL_COUNT; i++)
+			values[i] = packet.getValue(i);
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.setup.NetworkConfiguration;
+
+/**
+ * Receives flight control positions from an external cockpit rig or hardware-in-the-loop controls over UDP, and applies them to 
+ * {@link FlightControlsState}. Datagrams encoded by {@link ControlInputCodec} are read from a non-blocking {@link DatagramChannel} 
+ * each time {@link RemoteControlInput#update(long, FlightControlsState)} is called, so no thread of its own is needed, and are 
+ * ordered and played out by a {@link ControlJitterBuffer} one physics frame behind the rig
+ * 
+ * <p>Intended to be updated by {@link FlightControlsStateManager} on the simulation thread</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RemoteControlInput implements AutoCloseable {
+	
+	private static final Logger logger = LogManager.getLogger(RemoteControlInput.class);
+	
+	// Longest that positions are extrapolated past the newest packet before being held
+	private static final long EXTRAPOLATION_LIMIT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+	
+	// Large enough for any UDP datagram on an Ethernet network, so that oversized datagrams are rejected rather than truncated
+	private static final int MAX_DATAGRAM_BYTES = 1500;
+	
+	private static final FlightControl[] CONTROLS = FlightControl.values();
+	
+	private final DatagramChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+	private final ControlInputPacket packet = new ControlInputPacket();
+	private final ControlJitterBuffer jitterBuffer;
+	private final double[] values = new double[CONTROLS.length];
+	
+	private long rejected;
+	private long failed;
+	
+	/**
+	 * Creates an input receiving control positions on a local address and port
+	 * 
+	 * @param bindAddress local address to receive on; a port of 0 selects any free port
+	 * @param frameNanos time between updates of this input; packets are played out this long behind the fastest transit time (ns)
+	 * @throws IOException if the channel could not be opened or bound
+	 */
+	public RemoteControlInput(InetSocketAddress bindAddress, long frameNanos) throws IOException {
+		jitterBuffer = new ControlJitterBuffer(frameNanos, EXTRAPOLATION_LIMIT_NANOS);
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		
+		try {
+			channel.bind(bindAddress);
+			channel.configureBlocking(false);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		logger.debug("Receiving flight controls on " + channel.getLocalAddress());
+	}
+	
+	/**
+	 * Creates an input receiving control positions on the port of a {@link NetworkConfiguration}
+	 * 
+	 * @param configuration
+	 * @param frameSec time between updates of this input (sec)
+	 * @return input
+	 * @throws IOException if the channel could not be opened or bound
+	 */
+	public static RemoteControlInput fromConfiguration(NetworkConfiguration configuration, double frameSec) throws IOException {
+		return new RemoteControlInput(new InetSocketAddress(configuration.getControlsPort()), (long) (frameSec * 1e9));
+	}
+	
+	/**
+	 * Reads all datagrams received since the last update into the jitter buffer, and then sets the controls in controlsState that the 
+	 * rig sends to their positions played out at nowNanos. Controls are left alone until the first packet arrives 
+	 * 
+	 * @param nowNanos local {@link System#nanoTime()} of this update (ns)
+	 * @param controlsState
+	 * @return true if any controls were set
+	 */
+	public boolean update(long nowNanos, FlightControlsState controlsState) {
+		try {
+			while (true) {
+				buffer.clear();
+				
+				if (channel.receive(buffer) == null)
+					break;
+				
+				buffer.flip();
+				
+				if (ControlInputCodec.decode(buffer, packet)) {
+					long restarts = jitterBuffer.getRestarts();
+					jitterBuffer.offer(packet, nowNanos);
+					
+					if (jitterBuffer.getRestarts() > restarts)
+						logger.info("Flight controls rig restarted, resynchronizing at packet " + packet.getSequence() + "...");
+				} else {
+					rejected++;
+				}
+			}
+		} catch (IOException e) {
+			if (failed++ == 0)
+				logger.warn("Error receiving flight controls, continuing with controls received so far...", e);
+		}
+		
+		int mask = jitterBuffer.sample(nowNanos, values);
+		
+		for (FlightControl control : CONTROLS) {
+			if ((mask & (1 << control.ordinal())) != 0)
+				controlsState.set(control, values[control.ordinal()]);
+		}
+		
+		return mask != 0;
+	}
+	
+	/**
+	 * @return local port that control positions are received on
+	 * @throws IOException
+	 */
+	public int getLocalPort() throws IOException { return ((InetSocketAddress) channel.getLocalAddress()).getPort(); }
+	
+	/**
+	 * @return jitter buffer, which counts packets lost, reordered and late, and samples interpolated, extrapolated and held
+	 */
+	public ControlJitterBuffer getJitterBuffer() { return jitterBuffer; }
+	
+	/**
+	 * @return number of datagrams that were not control input of this version and schema
+	 */
+	public long getRejected() { return rejected; }
+	
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Error closing flight controls channel!", e);
+		}
+		
+		logger.debug(toString());
+	}
+	
+	@Override
+	public String toString() {
+		return jitterBuffer.toString() + ", rejected: " + rejected;
+	}
+}
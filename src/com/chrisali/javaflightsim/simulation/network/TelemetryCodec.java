@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+
+/**
+ * Encodes {@link FlightDataFrame} states into, and decodes them from, the binary datagrams sent by {@link TelemetrySender}. 
+ * All fields are in network (big endian) byte order. Each datagram consists of a header:
+ * 
+ * <p>magic (int) - {@link TelemetryCodec#MAGIC}, identifying the datagram as telemetry</p>
+ * <p>version (short) - {@link TelemetryCodec#VERSION} of this layout</p>
+ * <p>channel count (short) - number of {@link FlightDataType} channels that follow the header</p>
+ * <p>schema id (int) - {@link TelemetryCodec#SCHEMA_ID}, a checksum of the names and widths of the channels</p>
+ * <p>sequence (long) - number of the datagram in its sender's stream, starting from 1; gaps indicate lost datagrams</p>
+ * <p>timestamp (long) - {@link System#nanoTime()} at which the state was published to the sender (ns)</p>
+ * 
+ * <p>followed by the value of each {@link FlightDataType}, in ordinal order. Latitude and longitude are sent as doubles to keep their 
+ * precision; all other channels are sent as floats, which is ample for gauges and external displays</p>
+ * 
+ * <p>Receivers must reject datagrams whose schema id differs from their own, as their channels cannot be interpreted</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public final class TelemetryCodec {
+	
+	public static final int MAGIC = 0x4A36444D; // "J6DM"
+	
+	public static final short VERSION = 1;
+	
+	public static final int HEADER_BYTES = 28;
+	
+	private static final FlightDataType[] TYPES = FlightDataType.values();
+	
+	private static final boolean[] DOUBLE_PRECISION = new boolean[TYPES.length];
+	
+	static {
+		DOUBLE_PRECISION[FlightDataType.LATITUDE.ordinal()] = true;
+		DOUBLE_PRECISION[FlightDataType.LONGITUDE.ordinal()] = true;
+	}
+	
+	public static final int SCHEMA_ID = schemaId();
+	
+	public static final int PACKET_BYTES = packetBytes();
+	
+	private TelemetryCodec() {}
+	
+	private static int schemaId() {
+		CRC32 crc = new CRC32();
+		
+		for (FlightDataType type : TYPES) {
+			crc.update(type.name().getBytes(StandardCharsets.US_ASCII));
+			crc.update(DOUBLE_PRECISION[type.ordinal()] ? Double.BYTES : Float.BYTES);
+		}
+		
+		return (int) crc.getValue();
+	}
+	
+	private static int packetBytes() {
+		int bytes = HEADER_BYTES;
+		
+		for (FlightDataType type : TYPES)
+			bytes += DOUBLE_PRECISION[type.ordinal()] ? Double.BYTES : Float.BYTES;
+		
+		return bytes;
+	}
+	
+	/**
+	 * Encodes frame into buffer as a datagram, leaving buffer flipped and ready to send
+	 * 
+	 * @param frame state to encode
+	 * @param sequence number of the datagram in its sender's stream
+	 * @param buffer buffer of at least {@link TelemetryCodec#PACKET_BYTES}
+	 */
+	public static void encode(FlightDataFrame frame, long sequence, ByteBuffer buffer) {
+		buffer.clear();
+		
+		buffer.putInt(MAGIC)
+			  .putShort(VERSION)
+			  .putShort((short) TYPES.length)
+			  .putInt(SCHEMA_ID)
+			  .putLong(sequence)
+			  .putLong(frame.getNanos());
+		
+		for (FlightDataType type : TYPES) {
+			if (DOUBLE_PRECISION[type.ordinal()])
+				buffer.putDouble(frame.get(type));
+			else
+				buffer.putFloat((float) frame.get(type));
+		}
+		
+		buffer.flip();
+	}
+	
+	/**
+	 * Decodes a datagram in buffer into frame. The sequence and timestamp of the datagram become the sequence and publish time of frame
+	 * 
+	 * @param buffer flipped buffer containing a received datagram
+	 * @param frame state to decode into; unchanged if the datagram is rejected
+	 * @return true if the datagram was telemetry of this version and schema, and was decoded into frame
+	 */
+	public static boolean decode(ByteBuffer buffer, FlightDataFrame frame) {
+		if (buffer.remaining() != PACKET_BYTES)
+			return false;
+		
+		if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION || buffer.getShort() != TYPES.length || buffer.getInt() != SCHEMA_ID)
+			return false;
+		
+		frame.stamp(buffer.getLong(), buffer.getLong());
+		
+		for (FlightDataType type : TYPES)
+			frame.set(type, DOUBLE_PRECISION[type.ordinal()] ? buffer.getDouble() : buffer.getFloat());
+		
+		return true;
+	}
+}
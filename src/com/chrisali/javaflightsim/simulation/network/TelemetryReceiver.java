@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+
+/**
+ * Receives telemetry sent by a {@link TelemetrySender} on a unicast port or multicast group, decoding each datagram into a 
+ * {@link FlightDataFrame}. The receiver keeps track of datagrams lost or received out of order using their sequence numbers, 
+ * and of the latency between each state being published and being received. 
+ * 
+ * <p>Latency is measured against the sender's {@link System#nanoTime()}, so it is only meaningful when the receiver runs on the same 
+ * host as the sender, such as when measuring loopback performance</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TelemetryReceiver implements AutoCloseable {
+	
+	// Large enough for any UDP datagram on an Ethernet network, so that oversized datagrams are rejected rather than truncated
+	private static final int MAX_DATAGRAM_BYTES = 1500;
+	
+	private final DatagramChannel channel;
+	private final Selector selector;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_BYTES);
+	
+	private long lastSequence;
+	
+	private long received;
+	private long lost;
+	private long reordered;
+	private long rejected;
+	
+	private long minLatencyNanos = Long.MAX_VALUE;
+	private long maxLatencyNanos;
+	private long totalLatencyNanos;
+	
+	/**
+	 * Creates a receiver of unicast telemetry on a local address and port
+	 * 
+	 * @param bindAddress local address to receive on; a port of 0 selects any free port
+	 * @throws IOException if the channel could not be opened or bound
+	 */
+	public TelemetryReceiver(InetSocketAddress bindAddress) throws IOException {
+		channel = DatagramChannel.open(StandardProtocolFamily.INET);
+		selector = Selector.open();
+		
+		try {
+			channel.bind(bindAddress);
+			channel.configureBlocking(false);
+			channel.register(selector, SelectionKey.OP_READ);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates a receiver of telemetry sent to a multicast group
+	 * 
+	 * @param group multicast group to join
+	 * @param port port that telemetry is sent to
+	 * @param networkInterface interface on which to join the group
+	 * @throws IOException if the channel could not be opened or bound, or the group could not be joined
+	 */
+	public TelemetryReceiver(InetAddress group, int port, NetworkInterface networkInterface) throws IOException {
+		channel = DatagramChannel.open((group instanceof Inet6Address) ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET);
+		selector = Selector.open();
+		
+		try {
+			// Lets several receivers on one host listen to the same group
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			channel.bind(new InetSocketAddress(port));
+			channel.join(group, networkInterface);
+			channel.configureBlocking(false);
+			channel.register(selector, SelectionKey.OP_READ);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Waits for the next telemetry datagram and decodes it into frame. Datagrams that are not telemetry of this schema are skipped 
+	 * and counted by {@link TelemetryReceiver#getRejected()}
+	 * 
+	 * @param frame state to decode into
+	 * @param timeoutMillis longest time to wait for a datagram (ms)
+	 * @return true if a datagram was decoded into frame, or false if none arrived in time
+	 * @throws IOException
+	 */
+	public boolean receive(FlightDataFrame frame, long timeoutMillis) throws IOException {
+		long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+		
+		while (true) {
+			buffer.clear();
+			
+			if (channel.receive(buffer) == null) {
+				long remainingMillis = (deadline - System.nanoTime()) / 1_000_000L;
+				if (remainingMillis <= 0)
+					return false;
+				
+				selector.select(remainingMillis);
+				selector.selectedKeys().clear();
+				
+				continue;
+			}
+			
+			buffer.flip();
+			
+			if (!TelemetryCodec.decode(buffer, frame)) {
+				rejected++;
+				continue;
+			}
+			
+			account(frame);
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * Updates loss and latency statistics with a received state
+	 * 
+	 * @param frame
+	 */
+	private void account(FlightDataFrame frame) {
+		long sequence = frame.getSequence();
+		
+		if (sequence > lastSequence) {
+			if (lastSequence > 0)
+				lost += sequence - lastSequence - 1;
+			
+			lastSequence = sequence;
+		} else {
+			// A late datagram was counted as lost when the datagram after it arrived first
+			reordered++;
+			if (lost > 0)
+				lost--;
+		}
+		
+		received++;
+		
+		long latencyNanos = System.nanoTime() - frame.getNanos();
+		minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+		maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+		totalLatencyNanos += latencyNanos;
+	}
+	
+	/**
+	 * @return local port that telemetry is received on
+	 * @throws IOException
+	 */
+	public int getLocalPort() throws IOException { return ((InetSocketAddress) channel.getLocalAddress()).getPort(); }
+	
+	/**
+	 * @return number of datagrams received and decoded
+	 */
+	public long getReceived() { return received; }
+	
+	/**
+	 * @return number of datagrams missing from the sequence received so far
+	 */
+	public long getLost() { return lost; }
+	
+	/**
+	 * @return fraction of datagrams sent up to the latest one received that were lost
+	 */
+	public double getLossRatio() { return (received + lost) > 0 ? lost / (double) (received + lost) : 0.0; }
+	
+	/**
+	 * @return number of datagrams received after a datagram later in the sequence
+	 */
+	public long getReordered() { return reordered; }
+	
+	/**
+	 * @return number of datagrams that were not telemetry of this version and schema
+	 */
+	public long getRejected() { return rejected; }
+	
+	/**
+	 * @return shortest time between a state being published and being received (ns)
+	 */
+	public long getMinLatencyNanos() { return received > 0 ? minLatencyNanos : 0; }
+	
+	/**
+	 * @return longest time between a state being published and being received (ns)
+	 */
+	public long getMaxLatencyNanos() { return maxLatencyNanos; }
+	
+	/**
+	 * @return mean time between a state being published and being received (ns)
+	 */
+	public double getMeanLatencyNanos() { return received > 0 ? totalLatencyNanos / (double) received : 0.0; }
+	
+	@Override
+	public void close() throws IOException {
+		try {
+			selector.close();
+		} finally {
+			channel.close();
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Telemetry received: %d, lost: %d (%.3f%%), reordered: %d, rejected: %d, latency min/mean/max: %.1f/%.1f/%.1f us", 
+							 received, lost, getLossRatio() * 100, reordered, rejected, 
+							 getMinLatencyNanos() / 1e3, getMeanLatencyNanos() / 1e3, getMaxLatencyNanos() / 1e3);
+	}
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSubscriber;
+import com.chrisali.javaflightsim.simulation.setup.NetworkConfiguration;
+
+/**
+ * Broadcasts flight data to external displays and recorders over UDP. Each state received is encoded by {@link TelemetryCodec} into 
+ * a reused buffer and sent as a single datagram to a unicast address or multicast group through a non-blocking {@link DatagramChannel}.
+ * 
+ * <p>The sender should be subscribed to {@link FlightData} with {@link FlightDataDelivery#DEDICATED} delivery at the telemetry rate, 
+ * so that datagrams are sent on their own thread and the simulation thread never waits on the network. If the socket's send buffer 
+ * is full, the datagram is dropped rather than waited on, and counted by {@link TelemetrySender#getDropped()}</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TelemetrySender implements FlightDataSubscriber, AutoCloseable {
+	
+	private static final Logger logger = LogManager.getLogger(TelemetrySender.class);
+	
+	private final DatagramChannel channel;
+	private final InetSocketAddress target;
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(TelemetryCodec.PACKET_BYTES);
+	
+	private long sequence;
+	
+	private volatile long sent;
+	private volatile long dropped;
+	private volatile long failed;
+	
+	/**
+	 * Creates a sender of telemetry to a unicast address, or to a multicast group using the default interface 
+	 * 
+	 * @param target address and port to send datagrams to
+	 * @throws IOException if the channel could not be opened
+	 */
+	public TelemetrySender(InetSocketAddress target) throws IOException {
+		this(target, null, 1);
+	}
+	
+	/**
+	 * Creates a sender of telemetry to a unicast address or multicast group
+	 * 
+	 * @param target address and port to send datagrams to
+	 * @param multicastInterface interface to send multicast datagrams from, or null to let the operating system choose
+	 * @param multicastTtl number of routers that multicast datagrams may cross
+	 * @throws IOException if the channel could not be opened
+	 */
+	public TelemetrySender(InetSocketAddress target, NetworkInterface multicastInterface, int multicastTtl) throws IOException {
+		this.target = target;
+		
+		InetAddress address = target.getAddress();
+		ProtocolFamily family = (address instanceof Inet6Address) ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET;
+		
+		channel = DatagramChannel.open(family);
+		
+		try {
+			channel.configureBlocking(false);
+			
+			if (address.isMulticastAddress()) {
+				channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, multicastTtl);
+				channel.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+				
+				if (multicastInterface != null)
+					channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, multicastInterface);
+			}
+			
+			// Connecting fixes the destination, so that no address is resolved or checked for each datagram
+			channel.connect(target);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		logger.debug("Sending telemetry to " + target + " (" + TelemetryCodec.PACKET_BYTES + " bytes per datagram)");
+	}
+	
+	/**
+	 * Creates a sender of telemetry to the address, port and multicast settings of a {@link NetworkConfiguration}
+	 * 
+	 * @param configuration
+	 * @return sender
+	 * @throws IOException if the address or interface could not be resolved, or if the channel could not be opened
+	 */
+	public static TelemetrySender fromConfiguration(NetworkConfiguration configuration) throws IOException {
+		InetSocketAddress target = new InetSocketAddress(InetAddress.getByName(configuration.getTelemetryAddress()), 
+														 configuration.getTelemetryPort());
+		
+		NetworkInterface multicastInterface = null;
+		if (configuration.getMulticastInterface() != null) {
+			multicastInterface = NetworkInterface.getByName(configuration.getMulticastInterface());
+			
+			if (multicastInterface == null)
+				throw new IOException("Network interface " + configuration.getMulticastInterface() + " not found");
+		}
+		
+		return new TelemetrySender(target, multicastInterface, configuration.getMulticastTtl());
+	}
+	
+	/**
+	 * Encodes and sends frame as a datagram. Every state consumes a sequence number, even if it is dropped or fails to send, so that 
+	 * receivers can count the datagrams that they have missed
+	 */
+	@Override
+	public void onFlightData(FlightDataFrame frame) {
+		TelemetryCodec.encode(frame, ++sequence, buffer);
+		
+		try {
+			if (channel.write(buffer) > 0)
+				sent++;
+			else
+				dropped++;
+		} catch (IOException e) {
+			// Typically a port unreachable error when no receiver is listening; keep sending in case one starts
+			if (failed++ == 0)
+				logger.warn("Could not send telemetry to " + target + ", continuing to send...", e);
+		}
+	}
+	
+	/**
+	 * @return address and port that datagrams are sent to
+	 */
+	public InetSocketAddress getTarget() { return target; }
+	
+	/**
+	 * @return number of datagrams sent
+	 */
+	public long getSent() { return sent; }
+	
+	/**
+	 * @return number of datagrams dropped because the socket's send buffer was full
+	 */
+	public long getDropped() { return dropped; }
+	
+	/**
+	 * @return number of datagrams that could not be sent because of a network error
+	 */
+	public long getFailed() { return failed; }
+	
+	/**
+	 * Closes the channel; states received afterwards are counted as failed
+	 */
+	@Override
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			logger.error("Error closing telemetry channel!", e);
+		}
+		
+		logger.debug(toString());
+	}
+	
+	@Override
+	public String toString() {
+		return "Telemetry to " + target + ": " + sent + " sent, " + dropped + " dropped, " + failed + " failed";
+	}
+}
@@ -19,14 +19,15 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.propulsion;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.Map;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
 import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
@@ -35,7 +36,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
  * It uses the 1976 NASA Standard Atmosphere model, and assumes that gravity is constant in the Z direction.
  */
 @JsonDeserialize(as = FixedPitchPropEngine.class)
-public abstract class Engine {
+public abstract class Engine implements Snapshottable {
 	
 	// Propeller Engine Parameters
 	@JsonIgnore
@@ -70,7 +71,7 @@ public abstract class Engine {
 	@JsonIgnore
 	protected double[] engineThrust   = {0, 0, 0};	// {T_x,T_y,T_z}	    (lbf)			
 	@JsonIgnore
-	protected double[] engineMoment;				// {M_x,M_y,M_z}        (lbf)
+	protected double[] engineMoment   = {0, 0, 0};	// {M_x,M_y,M_z}        (lbf)
 		
 	//TODO need engine model properties (etaP, advance ratio, bhp curves) for lookup tables
 	//TODO etaP needs to vary
@@ -78,23 +79,38 @@ public abstract class Engine {
 	/**
 	 * Calculates all parameters of the engine given the input parameters specified below
 	 * 
-	 * @param controls
-	 * @param environmentParameters
+	 * @param controls flight control values indexed by {@link FlightControl} ordinal
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
 	 * @param windParameters
 	 */
-	public abstract void updateEngineState(Map<FlightControl, Double> controls,				
-										   Map<EnvironmentParameters, Double> environmentParameters,
+	public abstract void updateEngineState(double[] controls,				
+										   double[] environmentParameters,
 										   double[] windParameters);
 	
+	/**
+	 * Calculates all parameters of the engine given the input parameters specified below; the controls map is copied into 
+	 * a primitive array with {@link FlightControlsState#copyToArray(Map, double[])}, so this is intended for use outside of the
+	 * simulation loop
+	 * 
+	 * @param controls
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
+	 * @param windParameters
+	 */
+	public void updateEngineState(Map<FlightControl, Double> controls,				
+								  double[] environmentParameters,
+								  double[] windParameters) {
+		updateEngineState(FlightControlsState.copyToArray(controls, new double[FlightControl.values().length]), 
+						  environmentParameters, windParameters);
+	}
+	
 	/**
 	 * Calculates the moment generated by the engine as a function of its thrust and location
 	 * relative to the aircraft's center of gravity. Used in {@link Engine#updateEngineState(EnumMap, EnumMap, double[])}
 	 */
 	protected void calculateEngMoments() {
-		Vector3D forceVector = new Vector3D(engineThrust);
-		Vector3D armVector   = new Vector3D(enginePosition);
-		
-		this.engineMoment = Vector3D.crossProduct(forceVector, armVector).toArray();
+		engineMoment[0] = engineThrust[1]*enginePosition[2] - engineThrust[2]*enginePosition[1];
+		engineMoment[1] = engineThrust[2]*enginePosition[0] - engineThrust[0]*enginePosition[2];
+		engineMoment[2] = engineThrust[0]*enginePosition[1] - engineThrust[1]*enginePosition[0];
 	}
 	
 	/**
@@ -116,6 +132,24 @@ public abstract class Engine {
 	 * @return engine fuel flow (gal/hr)
 	 */
 	public double getFuelFlow() { return fuelFlow; }
+	
+	/**
+	 * Writes the state parameters of the engine; subclasses with state of their own should write it after calling this method
+	 */
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		buffer.putDouble(rpm).putDouble(fuelFlow);
+		Snapshottable.writeArray(buffer, engineThrust);
+		Snapshottable.writeArray(buffer, engineMoment);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		rpm = buffer.getDouble();
+		fuelFlow = buffer.getDouble();
+		Snapshottable.readArray(buffer, engineThrust);
+		Snapshottable.readArray(buffer, engineMoment);
+	}
 			
 	public double getMaxBHP() { return maxBHP; }
 
@@ -19,8 +19,8 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.propulsion;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Map;
 
 import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
@@ -30,6 +30,9 @@ import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
  * Simple piston engine model with a fixed pitch propeller
  */
 public class FixedPitchPropEngine extends Engine {
+	// Index of density in the primitive environment parameters array
+	private static final int RHO = EnvironmentParameters.RHO.ordinal();
+	
 	private double throttle;
 	private double mixture;
 	
@@ -77,26 +80,27 @@ public class FixedPitchPropEngine extends Engine {
 	/**
 	 * Updates all fields of engine; called by {@link Integrate6DOFEquations} to recalculate thrust, moment, fuel flow and RPM for this engine
 	 */
-	public void updateEngineState(Map<FlightControl, Double> controls,				
-								  Map<EnvironmentParameters, Double> environmentParameters,
+	@Override
+	public void updateEngineState(double[] controls,				
+								  double[] environmentParameters,
 								  double[] windParameters) {		//{vTrue,beta,alpha}
 		// Assign engine controls depending on engine number specified
 		switch (engineNumber) {
 			case 1:
-				mixture  = controls.get(FlightControl.MIXTURE_1);
-				throttle = controls.get(FlightControl.THROTTLE_1);
+				mixture  = controls[FlightControl.MIXTURE_1.ordinal()];
+				throttle = controls[FlightControl.THROTTLE_1.ordinal()];
 				break;
 			case 2:
-				mixture  = controls.get(FlightControl.MIXTURE_2);
-				throttle = controls.get(FlightControl.THROTTLE_2);
+				mixture  = controls[FlightControl.MIXTURE_2.ordinal()];
+				throttle = controls[FlightControl.THROTTLE_2.ordinal()];
 				break;
 			case 3:
-				mixture  = controls.get(FlightControl.MIXTURE_3);
-				throttle = controls.get(FlightControl.THROTTLE_3);
+				mixture  = controls[FlightControl.MIXTURE_3.ordinal()];
+				throttle = controls[FlightControl.THROTTLE_3.ordinal()];
 				break;
 			case 4:
-				mixture  = controls.get(FlightControl.MIXTURE_4);
-				throttle = controls.get(FlightControl.THROTTLE_4);
+				mixture  = controls[FlightControl.MIXTURE_4.ordinal()];
+				throttle = controls[FlightControl.THROTTLE_4.ordinal()];
 				break;
 		}
 		
@@ -113,18 +117,18 @@ public class FixedPitchPropEngine extends Engine {
 	/**
 	 * Calculates thrust of the engine
 	 * 
-	 * @param environmentParameters
+	 * @param environmentParameters environment parameter values indexed by {@link EnvironmentParameters} ordinal
 	 * @param windParameters
 	 * 
 	 * @return Double array vector of engine force (lbf)
 	 */
-	private void calculateThrust(Map<EnvironmentParameters, Double> environmentParameters, 
+	private void calculateThrust(double[] environmentParameters, 
 								 double[] windParameters) {		 
 		// Consider static thrust case at low speeds
 		if (windParameters[0] <= 65)
-			this.engineThrust[0] = Math.pow((throttle*maxBHP*HP_2_FTLBS), 0.6667)*Math.pow((2*environmentParameters.get(EnvironmentParameters.RHO)*propArea), 0.3333);			
+			this.engineThrust[0] = Math.pow((throttle*maxBHP*HP_2_FTLBS), 0.6667)*Math.pow((2*environmentParameters[RHO]*propArea), 0.3333);			
 		else
-			this.engineThrust[0] = (throttle*maxBHP*HP_2_FTLBS)*((A_P*environmentParameters.get(EnvironmentParameters.RHO)/RHO_SSL)-B_P)*(propEfficiency/windParameters[0]);
+			this.engineThrust[0] = (throttle*maxBHP*HP_2_FTLBS)*((A_P*environmentParameters[RHO]/RHO_SSL)-B_P)*(propEfficiency/windParameters[0]);
 	}
 	
 	/**
@@ -137,6 +141,19 @@ public class FixedPitchPropEngine extends Engine {
 	 */
 	private void calculateRPM() {this.rpm = 500+(throttle*(maxRPM-500));} 		 // TODO need better method of getting RPM
 	
+	@Override
+	public void writeState(ByteBuffer buffer) {
+		super.writeState(buffer);
+		buffer.putDouble(throttle).putDouble(mixture);
+	}
+	
+	@Override
+	public void readState(ByteBuffer buffer) {
+		super.readState(buffer);
+		throttle = buffer.getDouble();
+		mixture = buffer.getDouble();
+	}
+	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Append-only recorder that writes every {@link SimOutFrame} of a simulation to disk as a fixed-width binary frame through a 
+ * {@link MappedByteBuffer}, so that long flights can be kept in full without holding them on the heap. A recording is a series of 
+ * segment files, each beginning with a self-describing {@link RecordingHeader}. A new segment is started when the current one is 
+ * full, or when time goes backwards after the simulation is reset, so that time always increases within a segment. Each segment 
+ * holds a time index of every {@link RecordingHeader#getIndexInterval()}th frame, which {@link FlightRecording} uses to seek in 
+ * O(log n) time.
+ * 
+ * <p>The count of frames in a segment's header is only updated once a frame has been completely written, so a recording left 
+ * behind by a crash holds every frame committed before it, and no partial frame. Segments that have been filled are forced to disk 
+ * and closed on a background thread, so that the simulation thread only ever writes to memory</p>
+ * 
+ * <p>As a {@link Steppable}, the recorder records all frames appended to a {@link SimOutHistory} since its last step</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightRecorder implements Steppable, Closeable {
+	
+	private static final Logger logger = LogManager.getLogger(FlightRecorder.class);
+	
+	public static final String RECORDING_EXT = ".j6rec";
+	
+	public static final int DEFAULT_FRAMES_PER_SEGMENT = 65536;
+	public static final int DEFAULT_INDEX_INTERVAL = 64;
+	
+	private final File directory;
+	private final String name;
+	private final String aircraftName;
+	private final byte[] configurationHash;
+	private final List<String> channels = new ArrayList<>();
+	private final int framesPerSegment;
+	private final int indexInterval;
+	
+	private final double[] frameValues = new double[SimOuts.CHANNEL_COUNT];
+	
+	// Forces retired segments to disk off of the simulation thread
+	private final ExecutorService segmentCloser = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Flight Recorder Segment Closer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private MappedByteBuffer buffer;
+	private DoubleBuffer frames;
+	private RecordingHeader header;
+	
+	private int segmentNumber = -1;
+	private int segmentFrames;
+	private long recordedFrames;
+	private double lastTime;
+	private boolean closed;
+	
+	private SimOutHistory source;
+	private final SimOutFrame sourceFrame = new SimOutFrame();
+	private long nextSourceSequence;
+	private double stepRateHz;
+	
+	/**
+	 * Creates a recorder whose segments are named "name-NNNN{@value #RECORDING_EXT}" in directory, and opens its first segment
+	 * 
+	 * @param directory directory to write segments to; created if it does not exist
+	 * @param name name of the recording
+	 * @param aircraftName name of the recorded aircraft, stored in each segment's header
+	 * @param configurationHash 32 byte hash of the recorded setup, stored in each segment's header
+	 * @param framesPerSegment maximum number of frames held by each segment
+	 * @param indexInterval number of frames between entries of each segment's time index
+	 * @throws IOException if the first segment could not be created
+	 */
+	public FlightRecorder(File directory, String name, String aircraftName, byte[] configurationHash, 
+						  int framesPerSegment, int indexInterval) throws IOException {
+		if (framesPerSegment < 1 || indexInterval < 1)
+			throw new IllegalArgumentException("Frames per segment and index interval must both be at least one");
+		
+		this.directory = directory;
+		this.name = name;
+		this.aircraftName = aircraftName;
+		this.configurationHash = configurationHash.clone();
+		this.framesPerSegment = framesPerSegment;
+		this.indexInterval = indexInterval;
+		
+		for (SimOuts simOut : SimOuts.values())
+			channels.add(simOut.name());
+		
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create flight recording directory: " + directory.getAbsolutePath());
+		
+		openSegment();
+	}
+	
+	/**
+	 * Creates a recorder with default segment and index sizes for the aircraft and configuration of a simulation context
+	 * 
+	 * @param directory directory to write segments to; created if it does not exist
+	 * @param name name of the recording
+	 * @param context
+	 * @throws IOException if the first segment could not be created
+	 */
+	public FlightRecorder(File directory, String name, SimulationContext context) throws IOException {
+		this(directory, name, context.getConfiguration().getSelectedAircraft(), 
+			 RecordingHeader.hashOf(context.getConfiguration(), context.getAircraft()), 
+			 DEFAULT_FRAMES_PER_SEGMENT, DEFAULT_INDEX_INTERVAL);
+	}
+	
+	/**
+	 * @param directory
+	 * @param name name of the recording
+	 * @param segmentNumber
+	 * @return file holding a segment of a recording
+	 */
+	public static File segmentFile(File directory, String name, int segmentNumber) {
+		return new File(directory, String.format("%s-%04d%s", name, segmentNumber, RECORDING_EXT));
+	}
+	
+	/**
+	 * Appends a frame to the recording, starting a new segment first if the current one is full or if time has gone backwards
+	 * 
+	 * @param frame
+	 * @throws IOException if a new segment could not be created
+	 */
+	public void record(SimOutFrame frame) throws IOException {
+		if (closed)
+			throw new IOException("Flight recorder has been closed");
+		
+		double time = frame.get(SimOuts.TIME);
+		
+		if (segmentFrames == framesPerSegment || (segmentFrames > 0 && time < lastTime))
+			rollOver();
+		
+		frame.copyTo(frameValues, 0);
+		frames.put(frameValues);
+		
+		if (segmentFrames % indexInterval == 0)
+			buffer.putDouble(header.getIndexOffset() + (segmentFrames / indexInterval) * Double.BYTES, time);
+		
+		segmentFrames++;
+		recordedFrames++;
+		lastTime = time;
+		
+		// Only count the frame once it has been completely written
+		buffer.putLong(RecordingHeader.COMMITTED_FRAMES_OFFSET, segmentFrames);
+	}
+	
+	/**
+	 * Sets a history whose frames are recorded each time the recorder is step updated, beginning with its oldest retained frame
+	 * 
+	 * @param history history of a simulation, such as {@link Integrate6DOFEquations#getHistory()}
+	 * @param stepRateHz rate at which the recorder should be step updated (Hz)
+	 */
+	public void recordFrom(SimOutHistory history, double stepRateHz) {
+		this.source = history;
+		this.stepRateHz = stepRateHz;
+		
+		nextSourceSequence = history.getFirstSequence();
+	}
+	
+	/**
+	 * Records all frames appended to the history set in {@link FlightRecorder#recordFrom(SimOutHistory, double)} since the last step. 
+	 * If the recorder cannot write to its segments, the error is logged and recording stops
+	 */
+	@Override
+	public void step() {
+		if (source == null || closed)
+			return;
+		
+		long firstSequence = source.getFirstSequence();
+		if (nextSourceSequence < firstSequence) {
+			logger.warn("Flight recorder fell behind the simulation; " + (firstSequence - nextSourceSequence) + " frames were not recorded");
+			nextSourceSequence = firstSequence;
+		}
+		
+		try {
+			for (long nextSequence = source.getNextSequence(); nextSourceSequence < nextSequence; nextSourceSequence++) {
+				if (source.readFrame(nextSourceSequence, sourceFrame))
+					record(sourceFrame);
+			}
+		} catch (IOException e) {
+			logger.error("Flight recorder could not write to " + name + "; recording stopped", e);
+			close();
+		}
+	}
+
+	@Override
+	public double getStepRateHz() {
+		return stepRateHz;
+	}
+
+	@Override
+	public int getStepPhase() {
+		return 0;
+	}
+	
+	/**
+	 * Marks the current segment as closed, and waits until all segments have been forced to disk
+	 */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		
+		closed = true;
+		retireSegment();
+		segmentCloser.shutdown();
+		
+		try {
+			if (!segmentCloser.awaitTermination(30, TimeUnit.SECONDS))
+				logger.error("Timed out waiting for flight recorder segments of " + name + " to be written to disk");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		logger.debug("Flight recording " + name + " closed after " + recordedFrames + " frames in " + (segmentNumber + 1) + " segment(s)");
+	}
+	
+	private void rollOver() throws IOException {
+		retireSegment();
+		openSegment();
+	}
+	
+	/**
+	 * Creates and maps the next segment file, and writes its header 
+	 */
+	private void openSegment() throws IOException {
+		segmentNumber++;
+		segmentFrames = 0;
+		header = new RecordingHeader(aircraftName, configurationHash, channels, segmentNumber, indexInterval, 
+									 framesPerSegment, recordedFrames, System.currentTimeMillis());
+		
+		if (header.getSegmentBytes() > Integer.MAX_VALUE)
+			throw new IOException("Flight recording segments of " + framesPerSegment + " frames are too large to map");
+		
+		File file = segmentFile(directory, name, segmentNumber);
+		logger.debug("Opening flight recording segment " + file.getAbsolutePath());
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(header.getSegmentBytes());
+			
+			// The mapping remains valid once the file is closed
+			buffer = raf.getChannel().map(MapMode.READ_WRITE, 0, header.getSegmentBytes());
+		}
+		
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		header.write(buffer);
+		
+		buffer.position(header.getFramesOffset());
+		frames = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		buffer.position(0);
+	}
+	
+	/**
+	 * Marks the current segment as closed, and forces it to disk on the segment closer's thread 
+	 */
+	private void retireSegment() {
+		final MappedByteBuffer retired = buffer;
+		retired.putInt(RecordingHeader.CLOSED_OFFSET, 1);
+		
+		segmentCloser.execute(() -> retired.force());
+	}
+	
+	/**
+	 * @return total number of frames recorded
+	 */
+	public long getRecordedFrames() { return recordedFrames; }
+	
+	/**
+	 * @return number of segments created by the recorder
+	 */
+	public int getSegmentCount() { return segmentNumber + 1; }
+	
+	public String getName() { return name; }
+	
+	public File getDirectory() { return directory; }
+}
@@ -0,0 +1,316 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Read-only view of a recording written by {@link FlightRecorder}. Segments are memory-mapped and read in place, so a recording 
+ * of any length can be opened without reading it onto the heap. Only frames committed to each segment are visible, so a recording 
+ * left behind by a crash can be read up to its last complete frame. Frames are numbered consecutively across all segments
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightRecording {
+	
+	private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+	
+	// Name of a recording from the name of one of its segments
+	private static final Pattern SEGMENT_NAME = Pattern.compile("(.+)-\\d{4,}" + Pattern.quote(FlightRecorder.RECORDING_EXT));
+	
+	private final List<Segment> segments;
+	private final long frameCount;
+	
+	// Slot in SimOutFrame of each recorded channel, or -1 if the channel is no longer a SimOuts channel
+	private final int[] channelSlots;
+	
+	// Recorded channel of each SimOutFrame slot, or -1 if the slot was not recorded
+	private final int[] slotChannels = new int[SimOuts.CHANNEL_COUNT];
+	private final int timeChannel;
+	
+	private FlightRecording(List<Segment> segments) {
+		this.segments = segments;
+		
+		Segment last = segments.get(segments.size() - 1);
+		frameCount = last.firstFrame + last.frames;
+		
+		List<String> channels = getHeader().getChannels();
+		channelSlots = new int[channels.size()];
+		
+		for (int i = 0; i < channelSlots.length; i++) {
+			try {
+				channelSlots[i] = SimOuts.valueOf(channels.get(i)).ordinal();
+			} catch (IllegalArgumentException e) {
+				logger.warn("Recorded channel " + channels.get(i) + " is not a simulation output; it will be ignored");
+				channelSlots[i] = -1;
+			}
+		}
+		
+		Arrays.fill(slotChannels, -1);
+		for (int i = 0; i < channelSlots.length; i++) {
+			if (channelSlots[i] >= 0)
+				slotChannels[channelSlots[i]] = i;
+		}
+		
+		timeChannel = channels.indexOf(SimOuts.TIME.name());
+	}
+	
+	/**
+	 * Opens all consecutive segments of a recording, beginning with its first segment. Reading stops at the first segment that is
+	 * missing, or that does not continue from the segment before it
+	 * 
+	 * @param directory
+	 * @param name name of the recording
+	 * @return recording
+	 * @throws IOException if the first segment could not be read
+	 */
+	public static FlightRecording open(File directory, String name) throws IOException {
+		List<Segment> segments = new ArrayList<>();
+		
+		for (int segmentNumber = 0; ; segmentNumber++) {
+			File file = FlightRecorder.segmentFile(directory, name, segmentNumber);
+			if (!file.isFile())
+				break;
+			
+			Segment segment = new Segment(file);
+			
+			if (!segments.isEmpty()) {
+				Segment previous = segments.get(segments.size() - 1);
+				
+				if (segment.firstFrame != previous.firstFrame + previous.frames 
+						|| !segment.header.getChannels().equals(previous.header.getChannels())) {
+					logger.warn("Flight recording segment " + file.getName() + " does not continue from the segment before it; ignoring it");
+					break;
+				}
+			}
+			
+			segments.add(segment);
+		}
+		
+		if (segments.isEmpty())
+			throw new IOException("Could not find flight recording " + FlightRecorder.segmentFile(directory, name, 0).getAbsolutePath());
+		
+		return new FlightRecording(segments);
+	}
+	
+	/**
+	 * Opens the recording that a segment file belongs to, beginning with its first segment
+	 * 
+	 * @param segmentFile any segment file of the recording, named as by {@link FlightRecorder#segmentFile(File, String, int)}
+	 * @return recording
+	 * @throws IOException if the file is not named as a segment, or the first segment could not be read
+	 */
+	public static FlightRecording open(File segmentFile) throws IOException {
+		Matcher matcher = SEGMENT_NAME.matcher(segmentFile.getName());
+		if (!matcher.matches())
+			throw new IOException(segmentFile.getName() + " is not a flight recording segment");
+		
+		return open(segmentFile.getAbsoluteFile().getParentFile(), matcher.group(1));
+	}
+	
+	/**
+	 * Copies a frame of the recording into frame. Channels that were not recorded are left unchanged
+	 * 
+	 * @param frameNumber
+	 * @param frame
+	 */
+	public void readFrame(long frameNumber, SimOutFrame frame) {
+		Segment segment = segmentOf(frameNumber);
+		int position = segment.framePosition(frameNumber);
+		
+		for (int channel = 0; channel < channelSlots.length; channel++) {
+			if (channelSlots[channel] >= 0)
+				frame.set(channelSlots[channel], segment.buffer.getDouble(position + channel * Double.BYTES));
+		}
+	}
+	
+	/**
+	 * Copies up to length consecutive values of a channel, starting at frame fromFrame, into destination. Values of a channel that was 
+	 * not recorded are copied as NaN
+	 * 
+	 * @param channel
+	 * @param fromFrame
+	 * @param destination
+	 * @param offset
+	 * @param length
+	 * @return number of values copied, which is less than length if the end of the recording is reached
+	 */
+	public int readChannel(SimOuts channel, long fromFrame, double[] destination, int offset, int length) {
+		int count = (int) Math.max(0, Math.min(length, frameCount - fromFrame));
+		int recordedChannel = slotChannels[channel.ordinal()];
+		
+		if (recordedChannel < 0) {
+			Arrays.fill(destination, offset, offset + count, Double.NaN);
+			return count;
+		}
+		
+		for (int copied = 0; copied < count; ) {
+			long frameNumber = fromFrame + copied;
+			Segment segment = segmentOf(frameNumber);
+			int inSegment = (int) Math.min(count - copied, segment.firstFrame + segment.frames - frameNumber);
+			
+			int position = segment.framePosition(frameNumber) + recordedChannel * Double.BYTES;
+			for (int i = 0; i < inSegment; i++, position += segment.header.getFrameBytes())
+				destination[offset + copied + i] = segment.buffer.getDouble(position);
+			
+			copied += inSegment;
+		}
+		
+		return count;
+	}
+	
+	/**
+	 * @param frameNumber
+	 * @return time of a frame of the recording (sec)
+	 */
+	public double getTime(long frameNumber) {
+		if (timeChannel < 0)
+			throw new IllegalStateException("Recording does not contain a " + SimOuts.TIME.name() + " channel");
+		
+		Segment segment = segmentOf(frameNumber);
+		
+		return segment.buffer.getDouble(segment.framePosition(frameNumber) + timeChannel * Double.BYTES);
+	}
+	
+	/**
+	 * Finds the first frame at or after a time. Time increases within each segment, so the segment is found by its first and last 
+	 * frames, and the frame within it by a binary search of its time index followed by a scan of at most one index interval
+	 * 
+	 * @param time (sec)
+	 * @return number of the first frame whose time is at or after time, or {@link FlightRecording#getFrameCount()} if there is none 
+	 */
+	public long seek(double time) {
+		for (Segment segment : segments) {
+			if (segment.frames == 0 || getTime(segment.firstFrame + segment.frames - 1) < time)
+				continue;
+			
+			// Last index entry at or before time
+			int low = 0, high = segment.indexEntries() - 1;
+			while (low < high) {
+				int middle = (low + high + 1) >>> 1;
+				
+				if (segment.indexTime(middle) <= time)
+					low = middle;
+				else
+					high = middle - 1;
+			}
+			
+			long frameNumber = segment.firstFrame + (long) low * segment.header.getIndexInterval();
+			while (getTime(frameNumber) < time)
+				frameNumber++;
+			
+			return frameNumber;
+		}
+		
+		return frameCount;
+	}
+	
+	private Segment segmentOf(long frameNumber) {
+		if (frameNumber < 0 || frameNumber >= frameCount)
+			throw new IndexOutOfBoundsException("Frame " + frameNumber + " is outside of the recording's " + frameCount + " frames");
+		
+		int low = 0, high = segments.size() - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			
+			if (segments.get(middle).firstFrame <= frameNumber)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		
+		return segments.get(low);
+	}
+	
+	/**
+	 * @return header of the recording's first segment
+	 */
+	public RecordingHeader getHeader() { return segments.get(0).header; }
+	
+	/**
+	 * @return headers of all of the recording's segments
+	 */
+	public List<RecordingHeader> getSegmentHeaders() {
+		List<RecordingHeader> headers = new ArrayList<>();
+		for (Segment segment : segments)
+			headers.add(segment.header);
+		
+		return Collections.unmodifiableList(headers);
+	}
+	
+	/**
+	 * @return number of frames in all segments of the recording
+	 */
+	public long getFrameCount() { return frameCount; }
+	
+	/**
+	 * Segment of a recording mapped read-only 
+	 */
+	private static class Segment {
+		private final RecordingHeader header;
+		private final ByteBuffer buffer;
+		private final long firstFrame;
+		private final int frames;
+		
+		private Segment(File file) throws IOException {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+				buffer = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length()).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			
+			header = RecordingHeader.read(buffer);
+			
+			if (header.getSegmentBytes() > buffer.capacity())
+				throw new IOException("Flight recording segment " + file.getName() + " is truncated");
+			
+			firstFrame = header.getFirstFrame();
+			frames = (int) header.getCommittedFrames();
+		}
+		
+		private int framePosition(long frameNumber) {
+			return header.getFramesOffset() + (int) (frameNumber - firstFrame) * header.getFrameBytes();
+		}
+		
+		private int indexEntries() {
+			return (frames + header.getIndexInterval() - 1) / header.getIndexInterval();
+		}
+		
+		private double indexTime(int entry) {
+			return buffer.getDouble(header.getIndexOffset() + entry * Double.BYTES);
+		}
+	}
+}
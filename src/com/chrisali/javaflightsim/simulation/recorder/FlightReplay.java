@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.SimOutSource;
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.RingBufferHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+
+/**
+ * Plays back a {@link FlightRecording} in place of {@link Integrate6DOFEquations}, so that a recorded flight can be shown through 
+ * {@link FlightData} and its listeners without running the physics again. Each step update advances the replay by its speed multiplied
+ * by the time between step updates, which may be run forwards or in reverse at between {@value #MIN_SPEED}x and {@value #MAX_SPEED}x.
+ * 
+ * <p>Playback moves from frame to frame through the recording, reading only the frames it passes over; seeking moves directly to a
+ * frame, so that jumping to any point of a long recording takes the same time. Where time goes backwards between segments, because 
+ * the recorded simulation was reset, playback continues directly into the next segment. Playback pauses when it reaches either end of 
+ * the recording</p>
+ * 
+ * <p>Pausing, seeking and changing speed may be requested from any thread, and take effect at the next step update</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightReplay implements SimOutSource, Steppable {
+	
+	private static final Logger logger = LogManager.getLogger(FlightReplay.class);
+	
+	public static final double MIN_SPEED = 0.25;
+	public static final double MAX_SPEED = 16.0;
+	
+	// Played back frames are kept in the history for the raw data console and plots 
+	private static final double HISTORY_SEC = 100.0;
+	
+	private static final long NO_SEEK = -1;
+	
+	// Allows for round off in recorded times when comparing them with replay time (sec)
+	private static final double TIME_TOLERANCE = 1e-9;
+	
+	private final FlightRecording recording;
+	private final double stepRateHz;
+	private final long lastFrame;
+	
+	private final SimOutFrame simOut = new SimOutFrame();
+	private final SimOutHistory history;
+	
+	private volatile long frame;
+	private double pendingSec;
+	
+	private volatile double speed = 1.0;
+	private volatile boolean reverse = false;
+	private volatile boolean paused = false;
+	private final AtomicLong seekRequest = new AtomicLong(NO_SEEK);
+	
+	/**
+	 * Creates a replay of a recording, beginning at its first frame
+	 * 
+	 * @param recording
+	 * @param stepRateHz rate at which the replay is step updated in real time (Hz)
+	 */
+	public FlightReplay(FlightRecording recording, double stepRateHz) {
+		if (recording.getFrameCount() == 0)
+			throw new IllegalArgumentException("Cannot replay a recording without any frames");
+		
+		this.recording = recording;
+		this.stepRateHz = stepRateHz;
+		
+		lastFrame = recording.getFrameCount() - 1;
+		history = RingBufferHistory.forDuration(HISTORY_SEC, 1 / stepRateHz);
+		
+		showFrame();
+	}
+	
+	/**
+	 * Advances the replay by one step, or moves to the frame requested by {@link FlightReplay#seekFrame(long)}, and outputs the frame 
+	 * reached to {@link FlightReplay#getSimOut()}
+	 */
+	@Override
+	public void step() {
+		long requested = seekRequest.getAndSet(NO_SEEK);
+		
+		if (requested != NO_SEEK) {
+			frame = requested;
+			pendingSec = 0;
+			showFrame();
+		} else if (!paused) {
+			long previous = frame;
+			advance(speed / stepRateHz);
+			
+			if (frame != previous)
+				showFrame();
+		}
+	}
+	
+	/**
+	 * Moves from frame to frame in the direction of playback until the frame whose time is closest to, but not beyond, the replay time
+	 * 
+	 * @param seconds replay time to advance by (sec)
+	 */
+	private void advance(double seconds) {
+		int direction = reverse ? -1 : 1;
+		pendingSec += seconds;
+		
+		while (true) {
+			long next = frame + direction;
+			
+			if (next < 0 || next > lastFrame) {
+				logger.debug("Replay reached the " + (reverse ? "start" : "end") + " of the recording");
+				pendingSec = 0;
+				paused = true;
+				return;
+			}
+			
+			// Time goes backwards between segments where the recorded simulation was reset
+			double frameSec = Math.max(0, (recording.getTime(next) - recording.getTime(frame)) * direction);
+			if (frameSec > pendingSec + TIME_TOLERANCE)
+				return;
+			
+			pendingSec -= frameSec;
+			frame = next;
+		}
+	}
+	
+	private void showFrame() {
+		recording.readFrame(frame, simOut);
+		history.append(simOut);
+	}
+	
+	/**
+	 * Requests that the replay move to a frame at its next step update
+	 * 
+	 * @param frameNumber frame to move to; clamped to the frames of the recording
+	 */
+	public void seekFrame(long frameNumber) {
+		seekRequest.set(Math.max(0, Math.min(lastFrame, frameNumber)));
+	}
+	
+	/**
+	 * Requests that the replay move to the first frame at or after a time at its next step update 
+	 * 
+	 * @param time (sec)
+	 * @see FlightRecording#seek(double)
+	 */
+	public void seek(double time) {
+		seekFrame(recording.seek(time));
+	}
+	
+	/**
+	 * Sets the speed of playback relative to real time
+	 * 
+	 * @param speed between {@value #MIN_SPEED} and {@value #MAX_SPEED}
+	 */
+	public void setSpeed(double speed) {
+		if (!(speed >= MIN_SPEED && speed <= MAX_SPEED))
+			throw new IllegalArgumentException("Replay speed must be between " + MIN_SPEED + " and " + MAX_SPEED + ", not " + speed);
+		
+		this.speed = speed;
+	}
+	
+	public double getSpeed() { return speed; }
+	
+	/**
+	 * @param reverse if the recording should be played backwards
+	 */
+	public void setReverse(boolean reverse) { this.reverse = reverse; }
+	
+	public boolean isReverse() { return reverse; }
+	
+	public void setPaused(boolean paused) { this.paused = paused; }
+	
+	public boolean isPaused() { return paused; }
+	
+	/**
+	 * @return number of the frame currently output by the replay
+	 */
+	public long getFrame() { return frame; }
+	
+	/**
+	 * @return recorded time of the frame currently output by the replay (sec)
+	 */
+	public double getTime() { return recording.getTime(frame); }
+	
+	public FlightRecording getRecording() { return recording; }
+	
+	/**
+	 * Returns the frame currently output by the replay. The frame is overwritten in place as the replay is step updated, so consumers 
+	 * outside of the thread stepping the replay should copy it with {@link SimOutFrame#SimOutFrame(SimOutFrame)}
+	 * 
+	 * @return simOut
+	 */
+	@Override
+	public SimOutFrame getSimOut() { return simOut; }
+	
+	/**
+	 * @return history of the frames output by the replay, in the order that they were played back
+	 */
+	@Override
+	public SimOutHistory getHistory() { return history; }
+
+	@Override
+	public double getStepRateHz() {
+		return stepRateHz;
+	}
+
+	@Override
+	public int getStepPhase() {
+		return 0;
+	}
+}
@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Self-describing header at the start of each segment file written by {@link FlightRecorder}. All values are little-endian. The 
+ * header is laid out as follows:
+ * 
+ * <p>Fixed part: magic "J6DOFREC", version, header length, segment number, channel count, index interval, frame capacity, 
+ * committed frame count, closed flag, number of the segment's first frame within the recording, creation time and a SHA-256 
+ * hash of the configuration and aircraft that produced the recording</p>
+ * <p>Variable part: the aircraft name followed by the name of each recorded channel, each as a length-prefixed UTF-8 string</p>
+ * 
+ * <p>The header is followed by the time index, holding the time of every {@link RecordingHeader#getIndexInterval()}th frame, and 
+ * then the frames themselves, each a fixed-width row of one double per channel</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RecordingHeader {
+	
+	private static final Logger logger = LogManager.getLogger(RecordingHeader.class);
+	
+	private static final byte[] MAGIC = "J6DOFREC".getBytes(StandardCharsets.US_ASCII);
+	private static final int VERSION = 1;
+	private static final int HASH_BYTES = 32;
+	
+	// Offsets of values in the fixed part of the header
+	private static final int VERSION_OFFSET         = 8;
+	private static final int HEADER_BYTES_OFFSET    = 12;
+	private static final int SEGMENT_NUMBER_OFFSET  = 16;
+	private static final int CHANNEL_COUNT_OFFSET   = 20;
+	private static final int INDEX_INTERVAL_OFFSET  = 24;
+	private static final int FRAME_CAPACITY_OFFSET  = 28;
+	static final int         COMMITTED_FRAMES_OFFSET = 32;
+	static final int         CLOSED_OFFSET          = 40;
+	private static final int FIRST_FRAME_OFFSET     = 48;
+	private static final int CREATED_OFFSET         = 56;
+	private static final int HASH_OFFSET            = 64;
+	private static final int VARIABLE_OFFSET        = HASH_OFFSET + HASH_BYTES;
+	
+	// Sections of a segment begin on a multiple of this many bytes
+	private static final int ALIGNMENT = 64;
+	
+	private final String aircraftName;
+	private final byte[] configurationHash;
+	private final List<String> channels;
+	private final int segmentNumber;
+	private final int indexInterval;
+	private final int frameCapacity;
+	private final long firstFrame;
+	private final long createdMillis;
+	private final int headerBytes;
+	
+	private long committedFrames;
+	private boolean closed;
+	
+	RecordingHeader(String aircraftName, byte[] configurationHash, List<String> channels, int segmentNumber, 
+					int indexInterval, int frameCapacity, long firstFrame, long createdMillis) {
+		if (configurationHash.length != HASH_BYTES)
+			throw new IllegalArgumentException("Configuration hash must be " + HASH_BYTES + " bytes long");
+		
+		this.aircraftName = aircraftName;
+		this.configurationHash = configurationHash.clone();
+		this.channels = Collections.unmodifiableList(new ArrayList<>(channels));
+		this.segmentNumber = segmentNumber;
+		this.indexInterval = indexInterval;
+		this.frameCapacity = frameCapacity;
+		this.firstFrame = firstFrame;
+		this.createdMillis = createdMillis;
+		
+		int variableBytes = 2 + aircraftName.getBytes(StandardCharsets.UTF_8).length;
+		for (String channel : channels)
+			variableBytes += 2 + channel.getBytes(StandardCharsets.UTF_8).length;
+		
+		headerBytes = align(VARIABLE_OFFSET + variableBytes);
+	}
+	
+	/**
+	 * Writes this header to the start of a segment's buffer, which must be in little-endian order
+	 * 
+	 * @param buffer
+	 */
+	void write(ByteBuffer buffer) {
+		for (int i = 0; i < MAGIC.length; i++)
+			buffer.put(i, MAGIC[i]);
+		
+		buffer.putInt(VERSION_OFFSET, VERSION);
+		buffer.putInt(HEADER_BYTES_OFFSET, headerBytes);
+		buffer.putInt(SEGMENT_NUMBER_OFFSET, segmentNumber);
+		buffer.putInt(CHANNEL_COUNT_OFFSET, channels.size());
+		buffer.putInt(INDEX_INTERVAL_OFFSET, indexInterval);
+		buffer.putInt(FRAME_CAPACITY_OFFSET, frameCapacity);
+		buffer.putLong(COMMITTED_FRAMES_OFFSET, committedFrames);
+		buffer.putInt(CLOSED_OFFSET, closed ? 1 : 0);
+		buffer.putLong(FIRST_FRAME_OFFSET, firstFrame);
+		buffer.putLong(CREATED_OFFSET, createdMillis);
+		
+		for (int i = 0; i < HASH_BYTES; i++)
+			buffer.put(HASH_OFFSET + i, configurationHash[i]);
+		
+		int position = putString(buffer, VARIABLE_OFFSET, aircraftName);
+		for (String channel : channels)
+			position = putString(buffer, position, channel);
+	}
+	
+	/**
+	 * Reads a header from the start of a segment's buffer, which must be in little-endian order
+	 * 
+	 * @param buffer
+	 * @return header of the segment
+	 * @throws IOException if the buffer does not hold a segment of a supported version 
+	 */
+	static RecordingHeader read(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < VARIABLE_OFFSET)
+			throw new IOException("Segment is too short to hold a recording header");
+		
+		byte[] magic = new byte[MAGIC.length];
+		for (int i = 0; i < MAGIC.length; i++)
+			magic[i] = buffer.get(i);
+		
+		if (!Arrays.equals(MAGIC, magic))
+			throw new IOException("Segment is not a flight recording");
+		
+		int version = buffer.getInt(VERSION_OFFSET);
+		if (version != VERSION)
+			throw new IOException("Unsupported flight recording version: " + version);
+		
+		byte[] configurationHash = new byte[HASH_BYTES];
+		for (int i = 0; i < HASH_BYTES; i++)
+			configurationHash[i] = buffer.get(HASH_OFFSET + i);
+		
+		int[] position = {VARIABLE_OFFSET};
+		String aircraftName = getString(buffer, position);
+		
+		int channelCount = buffer.getInt(CHANNEL_COUNT_OFFSET);
+		List<String> channels = new ArrayList<>(channelCount);
+		for (int i = 0; i < channelCount; i++)
+			channels.add(getString(buffer, position));
+		
+		RecordingHeader header = new RecordingHeader(aircraftName, configurationHash, channels, buffer.getInt(SEGMENT_NUMBER_OFFSET), 
+													 buffer.getInt(INDEX_INTERVAL_OFFSET), buffer.getInt(FRAME_CAPACITY_OFFSET),
+													 buffer.getLong(FIRST_FRAME_OFFSET), buffer.getLong(CREATED_OFFSET));
+		
+		if (header.headerBytes != buffer.getInt(HEADER_BYTES_OFFSET))
+			throw new IOException("Recording header length does not match its contents");
+		
+		header.committedFrames = Math.min(buffer.getLong(COMMITTED_FRAMES_OFFSET), header.frameCapacity);
+		header.closed = buffer.getInt(CLOSED_OFFSET) != 0;
+		
+		return header;
+	}
+	
+	/**
+	 * Creates a SHA-256 hash of the JSON serialization of a simulation configuration and aircraft, so that a recording can be matched
+	 * to the setup that produced it 
+	 * 
+	 * @param configuration
+	 * @param aircraft
+	 * @return hash of the configuration and aircraft; all zeros if they could not be serialized
+	 */
+	public static byte[] hashOf(SimulationConfiguration configuration, Aircraft aircraft) {
+		try {
+			ObjectMapper mapper = new ObjectMapper();
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			
+			digest.update(mapper.writeValueAsBytes(configuration));
+			digest.update(mapper.writeValueAsBytes(aircraft));
+			
+			return digest.digest();
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			logger.error("Could not hash configuration for flight recording!", e);
+			
+			return new byte[HASH_BYTES];
+		}
+	}
+	
+	private static int putString(ByteBuffer buffer, int position, String string) {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		
+		buffer.putShort(position, (short) bytes.length);
+		for (int i = 0; i < bytes.length; i++)
+			buffer.put(position + 2 + i, bytes[i]);
+		
+		return position + 2 + bytes.length;
+	}
+	
+	private static String getString(ByteBuffer buffer, int[] position) throws IOException {
+		int length = buffer.getShort(position[0]) & 0xFFFF;
+		if (position[0] + 2 + length > buffer.capacity())
+			throw new IOException("Recording header is truncated");
+		
+		byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++)
+			bytes[i] = buffer.get(position[0] + 2 + i);
+		
+		position[0] += 2 + length;
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private static int align(long bytes) {
+		return (int) ((bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+	}
+	
+	/**
+	 * @return offset of the time index from the start of the segment (bytes)
+	 */
+	int getIndexOffset() { return headerBytes; }
+	
+	/**
+	 * @return number of entries in the time index
+	 */
+	int getIndexCapacity() { return (frameCapacity + indexInterval - 1) / indexInterval; }
+	
+	/**
+	 * @return offset of the first frame from the start of the segment (bytes)
+	 */
+	int getFramesOffset() { return align(getIndexOffset() + (long) getIndexCapacity() * Double.BYTES); }
+	
+	/**
+	 * @return width of one frame (bytes)
+	 */
+	int getFrameBytes() { return channels.size() * Double.BYTES; }
+	
+	/**
+	 * @return length of a segment holding frameCapacity frames (bytes)
+	 */
+	long getSegmentBytes() { return getFramesOffset() + (long) frameCapacity * getFrameBytes(); }
+	
+	public String getAircraftName() { return aircraftName; }
+
+	public byte[] getConfigurationHash() { return configurationHash.clone(); }
+
+	/**
+	 * @return names of the recorded channels, in the order that they appear in each frame
+	 */
+	public List<String> getChannels() { return channels; }
+
+	public int getSegmentNumber() { return segmentNumber; }
+
+	/**
+	 * @return number of frames between entries of the time index
+	 */
+	public int getIndexInterval() { return indexInterval; }
+
+	/**
+	 * @return maximum number of frames held by the segment
+	 */
+	public int getFrameCapacity() { return frameCapacity; }
+
+	/**
+	 * @return number of the segment's first frame within the whole recording
+	 */
+	public long getFirstFrame() { return firstFrame; }
+
+	public long getCreatedMillis() { return createdMillis; }
+
+	/**
+	 * @return number of frames completely written to the segment
+	 */
+	public long getCommittedFrames() { return committedFrames; }
+
+	/**
+	 * @return if the segment was closed by the recorder; a segment left open holds the frames committed before the recorder stopped
+	 */
+	public boolean isClosed() { return closed; }
+}
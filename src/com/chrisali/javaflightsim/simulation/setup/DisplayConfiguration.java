@@ -15,6 +15,8 @@ public class DisplayConfiguration {
 	private int displayHeight;
 	
 	private int displayWidth;
+	
+	private int refreshRateHz = 60;
 		
 	public DisplayConfiguration() {}
 
@@ -33,4 +35,8 @@ public class DisplayConfiguration {
 	public int getDisplayWidth() { return displayWidth; }
 
 	public void setDisplayWidth(int displayWidth) { this.displayWidth = displayWidth; }
+
+	public int getRefreshRateHz() { return refreshRateHz; }
+
+	public void setRefreshRateHz(int refreshRateHz) { this.refreshRateHz = refreshRateHz; }
 }
\ No newline at end of file
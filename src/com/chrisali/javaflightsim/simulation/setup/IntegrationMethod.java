@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import com.chrisali.javaflightsim.interfaces.StateIntegrator;
+
+/**
+ * Provides Enums to select the {@link StateIntegrator} used to integrate the 6DOF equations of motion:
+ * 
+ *	<p>RUNGE_KUTTA_4 - Fixed step classical fourth-order Runge-Kutta; four force evaluations per step</p>
+ *	<p>DORMAND_PRINCE_54 - Adaptive embedded fifth(fourth)-order Runge-Kutta with error control; takes steps as large as its tolerance 
+ *	allows and interpolates the states at each frame with dense output, making it suited to long, smooth segments of flight. Close to 
+ *	one force evaluation per step in steady flight</p>
+ *	<p>ADAMS_BASHFORTH_MOULTON - Fixed step fourth-order predictor-corrector multistep method; reuses the history of derivatives to 
+ *	need only two force evaluations per step once started</p>
+ *
+ *	<p>Force evaluations per step count those made to update outputs at the end of each step, and hold only while steps are continuous 
+ *	(see {@link com.chrisali.javaflightsim.simulation.integration.AbstractStateIntegrator}); each discontinuity restarts the method</p>
+ */
+public enum IntegrationMethod {
+	RUNGE_KUTTA_4			("Runge-Kutta 4"),
+	DORMAND_PRINCE_54		("Dormand-Prince 5(4)"),
+	ADAMS_BASHFORTH_MOULTON ("Adams-Bashforth-Moulton");
+	
+	private final String integrationMethod;
+	
+	private IntegrationMethod(String integrationMethod) {this.integrationMethod = integrationMethod;}
+	
+	public String toString() {return integrationMethod;}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import com.chrisali.javaflightsim.server.SimulationServer;
+import com.chrisali.javaflightsim.simulation.network.RemoteControlInput;
+import com.chrisali.javaflightsim.simulation.network.TelemetrySender;
+
+/**
+ * Contains fields used to configure the UDP telemetry broadcast by a {@link TelemetrySender} when {@link Options#NETWORK_TELEMETRY}
+ * is selected, and the port on which a {@link RemoteControlInput} receives flight controls when {@link Options#NETWORK_CONTROLS} 
+ * is selected. The telemetry address may be a unicast address, or a multicast group to reach several receivers at once. The server 
+ * address and port are those that a {@link SimulationServer} listens on in headless mode
+ */
+public class NetworkConfiguration {
+	
+	private String telemetryAddress = "127.0.0.1";
+	
+	private int telemetryPort = 49100;
+	
+	private int telemetryRateHz = 60;
+	
+	private String multicastInterface;
+	
+	private int multicastTtl = 1;
+	
+	private int controlsPort = 49101;
+	
+	private String serverAddress = "127.0.0.1";
+	
+	private int serverPort = 8090;
+	
+	public NetworkConfiguration() {}
+
+	public String getTelemetryAddress() { return telemetryAddress; }
+
+	public void setTelemetryAddress(String telemetryAddress) { this.telemetryAddress = telemetryAddress; }
+
+	public int getTelemetryPort() { return telemetryPort; }
+
+	public void setTelemetryPort(int telemetryPort) { this.telemetryPort = telemetryPort; }
+
+	public int getTelemetryRateHz() { return telemetryRateHz; }
+
+	public void setTelemetryRateHz(int telemetryRateHz) { this.telemetryRateHz = telemetryRateHz; }
+
+	/**
+	 * @return name of the network interface that multicast telemetry is sent from, or null to let the operating system choose
+	 */
+	public String getMulticastInterface() { return multicastInterface; }
+
+	public void setMulticastInterface(String multicastInterface) { this.multicastInterface = multicastInterface; }
+
+	/**
+	 * @return number of routers that multicast telemetry may cross; 1 keeps it on the local network
+	 */
+	public int getMulticastTtl() { return multicastTtl; }
+
+	public void setMulticastTtl(int multicastTtl) { this.multicastTtl = multicastTtl; }
+
+	public int getControlsPort() { return controlsPort; }
+
+	public void setControlsPort(int controlsPort) { this.controlsPort = controlsPort; }
+
+	/**
+	 * @return local address that the simulation server listens on; 127.0.0.1 accepts only requests from this machine
+	 */
+	public String getServerAddress() { return serverAddress; }
+
+	public void setServerAddress(String serverAddress) { this.serverAddress = serverAddress; }
+
+	public int getServerPort() { return serverPort; }
+
+	public void setServerPort(int serverPort) { this.serverPort = serverPort; }
+}
@@ -23,6 +23,9 @@ import com.chrisali.javaflightsim.simulation.inputdevices.Joystick;
 import com.chrisali.javaflightsim.simulation.inputdevices.Keyboard;
 import com.chrisali.javaflightsim.simulation.inputdevices.Mouse;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.network.RemoteControlInput;
+import com.chrisali.javaflightsim.simulation.network.TelemetrySender;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecorder;
 
 /**
  * Provides Enums for the options EnumSet to provide the following options:
@@ -35,6 +38,10 @@ import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
  *	<p>CONSOLE_DISPLAY - Displays every piece of data in {@link Integrate6DOFEquations#getSimOut()} in the console for each step of integration</p>
  *	<p>USE_JOYSTICK - Uses JInput with a {@link Joystick} and {@link Keyboard} to allow pilot in the loop simulation</p>
  *	<p>USE_MOUSE - Uses JInput JInput with a {@link Mouse} and {@link Keyboard} to allow pilot in the loop simulation</p>
+ *	<p>FLIGHT_RECORDER - Records every step of {@link Integrate6DOFEquations#getSimOut()} to disk with a {@link FlightRecorder}</p>
+ *	<p>NETWORK_TELEMETRY - Broadcasts flight data over UDP with a {@link TelemetrySender}, as configured in {@link NetworkConfiguration}</p>
+ *	<p>NETWORK_CONTROLS - Uses flight controls received over UDP from an external cockpit rig by a {@link RemoteControlInput} in place of a 
+ *	joystick or mouse, as configured in {@link NetworkConfiguration}</p>
  */
 public enum Options {
 	ANALYSIS_MODE     ("Analysis Mode"),
@@ -43,7 +50,10 @@ public enum Options {
 	RESET			  ("Reset"),
 	CONSOLE_DISPLAY	  ("Console Display"),
 	USE_JOYSTICK	  ("Use Joystick"),
-	USE_MOUSE		  ("Use Mouse");
+	USE_MOUSE		  ("Use Mouse"),
+	FLIGHT_RECORDER	  ("Flight Recorder"),
+	NETWORK_TELEMETRY ("Network Telemetry"),
+	NETWORK_CONTROLS  ("Network Controls");
 	
 	private String option;
 	
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import com.chrisali.javaflightsim.simulation.timing.SimulationPacer;
+
+/**
+ * Provides Enums to select how {@link SimulationPacer} paces the simulation against wall clock time:
+ * 
+ *	<p>REAL_TIME - Each step of the simulation is paced to a wall clock deadline, so that simulation time tracks real time without drifting</p>
+ *	<p>SCALED_TIME - As REAL_TIME, but simulation time runs faster (or slower) than real time by the time compression factor in 
+ *	{@link SimulationConfiguration#getTimeCompression()}</p>
+ *	<p>AS_FAST_AS_POSSIBLE - No pacing; each step runs immediately after the last. Always used in {@link Options#ANALYSIS_MODE}</p>
+ */
+public enum PacingMode {
+	REAL_TIME			("Real Time"),
+	SCALED_TIME			("Scaled Time"),
+	AS_FAST_AS_POSSIBLE	("As Fast As Possible");
+	
+	private final String pacingMode;
+	
+	private PacingMode(String pacingMode) {this.pacingMode = pacingMode;}
+	
+	public String toString() {return pacingMode;}
+}
@@ -28,6 +28,11 @@ public class SimulationConfiguration implements Saveable {
 	private EnumSet<Options> simulationOptions;
 	private EnumMap<InitialConditions, Double> initialConditions;
 	private EnumMap<IntegratorConfig, Double> integratorConfig;
+	private IntegrationMethod integrationMethod = IntegrationMethod.RUNGE_KUTTA_4;
+	private PacingMode pacingMode = PacingMode.REAL_TIME;
+	private double timeCompression = 1.0;
+	private double snapshotIntervalSec = 5.0;
+	private int snapshotCapacity = 120;
 	private EnumMap<FlightControl, Double> initialControls; 
 	private String selectedAircraft;
 
@@ -36,6 +41,8 @@ public class SimulationConfiguration implements Saveable {
 	private AudioConfiguration audioConfiguration;
 	
 	private CameraConfiguration cameraConfiguration;
+	
+	private NetworkConfiguration networkConfiguration = new NetworkConfiguration();
 
 	public SimulationConfiguration() { }
 		
@@ -65,6 +72,39 @@ public class SimulationConfiguration implements Saveable {
 	
 	public void setIntegratorConfig(EnumMap<IntegratorConfig, Double> integratorConfig) { this.integratorConfig = integratorConfig;	}
 
+	public IntegrationMethod getIntegrationMethod() { return integrationMethod; }
+
+	public void setIntegrationMethod(IntegrationMethod integrationMethod) { this.integrationMethod = integrationMethod; }
+
+	public PacingMode getPacingMode() { return pacingMode; }
+
+	public void setPacingMode(PacingMode pacingMode) { this.pacingMode = pacingMode; }
+
+	public double getTimeCompression() { return timeCompression; }
+
+	public void setTimeCompression(double timeCompression) {
+		if (timeCompression <= 0) {
+			logger.warn("Attempted to set time compression to " + timeCompression + ", ignoring...");
+			return;
+		}
+
+		this.timeCompression = timeCompression;
+	}
+
+	/**
+	 * @return flight time between snapshots captured automatically for rewinding the simulation, or 0 to capture none (sec)
+	 */
+	public double getSnapshotIntervalSec() { return snapshotIntervalSec; }
+
+	public void setSnapshotIntervalSec(double snapshotIntervalSec) { this.snapshotIntervalSec = Math.max(0, snapshotIntervalSec); }
+
+	/**
+	 * @return number of snapshots retained for rewinding the simulation; the oldest are overwritten first
+	 */
+	public int getSnapshotCapacity() { return snapshotCapacity; }
+
+	public void setSnapshotCapacity(int snapshotCapacity) { this.snapshotCapacity = Math.max(1, snapshotCapacity); }
+
 	@JsonIgnore
 	public int getSimulationRateHz() {
 		return (int)(1/integratorConfig.get(IntegratorConfig.DT));
@@ -85,6 +125,8 @@ public class SimulationConfiguration implements Saveable {
 	public AudioConfiguration getAudioConfiguration() { return audioConfiguration; }
 
 	public DisplayConfiguration getDisplayConfiguration() { return displayConfiguration; }
+	
+	public NetworkConfiguration getNetworkConfiguration() { return networkConfiguration; }
 
 	public EnumMap<FlightControl, Double> getInitialControls() { return initialControls; }
 
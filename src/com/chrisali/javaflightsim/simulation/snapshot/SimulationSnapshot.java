@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Complete dynamic state of a simulation at the start of a step, captured by {@link SimulationSnapshotter} as a compact array of bytes. 
+ * A snapshot can be restored any number of times, to the simulation that captured it or to any other simulation of the same aircraft 
+ * and configuration, each of which then continues bit for bit as the simulation did from the moment it was captured
+ * 
+ * <p>The bytes begin with a header of a magic number, format version, length of the state, and the simulation clock's ticks and time, 
+ * followed by the state of each component of the simulation in a fixed order</p> 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationSnapshot {
+	
+	public static final int MAGIC = 0x4A36534E; // "J6SN"
+	public static final int VERSION = 1;
+	
+	// Magic, version, length of state, ticks and time
+	public static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+	
+	private byte[] data;
+	private int size;
+	private long ticks;
+	private double timeSec;
+	
+	/**
+	 * Creates an empty snapshot, able to hold a state of up to capacity bytes before it needs to grow
+	 * 
+	 * @param capacity
+	 */
+	public SimulationSnapshot(int capacity) {
+		data = new byte[Math.max(capacity, HEADER_BYTES)];
+	}
+	
+	/**
+	 * Reads a snapshot from bytes returned by {@link SimulationSnapshot#toByteArray()}
+	 * 
+	 * @param bytes
+	 * @return snapshot
+	 * @throws IllegalArgumentException if the bytes are not a snapshot of this format version
+	 */
+	public static SimulationSnapshot fromByteArray(byte[] bytes) {
+		SimulationSnapshot snapshot = new SimulationSnapshot(bytes.length);
+		System.arraycopy(bytes, 0, snapshot.data, 0, bytes.length);
+		snapshot.size = bytes.length;
+		
+		ByteBuffer header = ByteBuffer.wrap(bytes);
+		if (bytes.length < HEADER_BYTES || header.getInt() != MAGIC)
+			throw new IllegalArgumentException("Bytes are not a simulation snapshot!");
+		
+		int version = header.getInt();
+		if (version != VERSION)
+			throw new IllegalArgumentException("Snapshot is version " + version + ", but only version " + VERSION + " can be read!");
+		
+		int length = header.getInt();
+		if (length != bytes.length - HEADER_BYTES)
+			throw new IllegalArgumentException("Snapshot should have " + length + " bytes of state, but has " + (bytes.length - HEADER_BYTES) + "!");
+		
+		snapshot.ticks = header.getLong();
+		snapshot.timeSec = header.getDouble();
+		
+		return snapshot;
+	}
+	
+	/**
+	 * @return copy of the bytes of this snapshot, header included, which can be stored or sent elsewhere and read back with
+	 * {@link SimulationSnapshot#fromByteArray(byte[])}
+	 */
+	public byte[] toByteArray() { return Arrays.copyOf(data, size); }
+	
+	/**
+	 * @return buffer over the whole of this snapshot's storage, positioned at its start, to capture a state into
+	 */
+	ByteBuffer bufferForCapture() { return ByteBuffer.wrap(data); }
+	
+	/**
+	 * Doubles the storage of this snapshot, after a state was too large to capture into it
+	 */
+	void grow() { data = new byte[data.length * 2]; }
+	
+	/**
+	 * Completes the capture of a state, whose bytes (header included) end at the position of buffer
+	 * 
+	 * @param buffer
+	 * @param ticks
+	 * @param timeSec
+	 */
+	void completeCapture(ByteBuffer buffer, long ticks, double timeSec) {
+		this.size = buffer.position();
+		this.ticks = ticks;
+		this.timeSec = timeSec;
+		
+		buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, size - HEADER_BYTES).putLong(12, ticks).putDouble(20, timeSec);
+	}
+	
+	/**
+	 * @return read only buffer over the state captured, positioned after the header
+	 */
+	ByteBuffer bufferForRestore() { 
+		ByteBuffer buffer = ByteBuffer.wrap(data, 0, size).asReadOnlyBuffer();
+		buffer.position(HEADER_BYTES);
+		
+		return buffer;
+	}
+	
+	/**
+	 * @return number of ticks of the simulation clock when this snapshot was captured
+	 */
+	public long getTicks() { return ticks; }
+	
+	/**
+	 * @return time of the simulation clock when this snapshot was captured (sec)
+	 */
+	public double getTimeSec() { return timeSec; }
+	
+	/**
+	 * @return size of this snapshot, header included (bytes)
+	 */
+	public int getSize() { return size; }
+	
+	@Override
+	public String toString() {
+		return "Snapshot at " + timeSec + " sec (" + size + " bytes)";
+	}
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.snapshot;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.timing.SimulationClock;
+
+/**
+ * Captures the complete dynamic state of a simulation into a {@link SimulationSnapshot}, and restores it. The state is made up of the 
+ * simulation clock and each {@link Snapshottable} component of the simulation, in the order given; typically the 
+ * {@link FlightControlsStateManager} and {@link Integrate6DOFEquations}. The simulation contains no random number generators, so 
+ * there are no seeds to capture
+ * 
+ * <p>Snapshots must be captured and restored between steps of the simulation, on the thread that steps it. Neither allocates, 
+ * unless a snapshot is too small to hold the state</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationSnapshotter {
+	
+	// Large enough for the state of a four engine aircraft, so that snapshots rarely need to grow
+	private static final int INITIAL_CAPACITY = 4096;
+	
+	private final SimulationClock clock;
+	private final AtomicInteger timeMS;
+	private final Snapshottable[] components;
+	
+	/**
+	 * @param clock clock of the simulation
+	 * @param timeMS simulation time shared between the components of the simulation, which is updated from the clock on restore
+	 * @param components components of the simulation whose states are captured
+	 */
+	public SimulationSnapshotter(SimulationClock clock, AtomicInteger timeMS, Snapshottable... components) {
+		this.clock = clock;
+		this.timeMS = timeMS;
+		this.components = components;
+	}
+	
+	/**
+	 * @return new snapshot of the current state of the simulation
+	 */
+	public SimulationSnapshot capture() {
+		SimulationSnapshot snapshot = new SimulationSnapshot(INITIAL_CAPACITY);
+		capture(snapshot);
+		
+		return snapshot;
+	}
+	
+	/**
+	 * Captures the current state of the simulation into an existing snapshot, overwriting the state it held
+	 * 
+	 * @param snapshot
+	 */
+	public void capture(SimulationSnapshot snapshot) {
+		while (true) {
+			ByteBuffer buffer = snapshot.bufferForCapture();
+			
+			try {
+				buffer.position(SimulationSnapshot.HEADER_BYTES);
+				
+				clock.writeState(buffer);
+				for (Snapshottable component : components)
+					component.writeState(buffer);
+				
+				snapshot.completeCapture(buffer, clock.getTicks(), clock.getTimeSec());
+				
+				return;
+			} catch (BufferOverflowException e) {
+				snapshot.grow();
+			}
+		}
+	}
+	
+	/**
+	 * Restores the state of the simulation to that of a snapshot captured from this simulation, or from another of the same 
+	 * aircraft and configuration
+	 * 
+	 * @param snapshot
+	 * @throws IllegalStateException if the snapshot was captured from a simulation of a different aircraft or configuration, 
+	 * in which case the state of this simulation is undefined
+	 */
+	public void restore(SimulationSnapshot snapshot) {
+		ByteBuffer buffer = snapshot.bufferForRestore();
+		
+		try {
+			clock.readState(buffer);
+			for (Snapshottable component : components)
+				component.readState(buffer);
+		} catch (RuntimeException e) {
+			throw new IllegalStateException("Snapshot does not match this simulation!", e);
+		}
+		
+		if (buffer.hasRemaining())
+			throw new IllegalStateException("Snapshot has " + buffer.remaining() + " bytes more state than this simulation!");
+		
+		timeMS.set(clock.getTimeMS());
+	}
+}
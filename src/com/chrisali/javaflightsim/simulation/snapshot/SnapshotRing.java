@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.snapshot;
+
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+
+/**
+ * Captures a {@link SimulationSnapshot} of the simulation at a fixed interval of flight time into a bounded ring, overwriting the 
+ * oldest once full, so that the simulation can be rewound in flight. Snapshots are preallocated on first use and captured in place, 
+ * so that the ring does not allocate as the simulation runs. Time spent paused does not count as flight time, so rewinding 
+ * goes back the same amount of flight no matter how long the simulation has been paused
+ * 
+ * <p>The ring should be stepped at the base rate of the simulation, before any other component, so that each snapshot captures the 
+ * state at the start of a step. Like its {@link SimulationSnapshotter}, it must only be used on the thread that steps the simulation</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SnapshotRing implements Steppable {
+	
+	private static final Logger logger = LogManager.getLogger(SnapshotRing.class);
+	
+	private final SimulationSnapshotter snapshotter;
+	private final Set<Options> options;
+	private final double dt;
+	private final long intervalTicks;
+	
+	private final SimulationSnapshot[] snapshots;
+	private final long[] snapshotFlightTicks;
+	private int newest = -1;
+	private int count = 0;
+	
+	// Steps of the simulation taken while not paused
+	private long flightTicks = 0;
+	
+	/**
+	 * @param snapshotter snapshotter of the simulation
+	 * @param options options of the simulation, to check if it is paused
+	 * @param dt time step of the simulation (sec)
+	 * @param intervalSec flight time between snapshots, rounded to a whole number of time steps (sec)
+	 * @param capacity number of snapshots retained
+	 */
+	public SnapshotRing(SimulationSnapshotter snapshotter, Set<Options> options, double dt, double intervalSec, int capacity) {
+		if (!(intervalSec > 0) || capacity < 1)
+			throw new IllegalArgumentException("Snapshot interval and capacity must be greater than zero!");
+		
+		this.snapshotter = snapshotter;
+		this.options = options;
+		this.dt = dt;
+		this.intervalTicks = Math.max(1, Math.round(intervalSec / dt));
+		
+		snapshots = new SimulationSnapshot[capacity];
+		snapshotFlightTicks = new long[capacity];
+	}
+	
+	/**
+	 * Counts a step of flight, capturing a snapshot at the start of each interval
+	 */
+	@Override
+	public void step() {
+		if (options.contains(Options.PAUSED))
+			return;
+		
+		// A snapshot just rewound to is not captured again
+		if (flightTicks % intervalTicks == 0 && (count == 0 || snapshotFlightTicks[newest] != flightTicks)) {
+			int slot = (newest + 1) % snapshots.length;
+			
+			if (snapshots[slot] == null)
+				snapshots[slot] = snapshotter.capture();
+			else
+				snapshotter.capture(snapshots[slot]);
+			
+			snapshotFlightTicks[slot] = flightTicks;
+			newest = slot;
+			count = Math.min(count + 1, snapshots.length);
+		}
+		
+		flightTicks++;
+	}
+	
+	/**
+	 * Runs at the base rate of the simulation to count flight time
+	 */
+	@Override
+	public double getStepRateHz() { return 1 / dt; }
+	
+	@Override
+	public int getStepPhase() { return 0; }
+	
+	/**
+	 * Rewinds the simulation to the newest snapshot captured at least seconds of flight time ago, or to the oldest snapshot if 
+	 * none is that old. Snapshots newer than the one restored are discarded, as the simulation now continues from an earlier point
+	 * 
+	 * @param seconds flight time to rewind (sec)
+	 * @return snapshot restored, or null if no snapshots have been captured
+	 */
+	public SimulationSnapshot rewind(double seconds) {
+		if (count == 0)
+			return null;
+		
+		long target = flightTicks - Math.round(seconds / dt);
+		
+		int slot = newest;
+		while (count > 1 && snapshotFlightTicks[slot] > target) {
+			slot = Math.floorMod(slot - 1, snapshots.length);
+			count--;
+		}
+		
+		// The snapshot restored remains in the ring, as the newest
+		newest = slot;
+		flightTicks = snapshotFlightTicks[slot];
+		
+		snapshotter.restore(snapshots[slot]);
+		
+		logger.debug("Rewound " + seconds + " sec to " + snapshots[slot]);
+		
+		return snapshots[slot];
+	}
+	
+	/**
+	 * @param index index of snapshot, from 0 for the oldest to size() - 1 for the newest
+	 * @return snapshot; it is overwritten in place once the ring wraps around to it
+	 */
+	public SimulationSnapshot get(int index) {
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+		
+		return snapshots[Math.floorMod(newest - count + 1 + index, snapshots.length)];
+	}
+	
+	/**
+	 * @return newest snapshot, or null if none have been captured
+	 */
+	public SimulationSnapshot getNewest() { return (count > 0) ? snapshots[newest] : null; }
+	
+	/**
+	 * @return number of snapshots held
+	 */
+	public int size() { return count; }
+	
+	/**
+	 * @return flight time since the ring was created, less any time rewound (sec)
+	 */
+	public double getFlightTimeSec() { return flightTicks * dt; }
+}
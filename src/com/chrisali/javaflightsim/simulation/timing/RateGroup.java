@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+/**
+ * Group of {@link Steppable} objects scheduled by {@link StepScheduler} to step every same number of minor frames. Keeps statistics 
+ * of the wall clock time spent stepping its members in each minor frame in which any of them ran
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RateGroup {
+	
+	private final int framesPerStep;
+	private final double rateHz;
+	private final List<Steppable> members = new ArrayList<>();
+	private final TimingStatistics executionTime = new TimingStatistics();
+	
+	/**
+	 * @param framesPerStep number of minor frames between each step of this group's members
+	 * @param rateHz actual rate at which members of this group are stepped (Hz)
+	 */
+	RateGroup(int framesPerStep, double rateHz) {
+		this.framesPerStep = framesPerStep;
+		this.rateHz = rateHz;
+	}
+	
+	void addMember(Steppable steppable) { members.add(steppable); }
+	
+	/**
+	 * @return number of minor frames between each step of this group's members
+	 */
+	public int getFramesPerStep() { return framesPerStep; }
+	
+	/**
+	 * @return actual rate at which members of this group are stepped (Hz)
+	 */
+	public double getRateHz() { return rateHz; }
+	
+	public List<Steppable> getMembers() { return members; }
+	
+	/**
+	 * @return statistics of the wall clock time spent stepping this group's members per minor frame in which they ran
+	 */
+	public TimingStatistics getExecutionTime() { return executionTime; }
+	
+	/**
+	 * @param minorFrames number of minor frames run so far
+	 * @param minorFramePeriodNanos wall clock time budgeted for each minor frame (ns)
+	 * @return fraction of the total minor frame time budget spent stepping this group's members
+	 */
+	public double getBudgetFraction(long minorFrames, double minorFramePeriodNanos) {
+		return (minorFrames == 0) ? 0 : executionTime.getTotalMS() * 1e6 / (minorFrames * minorFramePeriodNanos);
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%.1f Hz [", rateHz));
+		
+		for (int i = 0; i < members.size(); i++)
+			sb.append(i == 0 ? "" : ", ").append(members.get(i).getClass().getSimpleName());
+		
+		return sb.append("]").toString();
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import java.nio.ByteBuffer;
+
+import com.chrisali.javaflightsim.interfaces.Snapshottable;
+
+/**
+ * Keeps simulation time as an integer count of ticks of a fixed time step, so that time is always an exact multiple of the time step
+ * from the start time, instead of accumulating round off (or truncation to whole milliseconds) with every step
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationClock implements Snapshottable {
+	
+	private static final int TO_MILLISEC = 1000;
+	
+	private final double startTimeSec;
+	private final double dt;
+	private long ticks = 0;
+	
+	/**
+	 * @param startTimeSec simulation time at tick 0 (sec)
+	 * @param dt time step of each tick (sec)
+	 */
+	public SimulationClock(double startTimeSec, double dt) {
+		this.startTimeSec = startTimeSec;
+		this.dt = dt;
+	}
+	
+	/**
+	 * Advances the clock by one time step
+	 */
+	public void tick() { ticks++; }
+	
+	/**
+	 * @return number of time steps since the start time
+	 */
+	public long getTicks() { return ticks; }
+	
+	/**
+	 * @return current simulation time (sec)
+	 */
+	public double getTimeSec() { return startTimeSec + ticks*dt; }
+	
+	/**
+	 * @return current simulation time rounded to the nearest millisecond
+	 */
+	public int getTimeMS() { return (int) Math.round(getTimeSec()*TO_MILLISEC); }
+	
+	/**
+	 * @param timeSec simulation time (sec)
+	 * @return number of ticks from the start time needed to reach timeSec, or {@link Long#MAX_VALUE} if timeSec is infinite
+	 */
+	public long ticksUntil(double timeSec) { 
+		return Double.isInfinite(timeSec) ? Long.MAX_VALUE : Math.round((timeSec - startTimeSec)/dt); 
+	}
+	
+	/**
+	 * @return time step of each tick (sec)
+	 */
+	public double getDt() { return dt; }
+	
+	@Override
+	public void writeState(ByteBuffer buffer) { buffer.putLong(ticks); }
+	
+	@Override
+	public void readState(ByteBuffer buffer) { ticks = buffer.getLong(); }
+}
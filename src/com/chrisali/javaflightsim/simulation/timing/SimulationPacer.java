@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.setup.PacingMode;
+
+/**
+ * Paces the simulation loop in {@link com.chrisali.javaflightsim.simulation.SimulationRunner} against wall clock time using 
+ * absolute {@link System#nanoTime()} deadlines. The deadline of step n is always computed from the start time as 
+ * start + n * period, so that time spent running a step, and any lateness in waking up, is compensated for on the following step 
+ * rather than accumulating as drift (as a fixed {@link Thread#sleep(long)} after each step would). 
+ * 
+ * <p>Waiting parks the thread until shortly before the deadline, then yields until it is reached, trading a small amount of 
+ * CPU for sub-millisecond accuracy. If the simulation falls far behind its deadlines (e.g. after a debugger pause or a long GC), 
+ * the schedule is re-based to the current time rather than running a burst of catch-up steps.</p>
+ * 
+ * <p>Statistics are kept of the time taken to run each step, of how late each wake up was (jitter), and of how many steps 
+ * overran their deadline</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationPacer {
+	
+	private static final Logger logger = LogManager.getLogger(SimulationPacer.class);
+	
+	/** Time before the deadline at which parking stops and the thread yields until the deadline (ns) */
+	private static final long SPIN_THRESHOLD_NANOS = 1_500_000L;
+	
+	/** How far behind its deadline the simulation can fall before the schedule is re-based (ns) */
+	private static final long RESYNC_THRESHOLD_NANOS = 250_000_000L;
+	
+	private final PacingMode pacingMode;
+	private final double periodNanos;
+	
+	private long startNanos;
+	private long stepsSinceStart;
+	private long stepStartNanos;
+	
+	private long overruns;
+	private long resyncs;
+	
+	private final TimingStatistics stepTime = new TimingStatistics();
+	private final TimingStatistics jitter   = new TimingStatistics();
+	
+	/**
+	 * @param pacingMode how the simulation is paced against wall clock time
+	 * @param timeCompression ratio of simulation time to wall clock time; only used in {@link PacingMode#SCALED_TIME}
+	 * @param dt simulation time step (sec)
+	 */
+	public SimulationPacer(PacingMode pacingMode, double timeCompression, double dt) {
+		if (dt <= 0)
+			throw new IllegalArgumentException("Time step must be greater than zero!");
+		if (pacingMode == PacingMode.SCALED_TIME && !(timeCompression > 0))
+			throw new IllegalArgumentException("Time compression must be greater than zero!");
+		
+		this.pacingMode = pacingMode;
+		this.periodNanos = dt * 1e9 / (pacingMode == PacingMode.SCALED_TIME ? timeCompression : 1.0);
+	}
+	
+	/**
+	 * Sets the start of the pacing schedule to the current time and clears all statistics
+	 */
+	public void start() {
+		startNanos = System.nanoTime();
+		stepsSinceStart = 0;
+		overruns = resyncs = 0;
+		stepTime.reset();
+		jitter.reset();
+	}
+	
+	/**
+	 * Marks the beginning of a simulation step
+	 */
+	public void beginStep() {
+		stepStartNanos = System.nanoTime();
+	}
+	
+	/**
+	 * Marks the end of a simulation step, recording the time taken to run it, and then waits until the deadline of the next step 
+	 * (unless running in {@link PacingMode#AS_FAST_AS_POSSIBLE})
+	 */
+	public void endStep() {
+		long now = System.nanoTime();
+		stepTime.record(now - stepStartNanos);
+		stepsSinceStart++;
+		
+		if (pacingMode == PacingMode.AS_FAST_AS_POSSIBLE)
+			return;
+		
+		long deadline = startNanos + (long)(stepsSinceStart * periodNanos);
+		long remaining = deadline - now;
+		
+		if (remaining < 0) {
+			overruns++;
+			
+			if (-remaining > RESYNC_THRESHOLD_NANOS) {
+				resyncs++;
+				logger.debug("Simulation fell " + (-remaining / 1_000_000) + " ms behind schedule; re-basing pacing schedule");
+				
+				startNanos = System.nanoTime();
+				stepsSinceStart = 0;
+			}
+			
+			return;
+		}
+		
+		while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS)
+			LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+		
+		while (System.nanoTime() - deadline < 0)
+			Thread.yield();
+		
+		jitter.record(System.nanoTime() - deadline);
+	}
+	
+	/**
+	 * Logs a summary of the pacing statistics
+	 */
+	public void logStatistics() {
+		logger.info("Simulation pacing (" + pacingMode + "): " + stepTime.getCount() + " steps, " + overruns + " overruns, " 
+					+ resyncs + " resyncs");
+		logger.info("Step time: " + stepTime);
+		
+		if (pacingMode != PacingMode.AS_FAST_AS_POSSIBLE)
+			logger.info("Wake up jitter: " + jitter);
+	}
+	
+	public PacingMode getPacingMode() { return pacingMode; }
+	
+	/**
+	 * @return wall clock time between each step's deadline (ns)
+	 */
+	public double getPeriodNanos() { return periodNanos; }
+	
+	/**
+	 * @return statistics of the wall clock time taken to run each step
+	 */
+	public TimingStatistics getStepTime() { return stepTime; }
+	
+	/**
+	 * @return statistics of how late each step was released after its deadline
+	 */
+	public TimingStatistics getJitter() { return jitter; }
+	
+	/**
+	 * @return number of steps that finished after the deadline of the next step
+	 */
+	public long getOverruns() { return overruns; }
+	
+	/**
+	 * @return number of times the pacing schedule was re-based after falling too far behind
+	 */
+	public long getResyncs() { return resyncs; }
+}
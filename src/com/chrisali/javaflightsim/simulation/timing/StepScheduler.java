@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+/**
+ * Multi-rate scheduler that steps {@link Steppable} objects at their own rates within the simulation loop of 
+ * {@link com.chrisali.javaflightsim.simulation.SimulationRunner}. Each loop iteration is one minor frame, running at the base 
+ * (physics) rate. Each Steppable's rate given by {@link Steppable#getStepRateHz()} is rounded to a whole number of minor frames 
+ * per step, making all rates harmonics of the base rate; objects with the same number of minor frames per step form a {@link RateGroup}. 
+ * 
+ * <p>The schedule repeats every major frame, whose length in minor frames is the least common multiple of all groups' frames per 
+ * step. A table of which objects to step in each minor frame of the major frame is built once, and objects are stepped in the order 
+ * that they were added. {@link Steppable#getStepPhase()} offsets an object by a number of minor frames, so that slow objects 
+ * can be spread across different minor frames instead of all landing on the same one</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class StepScheduler {
+	
+	private static final Logger logger = LogManager.getLogger(StepScheduler.class);
+	
+	// Rounded rates farther than this from the requested rate are warned about
+	private static final double RATE_TOLERANCE = 0.01;
+	
+	private final double minorFrameRateHz;
+	
+	private final List<Steppable> steppables = new ArrayList<>();
+	private final List<RateGroup> rateGroups = new ArrayList<>();
+	
+	// Objects to step and their rate group indices for each minor frame of the major frame
+	private Steppable[][] frameTable;
+	private int[][] frameGroupTable;
+	private long[] groupNanos;
+	private boolean[] groupRan;
+	
+	private long minorFrames;
+	
+	/**
+	 * @param minorFrameRateHz base rate of the scheduler, at which {@link #runMinorFrame(long)} is called (Hz)
+	 */
+	public StepScheduler(double minorFrameRateHz) {
+		if (!(minorFrameRateHz > 0))
+			throw new IllegalArgumentException("Minor frame rate must be greater than zero!");
+		
+		this.minorFrameRateHz = minorFrameRateHz;
+	}
+	
+	/**
+	 * Adds a {@link Steppable} object to the schedule. Objects stepped in the same minor frame are stepped in the order that they 
+	 * were added
+	 * 
+	 * @param steppable
+	 */
+	public void add(Steppable steppable) {
+		steppables.add(steppable);
+		frameTable = null;
+	}
+	
+	/**
+	 * Rounds a rate to a whole number of minor frames per step
+	 * 
+	 * @param minorFrameRateHz base rate of the scheduler (Hz)
+	 * @param rateHz requested rate (Hz)
+	 * @return number of minor frames between each step, at least 1
+	 */
+	public static int minorFramesPerStep(double minorFrameRateHz, double rateHz) {
+		if (!(rateHz > 0) || rateHz >= minorFrameRateHz)
+			return 1;
+		
+		return (int) Math.max(1, Math.round(minorFrameRateHz / rateHz));
+	}
+	
+	/**
+	 * Groups all added {@link Steppable} objects into {@link RateGroup}s, and builds the table of objects to step in each 
+	 * minor frame of the major frame
+	 */
+	public void build() {
+		rateGroups.clear();
+		
+		int[] memberGroups = new int[steppables.size()];
+		int majorFrameLength = 1;
+		
+		for (int i = 0; i < steppables.size(); i++) {
+			Steppable steppable = steppables.get(i);
+			double rateHz = steppable.getStepRateHz();
+			int framesPerStep = minorFramesPerStep(minorFrameRateHz, rateHz);
+			double actualRateHz = minorFrameRateHz / framesPerStep;
+			
+			if (Math.abs(actualRateHz - rateHz) > RATE_TOLERANCE * rateHz)
+				logger.warn(steppable.getClass().getSimpleName() + " requested " + rateHz + " Hz, but will run at " 
+							+ String.format("%.2f", actualRateHz) + " Hz as a harmonic of the " + minorFrameRateHz + " Hz minor frame rate");
+			
+			memberGroups[i] = findOrAddGroup(framesPerStep, actualRateHz);
+			rateGroups.get(memberGroups[i]).addMember(steppable);
+			majorFrameLength = lcm(majorFrameLength, framesPerStep);
+		}
+		
+		frameTable = new Steppable[majorFrameLength][];
+		frameGroupTable = new int[majorFrameLength][];
+		
+		List<Integer> frameMembers = new ArrayList<>();
+		
+		for (int frame = 0; frame < majorFrameLength; frame++) {
+			frameMembers.clear();
+			
+			for (int i = 0; i < steppables.size(); i++) {
+				int framesPerStep = rateGroups.get(memberGroups[i]).getFramesPerStep();
+				int phase = Math.floorMod(steppables.get(i).getStepPhase(), framesPerStep);
+				
+				if (frame % framesPerStep == phase)
+					frameMembers.add(i);
+			}
+			
+			frameTable[frame] = new Steppable[frameMembers.size()];
+			frameGroupTable[frame] = new int[frameMembers.size()];
+			
+			for (int j = 0; j < frameMembers.size(); j++) {
+				frameTable[frame][j] = steppables.get(frameMembers.get(j));
+				frameGroupTable[frame][j] = memberGroups[frameMembers.get(j)];
+			}
+		}
+		
+		groupNanos = new long[rateGroups.size()];
+		groupRan = new boolean[rateGroups.size()];
+		
+		logger.debug("Scheduled " + steppables.size() + " objects in " + rateGroups.size() + " rate groups over a major frame of " 
+					 + majorFrameLength + " minor frames at " + minorFrameRateHz + " Hz");
+		for (RateGroup group : rateGroups)
+			logger.debug(group);
+	}
+	
+	/**
+	 * Steps all objects scheduled in the given minor frame, recording the time spent by each rate group
+	 * 
+	 * @param minorFrame number of minor frames since the start of the simulation
+	 */
+	public void runMinorFrame(long minorFrame) {
+		if (frameTable == null)
+			build();
+		
+		int frame = (int) (minorFrame % frameTable.length);
+		Steppable[] toStep = frameTable[frame];
+		int[] groups = frameGroupTable[frame];
+		
+		for (int j = 0; j < toStep.length; j++) {
+			long start = System.nanoTime();
+			toStep[j].step();
+			groupNanos[groups[j]] += System.nanoTime() - start;
+			groupRan[groups[j]] = true;
+		}
+		
+		for (int g = 0; g < groupNanos.length; g++) {
+			if (groupRan[g])
+				rateGroups.get(g).getExecutionTime().record(groupNanos[g]);
+			
+			groupNanos[g] = 0;
+			groupRan[g] = false;
+		}
+		
+		minorFrames++;
+	}
+	
+	/**
+	 * Logs the time spent stepping each rate group, and the fraction of the minor frame time budget that it used
+	 * 
+	 * @param minorFramePeriodNanos wall clock time budgeted for each minor frame (ns)
+	 */
+	public void logStatistics(double minorFramePeriodNanos) {
+		for (RateGroup group : rateGroups) {
+			logger.info("Rate group " + group + ": " + group.getExecutionTime() + ", " 
+						+ String.format("%.1f%%", group.getBudgetFraction(minorFrames, minorFramePeriodNanos) * 100) + " of frame budget");
+		}
+	}
+	
+	private int findOrAddGroup(int framesPerStep, double rateHz) {
+		for (int g = 0; g < rateGroups.size(); g++) {
+			if (rateGroups.get(g).getFramesPerStep() == framesPerStep)
+				return g;
+		}
+		
+		rateGroups.add(new RateGroup(framesPerStep, rateHz));
+		
+		return rateGroups.size() - 1;
+	}
+	
+	private static int lcm(int a, int b) {
+		int x = a, y = b;
+		
+		while (y != 0) {
+			int temp = y;
+			y = x % y;
+			x = temp;
+		}
+		
+		return a / x * b;
+	}
+	
+	/**
+	 * @return number of minor frames in the major frame
+	 */
+	public int getMajorFrameLength() { 
+		if (frameTable == null)
+			build();
+		
+		return frameTable.length; 
+	}
+	
+	public List<RateGroup> getRateGroups() { return rateGroups; }
+	
+	/**
+	 * @return base rate of the scheduler (Hz)
+	 */
+	public double getMinorFrameRateHz() { return minorFrameRateHz; }
+	
+	/**
+	 * @return number of minor frames run so far
+	 */
+	public long getMinorFrames() { return minorFrames; }
+}
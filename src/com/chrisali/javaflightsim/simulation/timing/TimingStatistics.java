@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+/**
+ * Accumulates count, mean, standard deviation and maximum of a series of durations measured in nanoseconds, without storing 
+ * the individual samples
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TimingStatistics {
+	
+	private static final double NANOS_TO_MILLISEC = 1e-6;
+	
+	private long   count;
+	private double sumNanos;
+	private double sumSquaredNanos;
+	private long   maxNanos;
+	
+	/**
+	 * Adds a duration to the statistics
+	 * 
+	 * @param nanos
+	 */
+	public void record(long nanos) {
+		count++;
+		sumNanos += nanos;
+		sumSquaredNanos += (double)nanos*nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+	
+	/**
+	 * Clears all statistics
+	 */
+	public void reset() {
+		count = 0;
+		sumNanos = sumSquaredNanos = 0;
+		maxNanos = 0;
+	}
+	
+	public long getCount() { return count; }
+	
+	/**
+	 * @return sum of all durations (ms)
+	 */
+	public double getTotalMS() { return sumNanos*NANOS_TO_MILLISEC; }
+	
+	/**
+	 * @return mean duration (ms)
+	 */
+	public double getMeanMS() { return (count == 0) ? 0 : sumNanos/count*NANOS_TO_MILLISEC; }
+	
+	/**
+	 * @return standard deviation of durations (ms)
+	 */
+	public double getStdDevMS() {
+		if (count == 0)
+			return 0;
+		
+		double mean = sumNanos/count;
+		return Math.sqrt(Math.max(0, sumSquaredNanos/count - mean*mean))*NANOS_TO_MILLISEC;
+	}
+	
+	/**
+	 * @return maximum duration (ms)
+	 */
+	public double getMaxMS() { return maxNanos*NANOS_TO_MILLISEC; }
+	
+	@Override
+	public String toString() {
+		return String.format("n = %d, mean = %.3f ms, std dev = %.3f ms, max = %.3f ms", count, getMeanMS(), getStdDevMS(), getMaxMS());
+	}
+}
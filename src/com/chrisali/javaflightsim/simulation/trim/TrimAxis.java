@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+/**
+ * Provides Enum values to define the axes of the grid of a {@link TrimEnvelope}, over which a {@link TrimSweep} trims an aircraft 
+ * for straight and level flight, and which index a {@link TrimTable}. The String field is used for display of the axis
+ */
+public enum TrimAxis {
+	AIRSPEED	("Airspeed [ft/sec]"),
+	ALTITUDE	("Altitude [ft]"),
+	TOTAL_MASS	("Total Mass [slug]"),
+	CG_X		("CG x [ft]"),
+	FLAPS		("Flaps [rad]");
+	
+	private final String axis;
+	
+	TrimAxis(String axis) {this.axis = axis;}
+	
+	public String toString() {return axis;}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.util.EnumMap;
+
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+
+/**
+ * Defines the steady flight condition that a {@link TrimSolver} trims an aircraft for: true airspeed, altitude, flight path angle 
+ * and turn rate, along with an engine that may be inoperative. Conditions are immutable; the static factories create the common 
+ * cases, which can be combined using the with methods (e.g. a climbing turn with one engine out) 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimCondition {
+	
+	private final double airspeed;
+	private final double altitude;
+	private final double flightPathAngle;
+	private final double turnRate;
+	private final int inoperativeEngine;
+	
+	/**
+	 * Creates a trim condition
+	 * 
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param flightPathAngle positive climbing (rad)
+	 * @param turnRate rate of change of heading, positive to the right (rad/sec)
+	 * @param inoperativeEngine number of the engine whose throttle is held closed, or 0 if all engines operate
+	 */
+	public TrimCondition(double airspeed, double altitude, double flightPathAngle, double turnRate, int inoperativeEngine) {
+		if (!(airspeed > 0))
+			throw new IllegalArgumentException("Trim airspeed must be greater than zero!");
+		if (Math.abs(flightPathAngle) >= Math.PI / 2)
+			throw new IllegalArgumentException("Trim flight path angle must be between -90 and 90 degrees!");
+		if (inoperativeEngine < 0)
+			throw new IllegalArgumentException("Inoperative engine number must not be negative!");
+		
+		this.airspeed = airspeed;
+		this.altitude = altitude;
+		this.flightPathAngle = flightPathAngle;
+		this.turnRate = turnRate;
+		this.inoperativeEngine = inoperativeEngine;
+	}
+	
+	/**
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @return condition for wings level flight at constant altitude
+	 */
+	public static TrimCondition straightAndLevel(double airspeed, double altitude) {
+		return new TrimCondition(airspeed, altitude, 0, 0, 0);
+	}
+	
+	/**
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param flightPathAngle positive climbing (rad)
+	 * @return condition for wings level flight climbing (or descending) along a constant flight path angle
+	 */
+	public static TrimCondition steadyClimb(double airspeed, double altitude, double flightPathAngle) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, 0, 0);
+	}
+	
+	/**
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param turnRate rate of change of heading, positive to the right (rad/sec)
+	 * @return condition for a coordinated level turn at a constant rate
+	 */
+	public static TrimCondition steadyTurn(double airspeed, double altitude, double turnRate) {
+		return new TrimCondition(airspeed, altitude, 0, turnRate, 0);
+	}
+	
+	/**
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param inoperativeEngine number of the engine whose throttle is held closed
+	 * @return condition for straight and level flight with one engine inoperative, balanced by sideslip, aileron and rudder
+	 */
+	public static TrimCondition engineOut(double airspeed, double altitude, int inoperativeEngine) {
+		return new TrimCondition(airspeed, altitude, 0, 0, inoperativeEngine);
+	}
+	
+	/**
+	 * Creates a straight and level condition at the airspeed and altitude in the initial conditions of a configuration
+	 * 
+	 * @param configuration
+	 * @return condition for wings level flight at constant altitude
+	 */
+	public static TrimCondition fromConfiguration(SimulationConfiguration configuration) {
+		EnumMap<InitialConditions, Double> initialConditions = configuration.getInitialConditions();
+		
+		double u = initialConditions.get(InitialConditions.INITU);
+		double v = initialConditions.get(InitialConditions.INITV);
+		double w = initialConditions.get(InitialConditions.INITW);
+		
+		return straightAndLevel(Math.sqrt(u*u + v*v + w*w), initialConditions.get(InitialConditions.INITD));
+	}
+	
+	public TrimCondition withAirspeed(double airspeed) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+	
+	public TrimCondition withAltitude(double altitude) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+	
+	public TrimCondition withFlightPathAngle(double flightPathAngle) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+	
+	public TrimCondition withTurnRate(double turnRate) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+	
+	public TrimCondition withInoperativeEngine(int inoperativeEngine) {
+		return new TrimCondition(airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+
+	/**
+	 * @return true airspeed (ft/sec)
+	 */
+	public double getAirspeed() { return airspeed; }
+
+	/**
+	 * @return altitude (ft)
+	 */
+	public double getAltitude() { return altitude; }
+
+	/**
+	 * @return flight path angle, positive climbing (rad)
+	 */
+	public double getFlightPathAngle() { return flightPathAngle; }
+
+	/**
+	 * @return rate of change of heading, positive to the right (rad/sec)
+	 */
+	public double getTurnRate() { return turnRate; }
+
+	/**
+	 * @return number of the engine whose throttle is held closed, or 0 if all engines operate
+	 */
+	public int getInoperativeEngine() { return inoperativeEngine; }
+	
+	@Override
+	public String toString() {
+		return String.format("TrimCondition [airspeed=%.2f ft/sec, altitude=%.1f ft, flightPathAngle=%.4f rad, turnRate=%.4f rad/sec, inoperativeEngine=%d]", 
+							 airspeed, altitude, flightPathAngle, turnRate, inoperativeEngine);
+	}
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Grid of airspeeds, altitudes, total masses, CG positions and flap settings, each a strictly increasing set of values along a 
+ * {@link TrimAxis}, over which a {@link TrimSweep} trims an aircraft. Points of the grid are numbered with the last axis (flaps) 
+ * varying fastest
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimEnvelope {
+	
+	private static final TrimAxis[] AXES = TrimAxis.values();
+	
+	private final Map<TrimAxis, double[]> axes = new EnumMap<>(TrimAxis.class);
+	
+	/**
+	 * Creates an envelope with one point, which should have its axes set with {@link TrimEnvelope#setAxis(TrimAxis, double...)}
+	 * 
+	 * @param airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param totalMass (slug)
+	 * @param cgX (ft)
+	 * @param flaps (rad)
+	 */
+	public TrimEnvelope(double airspeed, double altitude, double totalMass, double cgX, double flaps) {
+		setAxis(TrimAxis.AIRSPEED, airspeed);
+		setAxis(TrimAxis.ALTITUDE, altitude);
+		setAxis(TrimAxis.TOTAL_MASS, totalMass);
+		setAxis(TrimAxis.CG_X, cgX);
+		setAxis(TrimAxis.FLAPS, flaps);
+	}
+	
+	/**
+	 * Creates the default envelope of an aircraft: 120 to 260 ft/sec in 20 ft/sec steps, 1000 to 13000 ft in 3000 ft steps, 
+	 * the aircraft's total mass +/- 15%, its CG x position +/- 0.5 ft, and flaps up, at half and fully extended 
+	 * 
+	 * @param aircraft
+	 * @return envelope of 1080 points
+	 */
+	public static TrimEnvelope forAircraft(Aircraft aircraft) {
+		double totalMass = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		double cgX = aircraft.getMassProperty(MassProperties.CG_X);
+		double maxFlaps = FlightControl.FLAPS.getMaximum();
+		
+		return new TrimEnvelope(0, 0, 0, 0, 0)
+				.setAxis(TrimAxis.AIRSPEED,   120, 140, 160, 180, 200, 220, 240, 260)
+				.setAxis(TrimAxis.ALTITUDE,   1000, 4000, 7000, 10000, 13000)
+				.setAxis(TrimAxis.TOTAL_MASS, totalMass * 0.85, totalMass, totalMass * 1.15)
+				.setAxis(TrimAxis.CG_X, 	  cgX - 0.5, cgX, cgX + 0.5)
+				.setAxis(TrimAxis.FLAPS, 	  0, maxFlaps / 2, maxFlaps);
+	}
+	
+	/**
+	 * Sets the values of an axis of the grid
+	 * 
+	 * @param axis
+	 * @param values strictly increasing values
+	 * @return this TrimEnvelope
+	 * @throws IllegalArgumentException if no values are given, or they are not strictly increasing
+	 */
+	public TrimEnvelope setAxis(TrimAxis axis, double... values) {
+		if (values.length == 0)
+			throw new IllegalArgumentException(axis + " needs at least one value!");
+		
+		for (int i = 1; i < values.length; i++) {
+			if (!(values[i] > values[i - 1]))
+				throw new IllegalArgumentException(axis + " values must be strictly increasing!");
+		}
+		
+		axes.put(axis, values.clone());
+		return this;
+	}
+	
+	/**
+	 * @param axis
+	 * @return copy of the values of an axis
+	 */
+	public double[] getAxis(TrimAxis axis) { return axes.get(axis).clone(); }
+	
+	/**
+	 * @param axis
+	 * @return number of values along an axis
+	 */
+	public int getAxisLength(TrimAxis axis) { return axes.get(axis).length; }
+	
+	/**
+	 * @return total number of points in the grid
+	 */
+	public int getPoints() {
+		int points = 1;
+		for (TrimAxis axis : AXES)
+			points *= axes.get(axis).length;
+		
+		return points;
+	}
+	
+	/**
+	 * @param indices index along each axis, in {@link TrimAxis} order
+	 * @return number of the point at indices
+	 */
+	int pointIndex(int... indices) {
+		int point = 0;
+		for (TrimAxis axis : AXES)
+			point = point * axes.get(axis).length + indices[axis.ordinal()];
+		
+		return point;
+	}
+}
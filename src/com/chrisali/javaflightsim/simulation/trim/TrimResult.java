@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.util.EnumMap;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+
+/**
+ * Result of trimming an aircraft for a {@link TrimCondition} with a {@link TrimSolver}; holds the trim angles of attack and sideslip, 
+ * the attitude and body rates implied by the condition, and the throttle, elevator, aileron and rudder deflections that zero the 
+ * linear and angular accelerations of the aircraft, along with how well and how quickly the solver converged 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimResult {
+	
+	private final TrimCondition condition;
+	
+	private final double alpha;
+	private final double beta;
+	private final double phi;
+	private final double theta;
+	private final double[] angularRates;
+	
+	private final double throttle;
+	private final double elevator;
+	private final double aileron;
+	private final double rudder;
+	
+	private final int iterations;
+	private final double residual;
+	private final boolean converged;
+	
+	TrimResult(TrimCondition condition, double alpha, double beta, double phi, double theta, double[] angularRates, 
+			   double throttle, double elevator, double aileron, double rudder, int iterations, double residual, boolean converged) {
+		this.condition = condition;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.phi = phi;
+		this.theta = theta;
+		this.angularRates = angularRates.clone();
+		this.throttle = throttle;
+		this.elevator = elevator;
+		this.aileron = aileron;
+		this.rudder = rudder;
+		this.iterations = iterations;
+		this.residual = residual;
+		this.converged = converged;
+	}
+	
+	/**
+	 * Updates the initial conditions and initial controls of a configuration in place with the trim states and controls, so that a 
+	 * simulation started with it begins in trimmed flight. Heading and position are left unchanged, and nothing is written to file
+	 * 
+	 * @param configuration
+	 */
+	public void applyTo(SimulationConfiguration configuration) {
+		EnumMap<InitialConditions, Double> initialConditions = configuration.getInitialConditions();
+		EnumMap<FlightControl, Double> initialControls = configuration.getInitialControls();
+		
+		double airspeed = condition.getAirspeed();
+		
+		initialConditions.put(InitialConditions.INITU, 	airspeed * Math.cos(alpha) * Math.cos(beta));
+		initialConditions.put(InitialConditions.INITV, 	airspeed * Math.sin(beta));
+		initialConditions.put(InitialConditions.INITW, 	airspeed * Math.sin(alpha) * Math.cos(beta));
+		initialConditions.put(InitialConditions.INITD, 	condition.getAltitude());
+		initialConditions.put(InitialConditions.INITPHI, 	phi);
+		initialConditions.put(InitialConditions.INITTHETA, theta);
+		initialConditions.put(InitialConditions.INITP, 	angularRates[0]);
+		initialConditions.put(InitialConditions.INITQ, 	angularRates[1]);
+		initialConditions.put(InitialConditions.INITR, 	angularRates[2]);
+		
+		initialControls.put(FlightControl.ELEVATOR, elevator);
+		initialControls.put(FlightControl.AILERON,  aileron);
+		initialControls.put(FlightControl.RUDDER, 	 rudder);
+		
+		for (int engineNumber = 1; engineNumber <= TrimSolver.THROTTLES.length; engineNumber++)
+			initialControls.put(TrimSolver.THROTTLES[engineNumber - 1], getThrottle(engineNumber));
+	}
+	
+	/**
+	 * @return condition trimmed for
+	 */
+	public TrimCondition getCondition() { return condition; }
+
+	/**
+	 * @return trim angle of attack (rad)
+	 */
+	public double getAlpha() { return alpha; }
+
+	/**
+	 * @return trim angle of sideslip (rad)
+	 */
+	public double getBeta() { return beta; }
+
+	/**
+	 * @return trim bank angle (rad)
+	 */
+	public double getPhi() { return phi; }
+
+	/**
+	 * @return trim pitch attitude (rad)
+	 */
+	public double getTheta() { return theta; }
+
+	/**
+	 * @param axis 0, 1 or 2 for p, q or r
+	 * @return trim body angular rate about axis (rad/sec)
+	 */
+	public double getAngularRate(int axis) { return angularRates[axis]; }
+
+	/**
+	 * @return trim throttle of the operating engines
+	 */
+	public double getThrottle() { return throttle; }
+	
+	/**
+	 * @param engineNumber
+	 * @return trim throttle of an engine; zero if it is inoperative
+	 */
+	public double getThrottle(int engineNumber) { return (engineNumber == condition.getInoperativeEngine()) ? 0.0 : throttle; }
+
+	/**
+	 * @return trim elevator deflection (rad)
+	 */
+	public double getElevator() { return elevator; }
+
+	/**
+	 * @return trim aileron deflection (rad)
+	 */
+	public double getAileron() { return aileron; }
+
+	/**
+	 * @return trim rudder deflection (rad)
+	 */
+	public double getRudder() { return rudder; }
+
+	/**
+	 * @return number of Newton iterations taken to converge; zero if interpolated from a {@link TrimTable}
+	 */
+	public int getIterations() { return iterations; }
+
+	/**
+	 * @return largest remaining linear (ft/sec^2) or angular (rad/sec^2) acceleration at trim; NaN if interpolated from a {@link TrimTable}
+	 */
+	public double getResidual() { return residual; }
+
+	/**
+	 * @return if the accelerations were zeroed within tolerance without exceeding the limits of the controls
+	 */
+	public boolean isConverged() { return converged; }
+
+	@Override
+	public String toString() {
+		String solution = Double.isNaN(residual) ? "Interpolated from trim table" 
+							: String.format("%s after %d iterations (residual %.3e)", converged ? "Converged" : "Did not converge", iterations, residual);
+		
+		return String.format("Trim for %s%n%s%n" 
+							 + "Alpha: %.4f rad%nBeta: %.4f rad%nPhi: %.4f rad%nTheta: %.4f rad%n" 
+							 + "Throttle: %.4f%nElevator: %.4f rad%nAileron: %.4f rad%nRudder: %.4f rad", 
+							 condition, solution, alpha, beta, phi, theta, throttle, elevator, aileron, rudder);
+	}
+}
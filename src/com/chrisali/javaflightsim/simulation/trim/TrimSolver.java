@@ -0,0 +1,434 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftParameters;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.IntegrateGroundReaction;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+/**
+ * Trims an aircraft in all six degrees of freedom for a {@link TrimCondition} by solving for the angle of attack, angle of sideslip, throttle, 
+ * elevator, aileron and rudder together that zero the body axis linear and angular accelerations calculated by the same {@link AccelAndMoments} 
+ * and equations of motion used by {@link Integrate6DOFEquations}. Bank angle and pitch attitude follow from the coordinated turn and rate 
+ * of climb constraints of the condition, and body rates from its turn rate.
+ * 
+ * <p>The nonlinear equations are solved with Levenberg-Marquardt damped Newton iterations, using a Jacobian calculated by forward finite 
+ * differences; damping is reduced after each successful step, so that close to the solution each iteration is a full Newton step and 
+ * convergence is quadratic. All working arrays are allocated once when the solver is created, and evaluations only update the state of 
+ * the context's aircraft and environment; no files are read or written. A solver is not thread safe, so separate solvers, each with 
+ * its own {@link SimulationContext}, should be used to trim concurrently</p>
+ * 
+ * @author Christopher Ali
+ * @see Source: <i>Aircraft Control and Simulation by Stevens, B.L. and Lewis, F.L. (pp 192-8)</i>
+ */
+public class TrimSolver {
+	
+	private static final Logger logger = LogManager.getLogger(TrimSolver.class);
+	
+	/**
+	 * Throttle controls indexed by engine number - 1 
+	 */
+	static final FlightControl[] THROTTLES = {FlightControl.THROTTLE_1, FlightControl.THROTTLE_2, 
+											  FlightControl.THROTTLE_3, FlightControl.THROTTLE_4};
+	
+	/**
+	 * Largest linear (ft/sec^2) or angular (rad/sec^2) acceleration remaining at a converged trim
+	 */
+	public static final double TOLERANCE = 1e-6;
+	
+	/**
+	 * Maximum number of Newton iterations before giving up
+	 */
+	public static final int MAX_ITERATIONS = 25;
+	
+	// Unknowns solved for, and their limits
+	private static final int ALPHA = 0, BETA = 1, THROTTLE = 2, ELEVATOR = 3, AILERON = 4, RUDDER = 5, UNKNOWNS = 6;
+	private static final double[] LOWER_LIMITS = {-0.35, -0.35, FlightControl.THROTTLE_1.getMinimum(), FlightControl.ELEVATOR.getMinimum(),
+												  FlightControl.AILERON.getMinimum(), FlightControl.RUDDER.getMinimum()};
+	private static final double[] UPPER_LIMITS = {0.35, 0.35, FlightControl.THROTTLE_1.getMaximum(), FlightControl.ELEVATOR.getMaximum(),
+												  FlightControl.AILERON.getMaximum(), FlightControl.RUDDER.getMaximum()};
+	private static final double[] INITIAL_GUESS = {0.0, 0.0, 0.5, 0.0, 0.0, 0.0};
+	
+	private static final double FINITE_DIFFERENCE_STEP = 1e-7;
+	private static final double INITIAL_DAMPING = 1e-9;
+	private static final double MAX_DAMPING 	= 1e9;
+	
+	// Aircraft and environment evaluated
+	private final Aircraft aircraft;
+	private final Environment environment;
+	private final Engine[] engines;
+	private final AccelAndMoments accelAndMoments;
+	private final IntegrateGroundReaction groundReaction;
+	private final double gravity = Environment.getGravity();
+	private double[] environmentParameters;
+	
+	// States and controls at which accelerations are evaluated
+	private final double[] linearVelocities	 = new double[3];
+	private final double[] NEDPosition		 = new double[3];
+	private final double[] eulerAngles		 = new double[3];
+	private final double[] angularRates		 = new double[3];
+	private final double[] windParameters	 = new double[3];
+	private final double[] baseControls;
+	private final double[] controls;
+	
+	// Newton iteration working arrays
+	private final double[]   x 					= new double[UNKNOWNS];
+	private final double[]   trialX 			= new double[UNKNOWNS];
+	private final double[]   step 				= new double[UNKNOWNS];
+	private final double[]   residuals 			= new double[UNKNOWNS];
+	private final double[]   trialResiduals 	= new double[UNKNOWNS];
+	private final double[][] jacobian 			= new double[UNKNOWNS][UNKNOWNS];
+	private final double[][] normalEquations 	= new double[UNKNOWNS][UNKNOWNS + 1];
+	
+	private long evaluations;
+	
+	/**
+	 * Creates a solver that trims the {@link Aircraft} of a {@link SimulationContext} in its {@link Environment}. Controls that are not trimmed, 
+	 * such as flaps, gear, propeller and mixture, are held at their values in the initial controls of the context's configuration
+	 * 
+	 * @param context
+	 */
+	public TrimSolver(SimulationContext context) {
+		aircraft = context.getAircraft();
+		environment = context.getEnvironment();
+		
+		Set<Engine> engineSet = aircraft.getEngines();
+		engines = engineSet.toArray(new Engine[engineSet.size()]);
+		accelAndMoments = new AccelAndMoments(aircraft);
+		
+		baseControls = FlightControlsState.copyToArray(context.getConfiguration().getInitialControls(), new double[FlightControl.values().length]);
+		controls = baseControls.clone();
+		
+		// Never integrated, so that ground forces and moments remain zero while airborne 
+		groundReaction = new IntegrateGroundReaction(linearVelocities, NEDPosition, eulerAngles, angularRates, windParameters, 
+													 new double[14], new double[3], aircraft, controls);
+	}
+	
+	/**
+	 * Trims the aircraft for a condition, starting from a default guess of the trim values
+	 * 
+	 * @param condition
+	 * @return trim values, which may not have converged
+	 * @throws IllegalArgumentException if the condition's inoperative engine is not an engine of the aircraft
+	 */
+	public TrimResult trim(TrimCondition condition) {
+		return trim(condition, null);
+	}
+	
+	/**
+	 * Trims the aircraft for a condition, starting from the values of a previous trim; a nearby condition's trim converges in fewer iterations
+	 * 
+	 * @param condition
+	 * @param initialGuess trim to start from, or null to start from a default guess 
+	 * @return trim values, which may not have converged
+	 * @throws IllegalArgumentException if the condition's inoperative engine is not an engine of the aircraft
+	 */
+	public TrimResult trim(TrimCondition condition, TrimResult initialGuess) {
+		validateInoperativeEngine(condition.getInoperativeEngine());
+		
+		NEDPosition[0] = NEDPosition[1] = 0.0;
+		NEDPosition[2] = condition.getAltitude();
+		environmentParameters = environment.getAndUpdateEnvironmentParams(NEDPosition);
+		
+		if (initialGuess != null) {
+			x[ALPHA]	= initialGuess.getAlpha();
+			x[BETA] 	= initialGuess.getBeta();
+			x[THROTTLE] = initialGuess.getThrottle();
+			x[ELEVATOR] = initialGuess.getElevator();
+			x[AILERON] 	= initialGuess.getAileron();
+			x[RUDDER] 	= initialGuess.getRudder();
+		} else {
+			System.arraycopy(INITIAL_GUESS, 0, x, 0, UNKNOWNS);
+		}
+		
+		double cost = evaluate(condition, x, residuals);
+		double damping = INITIAL_DAMPING;
+		int iterations = 0;
+		
+		while (maxAbs(residuals) > TOLERANCE && iterations < MAX_ITERATIONS) {
+			calculateJacobian(condition);
+			iterations++;
+			
+			// Increase damping until a step reduces the residuals, which shortens the step and turns it towards steepest descent
+			boolean improved = false;
+			while (!improved && damping < MAX_DAMPING) {
+				if (solveDampedStep(damping)) {
+					for (int i = 0; i < UNKNOWNS; i++)
+						trialX[i] = limit(i, x[i] + step[i]);
+					
+					double trialCost = evaluate(condition, trialX, trialResiduals);
+					improved = trialCost < cost;
+					
+					if (improved) {
+						System.arraycopy(trialX, 0, x, 0, UNKNOWNS);
+						System.arraycopy(trialResiduals, 0, residuals, 0, UNKNOWNS);
+						cost = trialCost;
+						damping = Math.max(damping / 10, INITIAL_DAMPING);
+						break;
+					}
+				}
+				damping *= 10;
+			}
+			
+			if (!improved)
+				break;
+		}
+		
+		// Leave the aircraft, and the trim attitude, at the solution
+		evaluate(condition, x, residuals);
+		double residual = maxAbs(residuals);
+		
+		TrimResult result = new TrimResult(condition, x[ALPHA], x[BETA], eulerAngles[0], eulerAngles[1], angularRates, x[THROTTLE], 
+										   x[ELEVATOR], x[AILERON], x[RUDDER], iterations, residual, residual <= TOLERANCE);
+		
+		if (result.isConverged())
+			logger.debug("Trimmed " + aircraft.getName() + " in " + iterations + " iterations for " + condition);
+		else
+			logger.debug("Unable to trim " + aircraft.getName() + " for " + condition + "; residual acceleration is " + residual);
+		
+		return result;
+	}
+	
+	/**
+	 * @return total number of times accelerations have been evaluated by this solver
+	 */
+	public long getEvaluations() { return evaluations; }
+	
+	private void validateInoperativeEngine(int inoperativeEngine) {
+		if (inoperativeEngine == 0)
+			return;
+		
+		for (Engine engine : engines) {
+			if (engine.getEngineNumber() == inoperativeEngine)
+				return;
+		}
+		
+		throw new IllegalArgumentException(aircraft.getName() + " has no engine number " + inoperativeEngine + " to make inoperative!");
+	}
+	
+	/**
+	 * Calculates the body axis linear and angular accelerations of the aircraft flying the condition with the unknowns x, in the same way as  
+	 * the derivatives of {@link Integrate6DOFEquations} are calculated
+	 * 
+	 * @param condition
+	 * @param x angle of attack, angle of sideslip, throttle, elevator, aileron and rudder
+	 * @param accelerations array to write u, v, w, p, q and r dot into
+	 * @return half of the sum of squared accelerations
+	 */
+	private double evaluate(TrimCondition condition, double[] x, double[] accelerations) {
+		evaluations++;
+		
+		double airspeed = condition.getAirspeed();
+		double alpha = x[ALPHA], beta = x[BETA];
+		
+		linearVelocities[0] = airspeed * Math.cos(alpha) * Math.cos(beta);
+		linearVelocities[1] = airspeed * Math.sin(beta);
+		linearVelocities[2] = airspeed * Math.sin(alpha) * Math.cos(beta);
+		
+		double phi = calculateBankAngle(condition, alpha, beta);
+		double theta = calculatePitchAttitude(condition, alpha, beta, phi);
+		double turnRate = condition.getTurnRate();
+		
+		eulerAngles[0] = phi;
+		eulerAngles[1] = theta;
+		eulerAngles[2] = 0.0;
+		
+		angularRates[0] = -turnRate * Math.sin(theta);
+		angularRates[1] =  turnRate * Math.sin(phi) * Math.cos(theta);
+		angularRates[2] =  turnRate * Math.cos(phi) * Math.cos(theta);
+		
+		SixDOFUtilities.calculateWindParameters(linearVelocities, windParameters);
+		
+		System.arraycopy(baseControls, 0, controls, 0, controls.length);
+		for (int i = 0; i < THROTTLES.length; i++)
+			controls[THROTTLES[i].ordinal()] = (i + 1 == condition.getInoperativeEngine()) ? 0.0 : x[THROTTLE];
+		controls[FlightControl.ELEVATOR.ordinal()] = x[ELEVATOR];
+		controls[FlightControl.AILERON.ordinal()]  = x[AILERON];
+		controls[FlightControl.RUDDER.ordinal()]   = x[RUDDER];
+		
+		for (int i = 0; i < engines.length; i++)
+			engines[i].updateEngineState(controls, environmentParameters, windParameters);
+		
+		double heightAGL = condition.getAltitude();
+		double[] linearAccelerations = accelAndMoments.calculateLinearAccelerations(windParameters, angularRates, environmentParameters, controls, 
+																					 0.0, engines, aircraft, groundReaction, heightAGL);
+		double[] totalMoments = accelAndMoments.calculateTotalMoments(windParameters, angularRates, environmentParameters, controls, 
+																	  0.0, engines, aircraft, groundReaction, heightAGL);
+		
+		AircraftParameters parameters = aircraft.getParameters();
+		double u = linearVelocities[0], v = linearVelocities[1], w = linearVelocities[2];
+		double p = angularRates[0], q = angularRates[1], r = angularRates[2];
+		
+		accelerations[0] = (r*v)-(q*w)-(gravity*Math.sin(theta))				+linearAccelerations[0];
+		accelerations[1] = (p*w)-(r*u)+(gravity*Math.sin(phi)*Math.cos(theta))+linearAccelerations[1];
+		accelerations[2] = (q*u)-(p*v)+(gravity*Math.cos(phi)*Math.cos(theta))+linearAccelerations[2];
+		
+		accelerations[3] = ((parameters.getInertiaCoeff(1)*p*q) - (parameters.getInertiaCoeff(0)*q*r)) 
+							+ (parameters.getInertiaCoeff(2)*totalMoments[0]) + (parameters.getInertiaCoeff(3)*totalMoments[2]);
+		accelerations[4] =  (parameters.getInertiaCoeff(4)*p*r) - (parameters.getInertiaCoeff(5)*((p*p)-(r*r))) 
+							+ (parameters.getInertiaCoeff(6)*totalMoments[1]);
+		accelerations[5] = ((parameters.getInertiaCoeff(7)*p*q) - (parameters.getInertiaCoeff(1)*q*r)) 
+							+ (parameters.getInertiaCoeff(3)*totalMoments[0]) + (parameters.getInertiaCoeff(8)*totalMoments[2]);
+		
+		double cost = 0;
+		for (int i = 0; i < UNKNOWNS; i++)
+			cost += accelerations[i] * accelerations[i];
+		
+		return cost / 2;
+	}
+	
+	/**
+	 * Calculates the Jacobian of the accelerations at x with forward differences, stepping backwards from any unknown at its upper limit
+	 * 
+	 * @param condition
+	 */
+	private void calculateJacobian(TrimCondition condition) {
+		System.arraycopy(x, 0, trialX, 0, UNKNOWNS);
+		
+		for (int j = 0; j < UNKNOWNS; j++) {
+			double h = FINITE_DIFFERENCE_STEP * Math.max(1.0, Math.abs(x[j]));
+			if (x[j] + h > UPPER_LIMITS[j])
+				h = -h;
+			
+			trialX[j] = x[j] + h;
+			evaluate(condition, trialX, trialResiduals);
+			trialX[j] = x[j];
+			
+			for (int i = 0; i < UNKNOWNS; i++)
+				jacobian[i][j] = (trialResiduals[i] - residuals[i]) / h;
+		}
+	}
+	
+	/**
+	 * Solves the Levenberg-Marquardt normal equations (J'J + damping*diag(J'J))*step = -J'r for step by Gaussian elimination with partial pivoting  
+	 * 
+	 * @param damping
+	 * @return if the equations could be solved
+	 */
+	private boolean solveDampedStep(double damping) {
+		for (int i = 0; i < UNKNOWNS; i++) {
+			for (int j = 0; j < UNKNOWNS; j++) {
+				double sum = 0;
+				for (int k = 0; k < UNKNOWNS; k++)
+					sum += jacobian[k][i] * jacobian[k][j];
+				normalEquations[i][j] = sum;
+			}
+			
+			double gradient = 0;
+			for (int k = 0; k < UNKNOWNS; k++)
+				gradient += jacobian[k][i] * residuals[k];
+			normalEquations[i][UNKNOWNS] = -gradient;
+			
+			normalEquations[i][i] += damping * Math.max(normalEquations[i][i], Double.MIN_NORMAL);
+		}
+		
+		for (int col = 0; col < UNKNOWNS; col++) {
+			int pivot = col;
+			for (int row = col + 1; row < UNKNOWNS; row++) {
+				if (Math.abs(normalEquations[row][col]) > Math.abs(normalEquations[pivot][col]))
+					pivot = row;
+			}
+			
+			if (normalEquations[pivot][col] == 0.0 || Double.isNaN(normalEquations[pivot][col]))
+				return false;
+			
+			double[] temp = normalEquations[col];
+			normalEquations[col] = normalEquations[pivot];
+			normalEquations[pivot] = temp;
+			
+			for (int row = col + 1; row < UNKNOWNS; row++) {
+				double factor = normalEquations[row][col] / normalEquations[col][col];
+				for (int k = col; k <= UNKNOWNS; k++)
+					normalEquations[row][k] -= factor * normalEquations[col][k];
+			}
+		}
+		
+		for (int row = UNKNOWNS - 1; row >= 0; row--) {
+			double sum = normalEquations[row][UNKNOWNS];
+			for (int k = row + 1; k < UNKNOWNS; k++)
+				sum -= normalEquations[row][k] * step[k];
+			step[row] = sum / normalEquations[row][row];
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Calculates the bank angle of a coordinated turn, in which there is no lateral acceleration in body axes
+	 * 
+	 * @see Source: <i>Aircraft Control and Simulation by Stevens, B.L. and Lewis, F.L. (eq 3.6-5)</i>
+	 */
+	private double calculateBankAngle(TrimCondition condition, double alpha, double beta) {
+		double turnRate = condition.getTurnRate();
+		if (turnRate == 0.0)
+			return 0.0;
+		
+		double G = turnRate * condition.getAirspeed() / gravity;
+		double tanAlpha = Math.tan(alpha), sinBeta = Math.sin(beta), cosBeta = Math.cos(beta);
+		
+		double a = 1 - G * tanAlpha * sinBeta;
+		double b = Math.sin(condition.getFlightPathAngle()) / cosBeta;
+		double c = 1 + G * G * cosBeta * cosBeta;
+		
+		double numerator = G * (cosBeta / Math.cos(alpha)) * ((a - b*b) + b * tanAlpha * Math.sqrt(c * (1 - b*b) + G * G * sinBeta * sinBeta));
+		double denominator = a*a - b*b * (1 + c * tanAlpha * tanAlpha);
+		
+		return Math.atan2(numerator, denominator);
+	}
+	
+	/**
+	 * Calculates the pitch attitude that gives the condition's flight path angle at a bank angle
+	 * 
+	 * @see Source: <i>Aircraft Control and Simulation by Stevens, B.L. and Lewis, F.L. (eq 3.6-3)</i>
+	 */
+	private double calculatePitchAttitude(TrimCondition condition, double alpha, double beta, double phi) {
+		double sinGamma = Math.sin(condition.getFlightPathAngle());
+		
+		double a = Math.cos(alpha) * Math.cos(beta);
+		double b = Math.sin(phi) * Math.sin(beta) + Math.cos(phi) * Math.sin(alpha) * Math.cos(beta);
+		
+		return Math.atan2(a*b + sinGamma * Math.sqrt(a*a - sinGamma*sinGamma + b*b), a*a - sinGamma*sinGamma);
+	}
+	
+	private static double limit(int unknown, double value) {
+		return Math.max(LOWER_LIMITS[unknown], Math.min(UPPER_LIMITS[unknown], value));
+	}
+	
+	private static double maxAbs(double[] values) {
+		double max = 0;
+		for (double value : values)
+			max = Math.max(max, Math.abs(value));
+		
+		return max;
+	}
+}
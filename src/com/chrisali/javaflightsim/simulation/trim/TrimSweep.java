@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Trims the selected aircraft of a {@link SimulationConfiguration} for straight and level flight at every point of a {@link TrimEnvelope}, 
+ * producing a {@link TrimTable}. The envelope is divided into slices of constant total mass, CG position and flap setting, which are spread 
+ * across all cores by a work-stealing {@link ForkJoinPool}; each slice reads its own {@link Aircraft} into its own {@link SimulationContext} 
+ * and {@link TrimSolver}, so no state is shared between slices. Within a slice, each trim starts from the trim at the previous airspeed, 
+ * so that most points converge in one or two iterations. The table produced is identical no matter how many threads run the sweep 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimSweep {
+	
+	private static final Logger logger = LogManager.getLogger(TrimSweep.class);
+	
+	private final SimulationConfiguration baseConfiguration;
+	private final TrimEnvelope envelope;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * Creates a TrimSweep of the selected aircraft of baseConfiguration over envelope. Controls that are not trimmed, other than flaps, 
+	 * are held at their values in the initial controls of the base configuration, which is never modified 
+	 * 
+	 * @param baseConfiguration
+	 * @param envelope
+	 */
+	public TrimSweep(SimulationConfiguration baseConfiguration, TrimEnvelope envelope) {
+		this.baseConfiguration = baseConfiguration;
+		this.envelope = envelope;
+	}
+	
+	/**
+	 * Runs the sweep, blocking until every point of the envelope has been trimmed
+	 * 
+	 * @return table of trims, keyed by the aircraft as read when the sweep started
+	 * @throws IOException if the aircraft's file could not be read to calculate its key
+	 */
+	public TrimTable run() throws IOException {
+		String aircraftName = baseConfiguration.getSelectedAircraft();
+		TrimTable table = new TrimTable(TrimTable.calculateKey(FileUtilities.readAircraftConfiguration(aircraftName)), envelope);
+		
+		int slices = envelope.getAxisLength(TrimAxis.TOTAL_MASS) * envelope.getAxisLength(TrimAxis.CG_X) * envelope.getAxisLength(TrimAxis.FLAPS);
+		AtomicInteger trimmed = new AtomicInteger();
+		
+		logger.info("Sweeping " + envelope.getPoints() + " trims of " + aircraftName + " on " + parallelism + " threads...");
+		long start = System.nanoTime();
+		
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new SliceRange(0, slices, table, trimmed));
+		} finally {
+			pool.shutdown();
+		}
+		
+		logger.info(String.format("Trimmed %d of %d points in %.2f sec", trimmed.get(), envelope.getPoints(), (System.nanoTime() - start) / 1e9));
+		
+		return table;
+	}
+	
+	/**
+	 * Trims each airspeed and altitude of a slice of the envelope at constant total mass, CG position and flap setting 
+	 * 
+	 * @param slice
+	 * @param table
+	 * @param trimmed count of points trimmed
+	 */
+	void trimSlice(int slice, TrimTable table, AtomicInteger trimmed) {
+		int flapsLength = envelope.getAxisLength(TrimAxis.FLAPS);
+		int cgLength = envelope.getAxisLength(TrimAxis.CG_X);
+		
+		int flapsIndex = slice % flapsLength;
+		int cgIndex = (slice / flapsLength) % cgLength;
+		int massIndex = slice / (flapsLength * cgLength);
+		
+		SimulationConfiguration configuration = new SimulationConfiguration();
+		configuration.setSelectedAircraft(baseConfiguration.getSelectedAircraft());
+		configuration.setInitialControls(new EnumMap<>(baseConfiguration.getInitialControls()));
+		configuration.getInitialControls().put(FlightControl.FLAPS, envelope.getAxis(TrimAxis.FLAPS)[flapsIndex]);
+		configuration.updateOptions(EnumSet.of(Options.ANALYSIS_MODE));
+		
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		aircraft.setMassProperty(MassProperties.TOTAL_MASS, envelope.getAxis(TrimAxis.TOTAL_MASS)[massIndex]);
+		aircraft.setMassProperty(MassProperties.CG_X, envelope.getAxis(TrimAxis.CG_X)[cgIndex]);
+		
+		TrimSolver solver = new TrimSolver(new SimulationContext(configuration, aircraft, null));
+		
+		double[] airspeeds = envelope.getAxis(TrimAxis.AIRSPEED);
+		double[] altitudes = envelope.getAxis(TrimAxis.ALTITUDE);
+		
+		for (int altitudeIndex = 0; altitudeIndex < altitudes.length; altitudeIndex++) {
+			TrimResult previous = null;
+			
+			for (int airspeedIndex = 0; airspeedIndex < airspeeds.length; airspeedIndex++) {
+				TrimCondition condition = TrimCondition.straightAndLevel(airspeeds[airspeedIndex], altitudes[altitudeIndex]);
+				TrimResult result = solver.trim(condition, previous);
+				
+				// The previous trim may be too far away to start from 
+				if (!result.isConverged() && previous != null)
+					result = solver.trim(condition);
+				
+				if (result.isConverged()) {
+					table.set(envelope.pointIndex(airspeedIndex, altitudeIndex, massIndex, cgIndex, flapsIndex), result);
+					trimmed.incrementAndGet();
+					previous = result;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splits a range of slice indices in half until a single slice remains, which is then trimmed; idle workers of the pool steal 
+	 * unsplit halves from busy workers
+	 */
+	private class SliceRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final int start;
+		private final int end;
+		private final TrimTable table;
+		private final AtomicInteger trimmed;
+		
+		private SliceRange(int start, int end, TrimTable table, AtomicInteger trimmed) {
+			this.start = start;
+			this.end = end;
+			this.table = table;
+			this.trimmed = trimmed;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start == 1) {
+				trimSlice(start, table, trimmed);
+			} else if (end - start > 1) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new SliceRange(start, middle, table, trimmed), new SliceRange(middle, end, table, trimmed));
+			}
+		}
+	}
+	
+	/**
+	 * @param parallelism number of threads used to run the sweep
+	 */
+	public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+}
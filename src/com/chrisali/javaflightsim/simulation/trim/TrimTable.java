@@ -0,0 +1,387 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Table of straight and level trims of an aircraft over the grid of a {@link TrimEnvelope}, produced by a {@link TrimSweep}, from which 
+ * trims within the envelope are interpolated multilinearly in a few microseconds. A table is keyed by a SHA-256 hash of the aircraft's 
+ * Aircraft.json file and those of its mass properties that are not axes of the table, so that it is only used for the aircraft it was 
+ * swept for; when either changes the table is stale, and aircraft are trimmed live by {@link TrimSolver} until the sweep is run again. 
+ * Total mass and CG x are instead looked up along their axes, and trims for them outside of the envelope are not interpolated
+ * 
+ * <p>Tables are stored compactly in binary in the TrimTables directory: a header holding the key and the values of each axis, followed 
+ * by the angle of attack, angle of sideslip, throttle, elevator, aileron and rudder at each point as 32 bit floats. Points that could 
+ * not be trimmed are NaN, and trims are not interpolated from them</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimTable {
+	
+	private static final Logger logger = LogManager.getLogger(TrimTable.class);
+	
+	public static final String FILE_EXT = ".trim";
+	
+	private static final int MAGIC = 0x4A365454; // "J6TT"
+	private static final int VERSION = 1;
+	private static final int KEY_BYTES = 32;
+	private static final int VALUES_PER_POINT = 6;
+	
+	private static final TrimAxis[] AXES = TrimAxis.values();
+	
+	// Mass properties that affect trim but are not axes of the table, and so are part of its key; fuel and payload weights only set 
+	// the total mass, which is an axis
+	private static final EnumSet<MassProperties> KEY_MASS_PROPERTIES = EnumSet.of(MassProperties.J_X, MassProperties.J_Y, MassProperties.J_Z, 
+																				   MassProperties.J_XZ, MassProperties.CG_Y, MassProperties.CG_Z);
+	
+	private final byte[] key;
+	private final double[][] axes = new double[AXES.length][];
+	private final float[] values;
+	
+	/**
+	 * Creates a table for the points of envelope in which no point has been trimmed
+	 * 
+	 * @param key
+	 * @param envelope
+	 */
+	TrimTable(byte[] key, TrimEnvelope envelope) {
+		this.key = key.clone();
+		
+		for (TrimAxis axis : AXES)
+			axes[axis.ordinal()] = envelope.getAxis(axis);
+		
+		values = new float[envelope.getPoints() * VALUES_PER_POINT];
+		Arrays.fill(values, Float.NaN);
+	}
+	
+	private TrimTable(byte[] key, double[][] axes, float[] values) {
+		this.key = key;
+		System.arraycopy(axes, 0, this.axes, 0, AXES.length);
+		this.values = values;
+	}
+	
+	/**
+	 * Stores the trim at a point of the table, unless it did not converge
+	 * 
+	 * @param point
+	 * @param result
+	 */
+	void set(int point, TrimResult result) {
+		if (!result.isConverged())
+			return;
+		
+		int offset = point * VALUES_PER_POINT;
+		values[offset]     = (float) result.getAlpha();
+		values[offset + 1] = (float) result.getBeta();
+		values[offset + 2] = (float) result.getThrottle();
+		values[offset + 3] = (float) result.getElevator();
+		values[offset + 4] = (float) result.getAileron();
+		values[offset + 5] = (float) result.getRudder();
+	}
+	
+	/**
+	 * @param point
+	 * @return if the point was trimmed
+	 */
+	boolean isTrimmed(int point) { return !Float.isNaN(values[point * VALUES_PER_POINT]); }
+	
+	//===================================== Interpolation =======================================================
+	
+	/**
+	 * Interpolates the straight and level trim at a point within the table's envelope. The interpolated trim's residual is not evaluated,
+	 * and is NaN 
+	 * 
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param totalMass (slug)
+	 * @param cgX (ft)
+	 * @param flaps (rad)
+	 * @return interpolated trim, or null if the point is outside of the envelope or next to a point that could not be trimmed
+	 */
+	public TrimResult interpolate(double airspeed, double altitude, double totalMass, double cgX, double flaps) {
+		double[] point = {airspeed, altitude, totalMass, cgX, flaps};
+		int[] lower = new int[AXES.length];
+		double[] fractions = new double[AXES.length];
+		
+		// Find the cell containing the point along each axis; an axis with a single value must match it
+		for (int i = 0; i < AXES.length; i++) {
+			double[] axis = axes[i];
+			int last = axis.length - 1;
+			
+			if (point[i] < axis[0] || point[i] > axis[last])
+				return null;
+			
+			if (last == 0)
+				continue;
+			
+			int index = Arrays.binarySearch(axis, point[i]);
+			if (index < 0)
+				index = -index - 2;
+			lower[i] = Math.min(index, last - 1);
+			fractions[i] = (point[i] - axis[lower[i]]) / (axis[lower[i] + 1] - axis[lower[i]]);
+		}
+		
+		double[] trim = new double[VALUES_PER_POINT];
+		int[] corner = new int[AXES.length];
+		
+		// Weight each of the corners of the cell, skipping corners with no weight 
+		for (int mask = 0; mask < (1 << AXES.length); mask++) {
+			double weight = 1.0;
+			for (int i = 0; i < AXES.length; i++) {
+				boolean upper = (mask & (1 << i)) != 0;
+				if (upper && axes[i].length == 1) {
+					weight = 0.0;
+					break;
+				}
+				
+				corner[i] = lower[i] + (upper ? 1 : 0);
+				weight *= upper ? fractions[i] : 1 - fractions[i];
+			}
+			
+			if (weight == 0.0)
+				continue;
+			
+			int offset = pointIndex(corner) * VALUES_PER_POINT;
+			for (int j = 0; j < VALUES_PER_POINT; j++)
+				trim[j] += weight * values[offset + j];
+		}
+		
+		if (Double.isNaN(trim[0]))
+			return null;
+		
+		// Pitch attitude equals angle of attack in wings level flight without sideslip
+		return new TrimResult(TrimCondition.straightAndLevel(airspeed, altitude), trim[0], trim[1], 0.0, trim[0], new double[3], 
+							  trim[2], trim[3], trim[4], trim[5], 0, Double.NaN, true);
+	}
+	
+	private int pointIndex(int[] indices) {
+		int point = 0;
+		for (int i = 0; i < AXES.length; i++)
+			point = point * axes[i].length + indices[i];
+		
+		return point;
+	}
+	
+	/**
+	 * Interpolates the straight and level trim of a context's aircraft at the airspeed and altitude of its configuration's initial 
+	 * conditions from the aircraft's trim table, if it has a table that is not stale, and the context's environment is the standard 
+	 * atmosphere that tables are swept in
+	 * 
+	 * @param context
+	 * @return interpolated trim, or null if it could not be interpolated
+	 */
+	public static TrimResult lookup(SimulationContext context) {
+		return lookup(context, getTableFile(context.getAircraft().getName()));
+	}
+	
+	/**
+	 * Interpolates the straight and level trim of a context's aircraft at the airspeed and altitude of its configuration's initial 
+	 * conditions from a trim table file, if the table is not stale
+	 * 
+	 * @param context
+	 * @param file
+	 * @return interpolated trim, or null if it could not be interpolated
+	 */
+	static TrimResult lookup(SimulationContext context, File file) {
+		Aircraft aircraft = context.getAircraft();
+		SimulationConfiguration configuration = context.getConfiguration();
+		
+		if (!file.exists()) {
+			logger.debug("No trim table found for " + aircraft.getName());
+			return null;
+		}
+		
+		if (context.getEnvironment().getDeltaIsa() != 0.0) {
+			logger.debug("Trim tables are only valid in the standard atmosphere");
+			return null;
+		}
+		
+		try {
+			TrimTable table = read(file);
+			
+			if (!Arrays.equals(table.key, calculateKey(aircraft))) {
+				logger.info("Trim table of " + aircraft.getName() + " is stale; run the trim sweep again to update it");
+				return null;
+			}
+			
+			TrimCondition condition = TrimCondition.fromConfiguration(configuration);
+			Double flaps = configuration.getInitialControls().get(FlightControl.FLAPS);
+			
+			return table.interpolate(condition.getAirspeed(), condition.getAltitude(), aircraft.getMassProperty(MassProperties.TOTAL_MASS), 
+									 aircraft.getMassProperty(MassProperties.CG_X), (flaps != null) ? flaps : 0.0);
+		} catch (IOException e) {
+			logger.error("Unable to read trim table of " + aircraft.getName() + "!", e);
+			return null;
+		}
+	}
+	
+	//===================================== Keys and Files ======================================================
+	
+	/**
+	 * Calculates the key of an aircraft: a SHA-256 hash of its stability derivatives, wing geometry, engines and ground reaction, and 
+	 * the current values of the mass properties that affect trim without being axes of the table. Saving a different fuel or payload 
+	 * weight therefore does not make the table stale
+	 * 
+	 * @param aircraft
+	 * @return key
+	 * @throws IOException if a section of the aircraft could not be serialized
+	 */
+	public static byte[] calculateKey(Aircraft aircraft) throws IOException {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ObjectMapper mapper = new ObjectMapper();
+			
+			digest.update(mapper.writeValueAsBytes(aircraft.getStabDerivs()));
+			digest.update(mapper.writeValueAsBytes(aircraft.getWingGeometry()));
+			digest.update(mapper.writeValueAsBytes(aircraft.getEngines()));
+			digest.update(mapper.writeValueAsBytes(aircraft.getGroundReaction()));
+			
+			for (MassProperties massProperty : KEY_MASS_PROPERTIES) {
+				Double value = aircraft.getMassProps().get(massProperty);
+				long bits = Double.doubleToLongBits((value != null) ? value : Double.NaN);
+				
+				digest.update(massProperty.name().getBytes(StandardCharsets.UTF_8));
+				for (int shift = 56; shift >= 0; shift -= 8)
+					digest.update((byte) (bits >>> shift));
+			}
+			
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available!", e);
+		}
+	}
+	
+	/**
+	 * @param aircraftName
+	 * @return file in the TrimTables directory holding the trim table of an aircraft
+	 */
+	public static File getTableFile(String aircraftName) {
+		return new File(FileUtilities.FILE_ROOT + SimDirectories.TRIM_TABLES.toString(), aircraftName + FILE_EXT);
+	}
+	
+	/**
+	 * Writes the table to a temporary file, which then replaces file, so that a table being read is never partially written
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (!directory.exists() && !directory.mkdirs())
+			throw new IOException("Unable to create trim table directory " + directory);
+		
+		File temporary = new File(directory, file.getName() + ".tmp");
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.write(key);
+			
+			for (double[] axis : axes) {
+				out.writeInt(axis.length);
+				for (double value : axis)
+					out.writeDouble(value);
+			}
+			
+			for (float value : values)
+				out.writeFloat(value);
+		}
+		
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * @param file
+	 * @return table read from file
+	 * @throws IOException if the file could not be read, or is not a trim table of this version
+	 */
+	public static TrimTable read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a trim table");
+			
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported trim table version " + version);
+			
+			byte[] key = new byte[KEY_BYTES];
+			in.readFully(key);
+			
+			double[][] axes = new double[AXES.length][];
+			int points = 1;
+			for (int i = 0; i < AXES.length; i++) {
+				int length = in.readInt();
+				if (length < 1 || length > 10_000)
+					throw new IOException("Invalid length of " + AXES[i] + " axis in " + file);
+				
+				axes[i] = new double[length];
+				for (int j = 0; j < length; j++)
+					axes[i][j] = in.readDouble();
+				
+				points *= length;
+			}
+			
+			float[] values = new float[points * VALUES_PER_POINT];
+			for (int i = 0; i < values.length; i++)
+				values[i] = in.readFloat();
+			
+			return new TrimTable(key, axes, values);
+		}
+	}
+	
+	/**
+	 * @return SHA-256 key of the aircraft this table was swept for
+	 */
+	public byte[] getKey() { return key.clone(); }
+	
+	/**
+	 * @param axis
+	 * @return copy of the values of an axis of the table
+	 */
+	public double[] getAxis(TrimAxis axis) { return axes[axis.ordinal()].clone(); }
+}
@@ -27,15 +27,15 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.List;
-import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.lwjgl.interfaces.gauges.InstrumentPanel;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.export.CSVExporter;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
-import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
 import com.chrisali.javaflightsim.simulation.setup.ControlsConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.swing.plotting.PlotConfiguration;
@@ -224,35 +224,17 @@ public class FileUtilities {
 	}
 			
 	/**
-	 * Writes a CSV file from data contained within the logsOut ArrayList 
+	 * Writes a CSV file from data contained within the logsOut ArrayList, using a {@link CSVExporter} with its default settings 
 	 * 
 	 * @param file
 	 * @param logsOut
 	 * @throws IOException
 	 */
-	public static void saveToCSVFile(File file, List<Map<SimOuts, Double>> logsOut) throws IOException {
+	public static void saveToCSVFile(File file, List<SimOutFrame> logsOut) throws IOException {
 		
-		logger.debug("Saving configuration file to: " + file.getAbsolutePath());
+		logger.debug("Saving CSV file to: " + file.getAbsolutePath());
 		
-		BufferedWriter bw = new BufferedWriter(new FileWriter(file.getPath()));
-		
-		// First line of CSV file should have the names of each parameter
-		StringBuilder sb_line1 = new StringBuilder();
-		for (SimOuts simOut : SimOuts.values()) {
-			sb_line1.append(simOut.toString()).append(",");
-		}
-		bw.write(sb_line1.append("\n").toString());
-		
-		// Subsequent lines contain data
-		for (Map<SimOuts, Double> simOut : logsOut) {
-			StringBuilder sb = new StringBuilder();
-			for (Map.Entry<?,Double> entry : simOut.entrySet()) {
-				sb.append(entry.getValue().toString()).append(",");
-			}
-			bw.write(sb.append("\n").toString());
-		}
-		
-		bw.close();
+		new CSVExporter().export(logsOut, file);
 		
 		logger.debug(file.getName() + " saved successfully!");
 	}
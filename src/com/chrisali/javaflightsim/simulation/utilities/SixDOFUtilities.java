@@ -19,8 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.utilities;
 
-import java.util.Map;
-
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
 import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
@@ -38,8 +36,18 @@ public class SixDOFUtilities {
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[][] body2Ned(double[] eulerAngles) {
-		double body2NedDCM[][] = new double[3][3]; //[column][row]
-		
+		return body2Ned(eulerAngles, new double[3][3]);
+	}
+	
+	/**
+	 * Calculates the direction cosine matrix needed to convert from body to NED coordinate axes, writing the result into 
+	 * an existing matrix so that it can be reused on each call 
+	 * 
+	 * @param eulerAngles
+	 * @param body2NedDCM 3x3 matrix ([column][row]) to overwrite
+	 * @return body2NedDCM
+	 */
+	public static double[][] body2Ned(double[] eulerAngles, double[][] body2NedDCM) {
 		body2NedDCM[0][0] =  Math.cos(eulerAngles[1])*Math.cos(eulerAngles[2]);
 		body2NedDCM[1][0] =  Math.cos(eulerAngles[1])*Math.sin(eulerAngles[2]);
 		body2NedDCM[2][0] = -Math.sin(eulerAngles[1]);
@@ -61,8 +69,18 @@ public class SixDOFUtilities {
 	 *  @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[] calculateInertiaCoeffs(double[] inertiaVals) { //inertiaVals[]{Ix,Iy,Iz,Ixz}
-		double[] inertiaCoeffs = new double[9];
-		
+		return calculateInertiaCoeffs(inertiaVals, new double[9]);
+	}
+	
+	/**
+	 * Calculates the inertia coefficients used in the calculation of p, q and r dot in {@link Integrate6DOFEquations}, writing 
+	 * the result into an existing array so that it can be reused on each call
+	 * 
+	 * @param inertiaVals {Ix,Iy,Iz,Ixz}
+	 * @param inertiaCoeffs array of length 9 to overwrite
+	 * @return inertiaCoeffs
+	 */
+	public static double[] calculateInertiaCoeffs(double[] inertiaVals, double[] inertiaCoeffs) {
 		double gamma = (inertiaVals[0]*inertiaVals[2])-(Math.pow(inertiaVals[3], 2));
 		
 		inertiaCoeffs[0] = (((inertiaVals[1]-inertiaVals[2])*inertiaVals[2])-(Math.pow(inertiaVals[3], 2)))/gamma;
@@ -83,8 +101,18 @@ public class SixDOFUtilities {
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[][] wind2Body(double[] windParameters) {
-		double wind2BodyDCM[][] = new double[3][3]; //[row][column]
-		
+		return wind2Body(windParameters, new double[3][3]);
+	}
+	
+	/**
+	 * Calculates the direction cosine matrix needed to convert from wind to body coordinate axes 
+	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
+	 * 
+	 * @param windParameters
+	 * @param wind2BodyDCM 3x3 array to overwrite ([row][column])
+	 * @return wind2BodyDCM
+	 */
+	public static double[][] wind2Body(double[] windParameters, double[][] wind2BodyDCM) {
 		wind2BodyDCM[0][0] =  Math.cos(windParameters[1])*Math.cos(windParameters[2]);
 		wind2BodyDCM[1][0] =  Math.sin(windParameters[1]);  
 		wind2BodyDCM[2][0] =  Math.cos(windParameters[1])*Math.sin(windParameters[2]);
@@ -105,8 +133,18 @@ public class SixDOFUtilities {
 	 * @see Source: <i>G. Cai et al., Unmanned Rotorcraft Systems</i>
 	 */
 	public static double[] ned2LLA(double[] y) {
-		double[] ned2LLA = new double[2]; // Conversion factors for latitude (lambda), longitude (phi) and altitude (h)
-		
+		return ned2LLA(y, new double[2]);
+	}
+	
+	/**
+	 * Calculates the conversion factors needed to convert between lat/lon dot and N/E dot, writing the result into an existing 
+	 * array so that it can be reused on each call
+	 * 
+	 * @param y 6DOF states
+	 * @param ned2LLA array of length 2 to overwrite
+	 * @return ned2LLA
+	 */
+	public static double[] ned2LLA(double[] y, double[] ned2LLA) { // Conversion factors for latitude (lambda), longitude (phi) and altitude (h)
 		// WGS84 Parameters
 		double rEarth = 6378137; // Earth's radius [m]
 		double e = 0.08181919; // Earth's eccentricity (e)
@@ -127,11 +165,27 @@ public class SixDOFUtilities {
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[] calculateWindParameters(double[] linearVelocities) {
+		return calculateWindParameters(linearVelocities, new double[3]);
+	}
+	
+	/**
+	 * Calculates true airspeed, angle of sideslip and angle of attack, writing the result into an existing array so that it 
+	 * can be reused on each call 
+	 * 
+	 * @param linearVelocities
+	 * @param windParameters array of length 3 to overwrite {vTrue,beta,alpha}
+	 * @return windParameters
+	 */
+	public static double[] calculateWindParameters(double[] linearVelocities, double[] windParameters) {
 		double vTrue = Math.sqrt(Math.pow(linearVelocities[0],2) + Math.pow(linearVelocities[1],2) + Math.pow(linearVelocities[2],2));
 		double beta = Math.asin(linearVelocities[1]/vTrue);
 		double alpha = Math.atan(linearVelocities[2]/linearVelocities[0]);
 		
-		return SaturationUtilities.limitWindParameters(new double[] {vTrue,beta,alpha});
+		windParameters[0] = vTrue;
+		windParameters[1] = beta;
+		windParameters[2] = alpha;
+		
+		return SaturationUtilities.limitWindParameters(windParameters);
 	}
 	
 	/**
@@ -147,8 +201,8 @@ public class SixDOFUtilities {
 	 * Calculates Mach number
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
-	public static double calculateMach(double[] windParameters, Map<EnvironmentParameters, Double> environmentParameters) {
-		return windParameters[0]/environmentParameters.get(EnvironmentParameters.A);
+	public static double calculateMach(double[] windParameters, double[] environmentParameters) {
+		return windParameters[0]/environmentParameters[EnvironmentParameters.A.ordinal()];
 	}
 	
 	/**
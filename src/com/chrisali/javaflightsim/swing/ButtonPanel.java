@@ -52,6 +52,7 @@ public class ButtonPanel extends JPanel {
 	private JButton optionsButton;
 	private JLabel optionsLabel;
 	private JButton runButton;
+	private JButton replayButton;
 	
 	private String htmlBodyOpen = "<html><body>";
 	private String parOpen = "<p style='width: 150px;'>";
@@ -62,6 +63,7 @@ public class ButtonPanel extends JPanel {
 	private InitialConditionsButtonListener initialConditionsButtonListener;
 	private OptionsButtonListener optionsButtonListener;
 	private StartSimulationButtonListener startSimulationButtonListener;
+	private ReplayFlightButtonListener replayFlightButtonListener;
 	
 	private SimulationConfiguration configuration;
 	
@@ -178,6 +180,21 @@ public class ButtonPanel extends JPanel {
 		});
 		add(runButton, gc);
 		
+		// -------------------- Replay Flight Button ---------------------------------------
+		gc.gridy++;
+		gc.weighty = 0.125;
+		
+		replayButton = new JButton("Replay Flight");
+		replayButton.setToolTipText("Plays back a flight recorded with the Flight Recorder option");
+		replayButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (replayFlightButtonListener != null)
+					replayFlightButtonListener.buttonEventOccurred();
+			}
+		});
+		add(replayButton, gc);
+		
 		//================================ Window Settings =========================================
 		
 		setSize(new Dimension(200, 400));
@@ -242,4 +259,8 @@ public class ButtonPanel extends JPanel {
 	public void setStartSimulationButtonListener(StartSimulationButtonListener startSimulationButtonListener) {
 		this.startSimulationButtonListener = startSimulationButtonListener;
 	}
+	
+	public void setReplayFlightButtonListener(ReplayFlightButtonListener replayFlightButtonListener) {
+		this.replayFlightButtonListener = replayFlightButtonListener;
+	}
 }
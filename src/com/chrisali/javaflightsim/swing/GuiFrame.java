@@ -24,20 +24,26 @@ import java.awt.CardLayout;
 import java.awt.Dimension;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.EnumSet;
 
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecorder;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftConfigurationListener;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftDropDownListener;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftPanel;
@@ -220,6 +226,28 @@ public class GuiFrame extends JFrame {
 				GuiFrame.this.setVisible(configuration.getSimulationOptions().contains(Options.ANALYSIS_MODE) ? true : false);
 			}
 		});
+		buttonPanel.setReplayFlightButtonListener(new ReplayFlightButtonListener() {
+			@Override
+			public void buttonEventOccurred() {
+				JFileChooser fileChooser = new JFileChooser(new File(SimDirectories.RECORDINGS.toString()));
+				fileChooser.setFileFilter(new FileNameExtensionFilter("Flight Recordings", FlightRecorder.RECORDING_EXT.substring(1)));
+				
+				if (fileChooser.showOpenDialog(GuiFrame.this) != JFileChooser.APPROVE_OPTION)
+					return;
+				
+				setSize(dims);
+				cardPanel.setVisible(false);
+				
+				try {
+					simulationController.startReplay(fileChooser.getSelectedFile());
+					GuiFrame.this.setVisible(false);
+				} catch (IOException | IllegalArgumentException e) {
+					logger.error("Could not replay " + fileChooser.getSelectedFile().getName() + "!", e);
+					JOptionPane.showMessageDialog(GuiFrame.this, "Unable to read flight recording!", 
+												  "Error Reading File", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		});
 		add(buttonPanel, BorderLayout.CENTER);
 		
 		//============================ Miscellaneous ===============================================
@@ -20,23 +20,23 @@
 package com.chrisali.javaflightsim.swing.consoletable;
 
 import java.text.DecimalFormat;
-import java.util.List;
-import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 
 public class ConsoleTableModel extends AbstractTableModel {
 
 	private static final long serialVersionUID = 4210192628630933689L;
 	
-	private List<Map<SimOuts, Double>> logsOut;
-	private Map<SimOuts, Double> simOut;
+	private SimOutHistory history;
+	private final SimOutFrame simOut = new SimOutFrame();
 	private SimOuts[] columnNames = SimOuts.values();
 	
-	protected void setData(List<Map<SimOuts, Double>> list) {
-		this.logsOut = list;
+	protected void setData(SimOutHistory history) {
+		this.history = history;
 	}
 
 	@Override
@@ -46,12 +46,14 @@ public class ConsoleTableModel extends AbstractTableModel {
 
 	@Override
 	public int getRowCount() {
-		return (logsOut == null) ? 0 : logsOut.size();
+		return (history == null) ? 0 : history.size();
 	}
 
 	@Override
 	public Object getValueAt(int row, int col) {
-		simOut = logsOut.get(row);
+		// Rows are read directly from the live history; a row evicted since the table was last refreshed has no data
+		if (!history.readFrame(history.getFirstSequence() + row, simOut))
+			return "-";
 		
 		DecimalFormat df6 = new DecimalFormat("#.######");
 		DecimalFormat df4 = new DecimalFormat("#.####");
@@ -67,7 +67,7 @@ public class ConsoleTablePanel extends JFrame {
 		//-------------- Table Panel ------------------------
 		
 		consoleTableModel = new ConsoleTableModel();
-		consoleTableModel.setData(runner.getSimulation().getLogsOut());
+		consoleTableModel.setData(runner.getSource().getHistory());
 		table = new JTable(consoleTableModel);
 		table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
 		table.setColumnSelectionAllowed(true);
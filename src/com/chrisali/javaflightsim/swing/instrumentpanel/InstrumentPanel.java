@@ -23,7 +23,6 @@ import java.awt.Color;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.text.DecimalFormat;
-import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
@@ -31,7 +30,9 @@ import javax.swing.JPanel;
 import javax.swing.border.Border;
 
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
-import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSubscriber;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.swing.instrumentpanel.gauges.AirspeedIndicator;
@@ -50,7 +51,7 @@ import eu.hansolo.steelseries.tools.LedColor;
  *  gauge framework. Instruments are arranged in a typical "six-pack" layout common in general aviation aircraft, and
  *  make use of flight data gathered by {@link FlightData} from {@link Integrate6DOFEquations}
  */
-public class InstrumentPanel extends JPanel implements FlightDataListener {
+public class InstrumentPanel extends JPanel implements FlightDataSubscriber {
 
 	private static final long serialVersionUID = -3900476226233156470L;
 	
@@ -65,8 +66,8 @@ public class InstrumentPanel extends JPanel implements FlightDataListener {
 	private Led				   gearIndicator;
 	
 	/**
-	 * Creates a simple instrument panel with a {@link FlightDataListener} to set the gauge values from
-	 * flight data received by the simulation in {@link FlightData}
+	 * Creates a simple instrument panel as a {@link FlightDataSubscriber} to set the gauge values from
+	 * flight data received by the simulation in {@link FlightData}; it should subscribe with {@link FlightDataDelivery#SWING_EDT}
 	 */
 	public InstrumentPanel() {
 		super();
@@ -257,34 +258,31 @@ public class InstrumentPanel extends JPanel implements FlightDataListener {
 	}
 
 	/**
-	 * When the instrument panel receives the event that data was received, use the values stored
-	 * in {@link FlightData}'s EnumMap flightData to set gauge values
+	 * When the instrument panel receives flight data published by {@link FlightData}, use its values 
+	 * to set gauge values
 	 */
 	@Override
-	public void onFlightDataReceived(FlightData flightData) {
-		Map<FlightDataType, Double> receivedFlightData = flightData.getFlightData();
+	public void onFlightData(FlightDataFrame receivedFlightData) {
 		DecimalFormat df = new DecimalFormat("#");
 		
-		if (!receivedFlightData.containsValue(null)) {
-			artificalHorizon.setPitch(receivedFlightData.get(FlightDataType.PITCH));
-			artificalHorizon.setRoll(receivedFlightData.get(FlightDataType.ROLL));
-			
-			altimeter.setValue(receivedFlightData.get(FlightDataType.ALTITUDE));
-			
-			airspeedIndicator.setValue(receivedFlightData.get(FlightDataType.IAS));
-			
-			directionalGyro.setValue(receivedFlightData.get(FlightDataType.HEADING));
-			
-			verticalSpeed.setValue(receivedFlightData.get(FlightDataType.VERT_SPEED));
-			
-			turnCoordinator.setInclinoValue(receivedFlightData.get(FlightDataType.TURN_RATE));
-			turnCoordinator.setCoordValue(receivedFlightData.get(FlightDataType.TURN_COORD));
-			
-			tachometer.setLeftValue(receivedFlightData.get(FlightDataType.RPM_1));
-			tachometer.setRightValue(receivedFlightData.get(FlightDataType.RPM_2));
-			
-			flapsIndicator.setText(String.valueOf(df.format(receivedFlightData.get(FlightDataType.FLAPS))));
-			gearIndicator.setLedOn(receivedFlightData.get(FlightDataType.GEAR) == 1.0);
-		}
+		artificalHorizon.setPitch(receivedFlightData.get(FlightDataType.PITCH));
+		artificalHorizon.setRoll(receivedFlightData.get(FlightDataType.ROLL));
+		
+		altimeter.setValue(receivedFlightData.get(FlightDataType.ALTITUDE));
+		
+		airspeedIndicator.setValue(receivedFlightData.get(FlightDataType.IAS));
+		
+		directionalGyro.setValue(receivedFlightData.get(FlightDataType.HEADING));
+		
+		verticalSpeed.setValue(receivedFlightData.get(FlightDataType.VERT_SPEED));
+		
+		turnCoordinator.setInclinoValue(receivedFlightData.get(FlightDataType.TURN_RATE));
+		turnCoordinator.setCoordValue(receivedFlightData.get(FlightDataType.TURN_COORD));
+		
+		tachometer.setLeftValue(receivedFlightData.get(FlightDataType.RPM_1));
+		tachometer.setRightValue(receivedFlightData.get(FlightDataType.RPM_2));
+		
+		flapsIndicator.setText(String.valueOf(df.format(receivedFlightData.get(FlightDataType.FLAPS))));
+		gearIndicator.setLedOn(receivedFlightData.get(FlightDataType.GEAR) == 1.0);
 	}
 }
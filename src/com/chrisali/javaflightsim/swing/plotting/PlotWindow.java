@@ -27,7 +27,6 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -42,7 +41,7 @@ import javax.swing.event.ChangeListener;
 
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
-import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.swing.plotting.PlotConfiguration.SubPlotBundle;
 
@@ -60,7 +59,7 @@ public class PlotWindow extends JFrame implements ProgressDialogListener {
 
 	private LWJGLSwingSimulationController controller;
 	private PlotConfiguration plotConfiguration;
-	private List<Map<SimOuts, Double>> logsOut;
+	private List<SimOutFrame> logsOut;
 	
 	/**
 	 * Plots data from the simulation in a Swing window. It loops through 
@@ -218,11 +217,8 @@ public class PlotWindow extends JFrame implements ProgressDialogListener {
 					
 					Map<String, SubPlotBundle> subPlotBundles = plotConfiguration.getSubPlotBundles();
 					
-					// Copy to thread-safe ArrayList
-					CopyOnWriteArrayList<Map<SimOuts, Double>> cowLogsOut = new CopyOnWriteArrayList<>(logsOut);
-					
 					for (Map.Entry<String, SubPlotBundle> entry : subPlotBundles.entrySet()) {
-						SimulationPlot plotObject = new SimulationPlot(cowLogsOut, entry.getValue());
+						SimulationPlot plotObject = new SimulationPlot(logsOut, entry.getValue());
 						
 						Thread.sleep(125);
 						
@@ -41,6 +41,7 @@ import org.jfree.chart.renderer.xy.StandardXYItemRenderer;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
 
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 import com.chrisali.javaflightsim.swing.plotting.PlotConfiguration.SubPlotBundle;
 import com.chrisali.javaflightsim.swing.plotting.PlotConfiguration.SubPlotOptions;
@@ -75,7 +76,7 @@ public class SimulationPlot extends JComponent {
 	 * @param logsOut
 	 * @param bundle
 	 */
-	public SimulationPlot(List<Map<SimOuts, Double>> logsOut, SubPlotBundle bundle) {
+	public SimulationPlot(List<SimOutFrame> logsOut, SubPlotBundle bundle) {
 		logger.debug("Generating a subplot bundle for " + bundle.getTitle() + "...");
 				
 		plotList = new LinkedList<>();
@@ -128,7 +129,7 @@ public class SimulationPlot extends JComponent {
 	 * @param logsOut
 	 * @param bundle
 	 */
-	private void createPlots(List<Map<SimOuts, Double>> logsOut, SubPlotBundle bundle) {		
+	private void createPlots(List<SimOutFrame> logsOut, SubPlotBundle bundle) {		
 		for (SubPlotOptions option : bundle.getSubPlots()) {
 			XYSeriesCollection collection = new XYSeriesCollection();
 			
@@ -166,14 +167,14 @@ public class SimulationPlot extends JComponent {
 	 * @param logsOut
 	 * @param bundle
 	 */
-	protected void updateXYSeriesData(List<Map<SimOuts, Double>> logsOut, SubPlotBundle bundle) {
+	protected void updateXYSeriesData(List<SimOutFrame> logsOut, SubPlotBundle bundle) {
 		// Clear old XV series values 
 		for (Map.Entry<SimOuts, XYSeries> entry : xySeriesData.entrySet())
 			entry.getValue().clear();
 		
 		// Only notify of a SeriesChangeEvent at the end of the loop
-		for (Iterator<Map<SimOuts, Double>> logsOutItr = logsOut.iterator(); logsOutItr.hasNext();) {
-			Map<SimOuts, Double> simOut = logsOutItr.next();
+		for (Iterator<SimOutFrame> logsOutItr = logsOut.iterator(); logsOutItr.hasNext();) {
+			SimOutFrame simOut = logsOutItr.next();
 			
 			for (Map.Entry<SimOuts, XYSeries> entry : xySeriesData.entrySet()) {
 				SimOuts yVal = entry.getKey();
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.swing.replay;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.Timer;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
+import com.chrisali.javaflightsim.simulation.recorder.FlightReplay;
+
+/**
+ * Swing window to control a {@link FlightReplay}: play and pause, reverse, playback speed, and a slider to seek to any frame of the 
+ * recording. Closing the window stops the replay
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class ReplayControlWindow extends JFrame {
+
+	private static final long serialVersionUID = -4419566327930467812L;
+	
+	private static final Double[] SPEEDS = {0.25, 0.5, 1.0, 2.0, 4.0, 8.0, 16.0};
+	
+	private static final int REFRESH_MS = 100;
+	
+	private FlightReplay replay;
+	
+	private JButton playPauseButton;
+	private JCheckBox reverseBox;
+	private JComboBox<Double> speedBox;
+	private JLabel timeLabel;
+	private JSlider positionSlider;
+	private Timer refreshTimer;
+	
+	// Set while the slider is moved to follow the replay, rather than by the user
+	private boolean followingReplay = false;
+	
+	public ReplayControlWindow(LWJGLSwingSimulationController controller, FlightReplay replay) {
+		super("Flight Replay - " + replay.getRecording().getHeader().getAircraftName());
+		
+		this.replay = replay;
+		
+		setLayout(new BorderLayout());
+		
+		//-------------------- Playback Controls ------------------------
+		
+		JPanel controlsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		
+		playPauseButton = new JButton("Pause");
+		playPauseButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				replay.setPaused(!replay.isPaused());
+				refresh();
+			}
+		});
+		controlsPanel.add(playPauseButton);
+		
+		reverseBox = new JCheckBox("Reverse");
+		reverseBox.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				replay.setReverse(reverseBox.isSelected());
+			}
+		});
+		controlsPanel.add(reverseBox);
+		
+		controlsPanel.add(new JLabel("Speed:"));
+		
+		speedBox = new JComboBox<>(SPEEDS);
+		speedBox.setSelectedItem(1.0);
+		speedBox.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				replay.setSpeed((Double) speedBox.getSelectedItem());
+			}
+		});
+		controlsPanel.add(speedBox);
+		controlsPanel.add(new JLabel("x"));
+		
+		timeLabel = new JLabel();
+		controlsPanel.add(timeLabel);
+		
+		add(controlsPanel, BorderLayout.NORTH);
+		
+		//-------------------- Position Slider ------------------------
+		
+		positionSlider = new JSlider(0, (int) Math.min(Integer.MAX_VALUE, replay.getRecording().getFrameCount() - 1), 0);
+		positionSlider.addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent e) {
+				if (!followingReplay && !positionSlider.getValueIsAdjusting())
+					replay.seekFrame(positionSlider.getValue());
+			}
+		});
+		add(positionSlider, BorderLayout.CENTER);
+		
+		//=================== Window Settings =======================
+		
+		refreshTimer = new Timer(REFRESH_MS, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				refresh();
+			}
+		});
+		refreshTimer.start();
+		
+		setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+		addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosing(WindowEvent e) {
+				controller.stopSimulation();
+			}
+		});
+		
+		Dimension dims = new Dimension(600, 110);
+		setSize(dims);
+		setMinimumSize(dims);
+		setVisible(true);
+	}
+	
+	/**
+	 * Updates the controls to show the replay's current state
+	 */
+	private void refresh() {
+		playPauseButton.setText(replay.isPaused() ? "Play" : "Pause");
+		timeLabel.setText(String.format("Time: %.2f sec", replay.getTime()));
+		
+		if (!positionSlider.getValueIsAdjusting()) {
+			followingReplay = true;
+			positionSlider.setValue((int) replay.getFrame());
+			followingReplay = false;
+		}
+	}
+	
+	@Override
+	public void setVisible(boolean visible) {
+		if (!visible && refreshTimer != null)
+			refreshTimer.stop();
+		
+		super.setVisible(visible);
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the calculation of the TwinNavion's aerodynamic forces and moments by {@link Aerodynamics}, at angles of attack 
+ * that sweep slowly through its lift and pitching moment tables, as they would in a simulation
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AerodynamicsBenchmark {
+	
+	private static final int POINTS = 1024;
+	
+	private Aerodynamics aero;
+	private double[] environmentParameters;
+	private double[] controls = new double[FlightControl.values().length];
+	
+	private double[] angularRates   = {0.01, 0.02, -0.01};
+	private double[] windParameters = {200.0, 0.01, 0.0};
+	private double[] alpha 			= new double[POINTS];
+	
+	private int index = 0;
+	
+	@Setup
+	public void setup() {
+		aero = new Aerodynamics(FileUtilities.readAircraftConfiguration("TwinNavion"));
+		environmentParameters = new Environment().getAndUpdateEnvironmentParams(new double[] {0, 0, 5000});
+		
+		FlightControlsState.copyToArray(FileUtilities.readSimulationConfiguration().getInitialControls(), controls);
+		
+		for (int i = 0; i < POINTS; i++)
+			alpha[i] = Math.toRadians(4 + 6 * Math.sin(2 * Math.PI * i / POINTS));
+	}
+	
+	private double[] nextWindParameters() {
+		index = (index + 1) & (POINTS - 1);
+		windParameters[2] = alpha[index];
+		
+		return windParameters;
+	}
+	
+	@Benchmark
+	public double[] calculateBodyForces() {
+		return aero.calculateBodyForces(nextWindParameters(), angularRates, environmentParameters, controls, 0.01, 500);
+	}
+	
+	@Benchmark
+	public double[] calculateAeroMoments() {
+		return aero.calculateAeroMoments(nextWindParameters(), angularRates, environmentParameters, controls, 0.01);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(AerodynamicsBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.export.CSVExporter;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the export of the log of a 100 second analysis run to a CSV file by {@link FileUtilities#saveToCSVFile(File, List)}, and 
+ * directly from its history by {@link CSVExporter} with one and with all available formatting threads, writing values losslessly
+ * (the default) and rounded to a fixed precision
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVExportBenchmark {
+	
+	private static final double RUN_TIME_SEC = 100.0;
+	
+	private List<SimOutFrame> logsOut;
+	private SimOutHistory history;
+	private File file;
+	
+	@Setup
+	public void setup() throws IOException {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+		while (simulation.getTime() < RUN_TIME_SEC)
+			simulation.step();
+		
+		logsOut = simulation.getLogsOut();
+		history = simulation.getHistory();
+		file = File.createTempFile("logsOut", ".csv");
+	}
+	
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public long saveToCSVFile() throws IOException {
+		FileUtilities.saveToCSVFile(file, logsOut);
+		
+		return file.length();
+	}
+	
+	@Benchmark
+	public long exportHistorySingleThread() throws IOException {
+		CSVExporter exporter = new CSVExporter();
+		exporter.setParallelism(1);
+		
+		return exporter.export(history, file);
+	}
+	
+	@Benchmark
+	public long exportHistoryParallel() throws IOException {
+		return new CSVExporter().export(history, file);
+	}
+	
+	@Benchmark
+	public long exportHistoryParallelFixedPrecision() throws IOException {
+		CSVExporter exporter = new CSVExporter();
+		exporter.setPrecision(6);
+		
+		return exporter.export(history, file);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CSVExportBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+
+/**
+ * Measures the update of atmospheric and wind parameters by {@link Environment}, at altitudes spanning the troposphere and 
+ * stratosphere
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+	
+	private static final int POINTS = 1024;
+	
+	private Environment environment = new Environment();
+	
+	private double[][] NEDPositions = new double[POINTS][3];
+	
+	private int index = 0;
+	
+	@Setup
+	public void setup() {
+		for (int i = 0; i < POINTS; i++)
+			NEDPositions[i][2] = 50000.0 * i / POINTS;
+	}
+	
+	@Benchmark
+	public double[] getAndUpdateEnvironmentParams() {
+		index = (index + 1) & (POINTS - 1);
+		
+		return environment.getAndUpdateEnvironmentParams(NEDPositions[index]);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(EnvironmentBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the conversion of a step of simulation output into flight data by {@link FlightData}, and its publication to an 
+ * inline subscriber that reads it as the out the window display would, and to a dedicated thread subscriber that is slower than 
+ * the publisher, whose updates are coalesced
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightDataBenchmark {
+	
+	private FlightData flightData;
+	private SimOutFrame simOut;
+	
+	private double received;
+	private volatile double slowReceived;
+	
+	@Setup
+	public void setup() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+		for (int i = 0; i < 100; i++)
+			simulation.step();
+		
+		simOut = simulation.getSimOut();
+		
+		flightData = new FlightData(simulation, 60);
+		flightData.subscribe(frame -> received = frame.get(FlightDataType.IAS) + frame.get(FlightDataType.ALTITUDE), 
+							 0, FlightDataDelivery.INLINE);
+		flightData.subscribe(frame -> slowReceived = frame.get(FlightDataType.ALTITUDE), 60, FlightDataDelivery.DEDICATED);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		flightData.close();
+	}
+	
+	@Benchmark
+	public double updateData() {
+		flightData.updateData(simOut);
+		
+		return received;
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FlightDataBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recorder.FlightRecorder;
+
+/**
+ * Measures the cost to the simulation thread of recording {@value #FRAMES} frames of all channels with 
+ * {@link FlightRecorder#record(SimOutFrame)}, including segment rollover; this is 100 seconds of flight at 1 kHz. Each iteration 
+ * records to a new recording, so that the benchmark's disk usage is bounded
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = FlightRecorderBenchmark.FRAMES)
+@Measurement(iterations = 5, batchSize = FlightRecorderBenchmark.FRAMES)
+@Fork(1)
+public class FlightRecorderBenchmark {
+	
+	static final int FRAMES = 100000;
+	private static final double DT = 0.001;
+	
+	private File directory;
+	private FlightRecorder recorder;
+	private final SimOutFrame frame = new SimOutFrame();
+	private long frameNumber;
+	
+	@Setup(Level.Iteration)
+	public void setup() throws IOException {
+		frameNumber = 0;
+		directory = Files.createTempDirectory("recording").toFile();
+		recorder = new FlightRecorder(directory, "benchmark", "TwinNavion", new byte[32], 
+									  FlightRecorder.DEFAULT_FRAMES_PER_SEGMENT, FlightRecorder.DEFAULT_INDEX_INTERVAL);
+		
+		for (int slot = 0; slot < SimOuts.CHANNEL_COUNT; slot++)
+			frame.set(slot, slot);
+	}
+	
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		recorder.close();
+		
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	@Benchmark
+	public long record() throws IOException {
+		frame.set(SimOuts.TIME, (frameNumber++) * DT);
+		recorder.record(frame);
+		
+		return recorder.getRecordedFrames();
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(FlightRecorderBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.IntegrateGroundReaction;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures a step of integration of the TwinNavion's landing gear by {@link IntegrateGroundReaction}, while it rolls along the 
+ * runway with all three gear in contact with the ground
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroundReactionBenchmark {
+	
+	private IntegrateGroundReaction groundReaction;
+	
+	@Setup
+	public void setup() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		
+		double[] integratorConfig = ArrayUtils.toPrimitive(configuration.getIntegratorConfig().values().toArray(new Double[3]));
+		double[] controls 		  = FlightControlsState.copyToArray(configuration.getInitialControls(), 
+																	new double[FlightControl.values().length]);
+		
+		groundReaction = new IntegrateGroundReaction(new double[] {30, 0, 0},
+													 new double[] {0, 0, 1.75},
+													 new double[] {0, 0, 0},
+													 new double[] {0, 0, 0},
+													 new double[] {30, 0, 0},
+													 new double[14],
+													 integratorConfig,
+													 FileUtilities.readAircraftConfiguration("TwinNavion"),
+													 controls);
+	}
+	
+	@Benchmark
+	public double[] integrateStep() {
+		groundReaction.integrateStep(0.0);
+		
+		return groundReaction.getTotalGroundForces();
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(GroundReactionBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
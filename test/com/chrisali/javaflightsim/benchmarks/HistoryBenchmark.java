@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.CompressedHistory;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.RingBufferHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOutHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures appending frames of a 100 second analysis run to a {@link RingBufferHistory} and a {@link CompressedHistory}, and reading a 
+ * 10 second window of one channel back from each, as a plot of a long flight would. The memory used by the compressed history is 
+ * logged at debug level at setup
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+	
+	private static final Logger logger = LogManager.getLogger(HistoryBenchmark.class);
+	
+	private static final double RUN_TIME_SEC = 100.0;
+	private static final double WINDOW_SEC = 10.0;
+	
+	@Param({"RING_BUFFER", "COMPRESSED"})
+	private String historyType;
+	
+	private SimOutFrame[] frames;
+	private SimOutHistory history;
+	private double[] window;
+	
+	private int nextFrame;
+	private long windowStart;
+	
+	@Setup(Level.Trial)
+	public void setup() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+		while (simulation.getTime() < RUN_TIME_SEC)
+			simulation.step();
+		
+		frames = simulation.getHistory().snapshot().toArray(new SimOutFrame[0]);
+		history = historyType.equals("COMPRESSED") ? new CompressedHistory(frames.length) : new RingBufferHistory(frames.length);
+		
+		for (SimOutFrame frame : frames)
+			history.append(frame);
+		
+		window = new double[(int) (frames.length * WINDOW_SEC / RUN_TIME_SEC)];
+		
+		if (history instanceof CompressedHistory) {
+			long uncompressedBytes = 8L * SimOuts.CHANNEL_COUNT * frames.length;
+			long headBytes = 8L * SimOuts.CHANNEL_COUNT * CompressedHistory.DEFAULT_BLOCK_FRAMES * CompressedHistory.UNSEALED_BLOCKS;
+			long storedBytes = ((CompressedHistory) history).getStoredBytes();
+			
+			logger.debug(String.format("Compressed %d frames from %d to %d bytes, of which %d are uncompressed head and unsealed blocks (%.1fx, %.1fx excluding them)", 
+									   frames.length, uncompressedBytes, storedBytes, headBytes, uncompressedBytes / (double) storedBytes,
+									   (uncompressedBytes - headBytes) / (double) (storedBytes - headBytes)));
+		}
+	}
+	
+	@Benchmark
+	public long append() {
+		history.append(frames[nextFrame]);
+		nextFrame = (nextFrame + 1) % frames.length;
+		
+		return history.getNextSequence();
+	}
+	
+	@Benchmark
+	public int readWindow() {
+		long first = history.getFirstSequence();
+		windowStart = first + (windowStart + window.length * 7 / 3) % Math.max(1, history.size() - window.length);
+		
+		return history.readChannel(SimOuts.ALT, windowStart, window, 0, window.length);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(HistoryBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.linear.LinearModel;
+import com.chrisali.javaflightsim.simulation.linear.Linearizer;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.trim.TrimCondition;
+import com.chrisali.javaflightsim.simulation.trim.TrimResult;
+import com.chrisali.javaflightsim.simulation.trim.TrimSolver;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the linearization by {@link Linearizer} of the Navion about straight and level trims over its flight envelope, with one 
+ * and with all available threads; the whole envelope of a few hundred trims should be linearized in a few seconds
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LinearizerBenchmark {
+	
+	@Param({"1", "0"})
+	private int parallelism;
+	
+	private Linearizer linearizer;
+	private List<TrimResult> trims;
+	
+	@Setup
+	public void setup() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft("Navion");
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		SimulationContext context = new SimulationContext(configuration);
+		TrimSolver solver = new TrimSolver(context);
+		trims = new ArrayList<>();
+		
+		for (double altitude = 1000; altitude <= 13000; altitude += 1000) {
+			TrimResult previous = null;
+			
+			for (double airspeed = 120; airspeed <= 240; airspeed += 5) {
+				TrimResult result = solver.trim(TrimCondition.straightAndLevel(airspeed, altitude), previous);
+				if (result.isConverged()) {
+					trims.add(result);
+					previous = result;
+				}
+			}
+		}
+		
+		// A parallelism of 0 uses all available processors
+		linearizer = new Linearizer(context);
+		linearizer.setParallelism(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+	
+	@Benchmark
+	public List<LinearModel> linearizeEnvelope() {
+		return linearizer.linearize(trims);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LinearizerBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.CompiledLookupTable;
+import com.chrisali.javaflightsim.simulation.aircraft.LookupTable;
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Compares the cost of interpolating the TwinNavion's CL_alpha table with Apache Commons' PiecewiseBicubicSplineInterpolatingFunction,
+ * which {@link LookupTable} used previously, against {@link CompiledLookupTable}, both directly and through {@link LookupTable}. 
+ * Lookups are made along a slowly varying trajectory, as in a simulation, and also at random points, which defeats the cell hint 
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupTableBenchmark {
+	
+	private static final int POINTS = 1024;
+	
+	private PiecewiseBicubicSplineInterpolatingFunction pbsif;
+	private CompiledLookupTable compiled;
+	private LookupTable lookupTable;
+	
+	private double[] trajectoryAlpha = new double[POINTS];
+	private double[] trajectoryFlap  = new double[POINTS];
+	private double[] randomAlpha     = new double[POINTS];
+	private double[] randomFlap      = new double[POINTS];
+	
+	private int index = 0;
+	
+	@Setup
+	public void setup() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("TwinNavion");
+		lookupTable = aircraft.getStabilityDerivative(StabilityDerivatives.CL_ALPHA);
+		
+		double[] alpha = lookupTable.getBreakPointAngle();
+		double[] flap  = lookupTable.getBreakPointFlap();
+		
+		pbsif = new PiecewiseBicubicSplineInterpolatingFunction(alpha, flap, lookupTable.getLookupValues());
+		compiled = new CompiledLookupTable(alpha, flap, lookupTable.getLookupValues());
+		
+		Random random = new Random(1);
+		double alphaRange = alpha[alpha.length-1] - alpha[0], flapRange = flap[flap.length-1] - flap[0];
+		
+		for (int i = 0; i < POINTS; i++) {
+			trajectoryAlpha[i] = alpha[0] + alphaRange * (0.5 + 0.45 * Math.sin(2 * Math.PI * i / POINTS));
+			trajectoryFlap[i]  = flap[0] + flapRange * 0.25;
+			randomAlpha[i]     = alpha[0] + alphaRange * random.nextDouble();
+			randomFlap[i]      = flap[0] + flapRange * random.nextDouble();
+		}
+	}
+	
+	private int next() {
+		return index = (index + 1) & (POINTS - 1);
+	}
+	
+	@Benchmark
+	public double commonsTrajectory() {
+		int i = next();
+		return pbsif.value(trajectoryAlpha[i], trajectoryFlap[i]);
+	}
+	
+	@Benchmark
+	public double compiledTrajectory() {
+		int i = next();
+		return compiled.value(trajectoryAlpha[i], trajectoryFlap[i]);
+	}
+	
+	@Benchmark
+	public double lookupTableTrajectory() {
+		int i = next();
+		return lookupTable.interpolate(trajectoryAlpha[i], trajectoryFlap[i]);
+	}
+	
+	@Benchmark
+	public double commonsRandom() {
+		int i = next();
+		return pbsif.value(randomAlpha[i], randomFlap[i]);
+	}
+	
+	@Benchmark
+	public double compiledRandom() {
+		int i = next();
+		return compiled.value(randomAlpha[i], randomFlap[i]);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LookupTableBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshot;
+import com.chrisali.javaflightsim.simulation.snapshot.SimulationSnapshotter;
+import com.chrisali.javaflightsim.simulation.timing.SimulationClock;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the capture of a {@link SimulationSnapshot} of an analysis run into a preallocated snapshot, and its restore, by 
+ * {@link SimulationSnapshotter}; both should take well under the 100 us needed to rewind or fork a run within a physics frame
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+	
+	private SimulationSnapshotter snapshotter;
+	private SimulationSnapshot snapshot;
+	
+	@Setup
+	public void setup() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		SimulationContext context = new SimulationContext(configuration);
+		SimulationClock clock = new SimulationClock(configuration.getIntegratorConfig().get(IntegratorConfig.STARTTIME), 
+													configuration.getIntegratorConfig().get(IntegratorConfig.DT));
+		
+		FlightControlsStateManager flightControlsManager = new FlightControlsStateManager(context, FileUtilities.readAnalysisControls());
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+		
+		for (int i = 0; i < 100; i++) {
+			simulation.step();
+			clock.tick();
+		}
+		
+		snapshotter = new SimulationSnapshotter(clock, context.getSimTimeMS(), flightControlsManager, simulation);
+		snapshot = snapshotter.capture();
+	}
+	
+	@Benchmark
+	public long capture() {
+		snapshotter.capture(snapshot);
+		return snapshot.getTicks();
+	}
+	
+	@Benchmark
+	public long restore() {
+		snapshotter.restore(snapshot);
+		return snapshot.getTicks();
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SnapshotBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
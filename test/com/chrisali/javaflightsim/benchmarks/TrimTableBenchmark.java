@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.trim.TrimAxis;
+import com.chrisali.javaflightsim.simulation.trim.TrimEnvelope;
+import com.chrisali.javaflightsim.simulation.trim.TrimResult;
+import com.chrisali.javaflightsim.simulation.trim.TrimSweep;
+import com.chrisali.javaflightsim.simulation.trim.TrimTable;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Measures the interpolation of a straight and level trim of the Navion from a {@link TrimTable} swept over a small envelope, at 
+ * airspeeds between the points of the table; interpolation should take a few microseconds, far less than a live trim
+ * 
+ * @author Christopher Ali
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrimTableBenchmark {
+	
+	private TrimTable table;
+	private double totalMass;
+	private double cgX;
+	private int lookup;
+	
+	@Setup
+	public void setup() throws IOException {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft("Navion");
+		configuration.getInitialControls().put(FlightControl.FLAPS, 0.0);
+		
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("Navion");
+		totalMass = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		cgX = aircraft.getMassProperty(MassProperties.CG_X);
+		
+		TrimEnvelope envelope = new TrimEnvelope(0, 0, 0, 0, 0)
+				.setAxis(TrimAxis.AIRSPEED,   160, 190, 220)
+				.setAxis(TrimAxis.ALTITUDE,   2000, 6000)
+				.setAxis(TrimAxis.TOTAL_MASS, totalMass * 0.9, totalMass * 1.1)
+				.setAxis(TrimAxis.CG_X, 	  cgX)
+				.setAxis(TrimAxis.FLAPS, 	  0, FlightControl.FLAPS.getMaximum() / 2);
+		
+		table = new TrimSweep(configuration, envelope).run();
+	}
+	
+	@Benchmark
+	public TrimResult interpolate() {
+		lookup = (lookup + 1) % 60;
+		return table.interpolate(160 + lookup, 4000, totalMass, cgX, 0.1);
+	}
+	
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(TrimTableBenchmark.class.getSimpleName())
+									   .addProfiler(GCProfiler.class)
+									   .build()).run();
+	}
+}
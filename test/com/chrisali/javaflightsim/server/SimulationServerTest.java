@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.initializer.HeadlessSimulationController;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class SimulationServerTest {
+	
+	private HeadlessSimulationController controller;
+	private SimulationServer server;
+	
+	@Before
+	public void setUp() throws IOException {
+		controller = new HeadlessSimulationController(FileUtilities.readSimulationConfiguration());
+		server = new SimulationServer(controller, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+		server.start();
+	}
+	
+	@After
+	public void tearDown() {
+		server.close();
+		controller.stopSimulation();
+	}
+	
+	@Test
+	public void ConfigurationTest() throws IOException {
+		Response response = request("GET", "/configuration", null);
+		assertEquals(200, response.code);
+		assertTrue(response.body.contains("\"selectedAircraft\""));
+		
+		String changed = response.body.replace("\"timeCompression\":1.0", "\"timeCompression\":2.0");
+		assertEquals(200, request("PUT", "/configuration", changed).code);
+		assertEquals(2.0, controller.getConfiguration().getTimeCompression(), 0.0);
+		
+		assertEquals(400, request("PUT", "/configuration", "{\"selectedAircraft\":").code);
+		assertEquals(400, request("PUT", "/configuration", "{}").code);
+		assertEquals(405, request("DELETE", "/configuration", null).code);
+		assertEquals(404, request("GET", "/configuration/aircraft", null).code);
+	}
+	
+	@Test
+	public void ControlAndStreamTest() throws Exception {
+		String configuration = request("GET", "/configuration", null).body;
+		
+		assertEquals(409, request("POST", "/pause", null).code);
+		assertEquals(409, request("GET", "/stream", null).code);
+		assertEquals(405, request("GET", "/start", null).code);
+		
+		Response response = request("POST", "/start", null);
+		assertEquals(200, response.code);
+		assertTrue(response.body.contains("\"running\":true"));
+		assertEquals(409, request("POST", "/start", null).code);
+		assertEquals(409, request("PUT", "/configuration", configuration).code);
+		
+		// Stream a few states at 20 Hz
+		List<String> events = new ArrayList<>();
+		HttpURLConnection stream = connect("GET", "/stream?rate=20");
+		assertEquals(200, stream.getResponseCode());
+		assertEquals("text/event-stream", stream.getContentType());
+		
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String line; events.size() < 5 && (line = reader.readLine()) != null; ) {
+				if (line.startsWith("data: "))
+					events.add(line.substring(6));
+			}
+		} finally {
+			stream.disconnect();
+		}
+		
+		assertEquals(5, events.size());
+		for (String event : events)
+			assertTrue(event, event.startsWith("{\"sequence\":") && event.contains("\"TAS\":") && event.endsWith("}"));
+		
+		response = request("GET", "/state", null);
+		assertEquals(200, response.code);
+		assertTrue(response.body.contains("\"ALTITUDE\":"));
+		
+		assertEquals(202, request("POST", "/pause", null).code);
+		assertTrue(request("GET", "/status", null).body.contains("\"paused\":true"));
+		assertEquals(202, request("POST", "/reset", null).code);
+		assertEquals(202, request("POST", "/resume", null).code);
+		assertTrue(request("GET", "/status", null).body.contains("\"paused\":false"));
+		
+		assertEquals(400, request("GET", "/stream?rate=0", null).code);
+		assertEquals(400, request("GET", "/stream?rate=fast", null).code);
+		
+		response = request("POST", "/stop", null);
+		assertEquals(200, response.code);
+		assertTrue(response.body.contains("\"running\":false"));
+		assertFalse(controller.isRunning());
+	}
+	
+	@Test
+	public void FirstStateIsPublishedFlightDataTest() throws Exception {
+		assertEquals(409, request("GET", "/state", null).code);
+		assertEquals(200, request("POST", "/start", null).code);
+		
+		// The first request after starting returns flight data that has been published, or that none has been yet
+		Response response = request("GET", "/state", null);
+		for (int attempt = 0; response.code == 503 && attempt < 100; attempt++) {
+			Thread.sleep(50);
+			response = request("GET", "/state", null);
+		}
+		
+		assertEquals(200, response.code);
+		assertFalse("State should not be an empty frame", response.body.startsWith("{\"sequence\":0,"));
+		assertFalse("State should not be an empty frame", response.body.contains("\"TAS\":0.0,"));
+	}
+	
+	private HttpURLConnection connect(String method, String path) throws IOException {
+		InetSocketAddress address = server.getAddress();
+		URL url = new URL("http", address.getHostString(), address.getPort(), path);
+		
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod(method);
+		connection.setConnectTimeout(5000);
+		connection.setReadTimeout(10000);
+		
+		return connection;
+	}
+	
+	private Response request(String method, String path, String body) throws IOException {
+		HttpURLConnection connection = connect(method, path);
+		
+		try {
+			if (body != null) {
+				connection.setDoOutput(true);
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(body.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			
+			int code = connection.getResponseCode();
+			InputStream in = (code < 400) ? connection.getInputStream() : connection.getErrorStream();
+			
+			ByteArrayOutputStream read = new ByteArrayOutputStream();
+			if (in != null) {
+				try (InputStream stream = in) {
+					byte[] buffer = new byte[4096];
+					for (int n; (n = stream.read(buffer)) != -1; )
+						read.write(buffer, 0, n);
+				}
+			}
+			
+			return new Response(code, new String(read.toByteArray(), StandardCharsets.UTF_8));
+		} finally {
+			connection.disconnect();
+		}
+	}
+	
+	private static class Response {
+		private final int code;
+		private final String body;
+		
+		private Response(int code, String body) {
+			this.code = code;
+			this.body = body;
+		}
+	}
+}
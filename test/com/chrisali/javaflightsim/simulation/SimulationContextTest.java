@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.flightcontrols.SimEvents;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class SimulationContextTest {
+	
+	private static final int STEPS = 500;
+	
+	private static SimulationContext createContext(double windSpeed) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		SimulationContext context = new SimulationContext(configuration);
+		context.getEnvironment().setWindSpeed(windSpeed);
+		
+		return context;
+	}
+	
+	private static Integrate6DOFEquations createSimulation(SimulationContext context) {
+		return new Integrate6DOFEquations(new FlightControlsState(context.getConfiguration()), context);
+	}
+	
+	@Test
+	public void interleavedSimulationsDoNotAffectEachOther() {
+		Integrate6DOFEquations calmAlone = createSimulation(createContext(0));
+		Integrate6DOFEquations windyAlone = createSimulation(createContext(20));
+		
+		for (int i = 0; i < STEPS; i++)
+			calmAlone.step();
+		for (int i = 0; i < STEPS; i++)
+			windyAlone.step();
+		
+		Integrate6DOFEquations calm = createSimulation(createContext(0));
+		Integrate6DOFEquations windy = createSimulation(createContext(20));
+		
+		for (int i = 0; i < STEPS; i++) {
+			calm.step();
+			windy.step();
+		}
+		
+		for (SimOuts simOut : SimOuts.values()) {
+			assertEquals(simOut.name(), calmAlone.getSimOut().get(simOut), calm.getSimOut().get(simOut), 0.0);
+			assertEquals(simOut.name(), windyAlone.getSimOut().get(simOut), windy.getSimOut().get(simOut), 0.0);
+		}
+		
+		assertNotEquals(calm.getSimOut().get(SimOuts.NORTH), windy.getSimOut().get(SimOuts.NORTH), 1e-6);
+	}
+	
+	@Test
+	public void eventsOnlyAffectTheirOwnSimulation() {
+		SimulationContext first = createContext(0);
+		SimulationContext second = createContext(0);
+		
+		SimEvents firstEvents = first.getSimEvents();
+		assertNotSame(firstEvents, second.getSimEvents());
+		
+		firstEvents.pauseUnpauseSimulation(true);
+		
+		assertEquals(true, first.getConfiguration().getSimulationOptions().contains(Options.PAUSED));
+		assertEquals(false, second.getConfiguration().getSimulationOptions().contains(Options.PAUSED));
+		
+		// Stopping and plotting a headless simulation does nothing
+		firstEvents.stopSimulation();
+		firstEvents.plotSimulation();
+	}
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+public class AircraftParametersTest {
+	
+	private static final double TOLERANCE = 1e-12;
+	
+	@Test
+	public void compilesValuesOfAircraftEnumMaps() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("TwinNavion");
+		AircraftParameters parameters = aircraft.getParameters();
+		
+		assertEquals(aircraft.getMassProperty(MassProperties.TOTAL_MASS), parameters.getTotalMass(), TOLERANCE);
+		assertEquals(aircraft.getWingGeometry(WingGeometry.S_WING), parameters.getSWing(), TOLERANCE);
+		assertEquals(aircraft.getWingGeometry(WingGeometry.B_WING), parameters.getBWing(), TOLERANCE);
+		assertEquals(aircraft.getWingGeometry(WingGeometry.C_BAR),  parameters.getCBar(),  TOLERANCE);
+		
+		for (int axis = 0; axis < 3; axis++) {
+			assertEquals(aircraft.getAerodynamicCenter()[axis], parameters.getAerodynamicCenter(axis), TOLERANCE);
+			assertEquals(aircraft.getCenterOfGravity()[axis], parameters.getCenterOfGravity(axis), TOLERANCE);
+		}
+		
+		double[] inertiaCoeffs = SixDOFUtilities.calculateInertiaCoeffs(aircraft.getInertiaValues());
+		for (int i = 0; i < inertiaCoeffs.length; i++)
+			assertEquals(inertiaCoeffs[i], parameters.getInertiaCoeff(i), TOLERANCE);
+		
+		assertEquals(aircraft.getGroundReaction().get(GroundReaction.LEFT_Y), 
+					 parameters.getGearPosition(AircraftParameters.LEFT_GEAR, 1), TOLERANCE);
+		assertEquals(aircraft.getGroundReaction().get(GroundReaction.NOSE_SPRING), 
+					 parameters.getGearSpring(AircraftParameters.NOSE_GEAR), TOLERANCE);
+		assertEquals(aircraft.getGroundReaction().get(GroundReaction.RIGHT_DAMPING), 
+					 parameters.getGearDamping(AircraftParameters.RIGHT_GEAR), TOLERANCE);
+		assertEquals(aircraft.getGroundReaction().get(GroundReaction.BRAKING_FORCE), parameters.getBrakingForce(), TOLERANCE);
+	}
+	
+	@Test
+	public void interpolatesTablesAndReturnsConstants() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("TwinNavion");
+		AircraftParameters parameters = aircraft.getParameters();
+		
+		for (StabilityDerivatives stabDer : StabilityDerivatives.values()) {
+			LookupTable lookup = aircraft.getStabilityDerivative(stabDer);
+			
+			for (double alpha = -0.1; alpha <= 0.2; alpha += 0.05) {
+				assertEquals(stabDer.toString(), lookup.interpolate(alpha, 0.0, 0.1, 0.0), 
+							 parameters.interpolateStabilityDerivative(stabDer, alpha, 0.0, 0.1, 0.0), TOLERANCE);
+			}
+			
+			if (!lookup.isInterpolating())
+				assertEquals(stabDer.toString(), lookup.getValue(), parameters.getStabilityDerivative(stabDer), TOLERANCE);
+		}
+	}
+	
+	@Test
+	public void compilesMissingParametersAsZero() {
+		AircraftParameters parameters = new Aircraft("Empty").getParameters();
+		
+		assertEquals(0.0, parameters.getTotalMass(), 0.0);
+		assertEquals(0.0, parameters.getStabilityDerivative(StabilityDerivatives.CL_0), 0.0);
+		assertEquals(0.0, parameters.interpolateStabilityDerivative(StabilityDerivatives.CL_ALPHA, 0.1, 0, 0, 0), 0.0);
+		assertEquals(0.0, parameters.getGearPosition(AircraftParameters.NOSE_GEAR, 0), 0.0);
+	}
+	
+	@Test
+	public void massChangeRecompilesOnlyMassSection() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("TwinNavion");
+		AircraftParameters parameters = aircraft.getParameters();
+		
+		assertSame(parameters, aircraft.getParameters());
+		
+		aircraft.setMassProperty(MassProperties.TOTAL_MASS, 100.0);
+		aircraft.setMassProperty(MassProperties.J_Y, 4000.0);
+		
+		AircraftParameters changed = aircraft.getParameters();
+		
+		assertNotSame(parameters, changed);
+		assertEquals(100.0, changed.getTotalMass(), 0.0);
+		assertEquals(1/4000.0, changed.getInertiaCoeff(6), TOLERANCE);
+		assertEquals(parameters.getSWing(), changed.getSWing(), 0.0);
+		assertEquals(parameters.getBrakingForce(), changed.getBrakingForce(), 0.0);
+		assertEquals(parameters.getStabilityDerivative(StabilityDerivatives.CM_Q), 
+					 changed.getStabilityDerivative(StabilityDerivatives.CM_Q), 0.0);
+		
+		// Previously compiled block is not affected by the change
+		assertNotEquals(100.0, parameters.getTotalMass(), 0.0);
+	}
+	
+	@Test
+	public void replacingEnumMapRecompilesParameters() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("TwinNavion");
+		AircraftParameters parameters = aircraft.getParameters();
+		
+		aircraft.getWingGeometry().put(WingGeometry.S_WING, 200.0);
+		aircraft.setWingGeometry(aircraft.getWingGeometry());
+		
+		assertNotSame(parameters, aircraft.getParameters());
+		assertEquals(200.0, aircraft.getParameters().getSWing(), 0.0);
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import org.apache.commons.math3.analysis.interpolation.AkimaSplineInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class CompiledLookupTableTest {
+	
+	private static final double[] UNIFORM     = {-1.0, -0.5, 0.0, 0.5, 1.0, 1.5};
+	private static final double[] NON_UNIFORM = {0.0, 0.1, 0.4, 0.5, 1.2, 2.0, 2.1};
+	
+	/**
+	 * Multilinear function, which tensor product Hermite interpolation with Akima slopes reproduces exactly
+	 */
+	private static double multilinear(double x, double y, double z, double w) {
+		return 1.0 + 2.0*x - 3.0*y + 0.5*x*z + y*z*w - 0.25*w;
+	}
+	
+	@Test
+	public void reproducesMultilinearFunctionsInFourDimensions() {
+		double[][] breakPoints = {UNIFORM, NON_UNIFORM, {0.0, 1.0, 3.0}, {-2.0, 2.0}};
+		double[] values = new double[UNIFORM.length * NON_UNIFORM.length * 3 * 2];
+		
+		int n = 0;
+		for (double x : breakPoints[0])
+			for (double y : breakPoints[1])
+				for (double z : breakPoints[2])
+					for (double w : breakPoints[3])
+						values[n++] = multilinear(x, y, z, w);
+		
+		CompiledLookupTable table = new CompiledLookupTable(breakPoints, values);
+		Random random = new Random(1);
+		
+		for (int i = 0; i < 10000; i++) {
+			double x = -1.0 + 2.5*random.nextDouble(), y = 2.1*random.nextDouble(), z = 3.0*random.nextDouble(), w = -2.0 + 4.0*random.nextDouble();
+			
+			assertEquals(multilinear(x, y, z, w), table.value(x, y, z, w), 1e-9);
+		}
+	}
+	
+	@Test
+	public void matchesAkimaSplineInOneDimension() {
+		double[] y = new double[NON_UNIFORM.length];
+		for (int i = 0; i < y.length; i++)
+			y[i] = Math.sin(3*NON_UNIFORM[i]) + (NON_UNIFORM[i] > 1.0 ? 1.0 : 0.0);
+		
+		CompiledLookupTable table = new CompiledLookupTable(new double[][] {NON_UNIFORM}, y);
+		PolynomialSplineFunction akima = new AkimaSplineInterpolator().interpolate(NON_UNIFORM, y);
+		
+		// Out of order lookups exercise the cell hint
+		Random random = new Random(2);
+		for (int i = 0; i < 10000; i++) {
+			double x = 2.1*random.nextDouble();
+			assertEquals(akima.value(x), table.value(x), 1e-12);
+		}
+	}
+	
+	@Test
+	public void reproducesAircraftTableAtBreakPoints() {
+		LookupTable lookup = FileUtilities.readAircraftConfiguration("TwinNavion").getStabilityDerivative(StabilityDerivatives.CL_ALPHA);
+		double[] alpha = lookup.getBreakPointAngle(), flap = lookup.getBreakPointFlap();
+		
+		for (int i = 0; i < alpha.length; i++) {
+			for (int j = 0; j < flap.length; j++)
+				assertEquals(lookup.getLookupValues()[i][j], lookup.interpolate(alpha[i], flap[j]), 1e-12);
+		}
+	}
+	
+	@Test(expected = OutOfRangeException.class)
+	public void throwsOutsideOfBreakPoints() {
+		new CompiledLookupTable(UNIFORM, NON_UNIFORM, new double[UNIFORM.length][NON_UNIFORM.length]).value(0.0, 2.2);
+	}
+	
+	@Test
+	public void interpolatesWithoutAllocating() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+		
+		LookupTable lookup = FileUtilities.readAircraftConfiguration("TwinNavion").getStabilityDerivative(StabilityDerivatives.CL_ALPHA);
+		double sum = 0;
+		
+		// Warm up so that allocation from class loading and compilation is not counted
+		for (int i = 0; i < 100000; i++)
+			sum += lookup.interpolate(0.2*Math.sin(i*1e-3), 0.3);
+		
+		long tid = Thread.currentThread().getId();
+		long before = threadBean.getThreadAllocatedBytes(tid);
+		
+		for (int i = 0; i < 100000; i++)
+			sum += lookup.interpolate(0.2*Math.sin(i*1e-3), 0.3);
+		
+		long allocated = threadBean.getThreadAllocatedBytes(tid) - before;
+		
+		assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+		assertTrue(sum != 0);
+	}
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus.Subscription;
+
+public class FlightDataBusTest {
+	
+	private static void publish(FlightDataBus bus, double altitude) {
+		bus.getPublishFrame().set(FlightDataType.ALTITUDE, altitude);
+		bus.publish();
+	}
+	
+	@Test
+	public void InlineSubscriberReceivesEveryStateTest() {
+		FlightDataBus bus = new FlightDataBus();
+		List<Double> received = new ArrayList<>();
+		
+		Subscription subscription = bus.subscribe(frame -> received.add(frame.get(FlightDataType.ALTITUDE)), 0, FlightDataDelivery.INLINE);
+		for (int i = 1; i <= 5; i++)
+			publish(bus, i * 100.0);
+		
+		assertEquals(5, received.size());
+		assertEquals(500.0, received.get(4), 0.0);
+		assertEquals(5, subscription.getDelivered());
+		assertEquals(0, subscription.getCoalesced());
+	}
+	
+	@Test
+	public void RateLimitedSubscriberIsCoalescedTest() {
+		FlightDataBus bus = new FlightDataBus();
+		List<Double> received = new ArrayList<>();
+		
+		// Once per hour; only the first state is due
+		Subscription subscription = bus.subscribe(frame -> received.add(frame.get(FlightDataType.ALTITUDE)), 1.0 / 3600.0, 
+												  FlightDataDelivery.INLINE);
+		for (int i = 1; i <= 10; i++)
+			publish(bus, i * 100.0);
+		
+		assertEquals(1, received.size());
+		assertEquals(10, subscription.getOffered());
+		assertEquals(1, subscription.getDelivered());
+		assertEquals("All but the first and latest states should be coalesced", 8, subscription.getCoalesced());
+	}
+	
+	@Test
+	public void SlowDedicatedSubscriberSeesLatestStateTest() throws InterruptedException {
+		FlightDataBus bus = new FlightDataBus();
+		AtomicLong lastSequence = new AtomicLong();
+		CountDownLatch sawLast = new CountDownLatch(1);
+		final int states = 2000;
+		
+		Subscription subscription = bus.subscribe(frame -> {
+			assertTrue("States should only move forward", frame.getSequence() > lastSequence.get());
+			lastSequence.set(frame.getSequence());
+			
+			if (frame.get(FlightDataType.ALTITUDE) == states)
+				sawLast.countDown();
+			
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {}
+		}, 0, FlightDataDelivery.DEDICATED);
+		
+		long started = System.nanoTime();
+		for (int i = 1; i <= states; i++)
+			publish(bus, i);
+		long publishNanos = System.nanoTime() - started;
+		
+		assertTrue("Slow subscriber should receive the latest state", sawLast.await(5, TimeUnit.SECONDS));
+		assertTrue("Publisher should not wait for a slow subscriber", publishNanos < TimeUnit.MILLISECONDS.toNanos(states / 2));
+		assertTrue("Slow subscriber should have been coalesced", subscription.getCoalesced() > 0);
+		
+		// The last delivery is counted once the subscriber returns
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (subscription.getDelivered() + subscription.getCoalesced() < states && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		
+		assertEquals(states, subscription.getDelivered() + subscription.getCoalesced());
+		
+		bus.close();
+	}
+	
+	@Test
+	public void RateLimitedDedicatedSubscriberKeepsItsRateTest() throws InterruptedException {
+		FlightDataBus bus = new FlightDataBus();
+		
+		Subscription subscription = bus.subscribe(frame -> {}, 10, FlightDataDelivery.DEDICATED);
+		
+		// Publish at several hundred Hz for a second
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (System.nanoTime() < deadline) {
+			publish(bus, 100.0);
+			Thread.sleep(2);
+		}
+		bus.close();
+		
+		assertTrue("Publisher should have outpaced the subscriber", subscription.getOffered() > 100);
+		assertTrue("10 Hz subscriber should receive at most 11 states in a second, but received " + subscription.getDelivered(), 
+				   subscription.getDelivered() <= 11);
+		assertTrue(subscription.getDelivered() > 0);
+	}
+	
+	@Test
+	public void HeldBackStateIsDeliveredAfterPublishingStopsTest() throws Exception {
+		FlightDataBus bus = new FlightDataBus();
+		CountDownLatch inlineSawLast = new CountDownLatch(1);
+		CountDownLatch swingSawLast = new CountDownLatch(1);
+		
+		bus.subscribe(frame -> {
+			if (frame.get(FlightDataType.ALTITUDE) == 200.0)
+				inlineSawLast.countDown();
+		}, 10, FlightDataDelivery.INLINE);
+		bus.subscribe(frame -> {
+			if (frame.get(FlightDataType.ALTITUDE) == 200.0)
+				swingSawLast.countDown();
+		}, 10, FlightDataDelivery.SWING_EDT);
+		
+		// The second state falls within the rate of both subscribers, and nothing is published after it
+		publish(bus, 100.0);
+		publish(bus, 200.0);
+		
+		assertTrue("Inline subscriber should receive the held back state", inlineSawLast.await(5, TimeUnit.SECONDS));
+		assertTrue("Swing subscriber should receive the held back state", swingSawLast.await(5, TimeUnit.SECONDS));
+		
+		bus.close();
+	}
+	
+	@Test
+	public void SwingSubscriberRunsOnEventDispatchThreadTest() throws Exception {
+		FlightDataBus bus = new FlightDataBus();
+		CountDownLatch delivered = new CountDownLatch(1);
+		List<Boolean> onEdt = new ArrayList<>();
+		
+		bus.subscribe(frame -> {
+			onEdt.add(SwingUtilities.isEventDispatchThread());
+			delivered.countDown();
+		}, 0, FlightDataDelivery.SWING_EDT);
+		
+		publish(bus, 100.0);
+		
+		assertTrue(delivered.await(5, TimeUnit.SECONDS));
+		SwingUtilities.invokeAndWait(() -> assertTrue(onEdt.get(0)));
+	}
+	
+	@Test
+	public void FailingSubscriberDoesNotStopOthersTest() {
+		FlightDataBus bus = new FlightDataBus();
+		List<Double> received = new ArrayList<>();
+		
+		Subscription failing = bus.subscribe(frame -> { throw new IllegalStateException("Test"); }, 0, FlightDataDelivery.INLINE);
+		bus.subscribe(frame -> received.add(frame.get(FlightDataType.ALTITUDE)), 0, FlightDataDelivery.INLINE);
+		
+		publish(bus, 100.0);
+		failing.cancel();
+		publish(bus, 200.0);
+		
+		assertEquals(2, received.size());
+		assertEquals(1, failing.getFailed());
+		assertEquals(1, failing.getOffered());
+	}
+}
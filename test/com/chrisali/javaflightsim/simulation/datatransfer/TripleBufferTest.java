@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TripleBufferTest {
+	
+	@Test
+	public void consumerSeesLatestPublishedState() {
+		TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[1]);
+		
+		assertFalse(buffer.update());
+		
+		for (long i = 1; i <= 3; i++) {
+			buffer.getWriteBuffer()[0] = i;
+			buffer.publish();
+		}
+		
+		assertTrue(buffer.update());
+		assertEquals(3, buffer.getReadBuffer()[0]);
+		assertFalse(buffer.update());
+		assertEquals(3, buffer.getReadBuffer()[0]);
+	}
+	
+	@Test
+	public void concurrentConsumerNeverSeesTornOrOlderState() throws InterruptedException {
+		final long count = 1_000_000;
+		TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[2]);
+		
+		Thread producer = new Thread(() -> {
+			for (long i = 1; i <= count; i++) {
+				long[] state = buffer.getWriteBuffer();
+				state[0] = i;
+				state[1] = -i;
+				buffer.publish();
+			}
+		});
+		producer.start();
+		
+		long last = 0;
+		while (last < count) {
+			if (buffer.update()) {
+				long[] state = buffer.getReadBuffer();
+				
+				assertEquals(state[0], -state[1]);
+				assertTrue(state[0] > last);
+				
+				last = state[0];
+			}
+		}
+		
+		producer.join();
+	}
+	
+	@Test
+	public void snapshotInterpolatesOneIntervalBehind() {
+		FlightDataFrame flightData = new FlightDataFrame();
+		
+		flightData.set(FlightDataType.ALTITUDE, 1000.0);
+		flightData.set(FlightDataType.HEADING, 350.0);
+		
+		FlightDataSnapshot snapshot = new FlightDataSnapshot();
+		double[] previous = new double[FlightDataType.values().length];
+		snapshot.set(null, 0, flightData, 100);
+		snapshot.copyCurrentTo(previous);
+		
+		flightData.set(FlightDataType.ALTITUDE, 1100.0);
+		flightData.set(FlightDataType.HEADING, 10.0);
+		snapshot.set(previous, 100, flightData, 200);
+		
+		Map<FlightDataType, Double> interpolated = new EnumMap<>(FlightDataType.class);
+		
+		snapshot.interpolate(200, interpolated);
+		assertEquals(1000.0, interpolated.get(FlightDataType.ALTITUDE), 1e-9);
+		
+		snapshot.interpolate(250, interpolated);
+		assertEquals(1050.0, interpolated.get(FlightDataType.ALTITUDE), 1e-9);
+		assertEquals(360.0, interpolated.get(FlightDataType.HEADING), 1e-9);
+		
+		snapshot.interpolate(1000, interpolated);
+		assertEquals(1100.0, interpolated.get(FlightDataType.ALTITUDE), 1e-9);
+	}
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.ensemble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.distribution.UniformRealDistribution;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class EnsembleRunnerTest {
+	
+	private static final int RUNS = 6;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private EnsembleRunner createRunner(File outputDirectory, int parallelism) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getIntegratorConfig().put(IntegratorConfig.STARTTIME, 0.0);
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, 2.0);
+		
+		EnsembleRunner runner = new EnsembleRunner(configuration, outputDirectory)
+				.addDispersion(DispersedParameter.WIND_SPEED, new UniformRealDistribution(0, 20))
+				.addDispersion(DispersedParameter.INITIAL_ALTITUDE, new NormalDistribution(5000, 200))
+				.addDispersion(StabilityDerivatives.CM_ALPHA, new NormalDistribution(1.0, 0.1));
+		runner.setParallelism(parallelism);
+		
+		return runner;
+	}
+	
+	@Test
+	public void resultsAreIdenticalForSeedRegardlessOfParallelism() throws IOException {
+		File serialDirectory   = folder.newFolder("serial");
+		File parallelDirectory = folder.newFolder("parallel");
+		
+		List<RunSummary> serial   = createRunner(serialDirectory, 1).run(RUNS, 42L);
+		List<RunSummary> parallel = createRunner(parallelDirectory, 4).run(RUNS, 42L);
+		
+		assertEquals(RUNS, serial.size());
+		assertEquals(RUNS, parallel.size());
+		
+		for (int i = 0; i < RUNS; i++) {
+			assertEquals(i, parallel.get(i).getRunIndex());
+			assertTrue(parallel.get(i).isCompleted());
+			assertEquals(serial.get(i).getDispersedValues(), parallel.get(i).getDispersedValues());
+			assertEquals(serial.get(i).getFinal(SimOuts.ALT), parallel.get(i).getFinal(SimOuts.ALT), 0.0);
+			assertEquals(serial.get(i).getMean(SimOuts.ALPHA), parallel.get(i).getMean(SimOuts.ALPHA), 0.0);
+			
+			String historyFile = String.format("run-%05d.csv", i);
+			assertEquals(Files.readAllLines(new File(serialDirectory, historyFile).toPath()), 
+						 Files.readAllLines(new File(parallelDirectory, historyFile).toPath()));
+		}
+		
+		List<String> summaryLines = Files.readAllLines(new File(parallelDirectory, EnsembleRunner.SUMMARY_FILE_NAME).toPath());
+		assertEquals(RUNS + 1, summaryLines.size());
+		assertEquals(Files.readAllLines(new File(serialDirectory, EnsembleRunner.SUMMARY_FILE_NAME).toPath()), summaryLines);
+	}
+	
+	@Test
+	public void runsAreDispersedBySeedAndIndex() throws IOException {
+		List<RunSummary> first  = createRunner(folder.newFolder("first"), 2).run(2, 1L);
+		List<RunSummary> second = createRunner(folder.newFolder("second"), 2).run(2, 2L);
+		
+		assertNotEquals(first.get(0).getDispersedValues(), first.get(1).getDispersedValues());
+		assertNotEquals(first.get(0).getDispersedValues(), second.get(0).getDispersedValues());
+		assertNotEquals(first.get(0).getFinal(SimOuts.ALT), first.get(1).getFinal(SimOuts.ALT), 0.0);
+		
+		assertEquals(first.get(0).getDispersedValues().get(DispersedParameter.INITIAL_ALTITUDE), 
+					 first.get(0).getMaximum(SimOuts.ALT), 50.0);
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.export;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chrisali.javaflightsim.simulation.export.CSVExporter.LiveExport;
+import com.chrisali.javaflightsim.simulation.integration.RingBufferHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class CSVExporterTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private static SimOutFrame frame(int i) {
+		SimOutFrame frame = new SimOutFrame();
+		frame.set(SimOuts.TIME, i * 0.01);
+		frame.set(SimOuts.ALT, 1000.0 + i);
+		frame.set(SimOuts.TAS, -0.5 * i);
+		
+		return frame;
+	}
+	
+	private static List<String> readLines(File file, boolean compressed) throws IOException {
+		List<String> lines = new ArrayList<>();
+		
+		try (InputStream in = compressed ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file);
+			 BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = br.readLine()) != null)
+				lines.add(line);
+		}
+		
+		return lines;
+	}
+	
+	private static void assertRows(List<String> lines, int frames, int decimation) {
+		assertEquals(SimOuts.TIME + "," + SimOuts.ALT + "," + SimOuts.TAS, lines.get(0));
+		assertEquals("Header and one row per decimated frame should be written", 1 + (frames + decimation - 1) / decimation, lines.size());
+		
+		for (int row = 1; row < lines.size(); row++) {
+			int i = (row - 1) * decimation;
+			String[] values = lines.get(row).split(",");
+			
+			assertEquals(3, values.length);
+			assertEquals(i * 0.01, Double.parseDouble(values[0]), 1e-9);
+			assertEquals(1000.0 + i, Double.parseDouble(values[1]), 1e-9);
+			assertEquals(-0.5 * i, Double.parseDouble(values[2]), 1e-9);
+		}
+	}
+	
+	private static CSVExporter exporter() {
+		CSVExporter exporter = new CSVExporter(Arrays.asList(SimOuts.TIME, SimOuts.ALT, SimOuts.TAS));
+		exporter.setChunkRows(7);
+		exporter.setParallelism(3);
+		
+		return exporter;
+	}
+	
+	@Test
+	public void ExportChannelSubsetInOrderTest() throws IOException {
+		List<SimOutFrame> frames = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+			frames.add(frame(i));
+		
+		File file = folder.newFile("subset.csv");
+		assertEquals(100, exporter().export(frames, file));
+		
+		assertRows(readLines(file, false), 100, 1);
+	}
+	
+	@Test
+	public void ExportDecimatedHistoryTest() throws IOException {
+		RingBufferHistory history = new RingBufferHistory(200);
+		for (int i = 0; i < 101; i++)
+			history.append(frame(i));
+		
+		CSVExporter exporter = exporter();
+		exporter.setDecimation(4);
+		
+		File file = folder.newFile("decimated.csv");
+		assertEquals(26, exporter.export(history, file));
+		
+		assertRows(readLines(file, false), 101, 4);
+	}
+	
+	@Test
+	public void ExportCompressedTest() throws IOException {
+		RingBufferHistory history = new RingBufferHistory(500);
+		for (int i = 0; i < 500; i++)
+			history.append(frame(i));
+		
+		CSVExporter exporter = exporter();
+		exporter.setCompressed(true);
+		
+		File file = folder.newFile("compressed.csv.gz");
+		exporter.export(history, file);
+		
+		assertRows(readLines(file, true), 500, 1);
+	}
+	
+	@Test
+	public void ExportIsLosslessByDefaultTest() throws IOException {
+		SimOutFrame frame = new SimOutFrame();
+		frame.set(SimOuts.TIME, 1e-9);
+		frame.set(SimOuts.LAT, Math.toRadians(37.6213129));
+		frame.set(SimOuts.LON, Math.toRadians(-122.3789554));
+		
+		File file = folder.newFile("lossless.csv");
+		new CSVExporter(Arrays.asList(SimOuts.TIME, SimOuts.LAT, SimOuts.LON)).export(Arrays.asList(frame), file);
+		
+		String[] values = readLines(file, false).get(1).split(",");
+		
+		assertEquals(frame.get(SimOuts.TIME), Double.parseDouble(values[0]), 0.0);
+		assertEquals(frame.get(SimOuts.LAT), Double.parseDouble(values[1]), 0.0);
+		assertEquals(frame.get(SimOuts.LON), Double.parseDouble(values[2]), 0.0);
+	}
+	
+	@Test
+	public void LiveExportFollowsHistoryTest() throws Exception {
+		RingBufferHistory history = new RingBufferHistory(1000);
+		File file = folder.newFile("live.csv");
+		
+		LiveExport export = exporter().follow(history, file);
+		for (int i = 0; i < 300; i++) {
+			history.append(frame(i));
+			if (i % 50 == 0)
+				Thread.sleep(20);
+		}
+		export.close();
+		
+		assertEquals(300, export.getRows());
+		assertRows(readLines(file, false), 300, 1);
+	}
+}
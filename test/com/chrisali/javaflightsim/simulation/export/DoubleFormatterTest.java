@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.export;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DoubleFormatterTest {
+	
+	private static String format(int precision, double value) {
+		byte[] buffer = new byte[DoubleFormatter.MAX_LENGTH];
+		int length = new DoubleFormatter(precision).format(value, buffer, 0);
+		
+		return new String(buffer, 0, length, StandardCharsets.US_ASCII);
+	}
+	
+	@Test
+	public void RoundsAndTrimsZerosTest() {
+		assertEquals("3.14159", format(5, Math.PI));
+		assertEquals("3.1416", format(4, Math.PI));
+		assertEquals("2.5", format(6, 2.5));
+		assertEquals("100", format(3, 100.0));
+		assertEquals("-0.001", format(3, -0.0012));
+		assertEquals("1", format(2, 0.999));
+	}
+	
+	@Test
+	public void ZeroHasNoSignTest() {
+		assertEquals("0", format(6, 0.0));
+		assertEquals("0", format(6, -0.0));
+		assertEquals("0", format(2, -0.001));
+	}
+	
+	@Test
+	public void SpecialValuesTest() {
+		assertEquals("NaN", format(6, Double.NaN));
+		assertEquals("Infinity", format(6, Double.POSITIVE_INFINITY));
+		assertEquals("-Infinity", format(6, Double.NEGATIVE_INFINITY));
+		assertEquals("1E300", format(6, 1e300));
+	}
+	
+	@Test
+	public void LosslessRoundTripTest() {
+		double[] values = {0.0, -0.0, 0.01, 2.5, -1000.125, 1e-9, -3.7e-12, 0.1 + 0.2, Math.PI, Math.toRadians(37.6213), 
+						   123456.789012345, 1e300, Double.MIN_VALUE, Double.NEGATIVE_INFINITY};
+		
+		for (double value : values)
+			assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(Double.parseDouble(format(DoubleFormatter.LOSSLESS, value))));
+		
+		// Short decimals are written as fixed text, as with a precision
+		assertEquals("0.01", format(DoubleFormatter.LOSSLESS, 0.01));
+		assertEquals("-1000.125", format(DoubleFormatter.LOSSLESS, -1000.125));
+		assertEquals("NaN", format(DoubleFormatter.LOSSLESS, Double.NaN));
+	}
+	
+	@Test
+	public void LosslessIsShortestTest() {
+		assertEquals("0.1", format(DoubleFormatter.LOSSLESS, 0.1));
+		assertEquals("0.30000000000000004", format(DoubleFormatter.LOSSLESS, 0.1 + 0.2));
+		assertEquals("-5.139E-6", format(DoubleFormatter.LOSSLESS, -5.139e-6));
+		assertEquals("1E23", format(DoubleFormatter.LOSSLESS, 1e23));
+		assertEquals("5E-324", format(DoubleFormatter.LOSSLESS, Double.MIN_VALUE));
+		assertEquals("1.7976931348623157E308", format(DoubleFormatter.LOSSLESS, Double.MAX_VALUE));
+		assertEquals("9999999", format(DoubleFormatter.LOSSLESS, 9999999.0));
+		assertEquals("1E7", format(DoubleFormatter.LOSSLESS, 1e7));
+		assertEquals("0.001", format(DoubleFormatter.LOSSLESS, 0.001));
+		assertEquals("-0", format(DoubleFormatter.LOSSLESS, -0.0));
+	}
+	
+	@Test
+	public void RandomLosslessRoundTripTest() {
+		Random random = new Random(1);
+		
+		for (int i = 0; i < 200000; i++) {
+			double value = (i % 2 == 0) ? Double.longBitsToDouble(random.nextLong()) : random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+			if (Double.isNaN(value))
+				continue;
+			
+			String text = format(DoubleFormatter.LOSSLESS, value);
+			assertEquals(text, Double.doubleToLongBits(value), Double.doubleToLongBits(Double.parseDouble(text)));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void PrecisionOutOfRangeTest() {
+		new DoubleFormatter(DoubleFormatter.MAX_PRECISION + 1);
+	}
+}
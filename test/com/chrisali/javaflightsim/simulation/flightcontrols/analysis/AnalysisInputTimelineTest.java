@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameter;
+import com.chrisali.javaflightsim.simulation.flightcontrols.ControlParameterActuator;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AnalysisInputTimelineTest {
+	
+	private static final int STEP_MS = 8;
+	
+	/**
+	 * Actuator that records the last value each control was actuated with
+	 */
+	private static class RecordingActuator implements ControlParameterActuator {
+		private final Map<FlightControl, Float> values = new EnumMap<>(FlightControl.class);
+		
+		@Override
+		public void handleParameterChange(ControlParameter parameter, float value) {
+			values.put((FlightControl) parameter, value);
+		}
+	}
+	
+	/**
+	 * Calculates what each control should be actuated with at timeMS by scanning every input
+	 */
+	private static Map<FlightControl, Float> expectedValues(List<AnalysisControlInput> inputs, int timeMS) {
+		Map<FlightControl, Double> deflections = new EnumMap<>(FlightControl.class);
+		for (AnalysisControlInput input : inputs) {
+			if (input.getStartTimeMS() <= timeMS)
+				deflections.merge(input.getControlType(), input.getDeflection(timeMS), Double::sum);
+		}
+		
+		Map<FlightControl, Float> values = new EnumMap<>(FlightControl.class);
+		for (Map.Entry<FlightControl, Double> entry : deflections.entrySet())
+			values.put(entry.getKey(), (float)(entry.getValue() / entry.getKey().getMaximum()));
+		
+		return values;
+	}
+	
+	private static void assertMatchesScan(List<AnalysisControlInput> inputs, AnalysisInputTimeline timeline, int startMS, int endMS) {
+		for (int timeMS = startMS; timeMS <= endMS; timeMS += STEP_MS) {
+			RecordingActuator actuator = new RecordingActuator();
+			timeline.update(timeMS, actuator);
+			
+			Map<FlightControl, Float> expected = expectedValues(inputs, timeMS);
+			assertEquals("At " + timeMS + " ms", expected.keySet(), actuator.values.keySet());
+			
+			for (FlightControl control : expected.keySet())
+				assertEquals("At " + timeMS + " ms", expected.get(control), actuator.values.get(control), 1e-6f);
+		}
+	}
+	
+	@Test
+	public void DefaultInputsTest() {
+		List<AnalysisControlInput> inputs = FileUtilities.readAnalysisControls().getAnalysisInputs();
+		AnalysisInputTimeline timeline = new AnalysisInputTimeline(inputs);
+		
+		assertMatchesScan(inputs, timeline, 0, timeline.getEndTimeMS() + 1000);
+		
+		// Aileron doublet from 10000 ms, 500 ms each way
+		float aileron = (float)(0.035 / FlightControl.AILERON.getMaximum());
+		RecordingActuator actuator = new RecordingActuator();
+		
+		timeline.update(9992, actuator);
+		assertFalse(actuator.values.containsKey(FlightControl.AILERON));
+		timeline.update(10000, actuator);
+		assertEquals(aileron, actuator.values.get(FlightControl.AILERON), 0.0f);
+		timeline.update(10500, actuator);
+		assertEquals(-aileron, actuator.values.get(FlightControl.AILERON), 0.0f);
+		timeline.update(11000, actuator);
+		assertEquals(0.0f, actuator.values.get(FlightControl.AILERON), 0.0f);
+		
+		assertEquals(72500, timeline.getEndTimeMS());
+	}
+	
+	@Test
+	public void ShapesTest() {
+		ThreeTwoOneOne threeTwoOneOne = new ThreeTwoOneOne(FlightControl.ELEVATOR, 1000, 200, 0.05);
+		assertEquals(2400, threeTwoOneOne.getEndTimeMS());
+		assertEquals(0.0, threeTwoOneOne.getDeflection(999), 0.0);
+		assertEquals(0.05, threeTwoOneOne.getDeflection(1599), 0.0);
+		assertEquals(-0.05, threeTwoOneOne.getDeflection(1600), 0.0);
+		assertEquals(0.05, threeTwoOneOne.getDeflection(2000), 0.0);
+		assertEquals(-0.05, threeTwoOneOne.getDeflection(2399), 0.0);
+		assertEquals(0.0, threeTwoOneOne.getDeflection(2400), 0.0);
+		
+		Ramp ramp = new Ramp(FlightControl.RUDDER, 1000, 2000, 0.1, 500);
+		assertEquals(3500, ramp.getEndTimeMS());
+		assertEquals(0.05, ramp.getDeflection(2000), 1e-12);
+		assertEquals(0.1, ramp.getDeflection(3499), 0.0);
+		assertEquals(0.0, ramp.getDeflection(3500), 0.0);
+		
+		// A sweep from 0.5 to 1.5 Hz over 10 sec has 10 cycles, crossing zero twice in each
+		FrequencySweep sweep = new FrequencySweep(FlightControl.AILERON, 0, 10000, 0.02, 0.5, 1.5);
+		assertEquals(0.0, sweep.getDeflection(0), 0.0);
+		int crossings = 0;
+		for (int timeMS = 1; timeMS < 10000; timeMS++) {
+			if (Math.signum(sweep.getDeflection(timeMS)) != Math.signum(sweep.getDeflection(timeMS - 1)))
+				crossings++;
+			assertTrue(Math.abs(sweep.getDeflection(timeMS)) <= 0.02);
+		}
+		assertEquals(20, crossings, 1);
+		
+		Multisine multisine = new Multisine(FlightControl.ELEVATOR, 0, 20000, 0.03, new double[] {0.2, 0.4, 0.6, 0.8, 1.0, 1.2});
+		double peak = 0.0, mean = 0.0;
+		for (int timeMS = 0; timeMS < 20000; timeMS++) {
+			peak = Math.max(peak, Math.abs(multisine.getDeflection(timeMS)));
+			mean += multisine.getDeflection(timeMS) / 20000;
+		}
+		assertEquals(0.03, peak, 1e-12);
+		assertEquals(0.0, mean, 1e-3);
+		assertEquals(0.0, multisine.getDeflection(20000), 0.0);
+	}
+	
+	@Test
+	public void JsonRoundTripTest() throws IOException {
+		AnalysisControls controls = new AnalysisControls();
+		controls.setAnalysisInputs(Arrays.asList(new Doublet(FlightControl.ELEVATOR, 1000, 500, 0.035), 
+												 new Singlet(FlightControl.ELEVATOR, 3000, 500, -0.035),
+												 new ThreeTwoOneOne(FlightControl.AILERON, 5000, 300, 0.04), 
+												 new FrequencySweep(FlightControl.RUDDER, 8000, 20000, 0.02, 0.1, 2.0),
+												 new Ramp(FlightControl.THROTTLE_1, 30000, 5000, 0.2, 2000),
+												 new Multisine(FlightControl.ELEVATOR, 40000, 10000, 0.03, new double[] {0.3, 0.6, 0.9})));
+		
+		ObjectMapper mapper = new ObjectMapper();
+		AnalysisControls read = mapper.readValue(mapper.writeValueAsString(controls), AnalysisControls.class);
+		
+		assertEquals(controls.getAnalysisInputs().size(), read.getAnalysisInputs().size());
+		for (int i = 0; i < controls.getAnalysisInputs().size(); i++) {
+			AnalysisControlInput input = controls.getAnalysisInputs().get(i);
+			AnalysisControlInput readInput = read.getAnalysisInputs().get(i);
+			
+			assertEquals(input.getClass(), readInput.getClass());
+			assertEquals(input.getEndTimeMS(), readInput.getEndTimeMS());
+			
+			for (int timeMS = input.getStartTimeMS(); timeMS <= input.getEndTimeMS(); timeMS += 37)
+				assertEquals(input.getDeflection(timeMS), readInput.getDeflection(timeMS), 0.0);
+		}
+		
+		AnalysisInputTimeline timeline = read.compileTimeline();
+		assertMatchesScan(read.getAnalysisInputs(), timeline, 0, timeline.getEndTimeMS() + 100);
+	}
+	
+	@Test
+	public void OverlappingInputsTest() {
+		// Sweeps 20 sec long starting every 100 ms, so that 200 overlap at any time 
+		List<AnalysisControlInput> inputs = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+			inputs.add(new FrequencySweep(FlightControl.ELEVATOR, i * 100, 20000, 1e-4, 0.1, 2.0));
+		
+		// Out of order, to be sorted when compiled
+		inputs.add(0, new Singlet(FlightControl.AILERON, 30000, 1000, 0.01));
+		
+		AnalysisInputTimeline timeline = new AnalysisInputTimeline(inputs);
+		assertMatchesScan(inputs, timeline, 0, 72000);
+		
+		timeline.update(30000, new RecordingActuator());
+		assertEquals(201, timeline.getActiveCount());
+	}
+	
+	@Test
+	public void RewindTest() {
+		List<AnalysisControlInput> inputs = FileUtilities.readAnalysisControls().getAnalysisInputs();
+		AnalysisInputTimeline timeline = new AnalysisInputTimeline(inputs);
+		
+		for (int timeMS = 0; timeMS <= 60000; timeMS += STEP_MS)
+			timeline.update(timeMS, new RecordingActuator());
+		
+		// Restored to before some inputs had started, and again to the start of the simulation
+		assertMatchesScan(inputs, timeline, 10200, 20000);
+		assertMatchesScan(inputs, timeline, 0, 80000);
+	}
+}
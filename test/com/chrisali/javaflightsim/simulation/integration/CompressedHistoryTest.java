@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompressedHistoryTest {
+	
+	private static final double DT = 1.0 / 120.0;
+	
+	private static void fill(SimOutFrame frame, int i, Random random) {
+		double t = i * DT;
+		
+		for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+			frame.set(channel, 0.0);
+		
+		frame.set(SimOuts.TIME, t);
+		frame.set(SimOuts.ALT, 5000.0 + 20.0 * Math.sin(0.1 * t));
+		frame.set(SimOuts.TAS, 210.0 + Math.cos(0.3 * t));
+		frame.set(SimOuts.ELEVATOR, (i / 500) * 0.01);
+		frame.set(SimOuts.AILERON, random.nextGaussian());
+		frame.set(SimOuts.RUDDER, Double.NaN);
+	}
+	
+	private static void append(SimOutHistory history, int from, int to) {
+		SimOutFrame frame = new SimOutFrame();
+		Random random = new Random(from);
+		
+		for (int i = from; i < to; i++) {
+			fill(frame, i, random);
+			history.append(frame);
+		}
+	}
+	
+	private static void assertFrame(SimOutFrame expected, SimOutFrame actual) {
+		for (int channel = 0; channel < SimOuts.CHANNEL_COUNT; channel++)
+			assertEquals(Double.doubleToRawLongBits(expected.get(channel)), Double.doubleToRawLongBits(actual.get(channel)));
+	}
+	
+	@Test
+	public void FramesAreLosslessTest() {
+		CompressedHistory history = new CompressedHistory(10_000, 64);
+		append(history, 0, 1000);
+		
+		SimOutFrame expected = new SimOutFrame();
+		SimOutFrame actual = new SimOutFrame();
+		Random random = new Random(0);
+		
+		for (int i = 0; i < 1000; i++) {
+			fill(expected, i, random);
+			
+			assertTrue(history.readFrame(i, actual));
+			assertFrame(expected, actual);
+		}
+	}
+	
+	@Test
+	public void ReadChannelAcrossBlocksAndHeadTest() {
+		CompressedHistory history = new CompressedHistory(10_000, 64);
+		append(history, 0, 300);
+		
+		double[] altitudes = new double[300];
+		assertEquals(200, history.readChannel(SimOuts.ALT, 100, altitudes, 50, 250));
+		
+		for (int i = 0; i < 200; i++)
+			assertEquals(5000.0 + 20.0 * Math.sin(0.1 * (100 + i) * DT), altitudes[50 + i], 0.0);
+	}
+	
+	@Test
+	public void OldestBlocksAreEvictedTest() {
+		CompressedHistory history = new CompressedHistory(200, 64);
+		append(history, 0, 1000);
+		
+		assertEquals(200, history.size());
+		assertEquals(800, history.getFirstSequence());
+		assertFalse("Evicted frame should not be readable", history.readFrame(799, new SimOutFrame()));
+		
+		HistorySnapshot snapshot = history.snapshot();
+		assertEquals(200, snapshot.size());
+		assertEquals(800, snapshot.getFirstSequence());
+		assertEquals(999 * DT, snapshot.get(199, SimOuts.TIME), 0.0);
+	}
+	
+	@Test
+	public void WindowedSnapshotMatchesRingBufferTest() {
+		CompressedHistory compressed = new CompressedHistory(5000, 128);
+		RingBufferHistory ring = new RingBufferHistory(5000);
+		append(compressed, 0, 3000);
+		append(ring, 0, 3000);
+		
+		HistorySnapshot expected = ring.snapshot(1000, 2100);
+		HistorySnapshot actual = compressed.snapshot(1000, 2100);
+		
+		assertEquals(1100, actual.size());
+		assertEquals(1000, actual.getFirstSequence());
+		for (int i = 0; i < actual.size(); i++)
+			assertFrame(expected.get(i), actual.get(i));
+	}
+	
+	@Test
+	public void SmoothChannelsCompressTest() {
+		CompressedHistory history = new CompressedHistory(100_000);
+		append(history, 0, 100_000);
+		
+		long uncompressedBytes = 8L * SimOuts.CHANNEL_COUNT * 100_000;
+		
+		assertTrue("History should be at least 5 times smaller than uncompressed frames", 
+				   history.getStoredBytes() * 5 < uncompressedBytes);
+	}
+	
+	@Test
+	public void ConcurrentReadsSeeConsistentFramesTest() throws InterruptedException {
+		CompressedHistory history = new CompressedHistory(2000, 64);
+		
+		Thread writer = new Thread(() -> append(history, 0, 50_000));
+		writer.start();
+		
+		double[] times = new double[500];
+		while (writer.isAlive()) {
+			long from = Math.max(0, history.getNextSequence() - 500);
+			int count = history.readChannel(SimOuts.TIME, from, times, 0, times.length);
+			
+			for (int i = 1; i < count; i++)
+				assertEquals("Frames should be consecutive", times[i - 1] + DT, times[i], 1e-9);
+		}
+		
+		writer.join();
+	}
+}
@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class RingBufferHistoryTest {
+	
+	@Test
+	public void AppendEvictsOldestFrameTest() {
+		RingBufferHistory history = new RingBufferHistory(4);
+		append(history, 6);
+		
+		assertEquals("History should be bounded to its capacity", 4, history.size());
+		assertEquals(2, history.getFirstSequence());
+		assertEquals(6, history.getNextSequence());
+		
+		SimOutFrame frame = new SimOutFrame();
+		assertFalse("Evicted frame should not be readable", history.readFrame(1, frame));
+		assertTrue(history.readFrame(5, frame));
+		assertEquals(5.0, frame.get(SimOuts.TIME), 0.0);
+		assertEquals(50.0, frame.get(SimOuts.ALT), 0.0);
+	}
+	
+	@Test
+	public void ReadChannelWrapsAroundTest() {
+		RingBufferHistory history = new RingBufferHistory(5);
+		append(history, 8);
+		
+		double[] altitudes = new double[10];
+		int count = history.readChannel(SimOuts.ALT, 0, altitudes, 1, 10);
+		
+		assertEquals("Reading should begin at the oldest retained frame", 5, count);
+		for (int i = 0; i < count; i++)
+			assertEquals((i + 3) * 10.0, altitudes[i + 1], 0.0);
+	}
+	
+	@Test
+	public void ClearKeepsSequenceNumbersTest() {
+		RingBufferHistory history = new RingBufferHistory(10);
+		append(history, 3);
+		history.clear();
+		
+		assertEquals(0, history.size());
+		assertEquals(0, history.snapshot().size());
+		
+		append(history, 2);
+		
+		HistorySnapshot snapshot = history.snapshot();
+		assertEquals(2, snapshot.size());
+		assertEquals(3, snapshot.getFirstSequence());
+		assertEquals(4, snapshot.getSequence(1));
+	}
+	
+	@Test
+	public void ForDurationRetainsWholeDurationTest() {
+		assertEquals(101, RingBufferHistory.forDuration(1.0, 0.01).getCapacity());
+	}
+	
+	@Test
+	public void SnapshotIsConsistentWithConcurrentWriterTest() throws InterruptedException {
+		final RingBufferHistory history = new RingBufferHistory(1000);
+		final AtomicBoolean running = new AtomicBoolean(true);
+		
+		Thread writer = new Thread(() -> {
+			SimOutFrame frame = new SimOutFrame();
+			for (int i = 0; running.get(); i++) {
+				frame.set(SimOuts.TIME, i);
+				frame.set(SimOuts.ALT, i * 10.0);
+				history.append(frame);
+			}
+		});
+		writer.start();
+		
+		try {
+			for (int i = 0; i < 200; i++) {
+				HistorySnapshot snapshot = history.snapshot();
+				
+				assertTrue(snapshot.size() <= history.getCapacity());
+				
+				for (int index = 0; index < snapshot.size(); index++) {
+					double time = snapshot.get(index, SimOuts.TIME);
+					
+					assertEquals("Frames should be in sequence", snapshot.getSequence(index), (long) time);
+					assertEquals("Channels of a frame should come from the same append", time * 10.0, snapshot.get(index, SimOuts.ALT), 0.0);
+				}
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+	}
+	
+	private static void append(SimOutHistory history, int frames) {
+		SimOutFrame frame = new SimOutFrame();
+		
+		for (int i = 0; i < frames; i++) {
+			frame.set(SimOuts.TIME, i);
+			frame.set(SimOuts.ALT, i * 10.0);
+			history.append(frame);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class SimOutFrameTest {
+	
+	@Test
+	public void EngineChannelLookupTest() {
+		for (int engineNumber = 1; engineNumber <= 4; engineNumber++) {
+			assertEquals(SimOuts.valueOf("THRUST_" + engineNumber), SimOuts.thrust(engineNumber));
+			assertEquals(SimOuts.valueOf("RPM_" + engineNumber), SimOuts.rpm(engineNumber));
+			assertEquals(SimOuts.valueOf("FUEL_FLOW_" + engineNumber), SimOuts.fuelFlow(engineNumber));
+		}
+	}
+	
+	@Test
+	public void LoggedFramesAreCopiesTest() {
+		Integrate6DOFEquations simulation = createSimulation(0.0, true);
+		
+		simulation.logData();
+		simulation.logData();
+		
+		List<SimOutFrame> logsOut = simulation.getLogsOut();
+		
+		assertEquals("Each call should log one frame", 2, logsOut.size());
+		assertNotSame("Logged frames should be independent of simOut", simulation.getSimOut(), logsOut.get(1));
+		assertEquals("Logged frame should match simOut", simulation.getSimOut().get(SimOuts.ALT), logsOut.get(1).get(SimOuts.ALT), 0.0);
+	}
+	
+	@Test
+	public void SteadyStateLoggingDoesNotAllocateTest() {
+		com.sun.management.ThreadMXBean allocationBean = allocationBean();
+		
+		// A 100 sec run retains 100 sec of frames; warm up past that so that every step evicts the oldest frame
+		Integrate6DOFEquations simulation = createSimulation(100.0, false);
+		
+		// Warm up
+		for (int i = 0; i < 20000; i++)
+			simulation.logData();
+		
+		final int steps = 10000;
+		long threadId = Thread.currentThread().getId();
+		long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+		
+		for (int i = 0; i < steps; i++)
+			simulation.logData();
+		
+		long bytesPerStep = (allocationBean.getThreadAllocatedBytes(threadId) - startBytes) / steps;
+		
+		assertEquals("Log should be bounded to its capacity", simulation.getHistory().getCapacity(), simulation.getHistory().size());
+		assertTrue("Logging allocated " + bytesPerStep + " bytes per step", bytesPerStep == 0);
+	}
+	
+	@Test
+	public void SteadyStateStepDoesNotAllocateTest() {
+		com.sun.management.ThreadMXBean allocationBean = allocationBean();
+		
+		Integrate6DOFEquations simulation = createSimulation(0.0, false);
+		
+		// Warm up past the duration of the run, so that logging evicts the oldest frame each step
+		for (int i = 0; i < 30000; i++)
+			simulation.step();
+		
+		final int steps = 10000;
+		long threadId = Thread.currentThread().getId();
+		long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+		long startEvaluations = simulation.getForceEvaluations();
+		
+		for (int i = 0; i < steps; i++)
+			simulation.step();
+		
+		long bytesPerStep = (allocationBean.getThreadAllocatedBytes(threadId) - startBytes) / steps;
+		
+		assertTrue("Simulation should have been stepped", simulation.getForceEvaluations() - startEvaluations >= steps);
+		assertTrue("Step allocated " + bytesPerStep + " bytes", bytesPerStep == 0);
+	}
+	
+	@Test
+	public void CompressedLoggingAllocatesOnlyBlocksTest() {
+		com.sun.management.ThreadMXBean allocationBean = allocationBean();
+		
+		// UNLIMITED_FLIGHT retains hours of frames in compressed blocks, which are allocated as each block fills
+		Integrate6DOFEquations simulation = createSimulation(100.0, true);
+		
+		// Warm up
+		for (int i = 0; i < 20000; i++)
+			simulation.logData();
+		
+		final int steps = 10000;
+		long threadId = Thread.currentThread().getId();
+		long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+		
+		for (int i = 0; i < steps; i++)
+			simulation.logData();
+		
+		long bytesPerStep = (allocationBean.getThreadAllocatedBytes(threadId) - startBytes) / steps;
+		
+		assertTrue("Logging allocated " + bytesPerStep + " bytes per step", bytesPerStep < 8 * SimOuts.CHANNEL_COUNT);
+	}
+	
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+		
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		
+		return allocationBean;
+	}
+	
+	private Integrate6DOFEquations createSimulation(double startTime, boolean unlimitedFlight) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getIntegratorConfig().put(IntegratorConfig.STARTTIME, startTime);
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, startTime + 100.0);
+		configuration.getSimulationOptions().remove(Options.ANALYSIS_MODE);
+		configuration.getSimulationOptions().remove(Options.PAUSED);
+		
+		if (unlimitedFlight)
+			configuration.getSimulationOptions().add(Options.UNLIMITED_FLIGHT);
+		else
+			configuration.getSimulationOptions().remove(Options.UNLIMITED_FLIGHT);
+		
+		return new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.setup.IntegrationMethod;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class StateIntegratorTest {
+	
+	private static final int STEPS = 2000;
+	
+	/**
+	 * Steps a simulation with constant controls, whose steps should all be continuous with the one before, and returns 
+	 * the mean number of force evaluations per step 
+	 * 
+	 * @param method
+	 * @return force evaluations per step
+	 */
+	private double evaluationsPerStep(IntegrationMethod method) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().clear();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		configuration.setIntegrationMethod(method);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+		
+		long startEvaluations = simulation.getForceEvaluations();
+		for (int i = 0; i < STEPS; i++)
+			simulation.step();
+		
+		return (simulation.getForceEvaluations() - startEvaluations) / (double) STEPS;
+	}
+	
+	@Test
+	public void RungeKuttaEvaluationsPerStepTest() {
+		// Derivatives at the start of each step are reused from the end of the last, leaving three stages plus the output update
+		assertEquals(4.0, evaluationsPerStep(IntegrationMethod.RUNGE_KUTTA_4), 0.01);
+	}
+	
+	@Test
+	public void AdamsBashforthMoultonEvaluationsPerStepTest() {
+		// One evaluation for the corrector plus the output update, once started by Runge-Kutta
+		assertEquals(2.0, evaluationsPerStep(IntegrationMethod.ADAMS_BASHFORTH_MOULTON), 0.01);
+	}
+	
+	@Test
+	public void DormandPrinceEvaluationsPerStepTest() {
+		// Adaptive steps span many frames in steady flight, so most frames only interpolate and update outputs
+		double evaluationsPerStep = evaluationsPerStep(IntegrationMethod.DORMAND_PRINCE_54);
+		
+		assertTrue("Dormand-Prince made " + evaluationsPerStep + " evaluations per step", evaluationsPerStep < 1.25);
+	}
+	
+	@Test
+	public void DormandPrinceFailsOnNonFiniteErrorTest() {
+		// Derivative is finite at the start of each step, but infinite at every later stage
+		final int[] evaluations = {0};
+		FirstOrderDifferentialEquations diverging = new FirstOrderDifferentialEquations() {
+			@Override
+			public int getDimension() { return 1; }
+			
+			@Override
+			public void computeDerivatives(double t, double[] y, double[] yDot) {
+				evaluations[0]++;
+				yDot[0] = (t > 1.0) ? Double.POSITIVE_INFINITY : 1.0;
+			}
+		};
+		
+		DormandPrinceIntegrator integrator = new DormandPrinceIntegrator();
+		double[] yOut = new double[1];
+		
+		try {
+			integrator.integrate(diverging, 1.0, new double[] {0.0}, null, 1.01, yOut);
+			fail("A step whose error estimate is not finite should not be accepted");
+		} catch (NumberIsTooSmallException e) {
+			assertTrue("Integration took " + evaluations[0] + " evaluations to fail", evaluations[0] < 200);
+		}
+		
+		// The step size is not carried over from the failure
+		FirstOrderDifferentialEquations constant = new FirstOrderDifferentialEquations() {
+			@Override
+			public int getDimension() { return 1; }
+			
+			@Override
+			public void computeDerivatives(double t, double[] y, double[] yDot) { yDot[0] = 1.0; }
+		};
+		integrator.reset();
+		integrator.integrate(constant, 1.0, new double[] {0.0}, null, 1.01, yOut);
+		
+		assertEquals(0.01, yOut[0], 1e-9);
+	}
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linear;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.trim.TrimCondition;
+import com.chrisali.javaflightsim.simulation.trim.TrimResult;
+import com.chrisali.javaflightsim.simulation.trim.TrimSolver;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class LinearizerTest {
+	
+	private static final double AIRSPEED = 176.0;
+	private static final double ALTITUDE = 5000.0;
+	
+	private static SimulationContext createContext(String aircraftName) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft(aircraftName);
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		configuration.getIntegratorConfig().put(IntegratorConfig.STARTTIME, 0.0);
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, 10.0);
+		
+		return new SimulationContext(configuration);
+	}
+	
+	private static TrimResult trim(SimulationContext context, TrimCondition condition) {
+		TrimResult result = new TrimSolver(context).trim(condition);
+		assertTrue(result.toString(), result.isConverged());
+		
+		return result;
+	}
+	
+	private static List<TrimResult> trimEnvelope(SimulationContext context) {
+		TrimSolver solver = new TrimSolver(context);
+		List<TrimResult> trims = new ArrayList<>();
+		
+		for (double altitude = 1000; altitude <= 13000; altitude += 1000) {
+			TrimResult previous = null;
+			
+			for (double airspeed = 120; airspeed <= 240; airspeed += 5) {
+				TrimResult result = solver.trim(TrimCondition.straightAndLevel(airspeed, altitude), previous);
+				if (result.isConverged()) {
+					trims.add(result);
+					previous = result;
+				}
+			}
+		}
+		
+		return trims;
+	}
+	
+	@Test
+	public void NavionModesTest() {
+		SimulationContext context = createContext("Navion");
+		LinearModel model = new Linearizer(context).linearize(trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE)));
+		
+		assertEquals(model.toString(), 5, model.getModes().size());
+		for (ModeType type : new ModeType[] {ModeType.SHORT_PERIOD, ModeType.PHUGOID, ModeType.DUTCH_ROLL, ModeType.ROLL_SUBSIDENCE, ModeType.SPIRAL})
+			assertNotNull(model.toString(), model.getMode(type));
+		
+		// Close to the modes of the Navion in Aircraft Control and Simulation by Stevens, B.L. and Lewis, F.L. 
+		DynamicMode shortPeriod = model.getMode(ModeType.SHORT_PERIOD);
+		assertEquals(model.toString(), 3.5, shortPeriod.getNaturalFrequency(), 1.0);
+		assertEquals(model.toString(), 0.65, shortPeriod.getDampingRatio(), 0.15);
+		assertTrue(shortPeriod.getLongitudinalFraction() > 0.99);
+		
+		DynamicMode phugoid = model.getMode(ModeType.PHUGOID);
+		assertEquals(model.toString(), 0.2, phugoid.getNaturalFrequency(), 0.1);
+		assertTrue(model.toString(), phugoid.isStable() && phugoid.getDampingRatio() < 0.2);
+		
+		DynamicMode dutchRoll = model.getMode(ModeType.DUTCH_ROLL);
+		assertEquals(model.toString(), 2.3, dutchRoll.getNaturalFrequency(), 0.5);
+		assertTrue(dutchRoll.getLongitudinalFraction() < 0.01);
+		
+		assertTrue(model.toString(), model.getMode(ModeType.ROLL_SUBSIDENCE).getReal() < -5.0);
+		assertEquals(model.toString(), 0.0, model.getMode(ModeType.SPIRAL).getReal(), 0.05);
+		
+		// Pulling up the elevator pitches the nose up, and more throttle accelerates the aircraft
+		assertTrue(model.getInputDerivative(LinearState.Q, LinearInput.ELEVATOR) < 0);
+		assertTrue(model.getInputDerivative(LinearState.U, LinearInput.THROTTLE) > 0);
+	}
+	
+	@Test
+	public void LinearResponseTest() {
+		double perturbation = 2.0;
+		
+		SimulationContext context = createContext("Navion");
+		TrimResult trim = trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE));
+		LinearModel model = new Linearizer(context).linearize(trim);
+		
+		trim.applyTo(context.getConfiguration());
+		double trimW = context.getConfiguration().getInitialConditions().get(InitialConditions.INITW);
+		double trimU = context.getConfiguration().getInitialConditions().get(InitialConditions.INITU);
+		context.getConfiguration().getInitialConditions().put(InitialConditions.INITW, trimW + perturbation);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(context.getConfiguration()), context);
+		double dt = context.getConfiguration().getIntegratorConfig().get(IntegratorConfig.DT);
+		
+		// Integrate x' = Ax alongside the nonlinear simulation from the same perturbation in w
+		double[][] a = model.getStateMatrix();
+		double[] x = new double[a.length];
+		x[LinearState.W.ordinal()] = perturbation;
+		
+		for (int step = 1; step <= Math.round(3.0 / dt); step++) {
+			simulation.step();
+			x = rungeKuttaStep(a, x, dt);
+			
+			assertEquals(x[LinearState.W.ordinal()], simulation.getSimOut().get(SimOuts.W) - trimW, 0.05 * perturbation);
+			assertEquals(x[LinearState.U.ordinal()], simulation.getSimOut().get(SimOuts.U) - trimU, 0.05 * perturbation);
+			assertEquals(x[LinearState.Q.ordinal()], simulation.getSimOut().get(SimOuts.Q), 2e-3);
+			assertEquals(x[LinearState.THETA.ordinal()], simulation.getSimOut().get(SimOuts.THETA) - trim.getTheta(), 1e-3);
+		}
+	}
+	
+	private static double[] rungeKuttaStep(double[][] a, double[] x, double dt) {
+		double[] k1 = multiply(a, x, null, 0);
+		double[] k2 = multiply(a, x, k1, dt / 2);
+		double[] k3 = multiply(a, x, k2, dt / 2);
+		double[] k4 = multiply(a, x, k3, dt);
+		
+		double[] next = new double[x.length];
+		for (int i = 0; i < x.length; i++)
+			next[i] = x[i] + dt / 6 * (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i]);
+		
+		return next;
+	}
+	
+	private static double[] multiply(double[][] a, double[] x, double[] k, double h) {
+		double[] product = new double[x.length];
+		for (int i = 0; i < x.length; i++) {
+			for (int j = 0; j < x.length; j++)
+				product[i] += a[i][j] * (x[j] + (k != null ? h * k[j] : 0.0));
+		}
+		
+		return product;
+	}
+	
+	@Test
+	public void EngineOutTest() {
+		SimulationContext context = createContext("TwinNavion");
+		Linearizer linearizer = new Linearizer(context);
+		
+		LinearModel symmetric = linearizer.linearize(trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE)));
+		LinearModel engineOut = linearizer.linearize(trim(context, TrimCondition.engineOut(AIRSPEED, ALTITUDE, 1)));
+		
+		// Throttling up the remaining engine yaws the aircraft, while throttling up both does not
+		assertEquals(0.0, symmetric.getInputDerivative(LinearState.R, LinearInput.THROTTLE), 1e-9);
+		assertTrue(Math.abs(engineOut.getInputDerivative(LinearState.R, LinearInput.THROTTLE)) > 1e-3);
+		assertNotNull(engineOut.toString(), engineOut.getMode(ModeType.DUTCH_ROLL));
+	}
+	
+	@Test
+	public void EnvelopeIsIdenticalRegardlessOfParallelismTest() {
+		SimulationContext context = createContext("Navion");
+		List<TrimResult> trims = trimEnvelope(context);
+		assertTrue(trims.size() > 200);
+		
+		Linearizer linearizer = new Linearizer(context);
+		linearizer.setParallelism(1);
+		List<LinearModel> sequential = linearizer.linearize(trims);
+		
+		// Time to linearize the envelope is measured by LinearizerBenchmark
+		linearizer.setParallelism(4);
+		List<LinearModel> parallel = linearizer.linearize(trims);
+		
+		assertEquals(trims.size(), parallel.size());
+		
+		for (int i = 0; i < trims.size(); i++) {
+			assertTrue(trims.get(i) == parallel.get(i).getTrim());
+			
+			for (int row = 0; row < LinearState.values().length; row++) {
+				assertArrayEquals(sequential.get(i).getStateMatrix()[row], parallel.get(i).getStateMatrix()[row], 0.0);
+				assertArrayEquals(sequential.get(i).getInputMatrix()[row], parallel.get(i).getInputMatrix()[row], 0.0);
+			}
+			
+			assertNotNull(parallel.get(i).toString(), parallel.get(i).getMode(ModeType.SHORT_PERIOD));
+			assertNotNull(parallel.get(i).toString(), parallel.get(i).getMode(ModeType.PHUGOID));
+		}
+	}
+	
+	@Test
+	public void WriteTest() throws IOException {
+		SimulationContext context = createContext("Navion");
+		LinearModel model = new Linearizer(context).linearize(trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE)));
+		
+		File file = File.createTempFile("LinearModel", ".json");
+		file.deleteOnExit();
+		model.write(file);
+		
+		JsonNode json = new ObjectMapper().readTree(file);
+		assertEquals(AIRSPEED, json.get("trim").get("condition").get("airspeed").asDouble(), 0.0);
+		assertEquals(LinearState.values().length, json.get("states").size());
+		assertEquals(LinearInput.values().length, json.get("inputs").size());
+		assertEquals(model.getStateDerivative(LinearState.Q, LinearState.W), 
+					 json.get("stateMatrix").get(LinearState.Q.ordinal()).get(LinearState.W.ordinal()).asDouble(), 0.0);
+		assertEquals(model.getInputDerivative(LinearState.Q, LinearInput.ELEVATOR), 
+					 json.get("inputMatrix").get(LinearState.Q.ordinal()).get(LinearInput.ELEVATOR.ordinal()).asDouble(), 0.0);
+		assertEquals(model.getModes().size(), json.get("modes").size());
+		assertEquals(model.getModes().get(0).getType().name(), json.get("modes").get(0).get("type").asText());
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+public class ControlJitterBufferTest {
+	
+	private static final long MS = 1_000_000L;
+	
+	// One physics frame at 120 Hz
+	private static final long FRAME_NANOS = 8_333_333L;
+	
+	// The rig's clock has an arbitrary epoch relative to the local clock
+	private static final long RIG_CLOCK_NANOS = -5_000_000_000L;
+	
+	private static final long EXTRAPOLATION_LIMIT_NANOS = 50 * MS;
+	
+	private final double[] values = new double[FlightControl.values().length];
+	
+	/**
+	 * Creates a packet whose throttle position is its local send time in seconds, so that played out positions show how far 
+	 * behind the rig they are
+	 * 
+	 * @param sequence
+	 * @param sentNanos local time at which the packet is sent
+	 * @return packet
+	 */
+	private static ControlInputPacket createPacket(long sequence, long sentNanos) {
+		ControlInputPacket packet = new ControlInputPacket();
+		
+		packet.set(FlightControl.THROTTLE_1, sentNanos / 1e9);
+		packet.stamp(packet.getMask(), sequence, sentNanos + RIG_CLOCK_NANOS);
+		
+		return packet;
+	}
+	
+	private double playedSec() {
+		return values[FlightControl.THROTTLE_1.ordinal()];
+	}
+	
+	@Test
+	public void InterpolatesWithinOneFrameTest() {
+		ControlJitterBuffer buffer = new ControlJitterBuffer(FRAME_NANOS, EXTRAPOLATION_LIMIT_NANOS);
+		
+		// Rig sends at 250 Hz, with a transit time of 1 ms plus up to 3 ms of jitter 
+		final long transitNanos = 1 * MS;
+		List<ControlInputPacket> packets = new ArrayList<>();
+		List<Long> arrivals = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			packets.add(createPacket(i + 1, i * 4 * MS));
+			arrivals.add(i * 4 * MS + transitNanos + ((i * 7) % 4) * MS);
+		}
+		
+		int next = 0;
+		for (long now = 0; now < 2000 * MS; now += MS) {
+			while (next < packets.size() && arrivals.get(next) <= now) {
+				buffer.offer(packets.get(next), arrivals.get(next));
+				next++;
+			}
+			
+			// Sample once per frame, once the offset estimate has seen the fastest transit time
+			if (now % FRAME_NANOS >= MS || now < 100 * MS)
+				continue;
+			
+			int mask = buffer.sample(now, values);
+			assertEquals(1 << FlightControl.THROTTLE_1.ordinal(), mask);
+			
+			double latencyNanos = now - playedSec() * 1e9;
+			assertEquals("Positions should be played out one frame after the fastest transit", transitNanos + FRAME_NANOS, latencyNanos, 1e3);
+		}
+		
+		assertEquals(0, buffer.getLost());
+		assertEquals(0, buffer.getLate());
+		assertEquals(0, buffer.getExtrapolated());
+		assertTrue(buffer.getInterpolated() > 0);
+		assertEquals(RIG_CLOCK_NANOS * -1 + transitNanos, buffer.getOffsetNanos());
+	}
+	
+	@Test
+	public void ReorderedPacketsPlayInOrderTest() {
+		ControlJitterBuffer buffer = new ControlJitterBuffer(FRAME_NANOS, EXTRAPOLATION_LIMIT_NANOS);
+		
+		// Packets 2 and 4 overtaken on the way, all arriving before any are played out
+		int[] arrivalOrder = {1, 3, 2, 5, 4, 6};
+		for (int sequence : arrivalOrder)
+			buffer.offer(createPacket(sequence, (sequence - 1) * 4 * MS), (sequence - 1) * 4 * MS);
+		
+		assertEquals(2, buffer.getReordered());
+		assertEquals(0, buffer.getLost());
+		assertEquals(6, buffer.getSize());
+		
+		double lastPlayed = Double.NEGATIVE_INFINITY;
+		for (long now = FRAME_NANOS; now <= FRAME_NANOS + 20 * MS; now += MS) {
+			buffer.sample(now, values);
+			
+			assertTrue("Positions should never move backwards", playedSec() >= lastPlayed);
+			assertEquals((now - FRAME_NANOS) / 1e9, playedSec(), 1e-9);
+			lastPlayed = playedSec();
+		}
+		
+		// A packet sampled before the time already played out is too late to use
+		buffer.offer(createPacket(7, 2 * MS), 40 * MS);
+		assertEquals(1, buffer.getLate());
+	}
+	
+	@Test
+	public void ExtrapolatesThenHoldsWhenPacketsLostTest() {
+		ControlJitterBuffer buffer = new ControlJitterBuffer(FRAME_NANOS, EXTRAPOLATION_LIMIT_NANOS);
+		
+		// No transit time, so that packets are played out exactly one frame after being sent
+		for (int i = 0; i <= 10; i++)
+			buffer.offer(createPacket(i + 1, i * 4 * MS), i * 4 * MS);
+		
+		buffer.sample(FRAME_NANOS + 38 * MS, values);
+		assertEquals(0.038, playedSec(), 1e-9);
+		assertEquals(0, buffer.getExtrapolated());
+		
+		// Packets after the last are lost; the ramp is extrapolated...
+		buffer.sample(FRAME_NANOS + 60 * MS, values);
+		assertEquals(0.060, playedSec(), 1e-9);
+		assertEquals(1, buffer.getExtrapolated());
+		
+		// ...until the extrapolation limit, then held
+		long heldBefore = buffer.getHeld();
+		buffer.sample(FRAME_NANOS + 500 * MS, values);
+		assertEquals(0.040 + EXTRAPOLATION_LIMIT_NANOS / 1e9, playedSec(), 1e-9);
+		assertEquals(heldBefore + 1, buffer.getHeld());
+		
+		// When packets resume, positions move from the last packet toward them
+		buffer.offer(createPacket(200, 800 * MS), 800 * MS);
+		assertEquals(188, buffer.getLost());
+		
+		buffer.sample(FRAME_NANOS + 800 * MS, values);
+		assertEquals(0.800, playedSec(), 1e-9);
+	}
+	
+	@Test
+	public void ResynchronizesAfterRigRestartTest() {
+		ControlJitterBuffer buffer = new ControlJitterBuffer(FRAME_NANOS, EXTRAPOLATION_LIMIT_NANOS);
+		
+		// Rig sends at 250 Hz with no transit time, restarting its sequence at 1 s, and restarting its sequence and clock, which 
+		// begins again 20 s behind, at 2 s 
+		long rigClockNanos = RIG_CLOCK_NANOS;
+		long sequence = 0;
+		for (long now = 0; now < 3000 * MS; now += 4 * MS) {
+			if (now == 1000 * MS) {
+				sequence = 0;
+			} else if (now == 2000 * MS) {
+				sequence = 0;
+				rigClockNanos -= 20_000_000_000L;
+			}
+			
+			ControlInputPacket packet = createPacket(++sequence, now);
+			packet.stamp(packet.getMask(), sequence, now + rigClockNanos);
+			buffer.offer(packet, now);
+			
+			buffer.sample(now + FRAME_NANOS, values);
+			assertEquals("Positions should be played out one frame behind the rig", now / 1e9, playedSec(), 1e-9);
+		}
+		
+		assertEquals(2, buffer.getRestarts());
+		assertEquals(0, buffer.getLate());
+		assertEquals(-rigClockNanos, buffer.getOffsetNanos());
+	}
+	
+	@Test
+	public void NothingPlayedBeforeFirstPacketTest() {
+		ControlJitterBuffer buffer = new ControlJitterBuffer(FRAME_NANOS, EXTRAPOLATION_LIMIT_NANOS);
+		
+		assertEquals(0, buffer.sample(0, values));
+		
+		buffer.offer(createPacket(1, 0), MS);
+		assertEquals(1 << FlightControl.THROTTLE_1.ordinal(), buffer.sample(MS, values));
+		assertEquals(0.0, playedSec(), 0.0);
+	}
+}
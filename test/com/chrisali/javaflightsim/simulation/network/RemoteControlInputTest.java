@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class RemoteControlInputTest {
+	
+	// One physics frame at 120 Hz
+	private static final long FRAME_NANOS = 8_333_333L;
+	
+	@Test
+	public void CodecRoundTripTest() {
+		ControlInputPacket sent = new ControlInputPacket();
+		sent.set(FlightControl.ELEVATOR, -0.1);
+		sent.set(FlightControl.GEAR, 1.0);
+		sent.stamp(sent.getMask(), 12, 345678L);
+		
+		ByteBuffer buffer = ByteBuffer.allocate(ControlInputCodec.PACKET_BYTES);
+		ControlInputCodec.encode(sent, buffer);
+		
+		ControlInputPacket received = new ControlInputPacket();
+		assertTrue(ControlInputCodec.decode(buffer, received));
+		
+		assertEquals(12, received.getSequence());
+		assertEquals(345678L, received.getSenderNanos());
+		assertEquals(-0.1, received.get(FlightControl.ELEVATOR), 1e-7);
+		assertEquals(1.0, received.get(FlightControl.GEAR), 0.0);
+		assertTrue(received.contains(FlightControl.ELEVATOR));
+		assertFalse(received.contains(FlightControl.RUDDER));
+		
+		// Telemetry is not control input
+		ByteBuffer telemetry = ByteBuffer.allocate(TelemetryCodec.PACKET_BYTES);
+		TelemetryCodec.encode(new FlightDataFrame(), 1, telemetry);
+		assertFalse(ControlInputCodec.decode(telemetry, received));
+	}
+	
+	@Test
+	public void LoopbackControlsTest() throws Exception {
+		FlightControlsState controlsState = new FlightControlsState(FileUtilities.readSimulationConfiguration());
+		double initialRudder = controlsState.get(FlightControl.RUDDER);
+		
+		try (RemoteControlInput input = new RemoteControlInput(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), FRAME_NANOS);
+			 DatagramChannel rig = DatagramChannel.open()) {
+			
+			rig.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), input.getLocalPort()));
+			
+			assertFalse("Controls should be left alone until a packet arrives", input.update(System.nanoTime(), controlsState));
+			
+			// Rig sends at 500 Hz, with the throttle position carrying its send time
+			final long start = System.nanoTime();
+			final int packets = 500;
+			Thread sender = new Thread(() -> {
+				ControlInputPacket packet = new ControlInputPacket();
+				ByteBuffer buffer = ByteBuffer.allocateDirect(ControlInputCodec.PACKET_BYTES);
+				long deadline = start;
+				
+				try {
+					for (int i = 1; i <= packets; i++) {
+						long now = System.nanoTime();
+						packet.set(FlightControl.ELEVATOR, -0.1);
+						packet.set(FlightControl.THROTTLE_1, (now - start) / 1e9);
+						packet.stamp(packet.getMask(), i, now);
+						
+						ControlInputCodec.encode(packet, buffer);
+						rig.write(buffer);
+						
+						deadline += TimeUnit.MILLISECONDS.toNanos(2);
+						LockSupport.parkNanos(deadline - System.nanoTime());
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			sender.start();
+			
+			// Update at the simulation rate, measuring how far behind the rig the applied throttle position is
+			long updates = 0;
+			double totalLatencyNanos = 0;
+			long deadline = System.nanoTime();
+			while (sender.isAlive()) {
+				long now = System.nanoTime();
+				if (input.update(now, controlsState) && input.getJitterBuffer().getReceived() > ControlJitterBuffer.OFFSET_WINDOW) {
+					totalLatencyNanos += now - start - controlsState.get(FlightControl.THROTTLE_1) * 1e9;
+					updates++;
+				}
+				
+				deadline += FRAME_NANOS;
+				LockSupport.parkNanos(deadline - System.nanoTime());
+			}
+			
+			ControlJitterBuffer jitterBuffer = input.getJitterBuffer();
+			String results = input.toString();
+			
+			assertTrue(results, updates > 0);
+			assertEquals(results, 0, input.getRejected());
+			assertEquals(results, 0, jitterBuffer.getLost());
+			assertEquals(results, -0.1, controlsState.get(FlightControl.ELEVATOR), 1e-7);
+			assertEquals("Controls not sent by the rig should be left alone", initialRudder, controlsState.get(FlightControl.RUDDER), 0.0);
+			
+			// Latency is the playout delay plus the fastest transit time, and any time the update itself was late
+			double meanLatencyNanos = totalLatencyNanos / updates;
+			assertTrue(results + ", mean latency: " + meanLatencyNanos + " ns", meanLatencyNanos < FRAME_NANOS + TimeUnit.MILLISECONDS.toNanos(5));
+		}
+	}
+}
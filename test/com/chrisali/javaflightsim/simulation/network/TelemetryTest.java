@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataBus.Subscription;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataFrame;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+
+public class TelemetryTest {
+	
+	private static final double TEST_DURATION_SEC = 1.0;
+	
+	private static FlightDataFrame createFrame() {
+		FlightDataFrame frame = new FlightDataFrame();
+		
+		for (FlightDataType type : FlightDataType.values())
+			frame.set(type, 1.1 * (type.ordinal() + 1));
+		
+		frame.set(FlightDataType.LATITUDE, 40.123456789012);
+		frame.set(FlightDataType.LONGITUDE, -74.987654321098);
+		frame.stamp(7, 123456789L);
+		
+		return frame;
+	}
+	
+	@Test
+	public void CodecRoundTripTest() {
+		FlightDataFrame sent = createFrame();
+		ByteBuffer buffer = ByteBuffer.allocate(TelemetryCodec.PACKET_BYTES);
+		
+		TelemetryCodec.encode(sent, 42, buffer);
+		assertEquals(TelemetryCodec.PACKET_BYTES, buffer.remaining());
+		
+		FlightDataFrame received = new FlightDataFrame();
+		assertTrue(TelemetryCodec.decode(buffer, received));
+		
+		assertEquals("Sequence should be the sender's datagram number", 42, received.getSequence());
+		assertEquals(sent.getNanos(), received.getNanos());
+		assertEquals(sent.get(FlightDataType.LATITUDE), received.get(FlightDataType.LATITUDE), 0.0);
+		assertEquals(sent.get(FlightDataType.LONGITUDE), received.get(FlightDataType.LONGITUDE), 0.0);
+		
+		for (FlightDataType type : FlightDataType.values())
+			assertEquals(type.toString(), sent.get(type), received.get(type), 1e-6 * Math.abs(sent.get(type)));
+	}
+	
+	@Test
+	public void CodecRejectsForeignDatagramsTest() {
+		FlightDataFrame frame = createFrame();
+		ByteBuffer buffer = ByteBuffer.allocate(TelemetryCodec.PACKET_BYTES);
+		
+		// Wrong schema
+		TelemetryCodec.encode(frame, 1, buffer);
+		buffer.putInt(8, TelemetryCodec.SCHEMA_ID + 1);
+		assertFalse(TelemetryCodec.decode(buffer, new FlightDataFrame()));
+		
+		// Truncated
+		TelemetryCodec.encode(frame, 1, buffer);
+		buffer.limit(buffer.limit() - 1);
+		assertFalse(TelemetryCodec.decode(buffer, new FlightDataFrame()));
+	}
+	
+	@Test
+	public void SenderContinuesWithoutReceiverTest() throws IOException {
+		int unusedPort;
+		try (TelemetryReceiver receiver = new TelemetryReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+			unusedPort = receiver.getLocalPort();
+		}
+		
+		try (TelemetrySender sender = new TelemetrySender(new InetSocketAddress(InetAddress.getLoopbackAddress(), unusedPort))) {
+			FlightDataFrame frame = createFrame();
+			
+			for (int i = 0; i < 10; i++)
+				sender.onFlightData(frame);
+			
+			assertEquals(10, sender.getSent() + sender.getDropped() + sender.getFailed());
+		}
+	}
+	
+	@Test
+	public void Loopback100HzTest() throws Exception {
+		runLoopback(100);
+	}
+	
+	@Test
+	public void Loopback1000HzTest() throws Exception {
+		runLoopback(1000);
+	}
+	
+	/**
+	 * Publishes flight data at rateHz to a sender subscribed at the same rate on its own thread, and receives it on this thread 
+	 * over loopback, checking end-to-end loss and latency 
+	 * 
+	 * @param rateHz
+	 * @throws Exception
+	 */
+	private static void runLoopback(double rateHz) throws Exception {
+		FlightDataBus bus = new FlightDataBus();
+		
+		try (TelemetryReceiver receiver = new TelemetryReceiver(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+			 TelemetrySender sender = new TelemetrySender(new InetSocketAddress(InetAddress.getLoopbackAddress(), receiver.getLocalPort()))) {
+			
+			Subscription subscription = bus.subscribe(sender, rateHz, FlightDataDelivery.DEDICATED);
+			
+			final int states = (int) (rateHz * TEST_DURATION_SEC);
+			final long periodNanos = (long) (1e9 / rateHz);
+			
+			Thread publisher = new Thread(() -> {
+				long deadline = System.nanoTime();
+				
+				for (int i = 1; i <= states; i++) {
+					bus.getPublishFrame().set(FlightDataType.ALTITUDE, i);
+					bus.publish();
+					
+					deadline += periodNanos;
+					LockSupport.parkNanos(deadline - System.nanoTime());
+				}
+			});
+			publisher.start();
+			
+			FlightDataFrame frame = new FlightDataFrame();
+			while (publisher.isAlive() || receiver.receive(frame, 200))
+				receiver.receive(frame, 10);
+			
+			bus.close();
+			
+			String results = rateHz + " Hz: " + subscription + ", " + sender + ", " + receiver;
+			
+			assertEquals(results, 0, receiver.getRejected());
+			assertTrue(results, receiver.getReceived() > 0);
+			assertEquals(results, sender.getSent(), receiver.getReceived() + receiver.getLost());
+			assertTrue(results, receiver.getLossRatio() < 0.01);
+			assertTrue(results, subscription.getDelivered() >= states / 2);
+			assertTrue(results, receiver.getMeanLatencyNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chrisali.javaflightsim.simulation.integration.RingBufferHistory;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class FlightRecorderTest {
+	
+	private static final double DT = 0.001;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Test
+	public void RecordingRollsOverSegmentsTest() throws IOException {
+		File directory = folder.getRoot();
+		byte[] hash = new byte[32];
+		hash[0] = 42;
+		
+		FlightRecorder recorder = new FlightRecorder(directory, "test", "TwinNavion", hash, 100, 8);
+		record(recorder, 0, 250);
+		recorder.close();
+		
+		assertEquals(3, recorder.getSegmentCount());
+		
+		FlightRecording recording = FlightRecording.open(directory, "test");
+		RecordingHeader header = recording.getHeader();
+		
+		assertEquals(250, recording.getFrameCount());
+		assertEquals("TwinNavion", header.getAircraftName());
+		assertArrayEquals(hash, header.getConfigurationHash());
+		assertEquals(SimOuts.CHANNEL_COUNT, header.getChannels().size());
+		assertEquals(SimOuts.ALT.name(), header.getChannels().get(SimOuts.ALT.ordinal()));
+		
+		for (RecordingHeader segmentHeader : recording.getSegmentHeaders())
+			assertTrue("Segments should be closed", segmentHeader.isClosed());
+		
+		SimOutFrame frame = new SimOutFrame();
+		for (long frameNumber = 0; frameNumber < recording.getFrameCount(); frameNumber++) {
+			recording.readFrame(frameNumber, frame);
+			
+			assertEquals(frameNumber * DT, frame.get(SimOuts.TIME), 1e-12);
+			assertEquals(frameNumber * 10.0, frame.get(SimOuts.ALT), 0.0);
+		}
+	}
+	
+	@Test
+	public void ReadChannelAcrossSegmentsTest() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "channel", "TwinNavion", new byte[32], 100, 8);
+		record(recorder, 0, 250);
+		recorder.close();
+		
+		FlightRecording recording = FlightRecording.open(folder.getRoot(), "channel");
+		
+		double[] altitudes = new double[120];
+		assertEquals(120, recording.readChannel(SimOuts.ALT, 90, altitudes, 0, 120));
+		for (int i = 0; i < altitudes.length; i++)
+			assertEquals((90 + i) * 10.0, altitudes[i], 0.0);
+		
+		assertEquals("Reading should stop at the last frame", 10, recording.readChannel(SimOuts.ALT, 240, altitudes, 0, 120));
+	}
+	
+	@Test
+	public void SeekFindsFirstFrameAtOrAfterTimeTest() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "seek", "TwinNavion", new byte[32], 100, 8);
+		record(recorder, 0, 250);
+		recorder.close();
+		
+		FlightRecording recording = FlightRecording.open(folder.getRoot(), "seek");
+		
+		assertEquals(0, recording.seek(-1.0));
+		assertEquals(0, recording.seek(0.0));
+		assertEquals(123, recording.seek(0.123));
+		assertEquals(124, recording.seek(0.1235));
+		assertEquals(249, recording.seek(0.249));
+		assertEquals(recording.getFrameCount(), recording.seek(1.0));
+	}
+	
+	@Test
+	public void TimeGoingBackwardsStartsNewSegmentTest() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "reset", "TwinNavion", new byte[32], 1000, 8);
+		record(recorder, 0, 50);
+		record(recorder, 0, 20);
+		recorder.close();
+		
+		FlightRecording recording = FlightRecording.open(folder.getRoot(), "reset");
+		
+		assertEquals(2, recorder.getSegmentCount());
+		assertEquals(70, recording.getFrameCount());
+		assertEquals(50, recording.getSegmentHeaders().get(1).getFirstFrame());
+		assertEquals(0.0, recording.getTime(50), 0.0);
+	}
+	
+	@Test
+	public void UnclosedRecordingHoldsCommittedFramesTest() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "crash", "TwinNavion", new byte[32], 100, 8);
+		record(recorder, 0, 130);
+		
+		// Read without closing the recorder, as if the simulation had crashed
+		FlightRecording recording = FlightRecording.open(folder.getRoot(), "crash");
+		
+		assertEquals(130, recording.getFrameCount());
+		assertFalse("Segment still being written should not be closed", recording.getSegmentHeaders().get(1).isClosed());
+		assertEquals(0.129, recording.getTime(129), 1e-12);
+		
+		recorder.close();
+	}
+	
+	@Test
+	public void RecordsFramesFromHistoryTest() throws IOException {
+		RingBufferHistory history = new RingBufferHistory(1000);
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "history", "TwinNavion", new byte[32], 100, 8);
+		recorder.recordFrom(history, 1 / DT);
+		
+		SimOutFrame frame = new SimOutFrame();
+		for (int i = 0; i < 150; i++) {
+			frame.set(SimOuts.TIME, i * DT);
+			history.append(frame);
+			
+			if (i % 10 == 0)
+				recorder.step();
+		}
+		recorder.step();
+		recorder.close();
+		
+		assertEquals(150, recorder.getRecordedFrames());
+		assertEquals(150, FlightRecording.open(folder.getRoot(), "history").getFrameCount());
+	}
+	
+	private static void record(FlightRecorder recorder, int firstFrame, int frames) throws IOException {
+		SimOutFrame frame = new SimOutFrame();
+		
+		for (int i = firstFrame; i < firstFrame + frames; i++) {
+			frame.set(SimOuts.TIME, i * DT);
+			frame.set(SimOuts.ALT, i * 10.0);
+			recorder.record(frame);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class FlightReplayTest {
+	
+	// Recorded at 100 Hz, replayed at 10 Hz
+	private static final double DT = 0.01;
+	private static final double STEP_RATE_HZ = 10.0;
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private FlightReplay replay;
+	
+	@Before
+	public void setUp() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(folder.getRoot(), "replay", "TwinNavion", new byte[32], 500, 16);
+		
+		// 10 seconds of flight, reset at 6 seconds
+		SimOutFrame frame = new SimOutFrame();
+		for (int i = 0; i < 1000; i++) {
+			frame.set(SimOuts.TIME, (i < 600 ? i : i - 600) * DT);
+			frame.set(SimOuts.ALT, i);
+			recorder.record(frame);
+		}
+		recorder.close();
+		
+		replay = new FlightReplay(FlightRecording.open(FlightRecorder.segmentFile(folder.getRoot(), "replay", 1)), STEP_RATE_HZ);
+	}
+	
+	@Test
+	public void PlaysBackAtSpeedTest() {
+		assertEquals(0, replay.getFrame());
+		
+		replay.step();
+		assertEquals("One step at 1x should advance 0.1 sec", 10, replay.getFrame());
+		assertEquals(10.0, replay.getSimOut().get(SimOuts.ALT), 0.0);
+		
+		replay.setSpeed(4.0);
+		replay.step();
+		assertEquals("One step at 4x should advance 0.4 sec", 50, replay.getFrame());
+		
+		replay.setSpeed(0.25);
+		for (int i = 0; i < 4; i++)
+			replay.step();
+		assertEquals("Four steps at 0.25x should advance 0.1 sec", 60, replay.getFrame());
+	}
+	
+	@Test
+	public void PlaysAcrossResetTest() {
+		replay.seekFrame(590);
+		replay.step();
+		
+		replay.setSpeed(2.0);
+		replay.step();
+		
+		// 0.09 sec to the end of the first segment, and 0.11 sec into the segment after the reset
+		assertEquals("Playback should continue into the segment after the reset", 611, replay.getFrame());
+		assertEquals(0.11, replay.getTime(), 1e-9);
+	}
+	
+	@Test
+	public void ReversesAndPausesAtStartTest() {
+		replay.seekFrame(30);
+		replay.step();
+		
+		replay.setReverse(true);
+		replay.step();
+		assertEquals(20, replay.getFrame());
+		
+		replay.setSpeed(16.0);
+		replay.step();
+		
+		assertEquals(0, replay.getFrame());
+		assertTrue("Replay should pause at the start of the recording", replay.isPaused());
+	}
+	
+	@Test
+	public void PauseHoldsFrameTest() {
+		replay.setPaused(true);
+		replay.step();
+		replay.step();
+		
+		assertEquals(0, replay.getFrame());
+		assertEquals("Paused steps should not add to the history", 1, replay.getHistory().size());
+		
+		replay.seek(2.5);
+		replay.step();
+		
+		assertEquals("Seeking should work while paused", 250, replay.getFrame());
+		assertTrue(replay.isPaused());
+	}
+	
+	@Test
+	public void SeekIsClampedToRecordingTest() {
+		replay.seekFrame(5000);
+		replay.step();
+		assertEquals(999, replay.getFrame());
+		
+		replay.step();
+		assertTrue("Replay should pause at the end of the recording", replay.isPaused());
+		
+		replay.seekFrame(-5);
+		replay.setPaused(false);
+		replay.step();
+		assertEquals(0, replay.getFrame());
+		
+		replay.step();
+		assertFalse(replay.isPaused());
+		assertEquals(10, replay.getFrame());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void SpeedOutOfRangeTest() {
+		replay.setSpeed(32.0);
+	}
+}
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.IntegrationMethod;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.timing.SimulationClock;
+import com.chrisali.javaflightsim.simulation.timing.StepScheduler;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class SimulationSnapshotterTest {
+	
+	// Analysis inputs begin with an aileron doublet at 10 sec
+	private static final double SNAPSHOT_SEC = 9.5;
+	private static final double CONTINUE_SEC = 2.0;
+	
+	/**
+	 * Simulation stepped in analysis mode as fast as possible, as an ensemble run is
+	 */
+	private static class Simulation {
+		private final SimulationContext context;
+		private final SimulationClock clock;
+		private final FlightControlsStateManager flightControlsManager;
+		private final Integrate6DOFEquations simulation;
+		private final StepScheduler scheduler;
+		private final SimulationSnapshotter snapshotter;
+		
+		private Simulation(IntegrationMethod method) {
+			SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+			configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+			configuration.setIntegrationMethod(method);
+			
+			context = new SimulationContext(configuration);
+			
+			double dt = configuration.getIntegratorConfig().get(IntegratorConfig.DT);
+			clock = new SimulationClock(configuration.getIntegratorConfig().get(IntegratorConfig.STARTTIME), dt);
+			
+			flightControlsManager = new FlightControlsStateManager(context, FileUtilities.readAnalysisControls());
+			simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+			
+			scheduler = new StepScheduler(1 / dt);
+			scheduler.add(flightControlsManager);
+			scheduler.add(simulation);
+			scheduler.build();
+			
+			snapshotter = new SimulationSnapshotter(clock, context.getSimTimeMS(), flightControlsManager, simulation);
+		}
+		
+		private void step() {
+			scheduler.runMinorFrame(clock.getTicks());
+			clock.tick();
+			context.getSimTimeMS().set(clock.getTimeMS());
+		}
+		
+		private List<double[]> run(double seconds) {
+			List<double[]> outputs = new ArrayList<>();
+			
+			for (long i = 0, ticks = Math.round(seconds / clock.getDt()); i < ticks; i++) {
+				step();
+				
+				double[] output = new double[SimOuts.CHANNEL_COUNT];
+				simulation.getSimOut().copyTo(output, 0);
+				outputs.add(output);
+			}
+			
+			return outputs;
+		}
+	}
+	
+	private static void assertIdentical(List<double[]> expected, List<double[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		
+		for (int i = 0; i < expected.size(); i++)
+			assertArrayEquals("Step " + i, expected.get(i), actual.get(i), 0.0);
+	}
+	
+	private void forkContinuesIdentically(IntegrationMethod method) {
+		Simulation original = new Simulation(method);
+		original.context.getEnvironment().setWindSpeed(15);
+		original.context.getEnvironment().setWindDir(270);
+		
+		original.run(SNAPSHOT_SEC);
+		SimulationSnapshot snapshot = original.snapshotter.capture();
+		List<double[]> expected = original.run(CONTINUE_SEC);
+		
+		// Fork a new simulation, whose wind comes from the snapshot, from bytes of the snapshot 
+		Simulation fork = new Simulation(method);
+		fork.snapshotter.restore(SimulationSnapshot.fromByteArray(snapshot.toByteArray()));
+		
+		assertEquals(snapshot.getTicks(), fork.clock.getTicks());
+		assertEquals(Math.round(SNAPSHOT_SEC * 1000), fork.context.getSimTimeMS().get());
+		assertIdentical(expected, fork.run(CONTINUE_SEC));
+		
+		// Rewind the original
+		original.snapshotter.restore(snapshot);
+		assertIdentical(expected, original.run(CONTINUE_SEC));
+	}
+	
+	@Test
+	public void RungeKuttaForkTest() { forkContinuesIdentically(IntegrationMethod.RUNGE_KUTTA_4); }
+	
+	@Test
+	public void AdamsBashforthMoultonForkTest() { forkContinuesIdentically(IntegrationMethod.ADAMS_BASHFORTH_MOULTON); }
+	
+	@Test
+	public void DormandPrinceForkTest() { forkContinuesIdentically(IntegrationMethod.DORMAND_PRINCE_54); }
+	
+	@Test
+	public void SnapshotSizeTest() {
+		Simulation simulation = new Simulation(IntegrationMethod.RUNGE_KUTTA_4);
+		simulation.run(1.0);
+		
+		// Capture and restore times are measured by SnapshotBenchmark
+		SimulationSnapshot snapshot = simulation.snapshotter.capture();
+		assertTrue(snapshot.getSize() + " bytes", snapshot.getSize() < 4096);
+	}
+	
+	@Test
+	public void SnapshotRingRewindTest() {
+		Simulation simulation = new Simulation(IntegrationMethod.RUNGE_KUTTA_4);
+		double dt = simulation.clock.getDt();
+		SnapshotRing ring = new SnapshotRing(simulation.snapshotter, simulation.context.getConfiguration().getSimulationOptions(), 
+											 dt, 1.0, 3);
+		
+		assertNull(ring.rewind(1.0));
+		
+		// Snapshots at 0, 1, 2, 3 and 4 sec, of which the last 3 are held
+		for (int i = 0; i < Math.round(5.0 / dt); i++) {
+			ring.step();
+			simulation.step();
+		}
+		
+		assertEquals(3, ring.size());
+		assertEquals(2.0, ring.get(0).getTimeSec(), 1e-9);
+		assertEquals(4.0, ring.getNewest().getTimeSec(), 1e-9);
+		
+		// Paused time is not flight time
+		simulation.context.getConfiguration().getSimulationOptions().add(Options.PAUSED);
+		for (int i = 0; i < 1000; i++) {
+			ring.step();
+			simulation.step();
+		}
+		simulation.context.getConfiguration().getSimulationOptions().remove(Options.PAUSED);
+		assertEquals(5.0, ring.getFlightTimeSec(), 1e-9);
+		
+		SimulationSnapshot restored = ring.rewind(1.5);
+		assertEquals(3.0, restored.getTimeSec(), 1e-9);
+		assertEquals(restored.getTicks(), simulation.clock.getTicks());
+		assertEquals(2, ring.size());
+		assertEquals(3.0, ring.getFlightTimeSec(), 1e-9);
+		
+		// Rewinding further than the oldest snapshot stops there
+		assertEquals(2.0, ring.rewind(60).getTimeSec(), 1e-9);
+		assertEquals(1, ring.size());
+		
+		// The snapshot rewound to is not captured twice
+		ring.step();
+		simulation.step();
+		assertEquals(1, ring.size());
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.setup.PacingMode;
+
+public class SimulationPacerTest {
+	
+	@Test
+	public void clockHasNoAccumulatedRoundOff() {
+		SimulationClock clock = new SimulationClock(0.0, 1.0/120.0);
+		long endTicks = clock.ticksUntil(100.0);
+		
+		assertEquals(12000, endTicks);
+		
+		while (clock.getTicks() < endTicks)
+			clock.tick();
+		
+		assertEquals(100000, clock.getTimeMS());
+		assertEquals(100.0, clock.getTimeSec(), 1e-12);
+		assertEquals(Long.MAX_VALUE, clock.ticksUntil(Double.POSITIVE_INFINITY));
+	}
+	
+	@Test
+	public void realTimeTracksWallClock() {
+		// 50 steps of 10 ms should take 500 ms of wall clock time
+		double elapsedMS = runSteps(new SimulationPacer(PacingMode.REAL_TIME, 1.0, 0.01), 50);
+		
+		assertTrue("Real time pacing ran fast: " + elapsedMS + " ms", elapsedMS >= 495);
+		assertTrue("Real time pacing ran slow: " + elapsedMS + " ms", elapsedMS < 750);
+	}
+	
+	@Test
+	public void scaledTimeCompressesWallClock() {
+		// 50 steps of 10 ms at x4 should take 125 ms of wall clock time
+		double elapsedMS = runSteps(new SimulationPacer(PacingMode.SCALED_TIME, 4.0, 0.01), 50);
+		
+		assertTrue("Scaled time pacing ran fast: " + elapsedMS + " ms", elapsedMS >= 120);
+		assertTrue("Scaled time pacing ran slow: " + elapsedMS + " ms", elapsedMS < 375);
+	}
+	
+	@Test
+	public void asFastAsPossibleDoesNotWait() {
+		SimulationPacer pacer = new SimulationPacer(PacingMode.AS_FAST_AS_POSSIBLE, 1.0, 1.0);
+		double elapsedMS = runSteps(pacer, 1000);
+		
+		assertTrue("Unpaced run waited: " + elapsedMS + " ms", elapsedMS < 1000);
+		assertEquals(1000, pacer.getStepTime().getCount());
+		assertEquals(0, pacer.getJitter().getCount());
+	}
+	
+	@Test
+	public void fallingFarBehindResyncsSchedule() throws InterruptedException {
+		SimulationPacer pacer = new SimulationPacer(PacingMode.REAL_TIME, 1.0, 0.01);
+		pacer.start();
+		
+		pacer.beginStep();
+		Thread.sleep(300);
+		pacer.endStep();
+		
+		assertEquals(1, pacer.getOverruns());
+		assertEquals(1, pacer.getResyncs());
+		
+		// After re-basing, the next step waits a full period instead of bursting to catch up
+		long start = System.nanoTime();
+		pacer.beginStep();
+		pacer.endStep();
+		
+		assertTrue((System.nanoTime() - start) >= 9_000_000L);
+	}
+	
+	private static double runSteps(SimulationPacer pacer, int steps) {
+		long start = System.nanoTime();
+		pacer.start();
+		
+		for (int i = 0; i < steps; i++) {
+			pacer.beginStep();
+			pacer.endStep();
+		}
+		
+		return (System.nanoTime() - start) * 1e-6;
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.timing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+public class StepSchedulerTest {
+	
+	private static class CountingSteppable implements Steppable {
+		private final double rateHz;
+		private final int phase;
+		private final List<Long> stepFrames = new ArrayList<>();
+		private final long[] currentFrame;
+		
+		CountingSteppable(double rateHz, int phase, long[] currentFrame) {
+			this.rateHz = rateHz;
+			this.phase = phase;
+			this.currentFrame = currentFrame;
+		}
+		
+		@Override
+		public void step() { stepFrames.add(currentFrame[0]); }
+		
+		@Override
+		public double getStepRateHz() { return rateHz; }
+		
+		@Override
+		public int getStepPhase() { return phase; }
+	}
+	
+	@Test
+	public void stepsEachObjectAtItsOwnRate() {
+		long[] frame = new long[1];
+		
+		CountingSteppable physics  = new CountingSteppable(240, 0, frame);
+		CountingSteppable controls = new CountingSteppable(120, 0, frame);
+		CountingSteppable render   = new CountingSteppable(60,  0, frame);
+		CountingSteppable terrain  = new CountingSteppable(20,  1, frame);
+		
+		StepScheduler scheduler = new StepScheduler(240);
+		scheduler.add(physics);
+		scheduler.add(controls);
+		scheduler.add(render);
+		scheduler.add(terrain);
+		scheduler.build();
+		
+		assertEquals(12, scheduler.getMajorFrameLength());
+		assertEquals(4, scheduler.getRateGroups().size());
+		
+		// One second of simulation
+		for (frame[0] = 0; frame[0] < 240; frame[0]++)
+			scheduler.runMinorFrame(frame[0]);
+		
+		assertEquals(240, physics.stepFrames.size());
+		assertEquals(120, controls.stepFrames.size());
+		assertEquals(60,  render.stepFrames.size());
+		assertEquals(20,  terrain.stepFrames.size());
+		
+		// Phase offsets terrain from rendering
+		for (long stepFrame : terrain.stepFrames)
+			assertEquals(1, stepFrame % 12);
+		
+		for (RateGroup group : scheduler.getRateGroups())
+			assertEquals(group.getRateHz(), group.getExecutionTime().getCount(), 1e-9);
+	}
+	
+	@Test
+	public void nonHarmonicRatesAreRounded() {
+		assertEquals(1, StepScheduler.minorFramesPerStep(120, 240));
+		assertEquals(1, StepScheduler.minorFramesPerStep(120, 120));
+		assertEquals(2, StepScheduler.minorFramesPerStep(100, 60));
+		assertEquals(6, StepScheduler.minorFramesPerStep(120, 20));
+	}
+}
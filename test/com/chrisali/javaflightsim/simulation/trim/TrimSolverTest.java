@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+
+public class TrimSolverTest {
+	
+	private static final double AIRSPEED = 210.0;
+	private static final double ALTITUDE = 5000.0;
+	private static final double SIMULATE_SEC = 10.0;
+	
+	private static SimulationContext createContext(String aircraftName) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft(aircraftName);
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		configuration.getIntegratorConfig().put(IntegratorConfig.STARTTIME, 0.0);
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, SIMULATE_SEC);
+		
+		return new SimulationContext(configuration);
+	}
+	
+	private static TrimResult trim(SimulationContext context, TrimCondition condition) {
+		TrimResult result = new TrimSolver(context).trim(condition);
+		
+		assertTrue(result.toString(), result.isConverged());
+		assertTrue(result.toString(), result.getIterations() < 10);
+		
+		return result;
+	}
+	
+	/**
+	 * Simulates the context from its trimmed configuration with controls held, returning the first and last frames of output
+	 */
+	private static SimOutFrame[] simulate(SimulationContext context, TrimResult result) {
+		result.applyTo(context.getConfiguration());
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(context.getConfiguration()), context);
+		double dt = context.getConfiguration().getIntegratorConfig().get(IntegratorConfig.DT);
+		
+		simulation.step();
+		SimOutFrame first = new SimOutFrame(simulation.getSimOut());
+		
+		for (long i = 1, steps = Math.round(SIMULATE_SEC / dt); i < steps; i++)
+			simulation.step();
+		
+		return new SimOutFrame[] {first, new SimOutFrame(simulation.getSimOut())};
+	}
+	
+	@Test
+	public void StraightAndLevelTest() {
+		for (String aircraftName : new String[] {"Navion", "TwinNavion"}) {
+			SimulationContext context = createContext(aircraftName);
+			TrimResult result = trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE));
+			
+			assertEquals(0.0, result.getBeta(), 1e-6);
+			assertEquals(0.0, result.getPhi(), 1e-6);
+			assertEquals(result.getAlpha(), result.getTheta(), 1e-9);
+			
+			SimOutFrame[] frames = simulate(context, result);
+			assertEquals(aircraftName, ALTITUDE, frames[1].get(SimOuts.ALT), 1.0);
+			assertEquals(aircraftName, AIRSPEED, frames[1].get(SimOuts.TAS), 0.1);
+			assertEquals(aircraftName, frames[0].get(SimOuts.THETA), frames[1].get(SimOuts.THETA), 1e-3);
+		}
+	}
+	
+	@Test
+	public void SteadyClimbTest() {
+		double flightPathAngle = Math.toRadians(2);
+		
+		SimulationContext context = createContext("Navion");
+		TrimResult level = trim(context, TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE));
+		TrimResult climb = trim(context, TrimCondition.steadyClimb(AIRSPEED, ALTITUDE, flightPathAngle));
+		
+		assertTrue(climb.getThrottle() > level.getThrottle());
+		assertEquals(climb.getAlpha() + flightPathAngle, climb.getTheta(), 1e-9);
+		
+		SimOutFrame[] frames = simulate(context, climb);
+		double expectedClimb = AIRSPEED * Math.sin(flightPathAngle) * SIMULATE_SEC;
+		assertEquals(expectedClimb, frames[1].get(SimOuts.ALT) - frames[0].get(SimOuts.ALT), expectedClimb * 0.02);
+		assertEquals(AIRSPEED, frames[1].get(SimOuts.TAS), 0.1);
+	}
+	
+	@Test
+	public void SteadyTurnTest() {
+		double turnRate = Math.toRadians(3);
+		
+		SimulationContext context = createContext("Navion");
+		TrimResult result = trim(context, TrimCondition.steadyTurn(AIRSPEED, ALTITUDE, turnRate));
+		
+		// Bank of a coordinated turn is close to atan(V*psi_dot/g) at small angles of attack and sideslip
+		assertEquals(Math.atan(AIRSPEED * turnRate / Environment.getGravity()), result.getPhi(), 0.01);
+		assertTrue(result.getAngularRate(2) > 0);
+		
+		SimOutFrame[] frames = simulate(context, result);
+		assertEquals(ALTITUDE, frames[1].get(SimOuts.ALT), 2.0);
+		assertEquals(result.getPhi(), frames[1].get(SimOuts.PHI), 0.01);
+		assertEquals(turnRate, frames[1].get(SimOuts.PSI_DOT), 1e-3);
+	}
+	
+	@Test
+	public void EngineOutTest() {
+		SimulationContext context = createContext("TwinNavion");
+		TrimResult result = trim(context, TrimCondition.engineOut(AIRSPEED * 0.8, ALTITUDE, 1));
+		
+		assertEquals(0.0, result.getThrottle(1), 0.0);
+		assertEquals(result.getThrottle(), result.getThrottle(2), 0.0);
+		assertNotEquals(0.0, result.getRudder(), 1e-4);
+		
+		SimOutFrame[] frames = simulate(context, result);
+		assertEquals(ALTITUDE, frames[1].get(SimOuts.ALT), 2.0);
+		assertEquals(frames[0].get(SimOuts.PSI), frames[1].get(SimOuts.PSI), 1e-3);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void MissingEngineOutTest() {
+		new TrimSolver(createContext("Navion")).trim(TrimCondition.engineOut(AIRSPEED, ALTITUDE, 2));
+	}
+	
+	@Test
+	public void WarmStartTest() {
+		TrimSolver solver = new TrimSolver(createContext("Navion"));
+		TrimResult result = solver.trim(TrimCondition.straightAndLevel(AIRSPEED, ALTITUDE));
+		TrimResult nearby = solver.trim(result.getCondition().withAirspeed(AIRSPEED + 5), result);
+		
+		assertTrue(nearby.isConverged());
+		assertTrue(nearby.getIterations() <= result.getIterations());
+	}
+	
+	@Test
+	public void NoConfigurationWriteTest() throws IOException {
+		byte[] before = Files.readAllBytes(Paths.get(SimDirectories.SIM_CONFIG.toString(), "SimulationConfiguration.json"));
+		
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		Trimming.trimSim(configuration, false);
+		
+		assertArrayEquals(before, Files.readAllBytes(Paths.get(SimDirectories.SIM_CONFIG.toString(), "SimulationConfiguration.json")));
+	}
+}
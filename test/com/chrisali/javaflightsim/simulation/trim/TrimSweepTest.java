@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.trim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+
+public class TrimSweepTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private static SimulationConfiguration createConfiguration() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.setSelectedAircraft("Navion");
+		configuration.getInitialControls().put(FlightControl.FLAPS, 0.0);
+		
+		return configuration;
+	}
+	
+	private static TrimEnvelope createEnvelope(Aircraft aircraft) {
+		double totalMass = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		
+		return new TrimEnvelope(0, 0, 0, 0, 0)
+				.setAxis(TrimAxis.AIRSPEED,   160, 190, 220)
+				.setAxis(TrimAxis.ALTITUDE,   2000, 6000)
+				.setAxis(TrimAxis.TOTAL_MASS, totalMass * 0.9, totalMass * 1.1)
+				.setAxis(TrimAxis.CG_X, 	  aircraft.getMassProperty(MassProperties.CG_X))
+				.setAxis(TrimAxis.FLAPS, 	  0, FlightControl.FLAPS.getMaximum() / 2);
+	}
+	
+	private static SimulationConfiguration createLookupConfiguration() {
+		SimulationConfiguration configuration = createConfiguration();
+		configuration.getInitialConditions().put(InitialConditions.INITU, 200.0);
+		configuration.getInitialConditions().put(InitialConditions.INITV, 0.0);
+		configuration.getInitialConditions().put(InitialConditions.INITW, 0.0);
+		configuration.getInitialConditions().put(InitialConditions.INITD, 5000.0);
+		
+		return configuration;
+	}
+	
+	private TrimTable sweep(int parallelism) throws IOException {
+		SimulationConfiguration configuration = createConfiguration();
+		TrimSweep sweep = new TrimSweep(configuration, createEnvelope(FileUtilities.readAircraftConfiguration("Navion")));
+		sweep.setParallelism(parallelism);
+		
+		return sweep.run();
+	}
+	
+	@Test
+	public void SweepIsIdenticalRegardlessOfParallelismTest() throws IOException {
+		File serial = folder.newFile("serial.trim");
+		File parallel = folder.newFile("parallel.trim");
+		
+		sweep(1).write(serial);
+		sweep(4).write(parallel);
+		
+		assertArrayEquals(Files.readAllBytes(serial.toPath()), Files.readAllBytes(parallel.toPath()));
+	}
+	
+	@Test
+	public void InterpolationTest() throws IOException {
+		TrimTable table = sweep(2);
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("Navion");
+		double totalMass = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		double cgX = aircraft.getMassProperty(MassProperties.CG_X);
+		
+		// Between points of the grid the interpolated trim is close to a live trim 
+		TrimResult interpolated = table.interpolate(205, 4000, totalMass, cgX, 0.0);
+		assertNotNull(interpolated);
+		
+		SimulationConfiguration configuration = createConfiguration();
+		TrimResult live = new TrimSolver(new SimulationContext(configuration, aircraft, null)).trim(TrimCondition.straightAndLevel(205, 4000));
+		
+		assertEquals(live.getAlpha(), interpolated.getAlpha(), 2e-3);
+		assertEquals(live.getElevator(), interpolated.getElevator(), 2e-3);
+		assertEquals(live.getThrottle(), interpolated.getThrottle(), 0.05);
+		assertEquals(interpolated.getAlpha(), interpolated.getTheta(), 0.0);
+		
+		// Outside of the envelope, off of an axis with a single value, or next to a point that could not be trimmed 
+		assertNull(table.interpolate(250, 4000, totalMass, cgX, 0.0));
+		assertNull(table.interpolate(205, 4000, totalMass, cgX + 0.1, 0.0));
+		assertNull(table.interpolate(215, 2000, totalMass * 1.1, cgX, FlightControl.FLAPS.getMaximum() / 2));
+	}
+	
+	@Test
+	public void LookupTest() throws IOException {
+		File file = folder.newFile("Navion.trim");
+		sweep(2).write(file);
+		
+		SimulationConfiguration configuration = createLookupConfiguration();
+		SimulationContext context = new SimulationContext(configuration);
+		TrimResult result = TrimTable.lookup(context, file);
+		assertNotNull(result);
+		assertEquals(200.0, result.getCondition().getAirspeed(), 1e-9);
+		
+		// Total mass and CG x are axes of the table, so a different mass within the envelope is interpolated rather than stale
+		double totalMass = context.getAircraft().getMassProperty(MassProperties.TOTAL_MASS);
+		context.getAircraft().setMassProperty(MassProperties.TOTAL_MASS, totalMass * 1.05);
+		TrimResult heavier = TrimTable.lookup(context, file);
+		assertNotNull(heavier);
+		assertTrue("A heavier aircraft should trim at a higher angle of attack", heavier.getAlpha() > result.getAlpha());
+		
+		context.getAircraft().setMassProperty(MassProperties.TOTAL_MASS, totalMass * 1.2);
+		assertNull(TrimTable.lookup(context, file));
+		context.getAircraft().setMassProperty(MassProperties.TOTAL_MASS, totalMass);
+		
+		// Nonstandard atmosphere
+		context.getEnvironment().setDeltaIsa(10);
+		assertNull(TrimTable.lookup(context, file));
+		
+		// Stale table after mass properties change
+		context = new SimulationContext(configuration);
+		context.getAircraft().setMassProperty(MassProperties.J_Y, context.getAircraft().getMassProperty(MassProperties.J_Y) * 1.1);
+		assertNull(TrimTable.lookup(context, file));
+		
+		assertNull(TrimTable.lookup(new SimulationContext(configuration), new File(folder.getRoot(), "missing.trim")));
+	}
+	
+	@Test
+	public void SavedWeightChangeDoesNotMakeTableStaleTest() throws IOException {
+		File file = folder.newFile("Navion.trim");
+		sweep(2).write(file);
+		
+		File aircraftFile = new File(FileUtilities.FILE_ROOT + SimDirectories.AIRCRAFT.toString() + File.separator + "Navion", 
+									 Aircraft.class.getSimpleName() + FileUtilities.CONFIG_EXT);
+		byte[] original = Files.readAllBytes(aircraftFile.toPath());
+		
+		try {
+			// As the weight dialog does
+			Aircraft aircraft = FileUtilities.readAircraftConfiguration("Navion");
+			double fuel = aircraft.getMassProperty(MassProperties.WEIGHT_FUEL);
+			double payload = aircraft.getMassProperty(MassProperties.WEIGHT_PAYLOAD);
+			aircraft.updateWeightPercentages(fuel > 0.5 ? fuel / 2 : fuel + 0.25, payload > 0.5 ? payload / 2 : payload + 0.25);
+			aircraft.save();
+			
+			assertNotNull(TrimTable.lookup(new SimulationContext(createLookupConfiguration()), file));
+		} finally {
+			Files.write(aircraftFile.toPath(), original);
+		}
+	}
+	
+	@Test
+	public void WriteReadTest() throws IOException {
+		TrimTable table = sweep(2);
+		File file = folder.newFile("table.trim");
+		table.write(file);
+		
+		TrimTable read = TrimTable.read(file);
+		assertArrayEquals(table.getKey(), read.getKey());
+		assertArrayEquals(TrimTable.calculateKey(FileUtilities.readAircraftConfiguration("Navion")), read.getKey());
+		
+		for (TrimAxis axis : TrimAxis.values())
+			assertArrayEquals(table.getAxis(axis), read.getAxis(axis), 0.0);
+		
+		TrimResult expected = table.interpolate(170, 3000, table.getAxis(TrimAxis.TOTAL_MASS)[0], table.getAxis(TrimAxis.CG_X)[0], 0.0);
+		TrimResult actual = read.interpolate(170, 3000, table.getAxis(TrimAxis.TOTAL_MASS)[0], table.getAxis(TrimAxis.CG_X)[0], 0.0);
+		assertEquals(expected.getElevator(), actual.getElevator(), 0.0);
+		assertEquals(expected.getThrottle(), actual.getThrottle(), 0.0);
+		
+	}
+	
+	@Test(expected = IOException.class)
+	public void CorruptTableIsNotReadTest() throws IOException {
+		File file = folder.newFile("corrupt.trim");
+		Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		
+		TrimTable.read(file);
+	}
+}
@@ -20,7 +20,6 @@
 package com.chrisali.javaflightsim.tests;
 
 import java.util.EnumMap;
-import java.util.Map;
 
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -35,7 +34,6 @@ import org.jfree.ui.ApplicationFrame;
 import org.jfree.ui.RefineryUtilities;
 
 import com.chrisali.javaflightsim.simulation.enviroment.Environment;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.chrisali.javaflightsim.simulation.propulsion.Engine;
 import com.chrisali.javaflightsim.simulation.propulsion.FixedPitchPropEngine;
@@ -51,7 +49,8 @@ public class TestEngine extends ApplicationFrame {
 		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
 		
 		EnumMap<FlightControl, Double> controls = configuration.getInitialControls();
-		Map<EnvironmentParameters, Double> environmentParameters = Environment.getAndUpdateEnvironmentParams(new double[] {0,0,0});
+		Environment environment = new Environment();
+		double[] environmentParameters = environment.getAndUpdateEnvironmentParams(new double[] {0,0,0});
 		StringBuilder constraint = new StringBuilder();
 		
 		Engine defaultEngine  = new FixedPitchPropEngine();
@@ -135,7 +134,7 @@ public class TestEngine extends ApplicationFrame {
 							  .append(" ft/sec)");
 				
 				for (double altitude = 0; altitude < 20000; altitude += 10) {
-					environmentParameters = Environment.getAndUpdateEnvironmentParams(new double[] {0, 0, altitude});
+					environmentParameters = environment.getAndUpdateEnvironmentParams(new double[] {0, 0, altitude});
 					
 					defaultEngine.updateEngineState(controls, 
 													environmentParameters,
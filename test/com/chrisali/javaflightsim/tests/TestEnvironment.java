@@ -19,9 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.tests;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
@@ -43,7 +40,7 @@ public class TestEnvironment extends ApplicationFrame {
 	public TestEnvironment() {
 		super("Environment Test");
 		
-		Map<EnvironmentParameters, Double> envData = new EnumMap<EnvironmentParameters, Double>(EnvironmentParameters.class);
+		double[] envData;
 		
 		XYSeries tData       = new XYSeries("T");
 		XYSeries pData       = new XYSeries("P");
@@ -63,22 +60,24 @@ public class TestEnvironment extends ApplicationFrame {
 		XYSeriesCollection gravSeries = new XYSeriesCollection();
 		XYSeriesCollection windSeries = new XYSeriesCollection();
 		
+		Environment environment = new Environment();
+		
 		for (double alt=0; alt<60000; alt+=10) {
-			Environment.setWindDir(alt*6/1000);
-			Environment.setWindSpeed(alt/6000);
-			envData = Environment.getAndUpdateEnvironmentParams(new double[] {0, 0, alt});
+			environment.setWindDir(alt*6/1000);
+			environment.setWindSpeed(alt/6000);
+			envData = environment.getAndUpdateEnvironmentParams(new double[] {0, 0, alt});
 			
 			// Add envData to each XYSeries
-			tData.add(alt,envData.get(EnvironmentParameters.T));
-			pData.add(alt,envData.get(EnvironmentParameters.P));
-			rhoData.add(alt,envData.get(EnvironmentParameters.RHO));
-			aData.add(alt,envData.get(EnvironmentParameters.A));
+			tData.add(alt,envData[EnvironmentParameters.T.ordinal()]);
+			pData.add(alt,envData[EnvironmentParameters.P.ordinal()]);
+			rhoData.add(alt,envData[EnvironmentParameters.RHO.ordinal()]);
+			aData.add(alt,envData[EnvironmentParameters.A.ordinal()]);
 			
-			gravData.add(alt,envData.get(EnvironmentParameters.GRAVITY));
+			gravData.add(alt,envData[EnvironmentParameters.GRAVITY.ordinal()]);
 			
-			windSpdNData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_N));
-			windSpdEData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_E));
-			windSpdDData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_D));
+			windSpdNData.add(alt,envData[EnvironmentParameters.WIND_SPEED_N.ordinal()]);
+			windSpdEData.add(alt,envData[EnvironmentParameters.WIND_SPEED_E.ordinal()]);
+			windSpdDData.add(alt,envData[EnvironmentParameters.WIND_SPEED_D.ordinal()]);
 		}
 		
 		// Add series data to XYSeriesCollections
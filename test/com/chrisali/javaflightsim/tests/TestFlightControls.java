@@ -19,10 +19,9 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.tests;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.interfaces.SimulationController;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
 import com.chrisali.javaflightsim.simulation.setup.Options;
@@ -43,7 +42,7 @@ public class TestFlightControls implements Runnable {
 		simController = new LWJGLSwingSimulationController(FileUtilities.readSimulationConfiguration());
 		simController.getConfiguration().getSimulationOptions().add(Options.USE_JOYSTICK);
 		
-		flightControls = new FlightControlsStateManager(simController, new AtomicInteger(0));
+		flightControls = new FlightControlsStateManager(new SimulationContext(simController));
 	}
 	
 	@Override
@@ -26,6 +26,7 @@ import javax.swing.SwingUtilities;
 
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataDelivery;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.simulation.setup.Options;
@@ -61,7 +62,7 @@ public class TestInstrumentPanel {
 		SimulationRunner runner = new SimulationRunner(controller);
 		
 		InstrumentPanel panel = new InstrumentPanel();
-		runner.addFlightDataListener(panel);
+		runner.subscribeFlightData(panel, 0, FlightDataDelivery.SWING_EDT);
 		
 		new Thread(runner).start();
 		
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOutFrame;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegrationMethod;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Benchmarks the convergence of {@link Integrate6DOFEquations} by flying the same perturbed trajectory at several time 
+ * steps with each {@link IntegrationMethod}, and comparing the final states of each run against those of a reference run 
+ * with a very small time step. The position and attitude errors are logged along with the number of steps integrated per second 
+ * of wall time and the number of force evaluations per second of simulated time
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestIntegrationConvergence {
+	
+	//Logging
+	private static final Logger logger = LogManager.getLogger(TestIntegrationConvergence.class);
+	
+	private static final double RUN_TIME_SEC   = 30.0;
+	private static final double REFERENCE_DT   = 1.0/1000.0;
+	private static final double[] TIME_STEPS   = {1.0/240.0, 1.0/120.0, 1.0/60.0, 1.0/50.0, 1.0/30.0};
+	
+	public TestIntegrationConvergence() {
+		logger.info("Running reference trajectory at " + (int)(1/REFERENCE_DT) + " Hz...");
+		SimOutFrame reference = new SimOutFrame(runSimulation(IntegrationMethod.RUNGE_KUTTA_4, REFERENCE_DT).getSimOut());
+		
+		for (IntegrationMethod method : IntegrationMethod.values()) {
+			for (double dt : TIME_STEPS) {
+				long startTime = System.nanoTime();
+				Integrate6DOFEquations simulation = runSimulation(method, dt);
+				double elapsedSec = (System.nanoTime() - startTime)/1e9;
+				
+				logResults(method, dt, simulation, reference, elapsedSec);
+			}
+		}
+	}
+	
+	/**
+	 * Logs the errors of a simulation's final states compared to the reference, its force evaluations per second of simulated time 
+	 * and its steps per second of wall time
+	 * 
+	 * @param method
+	 * @param dt
+	 * @param simulation
+	 * @param reference
+	 * @param elapsedSec
+	 */
+	private void logResults(IntegrationMethod method, double dt, Integrate6DOFEquations simulation, SimOutFrame reference, double elapsedSec) {
+		SimOutFrame result = simulation.getSimOut();
+			
+		double positionError = Math.sqrt(Math.pow(result.get(SimOuts.NORTH) - reference.get(SimOuts.NORTH), 2) +
+										 Math.pow(result.get(SimOuts.EAST)  - reference.get(SimOuts.EAST), 2)  +
+										 Math.pow(result.get(SimOuts.ALT)   - reference.get(SimOuts.ALT), 2));
+		
+		double attitudeError = Math.toDegrees(Math.max(Math.abs(result.get(SimOuts.PHI)   - reference.get(SimOuts.PHI)), 
+											  Math.max(Math.abs(result.get(SimOuts.THETA) - reference.get(SimOuts.THETA)), 
+													   Math.abs(result.get(SimOuts.PSI)   - reference.get(SimOuts.PSI)))));
+		
+		logger.info(String.format("%-24s %6.1f Hz: position error %.3e ft, attitude error %.3e deg, %6.0f force evaluations/sim sec, %8.0f steps/sec", 
+								  method, 1/dt, positionError, attitudeError, simulation.getForceEvaluations()/RUN_TIME_SEC, 
+								  Math.round(RUN_TIME_SEC/dt)/elapsedSec));
+	}
+	
+	/**
+	 * Integrates a trajectory with the specified time step, starting from the trimmed initial conditions plus a pitch and roll 
+	 * rate perturbation to excite the aircraft's dynamic modes
+	 * 
+	 * @param method
+	 * @param dt
+	 * @return simulation at the end of the run
+	 */
+	private Integrate6DOFEquations runSimulation(IntegrationMethod method, double dt) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		
+		configuration.getSimulationOptions().clear();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		configuration.getIntegratorConfig().put(IntegratorConfig.DT, dt);
+		configuration.setIntegrationMethod(method);
+		configuration.getInitialConditions().put(InitialConditions.INITP, 0.2);
+		configuration.getInitialConditions().put(InitialConditions.INITQ, 0.1);
+		
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), configuration);
+		
+		long steps = Math.round(RUN_TIME_SEC/dt);
+		for (long i = 0; i < steps; i++) {
+			simulation.step();
+			
+			// Logging isn't needed past the latest step; keep memory in check at small time steps
+			if (i % 1000 == 0)
+				simulation.clearLogsOut();
+		}
+		
+		return simulation;
+	}
+	
+	public static void main(String[] args) {new TestIntegrationConvergence();}
+}
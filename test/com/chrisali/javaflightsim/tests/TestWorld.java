@@ -31,8 +31,7 @@ public class TestWorld {
 		
 		LWJGLWorld world = new LWJGLWorld(new LWJGLSwingSimulationController(configuration));
 		
-		while (true) {
-			world.step();
-		}
+		// Render thread runs until the display window is closed
+		world.init();
 	}
 }